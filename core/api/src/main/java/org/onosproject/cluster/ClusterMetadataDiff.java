@@ -67,8 +67,23 @@ public class ClusterMetadataDiff {
     }
 
     /**
-     * Returns a mapping of all partition diffs.
-     * @return partition diffs.
+     * Returns the set of {@link Partition partitions} added with this metadata change.
+     * @return set of partitions
+     */
+    public Set<Partition> partitionsAdded() {
+        Set<PartitionId> oldPartitionIds = oldValue == null ? ImmutableSet.of() : oldValue.getPartitions()
+                .stream()
+                .map(Partition::getId)
+                .collect(Collectors.toSet());
+        return newValue == null ? ImmutableSet.of() : newValue.getPartitions()
+                .stream()
+                .filter(p -> !oldPartitionIds.contains(p.getId()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns a mapping of all partition diffs. Partitions may be added but not removed.
+     * @return partition diffs for the partitions present in both metadata values
      */
     public Map<PartitionId, PartitionDiff> partitionDiffs() {
         Map<PartitionId, Partition> oldPartitions = Maps.newHashMap();
@@ -77,8 +92,8 @@ public class ClusterMetadataDiff {
         Map<PartitionId, Partition> newPartitions = Maps.newHashMap();
         newValue.getPartitions()
                 .forEach(p -> newPartitions.put(p.getId(), p));
-        checkState(Sets.symmetricDifference(oldPartitions.keySet(), newPartitions.keySet()).isEmpty(),
-                   "Number of partitions cannot change");
+        checkState(newPartitions.keySet().containsAll(oldPartitions.keySet()),
+                   "Partitions cannot be removed");
         Map<PartitionId, PartitionDiff> partitionDiffs = Maps.newHashMap();
         oldPartitions.forEach((k, v) -> {
             partitionDiffs.put(k, new PartitionDiff(v, newPartitions.get(k)));
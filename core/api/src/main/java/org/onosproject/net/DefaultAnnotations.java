@@ -15,13 +15,17 @@
  */
 package org.onosproject.net;
 
-import java.util.Collections;
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 
-import com.google.common.collect.Maps;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Maps.transformValues;
@@ -29,16 +33,32 @@ import static com.google.common.collect.Maps.transformValues;
 /**
  * Represents a set of simple annotations that can be used to add arbitrary
  * attributes to various parts of the data model.
+ * <p>
+ * Annotations are held as sorted arrays of keys and values. Keys, values and
+ * whole annotation sets are interned, so the same few keys and values
+ * repeated across devices, ports, links and hosts are stored only once, as
+ * are identical annotation sets. Merging walks the two sorted arrays and
+ * returns the base annotations when nothing changes.
+ * </p>
  */
 public final class DefaultAnnotations implements SparseAnnotations {
 
+    private static final Interner<String> STRINGS = Interners.newWeakInterner();
+    private static final Interner<DefaultAnnotations> INSTANCES = Interners.newWeakInterner();
+
+    private static final String[] NONE = new String[0];
+
     public static final SparseAnnotations EMPTY = DefaultAnnotations.builder().build();
 
-    private final Map<String, String> map;
+    private final String[] keys;
+    private final String[] values;
+    private final int hash;
 
     // For serialization
     private DefaultAnnotations() {
-        this.map = null;
+        this.keys = null;
+        this.values = null;
+        this.hash = 0;
     }
 
     @Override
@@ -52,13 +72,15 @@ public final class DefaultAnnotations implements SparseAnnotations {
 
         DefaultAnnotations that = (DefaultAnnotations) o;
 
-        return Objects.equals(this.map, that.map);
+        return this.hash == that.hash &&
+                Arrays.equals(this.keys, that.keys) &&
+                Arrays.equals(this.values, that.values);
 
     }
 
     @Override
     public int hashCode() {
-        return Objects.hashCode(this.map);
+        return hash;
     }
 
     /**
@@ -67,16 +89,29 @@ public final class DefaultAnnotations implements SparseAnnotations {
      * @return a copy of the contents of the annotations as a map.
      */
     public HashMap<String, String> asMap() {
-        return Maps.newHashMap(this.map);
+        HashMap<String, String> map = new HashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            map.put(keys[i], values[i]);
+        }
+        return map;
     }
 
     /**
-     * Creates a new set of annotations using clone of the specified hash map.
+     * Creates a new set of annotations from sorted, interned keys and
+     * their values.
      *
-     * @param map hash map of key/value pairs
+     * @param keys   sorted annotation keys
+     * @param values annotation values
      */
-    private DefaultAnnotations(Map<String, String> map) {
-        this.map = map;
+    private DefaultAnnotations(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+        this.hash = 31 * Arrays.hashCode(keys) + Arrays.hashCode(values);
+    }
+
+    // returns the canonical instance of the given annotations
+    private static DefaultAnnotations create(String[] keys, String[] values) {
+        return INSTANCES.intern(new DefaultAnnotations(keys, values));
     }
 
     /**
@@ -106,19 +141,7 @@ public final class DefaultAnnotations implements SparseAnnotations {
         if (sparseAnnotations == null || sparseAnnotations.keys().isEmpty()) {
             return annotations;
         }
-
-        // Merge the two maps. Yes, this is not very efficient, but the
-        // use-case implies small maps and infrequent merges, so we opt for
-        // simplicity.
-        Map<String, String> merged = copy(annotations.map);
-        for (String key : sparseAnnotations.keys()) {
-            if (sparseAnnotations.isRemoved(key)) {
-                merged.remove(key);
-            } else {
-                merged.put(key, sparseAnnotations.value(key));
-            }
-        }
-        return new DefaultAnnotations(merged);
+        return combine(annotations, of(sparseAnnotations), false);
     }
 
     /**
@@ -145,69 +168,144 @@ public final class DefaultAnnotations implements SparseAnnotations {
             return sparseAnnotations;
         }
 
-        final HashMap<String, String> newMap;
+        return combine(of(annotations), of(sparseAnnotations), true);
+    }
+
+    // returns the given sparse annotations in their array form
+    private static DefaultAnnotations of(SparseAnnotations annotations) {
         if (annotations instanceof DefaultAnnotations) {
-            newMap = copy(((DefaultAnnotations) annotations).map);
-        } else {
-            newMap = new HashMap<>(annotations.keys().size() +
-                                   sparseAnnotations.keys().size());
-            putAllSparseAnnotations(newMap, annotations);
+            return (DefaultAnnotations) annotations;
         }
-
-        putAllSparseAnnotations(newMap, sparseAnnotations);
-        return new DefaultAnnotations(newMap);
+        Builder builder = builder();
+        for (String key : annotations.keys()) {
+            if (annotations.isRemoved(key)) {
+                builder.remove(key);
+            } else {
+                builder.set(key, annotations.value(key));
+            }
+        }
+        return builder.build();
     }
 
-    // adds the key-values contained in sparseAnnotations to
-    // newMap, if sparseAnnotations had a key tagged for removal,
-    // and corresponding key exist in newMap, entry will be removed.
-    // if corresponding key does not exist, removal tag will be added to
-    // the newMap.
-    private static void putAllSparseAnnotations(
-                            final HashMap<String, String> newMap,
-                            SparseAnnotations sparseAnnotations) {
-
-        for (String key : sparseAnnotations.keys()) {
-            if (sparseAnnotations.isRemoved(key)) {
-                if (newMap.containsKey(key)) {
-                    newMap.remove(key);
+    // Walks the sorted keys of the base and the update annotations. Keys of
+    // the update override those of the base. A key the update tags for
+    // removal is omitted if the base contains it; otherwise the removal tag
+    // is kept if requested, as for a union. The base annotations are returned
+    // when the update changes nothing.
+    private static DefaultAnnotations combine(DefaultAnnotations base, DefaultAnnotations update,
+                                              boolean keepRemovalTags) {
+        String[] bk = base.keys;
+        String[] bv = base.values;
+        String[] uk = update.keys;
+        String[] uv = update.values;
+        String[] keys = new String[bk.length + uk.length];
+        String[] values = new String[keys.length];
+        int i = 0;
+        int j = 0;
+        int n = 0;
+        boolean changed = false;
+        while (i < bk.length || j < uk.length) {
+            int order = i == bk.length ? 1 : j == uk.length ? -1 : bk[i].compareTo(uk[j]);
+            if (order < 0) {
+                keys[n] = bk[i];
+                values[n++] = bv[i++];
+                continue;
+            }
+            boolean inBase = order == 0;
+            String baseValue = inBase ? bv[i++] : null;
+            String key = uk[j];
+            String value = uv[j++];
+            if (Builder.REMOVED.equals(value)) {
+                if (!inBase && keepRemovalTags) {
+                    keys[n] = key;
+                    values[n++] = value;
+                    changed = true;
                 } else {
-                    newMap.put(key, Builder.REMOVED);
+                    changed |= inBase;
                 }
             } else {
-                String value = sparseAnnotations.value(key);
-                newMap.put(key, value);
+                keys[n] = key;
+                values[n++] = value;
+                changed |= !inBase || !Objects.equals(value, baseValue);
             }
         }
+        if (!changed) {
+            return base;
+        }
+        return create(Arrays.copyOf(keys, n), Arrays.copyOf(values, n));
+    }
+
+    private int indexOf(String key) {
+        return Arrays.binarySearch(keys, key);
     }
 
     @Override
     public Set<String> keys() {
-        return Collections.unmodifiableSet(map.keySet());
+        return new KeySet();
     }
 
     @Override
     public String value(String key) {
-        String value = map.get(key);
+        int index = indexOf(key);
+        if (index < 0) {
+            return null;
+        }
+        String value = values[index];
         return Objects.equals(Builder.REMOVED, value) ? null : value;
     }
 
     @Override
     public boolean isRemoved(String key) {
-        return Objects.equals(Builder.REMOVED, map.get(key));
+        int index = indexOf(key);
+        return index >= 0 && Objects.equals(Builder.REMOVED, values[index]);
     }
 
-    @SuppressWarnings("unchecked")
-    private static HashMap<String, String> copy(Map<String, String> original) {
-        if (original instanceof HashMap) {
-            return (HashMap<String, String>) ((HashMap<?, ?>) original).clone();
+    @Override
+    public String toString() {
+        if (keys == null) {
+            return "null";
         }
-        throw new IllegalArgumentException("Expecting HashMap instance");
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < keys.length; i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(keys[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
     }
 
-    @Override
-    public String toString() {
-        return (map == null) ? "null" : map.toString();
+    // read-only view of the sorted keys
+    private final class KeySet extends AbstractSet<String> {
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < keys.length;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return keys[next++];
+                }
+            };
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof String && indexOf((String) o) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return keys.length;
+        }
     }
 
     /**
@@ -231,7 +329,10 @@ public final class DefaultAnnotations implements SparseAnnotations {
          */
         public Builder putAll(Annotations base) {
             if (base instanceof DefaultAnnotations) {
-                builder.putAll(((DefaultAnnotations) base).map);
+                DefaultAnnotations annotations = (DefaultAnnotations) base;
+                for (int i = 0; i < annotations.keys.length; i++) {
+                    builder.put(annotations.keys[i], annotations.values[i]);
+                }
 
             } else if (base instanceof SparseAnnotations) {
                 final SparseAnnotations sparse = (SparseAnnotations) base;
@@ -293,7 +394,18 @@ public final class DefaultAnnotations implements SparseAnnotations {
          * @return annotations
          */
         public DefaultAnnotations build() {
-            return new DefaultAnnotations(copy(builder));
+            if (builder.isEmpty()) {
+                return create(NONE, NONE);
+            }
+            String[] keys = builder.keySet().toArray(new String[builder.size()]);
+            Arrays.sort(keys);
+            String[] values = new String[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                String value = builder.get(keys[i]);
+                values[i] = value == null ? null : STRINGS.intern(value);
+                keys[i] = STRINGS.intern(keys[i]);
+            }
+            return create(keys, values);
         }
     }
 }
@@ -17,6 +17,7 @@ package org.onosproject.net.packet;
 
 import org.onosproject.net.ConnectPoint;
 import org.onlab.packet.Ethernet;
+import org.onlab.packet.EthernetView;
 
 import java.nio.ByteBuffer;
 import java.util.Optional;
@@ -41,6 +42,17 @@ public interface InboundPacket {
      */
     Ethernet parsed();
 
+    /**
+     * Returns a view of the packet headers read straight from the unparsed
+     * packet data, for processors that only need to classify the packet
+     * and can do without the parsed form.
+     *
+     * @return view of the Ethernet frame
+     */
+    default EthernetView view() {
+        return EthernetView.of(unparsed());
+    }
+
     /**
      * Unparsed packet data.
      *
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence;
+
+/**
+ * Storage engines available for local persistent maps and sets.
+ */
+public enum PersistenceEngine {
+
+    /**
+     * MapDB backed file database, committed periodically.
+     */
+    MAPDB,
+
+    /**
+     * Append-only, memory-mapped segment log with a checksummed index.
+     * Writes are sequential appends and obsolete records are reclaimed by
+     * background compaction.
+     */
+    LOG
+}
@@ -40,6 +40,14 @@ public interface PersistentMapBuilder<K, V> {
      */
     PersistentMapBuilder<K, V> withSerializer(Serializer serializer);
 
+    /**
+     * Sets the storage engine backing this map; defaults to
+     * {@link PersistenceEngine#MAPDB} when not specified.
+     * @param engine the storage engine to be used
+     * @return a persistent map builder with the engine set
+     */
+    PersistentMapBuilder<K, V> withEngine(PersistenceEngine engine);
+
     /**
      * Validates the map settings and then builds this map in the database.  Throws an exception if invalid settings
      * are found.
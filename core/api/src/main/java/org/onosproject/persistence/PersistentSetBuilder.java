@@ -39,6 +39,14 @@ public interface PersistentSetBuilder<E> {
      */
     PersistentSetBuilder<E> withSerializer(Serializer serializer);
 
+    /**
+     * Sets the storage engine backing this set; defaults to
+     * {@link PersistenceEngine#MAPDB} when not specified.
+     * @param engine the storage engine to be used
+     * @return a persistent set builder with the engine set
+     */
+    PersistentSetBuilder<E> withEngine(PersistenceEngine engine);
+
     /**
      * Validates the set settings and then builds this map in the database.  Throws an exception if invalid settings
      * are found.
@@ -18,6 +18,7 @@ package org.onosproject.store.primitives;
 import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
@@ -32,6 +33,8 @@ import java.util.function.Predicate;
 
 import org.onlab.util.Tools;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
+import org.onosproject.store.service.CloseableIterator;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.ConsistentMapException.ConcurrentModification;
@@ -133,6 +136,21 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return complete(asyncMap.remove(key));
     }
 
+    @Override
+    public void putAll(Map<K, V> entries) {
+        complete(asyncMap.putAll(entries));
+    }
+
+    @Override
+    public Map<K, Versioned<V>> getAll(Collection<K> keys) {
+        return complete(asyncMap.getAll(keys));
+    }
+
+    @Override
+    public void removeAll(Collection<K> keys) {
+        complete(asyncMap.removeAll(keys));
+    }
+
     @Override
     public void clear() {
         complete(asyncMap.clear());
@@ -208,6 +226,11 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return asyncMap.statusChangeListeners();
     }
 
+    @Override
+    public CloseableIterator<Entry<K, Versioned<V>>> iterator() {
+        return new ConsistentMapIterator<>(complete(asyncMap.iterator()));
+    }
+
     @Override
     public Map<K, V> asJavaMap() {
         synchronized (this) {
@@ -223,6 +246,47 @@ public class DefaultConsistentMap<K, V> extends Synchronous<AsyncConsistentMap<K
         return asJavaMap().toString();
     }
 
+    /**
+     * Blocking iterator over an asynchronous map iterator, closing it once
+     * exhausted.
+     */
+    private class ConsistentMapIterator<E> implements CloseableIterator<E> {
+        private final AsyncIterator<E> iterator;
+        private boolean closed;
+
+        ConsistentMapIterator(AsyncIterator<E> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (closed) {
+                return false;
+            }
+            boolean hasNext = complete(iterator.hasNext());
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public E next() {
+            if (closed) {
+                throw new NoSuchElementException();
+            }
+            return complete(iterator.next());
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                complete(iterator.close());
+            }
+        }
+    }
+
     private <T> T complete(CompletableFuture<T> future) {
         try {
             return future.get(operationTimeoutMillis, TimeUnit.MILLISECONDS);
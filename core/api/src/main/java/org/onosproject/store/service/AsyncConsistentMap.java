@@ -17,6 +17,7 @@
 package org.onosproject.store.service;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
@@ -26,6 +27,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.MoreExecutors;
 import org.onosproject.store.primitives.DefaultConsistentMap;
 import org.onosproject.store.primitives.MapUpdate;
@@ -212,6 +214,58 @@ public interface AsyncConsistentMap<K, V> extends DistributedPrimitive, Transact
      */
     CompletableFuture<Versioned<V>> remove(K key);
 
+    /**
+     * Associates the specified values with their keys in this map (optional operation).
+     * <p>
+     * Implementations may apply all mappings that fall within the same partition as a
+     * single atomic update, which is considerably cheaper than storing them one by one.
+     * The default implementation stores each mapping individually.
+     *
+     * @param entries mappings to be stored in this map
+     * @return future that will be successfully completed when all mappings are stored
+     */
+    default CompletableFuture<Void> putAll(Map<K, V> entries) {
+        return CompletableFuture.allOf(entries.entrySet().stream()
+                .map(entry -> put(entry.getKey(), entry.getValue()))
+                .toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Returns the values (and versions) to which the specified keys are mapped.
+     * <p>
+     * Implementations may read all keys that fall within the same partition in a
+     * single operation. The default implementation reads each key individually.
+     *
+     * @param keys keys whose associated values are to be returned
+     * @return future for a map of the keys present in this map to their values
+     */
+    default CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        Map<K, Versioned<V>> values = Maps.newConcurrentMap();
+        return CompletableFuture.allOf(keys.stream()
+                .map(key -> get(key).thenAccept(value -> {
+                    if (value != null) {
+                        values.put(key, value);
+                    }
+                }))
+                .toArray(CompletableFuture[]::new))
+                .thenApply(v -> values);
+    }
+
+    /**
+     * Removes the mappings for the specified keys from this map if present (optional operation).
+     * <p>
+     * Implementations may remove all keys that fall within the same partition as a
+     * single atomic update. The default implementation removes each key individually.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     * @return future that will be successfully completed when all mappings are removed
+     */
+    default CompletableFuture<Void> removeAll(Collection<K> keys) {
+        return CompletableFuture.allOf(keys.stream()
+                .map(this::remove)
+                .toArray(CompletableFuture[]::new));
+    }
+
     /**
      * Removes all of the mappings from this map (optional operation).
      * The map will be empty after this call returns.
@@ -252,6 +306,24 @@ public interface AsyncConsistentMap<K, V> extends DistributedPrimitive, Transact
      */
     CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet();
 
+    /**
+     * Returns an iterator over the entries contained in this map.
+     * <p>
+     * Unlike {@link #entrySet()}, implementations may fetch entries in batches as
+     * the iterator advances, so that large maps can be traversed with bounded
+     * memory. The iterator reflects the entries present as it advances; entries
+     * added or removed during the iteration may or may not be returned.
+     * Iterators should be closed when abandoned; implementations may release
+     * iterators left idle for several minutes, after which they fail with a
+     * {@link ConsistentMapException}.
+     * The default implementation iterates over a snapshot of {@link #entrySet()}.
+     *
+     * @return future for an iterator over the entries contained in this map
+     */
+    default CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return entrySet().thenApply(entries -> AsyncIterator.of(entries.iterator()));
+    }
+
     /**
      * If the specified key is not already associated with a value associates
      * it with the given value and returns null, else behaves as a get
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous iterator over the contents of a distributed primitive.
+ * <p>
+ * Implementations may fetch the contents in batches as the iterator advances,
+ * so that large primitives can be traversed with bounded memory. Iterators are
+ * not thread safe and reflect a weakly consistent view of the primitive.
+ *
+ * @param <T> element type
+ */
+public interface AsyncIterator<T> {
+
+    /**
+     * Returns whether the iterator has a next element.
+     *
+     * @return future to be completed with whether the iterator has a next element
+     */
+    CompletableFuture<Boolean> hasNext();
+
+    /**
+     * Returns the next element.
+     *
+     * @return future to be completed with the next element
+     * @throws java.util.NoSuchElementException if the iterator has no more elements
+     */
+    CompletableFuture<T> next();
+
+    /**
+     * Releases any resources held by the iterator before it is exhausted.
+     *
+     * @return future to be completed once the iterator is closed
+     */
+    default CompletableFuture<Void> close() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Returns an asynchronous iterator over the elements of a local iterator.
+     *
+     * @param iterator local iterator
+     * @param <T> element type
+     * @return asynchronous iterator
+     */
+    static <T> AsyncIterator<T> of(Iterator<T> iterator) {
+        return new AsyncIterator<T>() {
+            @Override
+            public CompletableFuture<Boolean> hasNext() {
+                return CompletableFuture.completedFuture(iterator.hasNext());
+            }
+
+            @Override
+            public CompletableFuture<T> next() {
+                return CompletableFuture.completedFuture(iterator.next());
+            }
+        };
+    }
+}
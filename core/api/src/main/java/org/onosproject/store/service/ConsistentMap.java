@@ -25,6 +25,7 @@ import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 
+import com.google.common.collect.Maps;
 import com.google.common.util.concurrent.MoreExecutors;
 
 /**
@@ -180,6 +181,45 @@ public interface ConsistentMap<K, V> extends DistributedPrimitive {
      */
     Versioned<V> remove(K key);
 
+    /**
+     * Associates the specified values with their keys in this map (optional operation).
+     * Implementations may apply all mappings that fall within the same partition as a
+     * single atomic update.
+     *
+     * @param entries mappings to be stored in this map
+     */
+    default void putAll(Map<K, V> entries) {
+        entries.forEach(this::put);
+    }
+
+    /**
+     * Returns the values (and versions) to which the specified keys are mapped.
+     *
+     * @param keys keys whose associated values are to be returned
+     * @return map of the keys present in this map to their values
+     */
+    default Map<K, Versioned<V>> getAll(Collection<K> keys) {
+        Map<K, Versioned<V>> values = Maps.newHashMap();
+        keys.forEach(key -> {
+            Versioned<V> value = get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        return values;
+    }
+
+    /**
+     * Removes the mappings for the specified keys from this map if present (optional operation).
+     * Implementations may remove all keys that fall within the same partition as a
+     * single atomic update.
+     *
+     * @param keys keys whose mappings are to be removed from the map
+     */
+    default void removeAll(Collection<K> keys) {
+        keys.forEach(this::remove);
+    }
+
     /**
      * Removes all of the mappings from this map (optional operation).
      * The map will be empty after this call returns.
@@ -219,6 +259,20 @@ public interface ConsistentMap<K, V> extends DistributedPrimitive {
      */
     Set<Entry<K, Versioned<V>>> entrySet();
 
+    /**
+     * Returns an iterator over the entries contained in this map.
+     * Implementations may fetch entries in batches as the iterator advances,
+     * so that large maps can be traversed with bounded memory. The batches of
+     * an iterator are released once it is exhausted or closed; those of an
+     * iterator abandoned part way through without being closed are released
+     * after several minutes of inactivity.
+     *
+     * @return iterator over the entries contained in this map
+     */
+    default CloseableIterator<Entry<K, Versioned<V>>> iterator() {
+        return CloseableIterator.of(entrySet().iterator());
+    }
+
     /**
      * If the specified key is not already associated with a value
      * associates it with the given value and returns null, else returns the current value.
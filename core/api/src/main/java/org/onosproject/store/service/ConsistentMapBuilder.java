@@ -28,6 +28,8 @@ public abstract class ConsistentMapBuilder<K, V>
 
     private boolean nullValues = false;
     private boolean purgeOnUninstall = false;
+    private boolean localReplica = false;
+    private ReadConsistency readConsistency = ReadConsistency.SEQUENTIAL;
 
     public ConsistentMapBuilder() {
         super(DistributedPrimitive.Type.CONSISTENT_MAP);
@@ -53,6 +55,30 @@ public abstract class ConsistentMapBuilder<K, V>
         return this;
     }
 
+    /**
+     * Keeps a full replica of the map locally, kept current by map events, and
+     * serves all reads from it. Intended for small, read-mostly maps.
+     *
+     * @return this builder
+     */
+    public ConsistentMapBuilder<K, V> withLocalReplica() {
+        localReplica = true;
+        return this;
+    }
+
+    /**
+     * Sets the consistency of read operations on the map.
+     * <p>
+     * Defaults to {@link ReadConsistency#SEQUENTIAL}.
+     *
+     * @param readConsistency read consistency
+     * @return this builder
+     */
+    public ConsistentMapBuilder<K, V> withReadConsistency(ReadConsistency readConsistency) {
+        this.readConsistency = readConsistency;
+        return this;
+    }
+
     /**
      * Returns whether null values are supported by the map.
      *
@@ -70,6 +96,24 @@ public abstract class ConsistentMapBuilder<K, V>
         return purgeOnUninstall;
     }
 
+    /**
+     * Returns whether reads are served from a full local replica of the map.
+     *
+     * @return {@code true} if yes; {@code false} otherwise
+     */
+    public boolean localReplica() {
+        return localReplica;
+    }
+
+    /**
+     * Returns the consistency of read operations on the map.
+     *
+     * @return read consistency
+     */
+    public ReadConsistency readConsistency() {
+        return readConsistency;
+    }
+
     /**
      * Builds an async consistent map based on the configuration options
      * supplied to this builder.
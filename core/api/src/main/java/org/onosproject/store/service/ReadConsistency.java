@@ -0,0 +1,36 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.service;
+
+/**
+ * Consistency of read operations on a distributed primitive.
+ */
+public enum ReadConsistency {
+
+    /**
+     * Indicates that reads are linearizable and served by the partition leader.
+     * Reads always reflect the latest committed state at the cost of a round
+     * trip to the leader.
+     */
+    LINEARIZABLE,
+
+    /**
+     * Indicates that reads are sequentially consistent and may be served by any
+     * partition member. Reads are monotonic and reflect all prior writes of
+     * the same client, but may lag behind writes of other clients.
+     */
+    SEQUENTIAL
+}
@@ -94,4 +94,34 @@ public class ClusterMetadataDiffTest {
         assertFalse(pdiff.isRemoved(nid1));
         assertFalse(pdiff.isAdded(nid1));
     }
+
+    @Test
+    public void testDiffForPartitionAdded() {
+        PartitionId pid1 = PartitionId.from(1);
+        PartitionId pid2 = PartitionId.from(2);
+        NodeId nid1 = NodeId.nodeId("10.0.0.1");
+        ControllerNode n1 = new DefaultControllerNode(nid1, IpAddress.valueOf("10.0.0.1"), 9876);
+        Partition p1 = new DefaultPartition(pid1, Version.version("1.0.0"), ImmutableSet.of(nid1));
+        Partition p2 = new DefaultPartition(pid2, Version.version("1.0.0"), ImmutableSet.of(nid1));
+        ClusterMetadata md1 = new ClusterMetadata("foo", ImmutableSet.of(n1), ImmutableSet.of(p1));
+        ClusterMetadata md12 = new ClusterMetadata("foo", ImmutableSet.of(n1), ImmutableSet.of(p1, p2));
+        ClusterMetadataDiff diff = new ClusterMetadataDiff(md1, md12);
+        assertEquals(diff.partitionsAdded(), Sets.newHashSet(p2));
+        assertEquals(diff.partitionDiffs().keySet(), Sets.newHashSet(pid1));
+        assertFalse(diff.partitionDiffs().get(pid1).hasChanged());
+        assertTrue(new ClusterMetadataDiff(md1, md1).partitionsAdded().isEmpty());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDiffForPartitionRemoved() {
+        PartitionId pid1 = PartitionId.from(1);
+        PartitionId pid2 = PartitionId.from(2);
+        NodeId nid1 = NodeId.nodeId("10.0.0.1");
+        ControllerNode n1 = new DefaultControllerNode(nid1, IpAddress.valueOf("10.0.0.1"), 9876);
+        Partition p1 = new DefaultPartition(pid1, Version.version("1.0.0"), ImmutableSet.of(nid1));
+        Partition p2 = new DefaultPartition(pid2, Version.version("1.0.0"), ImmutableSet.of(nid1));
+        ClusterMetadata md1 = new ClusterMetadata("foo", ImmutableSet.of(n1), ImmutableSet.of(p1));
+        ClusterMetadata md12 = new ClusterMetadata("foo", ImmutableSet.of(n1), ImmutableSet.of(p1, p2));
+        new ClusterMetadataDiff(md12, md1).partitionDiffs();
+    }
 }
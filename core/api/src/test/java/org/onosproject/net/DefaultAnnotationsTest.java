@@ -92,6 +92,36 @@ public class DefaultAnnotationsTest {
                    DefaultAnnotations.merge(annotations, null));
     }
 
+    @Test
+    public void unchangedMerge() {
+        annotations = builder().set("foo", "1").set("bar", "2").build();
+        SparseAnnotations updates = builder().set("foo", "1").remove("buz").build();
+        assertSame("same annotations expected", annotations,
+                   DefaultAnnotations.merge(annotations, updates));
+    }
+
+    @Test
+    public void interned() {
+        annotations = builder().set("foo", new String("1")).set("bar", "2").build();
+        DefaultAnnotations other = builder().set("bar", "2").set(new String("foo"), "1").build();
+        assertSame("same annotations expected", annotations, other);
+
+        DefaultAnnotations merged = DefaultAnnotations.merge(builder().set("foo", "1").build(),
+                                                             builder().set("bar", "2").build());
+        assertSame("same annotations expected", annotations, merged);
+        assertEquals("incorrect string form", "{bar=2, foo=1}", merged.toString());
+    }
+
+    @Test
+    public void sharedStrings() {
+        // keys and values decoded from the wire arrive as distinct copies
+        annotations = builder().set(new String("name"), "eth1").set(new String("state"), new String("up")).build();
+        DefaultAnnotations other = builder().set(new String("name"), "eth2")
+                .set(new String("state"), new String("up")).build();
+        assertSame("same value expected", annotations.value("state"), other.value("state"));
+        assertSame("same key expected", annotations.keys().iterator().next(), other.keys().iterator().next());
+    }
+
     @Test(expected = NullPointerException.class)
     public void badMerge() {
         DefaultAnnotations.merge(null, null);
@@ -17,6 +17,7 @@ package org.onosproject.net.packet;
 
 import java.nio.ByteBuffer;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.onlab.packet.Ethernet;
@@ -87,4 +88,26 @@ public class DefaultInboundPacketTest {
         assertThat(packet1.unparsed(), notNullValue());
         assertThat(packet1.cookie(), equalTo(Optional.of(1L)));
     }
+
+    /**
+     * Tests that a lazily parsed packet is parsed once and only when its
+     * parsed form is asked for.
+     */
+    @Test
+    public void testLazyParsing() {
+        AtomicInteger parses = new AtomicInteger();
+        DefaultInboundPacket packet =
+                new DefaultInboundPacket(connectPoint("d1", 1),
+                        () -> {
+                            parses.incrementAndGet();
+                            return eth;
+                        },
+                        byteBuffer,
+                        Optional.empty());
+        assertThat(packet.view().destinationMac(), equalTo(MacAddress.BROADCAST));
+        assertThat(parses.get(), equalTo(0));
+        assertThat(packet.parsed(), equalTo(eth));
+        assertThat(packet.parsed(), equalTo(eth));
+        assertThat(parses.get(), equalTo(1));
+    }
 }
@@ -17,6 +17,7 @@ package org.onosproject.store.persistence;
 
 import java.util.Map;
 
+import org.onosproject.persistence.PersistenceEngine;
 import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.persistence.PersistentSetBuilder;
 import org.onosproject.store.service.Serializer;
@@ -49,6 +50,11 @@ public class TestPersistenceService extends PersistenceServiceAdapter {
             return this;
         }
 
+        @Override
+        public PersistentMapBuilder<K, V> withEngine(PersistenceEngine engine) {
+            return this;
+        }
+
         @Override
         public Map<K, V> build() {
             return Maps.newConcurrentMap();
@@ -18,6 +18,7 @@ package org.onosproject.store.primitives;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +31,8 @@ import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.onosproject.store.service.AsyncConsistentMapAdapter;
+import org.onosproject.store.service.AsyncIterator;
+import org.onosproject.store.service.CloseableIterator;
 import org.onosproject.store.service.ConsistentMap;
 import org.onosproject.store.service.DistributedPrimitive;
 import org.onosproject.store.service.MapEvent;
@@ -341,4 +344,66 @@ public class DefaultConsistentMapTest {
         assertThat(newMap.statusChangeListeners(), not(hasItem(consumer)));
     }
 
+    /**
+     * Tests that map iterators are closed once exhausted, or when closed
+     * part way through.
+     */
+    @Test
+    public void testIteratorClosed() {
+        Map<String, String> baseMap = new HashMap<>();
+        baseMap.put(KEY1, VALUE1);
+        baseMap.put(KEY2, VALUE2);
+        List<AsyncIterator<Map.Entry<String, Versioned<String>>>> closed = new ArrayList<>();
+        AsyncConsistentMapMock<String, String> asyncMap = new AsyncConsistentMapMock<String, String>(baseMap) {
+            @Override
+            public CompletableFuture<AsyncIterator<Map.Entry<String, Versioned<String>>>> iterator() {
+                return entrySet().thenApply(entries -> new ClosingIterator<>(entries.iterator(), closed));
+            }
+        };
+        ConsistentMap<String, String> newMap = new DefaultConsistentMap<>(asyncMap, 11);
+
+        CloseableIterator<Map.Entry<String, Versioned<String>>> exhausted = newMap.iterator();
+        int count = 0;
+        while (exhausted.hasNext()) {
+            exhausted.next();
+            count++;
+        }
+        assertThat(count, is(2));
+        assertThat(closed, hasSize(1));
+        exhausted.close();
+        assertThat(closed, hasSize(1));
+
+        try (CloseableIterator<Map.Entry<String, Versioned<String>>> abandoned = newMap.iterator()) {
+            assertThat(abandoned.hasNext(), is(true));
+            abandoned.next();
+        }
+        assertThat(closed, hasSize(2));
+    }
+
+    // iterator recording when it is closed
+    private static class ClosingIterator<E> implements AsyncIterator<E> {
+        private final Iterator<E> iterator;
+        private final List<AsyncIterator<E>> closed;
+
+        ClosingIterator(Iterator<E> iterator, List<AsyncIterator<E>> closed) {
+            this.iterator = iterator;
+            this.closed = closed;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            return CompletableFuture.completedFuture(iterator.hasNext());
+        }
+
+        @Override
+        public CompletableFuture<E> next() {
+            return CompletableFuture.completedFuture(iterator.next());
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            closed.add(this);
+            return CompletableFuture.completedFuture(null);
+        }
+    }
 }
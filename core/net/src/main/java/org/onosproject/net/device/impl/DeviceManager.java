@@ -22,11 +22,14 @@ import com.google.common.util.concurrent.Futures;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.incubator.net.config.basics.PortDescriptionsConfig;
@@ -73,10 +76,12 @@ import org.onosproject.store.cluster.messaging.MessageSubject;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.upgrade.UpgradeService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -90,6 +95,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -133,6 +139,19 @@ public class DeviceManager
 
     private final NetworkConfigListener networkConfigListener = new InternalNetworkConfigListener();
 
+    @Property(name = "portUpdateCoalesceMs", intValue = 0,
+            label = "Window in millis over which port updates of a device are coalesced " +
+                    "into a single store update; 0 applies every update immediately")
+    private int portUpdateCoalesceMs = 0;
+
+    private ScheduledExecutorService portUpdateExecutor;
+
+    // port updates of each device waiting for the coalescing window to close
+    private final Map<DeviceId, PendingPortUpdates> pendingPortUpdates = Maps.newConcurrentMap();
+
+    // latest mastership event of each device not yet handled
+    private final Map<DeviceId, MastershipEvent> pendingMastershipEvents = Maps.newConcurrentMap();
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DeviceStore store;
 
@@ -154,6 +173,9 @@ public class DeviceManager
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterCommunicationService communicationService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
     private ExecutorService portReqeustExecutor;
     /**
      * List of all registered PortConfigOperator.
@@ -198,14 +220,18 @@ public class DeviceManager
             Maps.newConcurrentMap();
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
         portAnnotationOp = new PortAnnotationOperator(networkConfigService);
         deviceAnnotationOp = new DeviceAnnotationOperator(networkConfigService);
         portOpsIndex.put(PortAnnotationConfig.class, portAnnotationOp);
 
         backgroundService = newSingleThreadScheduledExecutor(
                 groupedThreads("onos/device", "manager-background", log));
+        portUpdateExecutor = newSingleThreadScheduledExecutor(
+                groupedThreads("onos/device", "port-updates", log));
         localNodeId = clusterService.getLocalNode().id();
+        cfgService.registerProperties(getClass());
+        modified(context);
 
         store.setDelegate(delegate);
         eventDispatcher.addSink(DeviceEvent.class, listenerRegistry);
@@ -234,6 +260,10 @@ public class DeviceManager
     @Deactivate
     public void deactivate() {
         backgroundService.shutdown();
+        cfgService.unregisterProperties(getClass(), false);
+        portUpdateCoalesceMs = 0;
+        flushPortUpdates();
+        portUpdateExecutor.shutdown();
         networkConfigService.removeListener(networkConfigListener);
         store.unsetDelegate(delegate);
         mastershipService.removeListener(mastershipListener);
@@ -243,6 +273,26 @@ public class DeviceManager
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Dictionary<?, ?> properties = context.getProperties();
+        Integer value = Tools.getIntegerProperty(properties, "portUpdateCoalesceMs");
+        if (value == null || value < 0) {
+            log.info("Port update coalescing is not configured, " +
+                             "using current value of {} ms", portUpdateCoalesceMs);
+        } else {
+            portUpdateCoalesceMs = value;
+            log.info("Configured. Port update coalescing window is {} ms", portUpdateCoalesceMs);
+        }
+        if (portUpdateCoalesceMs == 0) {
+            // apply whatever was still waiting for the previous window
+            flushPortUpdates();
+        }
+    }
+
     @Override
     public int getDeviceCount() {
         checkPermission(DEVICE_READ);
@@ -578,6 +628,7 @@ public class DeviceManager
             checkValidity();
             deviceLocalStatus.put(deviceId, new LocalStatus(false, Instant.now()));
             log.info("Device {} disconnected from this node", deviceId);
+            flushPortUpdates(deviceId);
 
             List<PortDescription> descs = store.getPortDescriptions(provider().id(), deviceId)
                     .map(desc -> ensurePortEnabledState(desc, false))
@@ -645,13 +696,14 @@ public class DeviceManager
             portDescriptions = portDescriptions.stream()
                     .map(e -> applyAllPortOps(deviceId, e))
                     .collect(Collectors.toList());
+            if (portUpdateCoalesceMs > 0) {
+                List<PortDescription> descs = portDescriptions;
+                enqueuePortUpdate(deviceId, pending -> pending.replaceAll(provider().id(), descs));
+                return;
+            }
             List<DeviceEvent> events = store.updatePorts(this.provider().id(),
                                                          deviceId, portDescriptions);
-            if (events != null) {
-                for (DeviceEvent event : events) {
-                    post(event);
-                }
-            }
+            postAll(events);
         }
 
         @Override
@@ -684,6 +736,11 @@ public class DeviceManager
             }
 
             portDescription = applyAllPortOps(deviceId, portDescription);
+            if (portUpdateCoalesceMs > 0) {
+                PortDescription desc = portDescription;
+                enqueuePortUpdate(deviceId, pending -> pending.change(provider().id(), desc));
+                return;
+            }
             final DeviceEvent event = store.updatePortStatus(this.provider().id(),
                                                              deviceId,
                                                              portDescription);
@@ -712,6 +769,7 @@ public class DeviceManager
             if (device == null) {
                 log.trace("Device not found: {}", deviceId);
             }
+            flushPortUpdates(deviceId);
 
             PortDescription newPortDescription = new DefaultPortDescription(basePortDescription.portNumber(),
                                                                             basePortDescription.isEnabled(),
@@ -791,6 +849,80 @@ public class DeviceManager
         return (cfg == null || cfg.isAllowed());
     }
 
+    private void postAll(List<DeviceEvent> events) {
+        if (events != null) {
+            for (DeviceEvent event : events) {
+                post(event);
+            }
+        }
+    }
+
+    /**
+     * Accumulates a port update of the given device, scheduling the
+     * accumulated updates to be applied once the coalescing window closes.
+     *
+     * @param deviceId device identifier
+     * @param update   update to accumulate
+     */
+    private void enqueuePortUpdate(DeviceId deviceId, Consumer<PendingPortUpdates> update) {
+        PendingPortUpdates pending =
+                pendingPortUpdates.computeIfAbsent(deviceId, k -> new PendingPortUpdates());
+        synchronized (pending) {
+            update.accept(pending);
+            if (!pending.markScheduled()) {
+                portUpdateExecutor.schedule(() -> flushPortUpdates(deviceId, pending),
+                                            portUpdateCoalesceMs, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Applies the port updates accumulated for all devices.
+     */
+    private void flushPortUpdates() {
+        pendingPortUpdates.forEach(this::flushPortUpdates);
+    }
+
+    /**
+     * Applies the port updates accumulated for the given device, so that
+     * they precede whatever is done to the device next.
+     *
+     * @param deviceId device identifier
+     */
+    private void flushPortUpdates(DeviceId deviceId) {
+        PendingPortUpdates pending = pendingPortUpdates.get(deviceId);
+        if (pending != null) {
+            flushPortUpdates(deviceId, pending);
+        }
+    }
+
+    private void flushPortUpdates(DeviceId deviceId, PendingPortUpdates pending) {
+        List<DeviceEvent> events;
+        synchronized (pending) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            ProviderId providerId = pending.providerId();
+            try {
+                if (pending.isSingleChange()) {
+                    DeviceEvent event = store.updatePortStatus(providerId, deviceId, pending.singleChange());
+                    events = event != null ? ImmutableList.of(event) : ImmutableList.of();
+                } else {
+                    List<PortDescription> descs = pending.merge(
+                            () -> store.getPortDescriptions(providerId, deviceId).collect(Collectors.toList()));
+                    log.trace("Applying {} coalesced port descriptions to {}", descs.size(), deviceId);
+                    events = store.updatePorts(providerId, deviceId, descs);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Unable to apply port updates to {}", deviceId, e);
+                return;
+            } finally {
+                pending.clear();
+            }
+        }
+        postAll(events);
+    }
+
     // Applies the specified role to the device; ignores NONE
 
     /**
@@ -939,11 +1071,24 @@ public class DeviceManager
 
         @Override
         public void event(MastershipEvent event) {
+            if (event.type() == MastershipEvent.Type.BACKUPS_CHANGED) {
+                // Don't care if backup list changed.
+                return;
+            }
+            // Only the latest event of a device matters, so events arriving
+            // while one is queued replace it instead of queueing behind it.
+            if (pendingMastershipEvents.put(event.subject(), event) != null) {
+                return;
+            }
             backgroundService.execute(() -> {
+                MastershipEvent latest = pendingMastershipEvents.remove(event.subject());
+                if (latest == null) {
+                    return;
+                }
                 try {
-                    handleMastershipEvent(event);
+                    handleMastershipEvent(latest);
                 } catch (Exception e) {
-                    log.warn("Failed to handle {}", event, e);
+                    log.warn("Failed to handle {}", latest, e);
                 }
             });
         }
@@ -956,6 +1101,7 @@ public class DeviceManager
             post(event);
             if (event.type().equals(DeviceEvent.Type.DEVICE_REMOVED)) {
                 deviceLocalStatus.remove(event.subject().id());
+                pendingPortUpdates.remove(event.subject().id());
             }
         }
     }
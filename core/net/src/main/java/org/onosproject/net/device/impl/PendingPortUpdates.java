@@ -0,0 +1,137 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.net.device.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.device.PortDescription;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Port updates of a device accumulated over the coalescing window, to be
+ * applied to the device store as a single update.
+ * <p>
+ * A full port list replaces everything accumulated before it, while a port
+ * status change replaces only the description of that port. Instances are
+ * guarded by their own monitor.
+ * </p>
+ */
+final class PendingPortUpdates {
+
+    private ProviderId providerId;
+    private List<PortDescription> ports;
+    private final Map<PortNumber, PortDescription> changes = Maps.newLinkedHashMap();
+    private boolean scheduled;
+
+    /**
+     * Replaces the accumulated updates with a full port list.
+     *
+     * @param providerId       provider reporting the ports
+     * @param portDescriptions complete list of port descriptions
+     */
+    void replaceAll(ProviderId providerId, List<PortDescription> portDescriptions) {
+        this.providerId = providerId;
+        this.ports = ImmutableList.copyOf(portDescriptions);
+        changes.clear();
+    }
+
+    /**
+     * Records a status change of a single port.
+     *
+     * @param providerId      provider reporting the change
+     * @param portDescription port description
+     */
+    void change(ProviderId providerId, PortDescription portDescription) {
+        this.providerId = providerId;
+        changes.put(portDescription.portNumber(), portDescription);
+    }
+
+    /**
+     * Returns whether nothing has been accumulated.
+     *
+     * @return true if there are no pending updates
+     */
+    boolean isEmpty() {
+        return ports == null && changes.isEmpty();
+    }
+
+    /**
+     * Returns whether the pending updates consist of a single port status
+     * change, which is best applied as such.
+     *
+     * @return true if only one port changed
+     */
+    boolean isSingleChange() {
+        return ports == null && changes.size() == 1;
+    }
+
+    /**
+     * Returns the provider that reported the latest update.
+     *
+     * @return provider identifier
+     */
+    ProviderId providerId() {
+        return providerId;
+    }
+
+    /**
+     * Returns the single pending port status change.
+     *
+     * @return port description
+     */
+    PortDescription singleChange() {
+        return changes.values().iterator().next();
+    }
+
+    /**
+     * Returns the complete port list resulting from the pending updates.
+     *
+     * @param current supplier of the port descriptions currently in the
+     *                store, used when no full port list is pending
+     * @return complete list of port descriptions
+     */
+    List<PortDescription> merge(Supplier<List<PortDescription>> current) {
+        Map<PortNumber, PortDescription> merged = Maps.newLinkedHashMap();
+        (ports != null ? ports : current.get()).forEach(p -> merged.put(p.portNumber(), p));
+        merged.putAll(changes);
+        return ImmutableList.copyOf(merged.values());
+    }
+
+    /**
+     * Discards the pending updates.
+     */
+    void clear() {
+        ports = null;
+        changes.clear();
+        scheduled = false;
+    }
+
+    /**
+     * Marks a flush as scheduled, returning whether one already was.
+     *
+     * @return true if a flush was already scheduled
+     */
+    boolean markScheduled() {
+        boolean was = scheduled;
+        scheduled = true;
+        return was;
+    }
+}
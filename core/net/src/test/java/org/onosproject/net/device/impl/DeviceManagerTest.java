@@ -19,8 +19,10 @@ import com.google.common.collect.Sets;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onlab.packet.ChassisId;
 import org.onlab.packet.IpAddress;
+import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.ClusterServiceAdapter;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.DefaultControllerNode;
@@ -53,6 +55,8 @@ import org.onosproject.store.cluster.messaging.ClusterCommunicationServiceAdapte
 import org.onosproject.store.trivial.SimpleDeviceStore;
 
 import java.util.ArrayList;
+import java.util.Dictionary;
+import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
@@ -108,7 +112,8 @@ public class DeviceManagerTest {
         mgr.clusterService = new TestClusterService();
         mgr.networkConfigService = new TestNetworkConfigService();
         mgr.communicationService = new TestClusterCommunicationService();
-        mgr.activate();
+        mgr.cfgService = new ComponentConfigAdapter();
+        mgr.activate(null);
 
 
         service.addListener(listener);
@@ -218,6 +223,38 @@ public class DeviceManagerTest {
         assertTrue("no events expected", listener.events.isEmpty());
     }
 
+    @Test
+    public void coalescePortUpdates() {
+        mgr.modified(coalesceWindow(60000));
+        connectDevice(DID1, SW1);
+        validateEvents(DEVICE_ADDED);
+
+        List<PortDescription> pds = new ArrayList<>();
+        pds.add(new DefaultPortDescription(P1, true));
+        pds.add(new DefaultPortDescription(P2, true));
+        providerService.updatePorts(DID1, pds);
+        providerService.portStatusChanged(DID1, new DefaultPortDescription(P1, false));
+        providerService.portStatusChanged(DID1, new DefaultPortDescription(P3, true));
+        assertTrue("no events expected", listener.events.isEmpty());
+
+        // closing the window applies the accumulated updates at once
+        mgr.modified(coalesceWindow(0));
+        validateEvents(PORT_ADDED, PORT_ADDED, PORT_ADDED);
+        assertEquals("wrong port count", 3, service.getPorts(DID1).size());
+        assertFalse("incorrect state", service.getPort(DID1, P1).isEnabled());
+    }
+
+    private static ComponentContextAdapter coalesceWindow(int millis) {
+        return new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("portUpdateCoalesceMs", String.valueOf(millis));
+                return props;
+            }
+        };
+    }
+
     @Test
     public void getPorts() {
         connectDevice(DID1, SW1);
@@ -0,0 +1,214 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import org.onosproject.net.Annotations;
+import org.onosproject.net.DefaultPort;
+import org.onosproject.net.Element;
+import org.onosproject.net.Port;
+import org.onosproject.net.PortNumber;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Compact table of the ports of a device.
+ * <p>
+ * Port attributes are held in parallel primitive arrays sorted by port
+ * number, with annotations interned across all tables since most ports of
+ * a fabric share the same few annotation sets. {@link Port} instances are
+ * only materialized when read. All methods are synchronized on the table.
+ * </p>
+ */
+final class CompactPortTable {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final Port.Type[] TYPES = Port.Type.values();
+
+    private static final Interner<Annotations> ANNOTATIONS = Interners.newWeakInterner();
+
+    private Element element;
+    private int size;
+    private long[] numbers = new long[INITIAL_CAPACITY];
+    private long[] speeds = new long[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private boolean[] enabled = new boolean[INITIAL_CAPACITY];
+    private Annotations[] annotations = new Annotations[INITIAL_CAPACITY];
+    // allocated only once a named port number is stored
+    private String[] names;
+
+    /**
+     * Returns the port with the given number.
+     *
+     * @param number port number
+     * @return port or null if there is no such port
+     */
+    synchronized Port get(PortNumber number) {
+        int index = indexOf(number.toLong());
+        return index < 0 ? null : materialize(index);
+    }
+
+    /**
+     * Adds or replaces a port. Ports materialized afterwards belong to the
+     * element of the port added last.
+     *
+     * @param port port to store
+     */
+    synchronized void put(Port port) {
+        element = port.element();
+        int index = indexOf(port.number().toLong());
+        if (index < 0) {
+            index = -(index + 1);
+            insertAt(index);
+        }
+        numbers[index] = port.number().toLong();
+        speeds[index] = port.portSpeed();
+        types[index] = (byte) port.type().ordinal();
+        enabled[index] = port.isEnabled();
+        annotations[index] = ANNOTATIONS.intern(port.annotations());
+        if (port.number().hasName()) {
+            if (names == null) {
+                names = new String[numbers.length];
+            }
+            names[index] = port.number().name();
+        } else if (names != null) {
+            names[index] = null;
+        }
+    }
+
+    /**
+     * Removes the port with the given number.
+     *
+     * @param number port number
+     * @return removed port or null if there was no such port
+     */
+    synchronized Port remove(PortNumber number) {
+        int index = indexOf(number.toLong());
+        if (index < 0) {
+            return null;
+        }
+        Port removed = materialize(index);
+        removeAt(index);
+        return removed;
+    }
+
+    /**
+     * Removes all ports whose number is not in the given set.
+     *
+     * @param retained port numbers to keep
+     * @return removed ports
+     */
+    synchronized List<Port> retainAll(Set<PortNumber> retained) {
+        ImmutableList.Builder<Port> removed = ImmutableList.builder();
+        for (int i = size - 1; i >= 0; i--) {
+            if (!retained.contains(PortNumber.portNumber(numbers[i]))) {
+                removed.add(materialize(i));
+                removeAt(i);
+            }
+        }
+        return removed.build().reverse();
+    }
+
+    /**
+     * Returns all ports ordered by port number.
+     *
+     * @return list of ports
+     */
+    synchronized List<Port> ports() {
+        ImmutableList.Builder<Port> ports = ImmutableList.builder();
+        for (int i = 0; i < size; i++) {
+            ports.add(materialize(i));
+        }
+        return ports.build();
+    }
+
+    /**
+     * Returns the number of ports.
+     *
+     * @return port count
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes all ports.
+     */
+    synchronized void clear() {
+        Arrays.fill(annotations, 0, size, null);
+        if (names != null) {
+            Arrays.fill(names, 0, size, null);
+        }
+        size = 0;
+    }
+
+    private Port materialize(int index) {
+        PortNumber number = names != null && names[index] != null ?
+                PortNumber.portNumber(numbers[index], names[index]) :
+                PortNumber.portNumber(numbers[index]);
+        return new DefaultPort(element, number, enabled[index], TYPES[types[index]],
+                               speeds[index], annotations[index]);
+    }
+
+    private int indexOf(long number) {
+        return Arrays.binarySearch(numbers, 0, size, number);
+    }
+
+    private void insertAt(int index) {
+        if (size == numbers.length) {
+            int capacity = numbers.length * 2;
+            numbers = Arrays.copyOf(numbers, capacity);
+            speeds = Arrays.copyOf(speeds, capacity);
+            types = Arrays.copyOf(types, capacity);
+            enabled = Arrays.copyOf(enabled, capacity);
+            annotations = Arrays.copyOf(annotations, capacity);
+            if (names != null) {
+                names = Arrays.copyOf(names, capacity);
+            }
+        }
+        int moved = size - index;
+        System.arraycopy(numbers, index, numbers, index + 1, moved);
+        System.arraycopy(speeds, index, speeds, index + 1, moved);
+        System.arraycopy(types, index, types, index + 1, moved);
+        System.arraycopy(enabled, index, enabled, index + 1, moved);
+        System.arraycopy(annotations, index, annotations, index + 1, moved);
+        if (names != null) {
+            System.arraycopy(names, index, names, index + 1, moved);
+        }
+        size++;
+    }
+
+    private void removeAt(int index) {
+        int moved = size - index - 1;
+        System.arraycopy(numbers, index + 1, numbers, index, moved);
+        System.arraycopy(speeds, index + 1, speeds, index, moved);
+        System.arraycopy(types, index + 1, types, index, moved);
+        System.arraycopy(enabled, index + 1, enabled, index, moved);
+        System.arraycopy(annotations, index + 1, annotations, index, moved);
+        if (names != null) {
+            System.arraycopy(names, index + 1, names, index, moved);
+        }
+        size--;
+        annotations[size] = null;
+        if (names != null) {
+            names[size] = null;
+        }
+    }
+}
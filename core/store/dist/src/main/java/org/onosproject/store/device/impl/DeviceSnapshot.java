@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.device.impl;
+
+import org.onosproject.net.DeviceId;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Local snapshot of the GossipDeviceStore tables, preloaded on restart.
+ */
+public class DeviceSnapshot {
+
+    private final List<InternalDeviceEvent> devices = new ArrayList<>();
+    private final List<InternalPortStatusEvent> ports = new ArrayList<>();
+    private final List<InternalDeviceOfflineEvent> offline = new ArrayList<>();
+    private final Set<DeviceId> available = new HashSet<>();
+
+    /**
+     * Returns the device descriptions, one per device and provider.
+     *
+     * @return device descriptions
+     */
+    public List<InternalDeviceEvent> devices() {
+        return devices;
+    }
+
+    /**
+     * Returns the port descriptions, one per port and provider.
+     *
+     * @return port descriptions
+     */
+    public List<InternalPortStatusEvent> ports() {
+        return ports;
+    }
+
+    /**
+     * Returns the offline timestamps of devices.
+     *
+     * @return offline timestamps
+     */
+    public List<InternalDeviceOfflineEvent> offline() {
+        return offline;
+    }
+
+    /**
+     * Returns the devices that were available.
+     *
+     * @return available devices
+     */
+    public Set<DeviceId> available() {
+        return available;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(getClass())
+                .add("devices", devices.size())
+                .add("ports", ports.size())
+                .add("offline", offline.size())
+                .add("available", available.size())
+                .toString();
+    }
+}
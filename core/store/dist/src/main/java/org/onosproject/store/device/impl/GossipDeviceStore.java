@@ -19,16 +19,15 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
@@ -40,11 +39,15 @@ import org.apache.commons.lang3.RandomUtils;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.packet.ChassisId;
 import org.onlab.util.KryoNamespace;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.ControllerNode;
 import org.onosproject.cluster.NodeId;
@@ -74,6 +77,7 @@ import org.onosproject.store.AbstractStore;
 import org.onosproject.store.Timestamp;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.impl.LocalStoreSnapshot;
 import org.onosproject.store.impl.MastershipBasedTimestamp;
 import org.onosproject.store.impl.Timestamped;
 import org.onosproject.store.serializers.KryoNamespaces;
@@ -85,6 +89,7 @@ import org.onosproject.store.service.MultiValuedTimestamp;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.WallClockTimestamp;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
 import com.google.common.collect.FluentIterable;
@@ -138,7 +143,7 @@ public class GossipDeviceStore
 
     // cache of Device and Ports generated by compositing descriptions from providers
     private final ConcurrentMap<DeviceId, Device> devices = Maps.newConcurrentMap();
-    private final ConcurrentMap<DeviceId, ConcurrentMap<PortNumber, Port>> devicePorts = Maps.newConcurrentMap();
+    private final ConcurrentMap<DeviceId, CompactPortTable> devicePorts = Maps.newConcurrentMap();
 
     private EventuallyConsistentMap<DeviceId, Map<PortNumber, PortStatistics>> devicePortStats;
     private EventuallyConsistentMap<DeviceId, Map<PortNumber, PortStatistics>> devicePortDeltaStats;
@@ -170,6 +175,9 @@ public class GossipDeviceStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected MastershipTermService termService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
     private static final Timestamp DEFAULT_TIMESTAMP = new MastershipBasedTimestamp(0, 0);
 
     protected static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
@@ -183,23 +191,39 @@ public class GossipDeviceStore
                     .register(DeviceAntiEntropyAdvertisement.class)
                     .register(DeviceFragmentId.class)
                     .register(PortFragmentId.class)
+                    .register(DeviceSnapshot.class)
                     .build("GossipDevice"));
 
     private ExecutorService executor;
 
     private ScheduledExecutorService backgroundExecutor;
 
+    private LocalStoreSnapshot<DeviceSnapshot> snapshot;
+
+    private static final int DEFAULT_SNAPSHOT_PERIOD_SEC = 0;
+    @Property(name = "snapshotPeriod", intValue = DEFAULT_SNAPSHOT_PERIOD_SEC,
+            label = "Delay in seconds between local snapshots of the device table; 0 disables them")
+    private int snapshotPeriod = DEFAULT_SNAPSHOT_PERIOD_SEC;
+
     // TODO make these anti-entropy parameters configurable
     private long initialDelaySec = 5;
     private long periodSec = 5;
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
         executor = newCachedThreadPool(groupedThreads("onos/device", "fg-%d", log));
 
         backgroundExecutor =
                 newSingleThreadScheduledExecutor(minPriority(groupedThreads("onos/device", "bg-%d", log)));
 
+        // preload provisional state from the last local snapshot, if any;
+        // anti-entropy with peers reconciles it afterwards
+        snapshot = new LocalStoreSnapshot<>("devices", SERIALIZER, this::createSnapshot,
+                                            TimeUnit.SECONDS.toMillis(snapshotPeriod));
+        preload(snapshot.load());
+
         addSubscriber(DEVICE_UPDATE, this::handleDeviceEvent);
         addSubscriber(DEVICE_OFFLINE, this::handleDeviceOfflineEvent);
         addSubscriber(DEVICE_REMOVE_REQ, this::handleRemoveRequest);
@@ -234,6 +258,7 @@ public class GossipDeviceStore
                 .withTombstonesDisabled()
                 .build();
         devicePortStats.addListener(portStatsListener);
+        snapshot.start(backgroundExecutor);
         log.info("Started");
     }
 
@@ -243,6 +268,8 @@ public class GossipDeviceStore
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
+        snapshot.stop();
         devicePortStats.removeListener(portStatsListener);
         devicePortStats.destroy();
         devicePortDeltaStats.destroy();
@@ -271,6 +298,21 @@ public class GossipDeviceStore
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Integer value = Tools.getIntegerProperty(context.getProperties(), "snapshotPeriod");
+        if (value != null && value != snapshotPeriod) {
+            snapshotPeriod = value;
+            if (snapshot != null) {
+                snapshot.setPeriod(TimeUnit.SECONDS.toMillis(snapshotPeriod));
+            }
+            log.info("Settings: snapshotPeriod={}", snapshotPeriod);
+        }
+    }
+
     @Override
     public int getDeviceCount() {
         return devices.size();
@@ -647,7 +689,7 @@ public class GossipDeviceStore
                           "Device description for Device ID %s from Provider %s was not found",
                           deviceId, providerId);
 
-            Map<PortNumber, Port> ports = getPortMap(deviceId);
+            CompactPortTable ports = getPortMap(deviceId);
 
             final Timestamp newTimestamp = portDescriptions.timestamp();
 
@@ -688,8 +730,8 @@ public class GossipDeviceStore
     // Returns corresponding event.
     // Guarded by deviceDescs value (=Device lock)
     private DeviceEvent createPort(Device device, Port newPort,
-                                   Map<PortNumber, Port> ports) {
-        ports.put(newPort.number(), newPort);
+                                   CompactPortTable ports) {
+        ports.put(newPort);
         return new DeviceEvent(PORT_ADDED, device, newPort);
     }
 
@@ -698,13 +740,13 @@ public class GossipDeviceStore
     // Guarded by deviceDescs value (=Device lock)
     private DeviceEvent updatePort(Device device, Port oldPort,
                                    Port newPort,
-                                   Map<PortNumber, Port> ports) {
+                                   CompactPortTable ports) {
 
         if (oldPort.isEnabled() != newPort.isEnabled() ||
                 oldPort.type() != newPort.type() ||
                 oldPort.portSpeed() != newPort.portSpeed() ||
                 !AnnotationsUtil.isEqual(oldPort.annotations(), newPort.annotations())) {
-            ports.put(oldPort.number(), newPort);
+            ports.put(newPort);
             return new DeviceEvent(PORT_UPDATED, device, newPort);
         }
         return null;
@@ -722,25 +764,19 @@ public class GossipDeviceStore
     // processed list and returns list of corresponding events.
     // Guarded by deviceDescs value (=Device lock)
     private List<DeviceEvent> pruneOldPorts(Device device,
-                                            Map<PortNumber, Port> ports,
+                                            CompactPortTable ports,
                                             Set<PortNumber> processed) {
         List<DeviceEvent> events = new ArrayList<>();
-        Iterator<Entry<PortNumber, Port>> iterator = ports.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Entry<PortNumber, Port> e = iterator.next();
-            PortNumber portNumber = e.getKey();
-            if (!processed.contains(portNumber)) {
-                events.add(new DeviceEvent(PORT_REMOVED, device, e.getValue()));
-                iterator.remove();
-            }
+        for (Port port : ports.retainAll(processed)) {
+            events.add(new DeviceEvent(PORT_REMOVED, device, port));
         }
         return events;
     }
 
-    // Gets the map of ports for the specified device; if one does not already
+    // Gets the table of ports for the specified device; if one does not already
     // exist, it creates and registers a new one.
-    private ConcurrentMap<PortNumber, Port> getPortMap(DeviceId deviceId) {
-        return devicePorts.computeIfAbsent(deviceId, k -> new ConcurrentHashMap<>());
+    private CompactPortTable getPortMap(DeviceId deviceId) {
+        return devicePorts.computeIfAbsent(deviceId, k -> new CompactPortTable());
     }
 
     private Map<ProviderId, DeviceDescriptions> getOrCreateDeviceDescriptionsMap(
@@ -825,7 +861,7 @@ public class GossipDeviceStore
                    "Device description for Device ID %s from Provider %s was not found",
                    deviceId, providerId);
 
-            ConcurrentMap<PortNumber, Port> ports = getPortMap(deviceId);
+            CompactPortTable ports = getPortMap(deviceId);
             final PortNumber number = deltaDesc.value().portNumber();
             final Port oldPort = ports.get(number);
             final Port newPort;
@@ -855,11 +891,11 @@ public class GossipDeviceStore
 
     @Override
     public List<Port> getPorts(DeviceId deviceId) {
-        Map<PortNumber, Port> ports = devicePorts.get(deviceId);
+        CompactPortTable ports = devicePorts.get(deviceId);
         if (ports == null) {
             return Collections.emptyList();
         }
-        return ImmutableList.copyOf(ports.values());
+        return ports.ports();
     }
 
     @Override
@@ -988,7 +1024,7 @@ public class GossipDeviceStore
 
     @Override
     public Port getPort(DeviceId deviceId, PortNumber portNumber) {
-        Map<PortNumber, Port> ports = devicePorts.get(deviceId);
+        CompactPortTable ports = devicePorts.get(deviceId);
         return ports == null ? null : ports.get(portNumber);
     }
 
@@ -1097,7 +1133,7 @@ public class GossipDeviceStore
 
             Device device = devices.remove(deviceId);
             // should DEVICE_REMOVED carry removed ports?
-            Map<PortNumber, Port> ports = devicePorts.get(deviceId);
+            CompactPortTable ports = devicePorts.get(deviceId);
             if (ports != null) {
                 ports.clear();
             }
@@ -1502,6 +1538,73 @@ public class GossipDeviceStore
 //        }
     }
 
+    /**
+     * Captures the device and port descriptions, offline timestamps and
+     * availability of all devices.
+     *
+     * @return device snapshot
+     */
+    private DeviceSnapshot createSnapshot() {
+        DeviceSnapshot deviceSnapshot = new DeviceSnapshot();
+        deviceDescs.forEach((deviceId, devDescs) -> {
+            synchronized (devDescs) {
+                devDescs.forEach((providerId, descs) -> {
+                    deviceSnapshot.devices().add(
+                            new InternalDeviceEvent(providerId, deviceId, descs.getDeviceDesc()));
+                    descs.getPortDescs().values().forEach(portDesc -> deviceSnapshot.ports().add(
+                            new InternalPortStatusEvent(providerId, deviceId, portDesc)));
+                });
+                Timestamp offlineTimestamp = offline.get(deviceId);
+                if (offlineTimestamp != null) {
+                    deviceSnapshot.offline().add(new InternalDeviceOfflineEvent(deviceId, offlineTimestamp));
+                }
+                if (availableDevices.contains(deviceId)) {
+                    deviceSnapshot.available().add(deviceId);
+                }
+            }
+        });
+        return deviceSnapshot;
+    }
+
+    /**
+     * Applies a local snapshot with its original timestamps, so that any
+     * newer information from peers or providers supersedes it.
+     *
+     * @param deviceSnapshot snapshot to apply; may be null
+     */
+    private void preload(DeviceSnapshot deviceSnapshot) {
+        if (deviceSnapshot == null) {
+            return;
+        }
+        List<InternalDeviceEvent> deviceEvents = new ArrayList<>(deviceSnapshot.devices());
+        // primary providers first, so that devices are composed around them
+        deviceEvents.sort(Comparator.comparing((InternalDeviceEvent event) -> event.providerId().isAncillary()));
+        for (InternalDeviceEvent event : deviceEvents) {
+            try {
+                createOrUpdateDeviceInternal(event.providerId(), event.deviceId(), event.deviceDescription());
+            } catch (RuntimeException e) {
+                log.warn("Unable to preload {}", event, e);
+            }
+        }
+        for (InternalPortStatusEvent event : deviceSnapshot.ports()) {
+            try {
+                updatePortStatusInternal(event.providerId(), event.deviceId(), event.portDescription());
+            } catch (RuntimeException e) {
+                log.warn("Unable to preload {}", event, e);
+            }
+        }
+        deviceSnapshot.offline().forEach(event -> offline.put(event.deviceId(), event.timestamp()));
+        // availability as it was when the snapshot was taken
+        devices.keySet().forEach(deviceId -> {
+            if (deviceSnapshot.available().contains(deviceId)) {
+                availableDevices.add(deviceId);
+            } else {
+                availableDevices.remove(deviceId);
+            }
+        });
+        log.info("Preloaded {} devices from local snapshot", devices.size());
+    }
+
     private void notifyDelegateIfNotNull(DeviceEvent event) {
         if (event != null) {
             notifyDelegate(event);
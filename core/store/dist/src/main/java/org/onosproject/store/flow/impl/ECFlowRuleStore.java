@@ -22,6 +22,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
@@ -75,6 +76,7 @@ import org.onosproject.store.cluster.messaging.ClusterMessageHandler;
 import org.onosproject.store.flow.ReplicaInfoEvent;
 import org.onosproject.store.flow.ReplicaInfoEventListener;
 import org.onosproject.store.flow.ReplicaInfoService;
+import org.onosproject.store.impl.LocalStoreSnapshot;
 import org.onosproject.store.impl.MastershipBasedTimestamp;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.EventuallyConsistentMap;
@@ -120,6 +122,7 @@ public class ECFlowRuleStore
     private static final int DEFAULT_MAX_BACKUP_COUNT = 2;
     private static final boolean DEFAULT_PERSISTENCE_ENABLED = false;
     private static final int DEFAULT_BACKUP_PERIOD_MILLIS = 2000;
+    private static final int DEFAULT_SNAPSHOT_PERIOD_SEC = 0;
     private static final long FLOW_RULE_STORE_TIMEOUT_MILLIS = 5000;
     // number of devices whose flow entries will be backed up in one communication round
     private static final int FLOW_TABLE_BACKUP_BATCH_SIZE = 1;
@@ -139,6 +142,10 @@ public class ECFlowRuleStore
             label = "Max number of backup copies for each device")
     private volatile int backupCount = DEFAULT_MAX_BACKUP_COUNT;
 
+    @Property(name = "snapshotPeriod", intValue = DEFAULT_SNAPSHOT_PERIOD_SEC,
+            label = "Delay in seconds between local snapshots of the flow table; 0 disables them")
+    private int snapshotPeriod = DEFAULT_SNAPSHOT_PERIOD_SEC;
+
     private InternalFlowTable flowTable = new InternalFlowTable();
 
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
@@ -190,6 +197,8 @@ public class ECFlowRuleStore
     private IdGenerator idGenerator;
     private NodeId local;
 
+    private LocalStoreSnapshot<Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>>> snapshot;
+
     @Activate
     public void activate(ComponentContext context) {
         configService.registerProperties(getClass());
@@ -221,11 +230,25 @@ public class ECFlowRuleStore
                 .build();
         deviceTableStats.addListener(tableStatsListener);
 
+        // flow tables persisted to disk need no snapshot
+        if (!persistenceEnabled) {
+            if (context != null) {
+                snapshotPeriod = Tools.getIntegerProperty(context.getProperties(), "snapshotPeriod", snapshotPeriod);
+            }
+            snapshot = new LocalStoreSnapshot<>("flows", serializer, flowTable::snapshot,
+                                                TimeUnit.SECONDS.toMillis(snapshotPeriod));
+            flowTable.preload(snapshot.load());
+            snapshot.start(backupSenderExecutor);
+        }
+
         logConfig("Started");
     }
 
     @Deactivate
     public void deactivate(ComponentContext context) {
+        if (snapshot != null) {
+            snapshot.stop();
+        }
         replicaInfoManager.removeListener(flowTable);
         backupTask.cancel(true);
         configService.unregisterProperties(getClass(), false);
@@ -250,6 +273,7 @@ public class ECFlowRuleStore
         int newPoolSize;
         int newBackupPeriod;
         int newBackupCount;
+        int newSnapshotPeriod;
         try {
             String s = get(properties, "msgHandlerPoolSize");
             newPoolSize = isNullOrEmpty(s) ? msgHandlerPoolSize : Integer.parseInt(s.trim());
@@ -259,10 +283,14 @@ public class ECFlowRuleStore
 
             s = get(properties, "backupCount");
             newBackupCount = isNullOrEmpty(s) ? backupCount : Integer.parseInt(s.trim());
+
+            s = get(properties, "snapshotPeriod");
+            newSnapshotPeriod = isNullOrEmpty(s) ? snapshotPeriod : Integer.parseInt(s.trim());
         } catch (NumberFormatException | ClassCastException e) {
             newPoolSize = MESSAGE_HANDLER_THREAD_POOL_SIZE;
             newBackupPeriod = DEFAULT_BACKUP_PERIOD_MILLIS;
             newBackupCount = DEFAULT_MAX_BACKUP_COUNT;
+            newSnapshotPeriod = DEFAULT_SNAPSHOT_PERIOD_SEC;
         }
 
         boolean restartBackupTask = false;
@@ -295,6 +323,12 @@ public class ECFlowRuleStore
         if (backupCount != newBackupCount) {
             backupCount = newBackupCount;
         }
+        if (snapshotPeriod != newSnapshotPeriod) {
+            snapshotPeriod = newSnapshotPeriod;
+            if (snapshot != null) {
+                snapshot.setPeriod(TimeUnit.SECONDS.toMillis(snapshotPeriod));
+            }
+        }
         logConfig("Reconfigured");
     }
 
@@ -323,8 +357,8 @@ public class ECFlowRuleStore
     }
 
     private void logConfig(String prefix) {
-        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}",
-                 prefix, msgHandlerPoolSize, backupPeriod, backupCount);
+        log.info("{} with msgHandlerPoolSize = {}; backupPeriod = {}, backupCount = {}, snapshotPeriod = {}",
+                 prefix, msgHandlerPoolSize, backupPeriod, backupCount, snapshotPeriod);
     }
 
     // This is not a efficient operation on a distributed sharded
@@ -864,6 +898,30 @@ public class ECFlowRuleStore
             flowEntries.clear();
         }
 
+        private Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> snapshot() {
+            Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> tables = Maps.newHashMap();
+            flowEntries.keySet().forEach(deviceId -> tables.put(deviceId, getFlowTableCopy(deviceId)));
+            return tables;
+        }
+
+        /**
+         * Preloads flow tables from a local snapshot as provisional state;
+         * flow statistics from the devices and backups from the masters
+         * reconcile it afterwards.
+         *
+         * @param tables flow tables; may be null
+         */
+        private void preload(Map<DeviceId, Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>>> tables) {
+            if (tables == null) {
+                return;
+            }
+            tables.forEach((deviceId, table) -> {
+                Map<FlowId, Map<StoredFlowEntry, StoredFlowEntry>> flowTable = getFlowTable(deviceId);
+                table.forEach((flowId, entries) -> flowTable.putIfAbsent(flowId, new ConcurrentHashMap<>(entries)));
+            });
+            log.info("Preloaded flow tables of {} devices from local snapshot", tables.size());
+        }
+
         private List<NodeId> getBackupNodes(DeviceId deviceId) {
             // The returned backup node list is in the order of preference i.e. next likely master first.
             List<NodeId> allPossibleBackupNodes = replicaInfoManager.getReplicaInfoFor(deviceId).backups();
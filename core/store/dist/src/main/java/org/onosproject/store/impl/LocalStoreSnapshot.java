@@ -0,0 +1,229 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.impl;
+
+import org.onosproject.store.service.Serializer;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Periodically writes a compact snapshot of a local store table to disk so
+ * that a restarted node can preload it as provisional state, to be reconciled
+ * by the regular anti-entropy mechanisms, instead of starting empty.
+ * <p>
+ * Snapshots are disabled unless the owning store configures a positive
+ * period, which it may change at run time. Snapshots older than
+ * {@value #MAX_AGE_PROPERTY} seconds are ignored on load.
+ * </p>
+ *
+ * @param <T> snapshot type
+ */
+public class LocalStoreSnapshot<T> {
+
+    public static final String MAX_AGE_PROPERTY = "onos.store.snapshot.maxAge";
+
+    private static final long DEFAULT_MAX_AGE_SEC = 600;
+    private static final String SNAPSHOT_ROOT =
+            System.getProperty("karaf.data") + "/db/snapshots/";
+    private static final String SUFFIX = ".snapshot";
+    private static final int MAGIC = 0x4f4e5353;
+
+    private final Logger log = getLogger(getClass());
+
+    private final Path file;
+    private final Serializer serializer;
+    private final Supplier<T> source;
+    private final long maxAgeMillis;
+    private volatile long periodMillis;
+
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> task;
+
+    /**
+     * Creates a snapshot for the named table in the data directory.
+     *
+     * @param name         table name
+     * @param serializer   serializer for the snapshot
+     * @param source       supplier of a consistent copy of the table
+     * @param periodMillis interval between snapshots; zero or less disables
+     *                     snapshots altogether
+     */
+    public LocalStoreSnapshot(String name, Serializer serializer, Supplier<T> source, long periodMillis) {
+        this(Paths.get(SNAPSHOT_ROOT), name, serializer, source, periodMillis,
+             TimeUnit.SECONDS.toMillis(Long.getLong(MAX_AGE_PROPERTY, DEFAULT_MAX_AGE_SEC)));
+    }
+
+    /**
+     * Creates a snapshot for the named table.
+     *
+     * @param directory    directory holding the snapshot files
+     * @param name         table name
+     * @param serializer   serializer for the snapshot
+     * @param source       supplier of a consistent copy of the table
+     * @param periodMillis interval between snapshots; zero or less disables
+     *                     snapshots altogether
+     * @param maxAgeMillis snapshots older than this are ignored on load
+     */
+    public LocalStoreSnapshot(Path directory, String name, Serializer serializer,
+                              Supplier<T> source, long periodMillis, long maxAgeMillis) {
+        this.file = checkNotNull(directory).resolve(checkNotNull(name) + SUFFIX);
+        this.serializer = checkNotNull(serializer);
+        this.source = checkNotNull(source);
+        this.periodMillis = periodMillis;
+        this.maxAgeMillis = maxAgeMillis;
+    }
+
+    /**
+     * Returns whether snapshots are enabled.
+     *
+     * @return true if enabled
+     */
+    public boolean isEnabled() {
+        return periodMillis > 0;
+    }
+
+    /**
+     * Loads the last snapshot written.
+     *
+     * @return snapshot or null if disabled, missing, corrupt or too old
+     */
+    public T load() {
+        if (!isEnabled() || !Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                log.warn("Ignoring snapshot {} with unknown format", file);
+                return null;
+            }
+            long written = in.readLong();
+            long age = System.currentTimeMillis() - written;
+            if (age > maxAgeMillis) {
+                log.info("Ignoring snapshot {} taken {} ms ago", file, age);
+                return null;
+            }
+            byte[] bytes = new byte[in.readInt()];
+            long checksum = in.readLong();
+            in.readFully(bytes);
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            if (crc.getValue() != checksum) {
+                log.warn("Ignoring corrupt snapshot {}", file);
+                return null;
+            }
+            return serializer.decode(bytes);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to load snapshot {}", file, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a snapshot of the table now.
+     */
+    public void write() {
+        if (!isEnabled()) {
+            return;
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            byte[] bytes = serializer.encode(source.get());
+            CRC32 crc = new CRC32();
+            crc.update(bytes, 0, bytes.length);
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(System.currentTimeMillis());
+                out.writeInt(bytes.length);
+                out.writeLong(crc.getValue());
+                out.write(bytes);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to write snapshot {}", file, e);
+        }
+    }
+
+    /**
+     * Changes the interval between snapshots, rescheduling them if started.
+     *
+     * @param periodMillis interval between snapshots; zero or less disables
+     *                     snapshots altogether
+     */
+    public synchronized void setPeriod(long periodMillis) {
+        if (this.periodMillis == periodMillis) {
+            return;
+        }
+        this.periodMillis = periodMillis;
+        if (executor != null) {
+            schedule();
+        }
+    }
+
+    /**
+     * Starts writing snapshots periodically.
+     *
+     * @param executor executor on which snapshots are written
+     */
+    public synchronized void start(ScheduledExecutorService executor) {
+        if (this.executor != null) {
+            return;
+        }
+        this.executor = checkNotNull(executor);
+        schedule();
+    }
+
+    /**
+     * Stops periodic snapshots, writing a final one.
+     */
+    public synchronized void stop() {
+        executor = null;
+        if (task == null) {
+            return;
+        }
+        task.cancel(false);
+        task = null;
+        write();
+    }
+
+    private void schedule() {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        if (isEnabled()) {
+            task = executor.scheduleWithFixedDelay(this::write, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
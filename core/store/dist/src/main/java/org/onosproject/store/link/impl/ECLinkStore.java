@@ -19,6 +19,8 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -26,11 +28,16 @@ import java.util.stream.Collectors;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
 import org.onlab.util.KryoNamespace;
 import org.onlab.util.SharedExecutors;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterService;
 import org.onosproject.cluster.NodeId;
 import org.onosproject.core.ApplicationId;
@@ -59,6 +66,7 @@ import org.onosproject.net.provider.ProviderId;
 import org.onosproject.store.AbstractStore;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.cluster.messaging.MessageSubject;
+import org.onosproject.store.impl.LocalStoreSnapshot;
 import org.onosproject.store.impl.MastershipBasedTimestamp;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.serializers.custom.DistributedStoreSerializers;
@@ -67,6 +75,7 @@ import org.onosproject.store.service.EventuallyConsistentMapEvent;
 import org.onosproject.store.service.EventuallyConsistentMapListener;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
 import com.google.common.collect.Iterables;
@@ -119,6 +128,16 @@ public class ECLinkStore
     private final Map<LinkKey, Set<ProviderId>> linkProviders = Maps.newConcurrentMap();
     private EventuallyConsistentMap<Provided<LinkKey>, LinkDescription> linkDescriptions;
 
+    // descriptions preloaded from the local snapshot, not yet confirmed by peers
+    private final Map<Provided<LinkKey>, LinkDescription> provisionalDescriptions = Maps.newConcurrentMap();
+    private static final long PROVISIONAL_TIMEOUT_SEC = 30;
+    private LocalStoreSnapshot<Map<Provided<LinkKey>, LinkDescription>> snapshot;
+
+    private static final int DEFAULT_SNAPSHOT_PERIOD_SEC = 0;
+    @Property(name = "snapshotPeriod", intValue = DEFAULT_SNAPSHOT_PERIOD_SEC,
+            label = "Delay in seconds between local snapshots of the link table; 0 disables them")
+    private int snapshotPeriod = DEFAULT_SNAPSHOT_PERIOD_SEC;
+    private ScheduledFuture<?> provisionalTimeout;
 
     private ApplicationId appId;
 
@@ -145,6 +164,9 @@ public class ECLinkStore
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected CoreService coreService;
 
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected ComponentConfigService cfgService;
+
     private EventuallyConsistentMapListener<Provided<LinkKey>, LinkDescription> linkTracker =
             new InternalLinkTracker();
 
@@ -161,7 +183,9 @@ public class ECLinkStore
                     .build("ECLink"));
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        cfgService.registerProperties(getClass());
+        modified(context);
         appId = coreService.registerApplication("org.onosproject.core");
         netCfgService.registerConfigFactory(factory);
         netCfgService.addListener(cfgListener);
@@ -192,11 +216,22 @@ public class ECLinkStore
 
         linkDescriptions.addListener(linkTracker);
 
+        snapshot = new LocalStoreSnapshot<>("links", SERIALIZER, this::createSnapshot,
+                                            TimeUnit.SECONDS.toMillis(snapshotPeriod));
+        preload(snapshot.load());
+        snapshot.start(SharedScheduledExecutors.getPoolThreadExecutor());
+
         log.info("Started");
     }
 
     @Deactivate
     public void deactivate() {
+        cfgService.unregisterProperties(getClass(), false);
+        snapshot.stop();
+        if (provisionalTimeout != null) {
+            provisionalTimeout.cancel(false);
+        }
+        provisionalDescriptions.clear();
         linkDescriptions.removeListener(linkTracker);
         linkDescriptions.destroy();
         linkProviders.clear();
@@ -208,6 +243,21 @@ public class ECLinkStore
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        if (context == null) {
+            return;
+        }
+        Integer value = Tools.getIntegerProperty(context.getProperties(), "snapshotPeriod");
+        if (value != null && value != snapshotPeriod) {
+            snapshotPeriod = value;
+            if (snapshot != null) {
+                snapshot.setPeriod(TimeUnit.SECONDS.toMillis(snapshotPeriod));
+            }
+            log.info("Settings: snapshotPeriod={}", snapshotPeriod);
+        }
+    }
+
     @Override
     public int getLinkCount() {
         return links.size();
@@ -363,7 +413,7 @@ public class ECLinkStore
             // parent component.
             return null;
         }
-        LinkDescription base = linkDescriptions.get(new Provided<>(linkKey, baseProviderId));
+        LinkDescription base = getLinkDescription(new Provided<>(linkKey, baseProviderId));
         // short circuit if link description no longer exists
         if (base == null) {
             return null;
@@ -377,7 +427,7 @@ public class ECLinkStore
         getAllProviders(linkKey).stream()
                 .map(p -> new Provided<>(linkKey, p))
                 .forEach(key -> {
-                    LinkDescription linkDescription = linkDescriptions.get(key);
+                    LinkDescription linkDescription = getLinkDescription(key);
                     if (linkDescription != null) {
                         builder.putAll(linkDescription.annotations());
                     }
@@ -455,9 +505,9 @@ public class ECLinkStore
         if (primaryProviderId == null) {
             return null;
         }
-        LinkDescription removedLinkDescription =
-                linkDescriptions.remove(new Provided<>(linkKey, primaryProviderId));
-        if (removedLinkDescription != null) {
+        Provided<LinkKey> key = new Provided<>(linkKey, primaryProviderId);
+        LinkDescription removedLinkDescription = linkDescriptions.remove(key);
+        if (removedLinkDescription != null || provisionalDescriptions.remove(key) != null) {
             return purgeLinkCache(linkKey);
         }
         return null;
@@ -466,13 +516,77 @@ public class ECLinkStore
     private LinkEvent purgeLinkCache(LinkKey linkKey) {
         Link removedLink = links.remove(linkKey);
         if (removedLink != null) {
-            getAllProviders(linkKey).forEach(p -> linkDescriptions.remove(new Provided<>(linkKey, p)));
+            getAllProviders(linkKey).forEach(p -> {
+                linkDescriptions.remove(new Provided<>(linkKey, p));
+                provisionalDescriptions.remove(new Provided<>(linkKey, p));
+            });
             linkProviders.remove(linkKey);
             return new LinkEvent(LINK_REMOVED, removedLink);
         }
         return null;
     }
 
+    private LinkDescription getLinkDescription(Provided<LinkKey> key) {
+        LinkDescription description = linkDescriptions.get(key);
+        return description != null ? description : provisionalDescriptions.get(key);
+    }
+
+    private Map<Provided<LinkKey>, LinkDescription> createSnapshot() {
+        Map<Provided<LinkKey>, LinkDescription> descriptions = Maps.newHashMap();
+        linkDescriptions.entrySet().forEach(e -> descriptions.put(e.getKey(), e.getValue()));
+        return descriptions;
+    }
+
+    /**
+     * Preloads link descriptions from the local snapshot as provisional
+     * state. Descriptions confirmed by peers through the eventually
+     * consistent map replace them; the rest are dropped after a timeout.
+     *
+     * @param descriptions snapshot of link descriptions; may be null
+     */
+    private void preload(Map<Provided<LinkKey>, LinkDescription> descriptions) {
+        if (descriptions == null || descriptions.isEmpty()) {
+            return;
+        }
+        descriptions.forEach((key, description) -> {
+            if (linkDescriptions.get(key) == null) {
+                provisionalDescriptions.put(key, description);
+                linkProviders.compute(key.key(), (k, v) -> createOrUpdateLinkProviders(v, key.providerId()));
+            }
+        });
+        provisionalDescriptions.keySet().forEach(key -> refreshLinkCache(key.key()));
+        provisionalTimeout = SharedScheduledExecutors.newTimeout(this::expireProvisional,
+                                                                 PROVISIONAL_TIMEOUT_SEC, TimeUnit.SECONDS);
+        log.info("Preloaded {} link descriptions from local snapshot", provisionalDescriptions.size());
+    }
+
+    private void expireProvisional() {
+        Set<LinkKey> linkKeys = provisionalDescriptions.keySet().stream()
+                .map(Provided::key)
+                .collect(Collectors.toSet());
+        provisionalDescriptions.keySet().forEach(key -> {
+            if (provisionalDescriptions.remove(key) != null) {
+                linkProviders.computeIfPresent(key.key(), (k, v) -> {
+                    if (linkDescriptions.get(key) == null) {
+                        v.remove(key.providerId());
+                    }
+                    return v.isEmpty() ? null : v;
+                });
+            }
+        });
+        linkKeys.forEach(linkKey -> {
+            if (getBaseProviderId(linkKey) == null) {
+                Link removed = links.remove(linkKey);
+                if (removed != null) {
+                    notifyDelegate(new LinkEvent(LINK_REMOVED, removed));
+                }
+            } else {
+                notifyDelegate(refreshLinkCache(linkKey));
+            }
+        });
+        log.debug("Expired provisional descriptions for {} links", linkKeys.size());
+    }
+
     private Set<Link> filter(Collection<Link> links, Predicate<Link> predicate) {
         return links.stream().filter(predicate).collect(Collectors.toSet());
     }
@@ -496,6 +610,7 @@ public class ECLinkStore
         @Override
         public void event(EventuallyConsistentMapEvent<Provided<LinkKey>, LinkDescription> event) {
             if (event.type() == PUT) {
+                provisionalDescriptions.remove(event.key());
                 linkProviders.compute(event.key().key(), (k, v) ->
                         createOrUpdateLinkProviders(v, event.key().providerId()));
                 notifyDelegate(refreshLinkCache(event.key().key()));
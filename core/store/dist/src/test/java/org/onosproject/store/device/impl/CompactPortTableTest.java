@@ -0,0 +1,112 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.device.impl;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Test;
+import org.onlab.packet.ChassisId;
+import org.onosproject.net.DefaultAnnotations;
+import org.onosproject.net.DefaultDevice;
+import org.onosproject.net.Device;
+import org.onosproject.net.DefaultPort;
+import org.onosproject.net.Port;
+import org.onosproject.net.PortNumber;
+import org.onosproject.net.provider.ProviderId;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.onosproject.net.DeviceId.deviceId;
+
+/**
+ * Tests of the compact port table.
+ */
+public class CompactPortTableTest {
+
+    private static final Device DEVICE =
+            new DefaultDevice(new ProviderId("of", "foo"), deviceId("of:foo"), Device.Type.SWITCH,
+                              "whitebox", "1.1.x", "3.8.1", "43311-12345", new ChassisId());
+
+    private static final PortNumber P1 = PortNumber.portNumber(1);
+    private static final PortNumber P2 = PortNumber.portNumber(2);
+    private static final PortNumber P3 = PortNumber.portNumber(3, "eth3");
+
+    private static final DefaultAnnotations A1 = DefaultAnnotations.builder().set("portName", "eth").build();
+
+    private static Port port(PortNumber number, boolean enabled) {
+        return new DefaultPort(DEVICE, number, enabled, Port.Type.FIBER, 10000, A1);
+    }
+
+    @Test
+    public void basics() {
+        CompactPortTable table = new CompactPortTable();
+        assertNull("no port expected", table.get(P1));
+
+        table.put(port(P2, true));
+        table.put(port(P1, true));
+        table.put(port(P3, false));
+        assertEquals("wrong size", 3, table.size());
+
+        Port port = table.get(P3);
+        assertEquals("incorrect port", port(P3, false), port);
+        assertTrue("name lost", P3.exactlyEquals(port.number()));
+        assertEquals("incorrect type", Port.Type.FIBER, port.type());
+        assertEquals("incorrect speed", 10000, port.portSpeed());
+        assertSame("incorrect element", DEVICE, port.element());
+
+        List<Port> ports = table.ports();
+        assertEquals("wrong order", P1, ports.get(0).number());
+        assertEquals("wrong order", P2, ports.get(1).number());
+        assertEquals("wrong order", P3, ports.get(2).number());
+
+        table.put(port(P1, false));
+        assertEquals("wrong size", 3, table.size());
+        assertFalse("port not updated", table.get(P1).isEnabled());
+
+        assertEquals("incorrect port removed", port(P2, true), table.remove(P2));
+        assertNull("port not removed", table.get(P2));
+        assertNull("no port expected", table.remove(P2));
+
+        table.clear();
+        assertEquals("ports not cleared", 0, table.size());
+    }
+
+    @Test
+    public void retainAll() {
+        CompactPortTable table = new CompactPortTable();
+        for (int i = 1; i <= 20; i++) {
+            table.put(port(PortNumber.portNumber(i), true));
+        }
+        List<Port> removed = table.retainAll(ImmutableSet.of(P1, P2));
+        assertEquals("wrong number of ports removed", 18, removed.size());
+        assertEquals("wrong order", PortNumber.portNumber(3), removed.get(0).number());
+        assertEquals("wrong ports retained", 2, table.size());
+        assertEquals("wrong port retained", P2, table.ports().get(1).number());
+    }
+
+    @Test
+    public void annotationsInterned() {
+        CompactPortTable table = new CompactPortTable();
+        table.put(port(P1, true));
+        table.put(new DefaultPort(DEVICE, P2, true, Port.Type.FIBER, 10000,
+                                  DefaultAnnotations.builder().set("portName", "eth").build()));
+        assertSame("annotations not interned", table.get(P1).annotations(), table.get(P2).annotations());
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.store.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.onosproject.store.serializers.KryoNamespaces;
+import org.onosproject.store.service.Serializer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test of the local store snapshot.
+ */
+public class LocalStoreSnapshotTest {
+
+    private static final Serializer SERIALIZER = Serializer.using(KryoNamespaces.API);
+    private static final long PERIOD = 1000;
+    private static final long MAX_AGE = 60000;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path directory;
+    private final Map<String, Integer> table = Maps.newHashMap();
+
+    @Before
+    public void setUp() throws Exception {
+        directory = tmpFolder.newFolder().toPath();
+        table.put("a", 1);
+        table.put("b", 2);
+    }
+
+    private LocalStoreSnapshot<Map<String, Integer>> snapshot(long period, long maxAge) {
+        return new LocalStoreSnapshot<>(directory, "test", SERIALIZER,
+                                        () -> Maps.newHashMap(table), period, maxAge);
+    }
+
+    @Test
+    public void testWriteAndLoad() {
+        snapshot(PERIOD, MAX_AGE).write();
+        table.clear();
+        assertEquals(ImmutableMap.of("a", 1, "b", 2), snapshot(PERIOD, MAX_AGE).load());
+    }
+
+    @Test
+    public void testMissing() {
+        assertNull(snapshot(PERIOD, MAX_AGE).load());
+    }
+
+    @Test
+    public void testDisabled() {
+        LocalStoreSnapshot<Map<String, Integer>> disabled = snapshot(0, MAX_AGE);
+        assertFalse(disabled.isEnabled());
+        disabled.write();
+        assertFalse(Files.exists(directory.resolve("test.snapshot")));
+        snapshot(PERIOD, MAX_AGE).write();
+        assertNull(disabled.load());
+    }
+
+    @Test
+    public void testPeriodChanged() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        try {
+            LocalStoreSnapshot<Map<String, Integer>> snapshot = snapshot(0, MAX_AGE);
+            snapshot.start(executor);
+            assertTrue(executor.getQueue().isEmpty());
+
+            snapshot.setPeriod(PERIOD);
+            assertTrue(snapshot.isEnabled());
+            assertEquals(1, executor.getQueue().size());
+
+            snapshot.setPeriod(0);
+            assertFalse(snapshot.isEnabled());
+            assertTrue(executor.getQueue().isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testTooOld() {
+        snapshot(PERIOD, MAX_AGE).write();
+        assertNull(snapshot(PERIOD, -1).load());
+    }
+
+    @Test
+    public void testCorrupt() throws Exception {
+        snapshot(PERIOD, MAX_AGE).write();
+        Path file = directory.resolve("test.snapshot");
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 0xff;
+        Files.write(file, bytes);
+        assertNull(snapshot(PERIOD, MAX_AGE).load());
+    }
+}
@@ -17,10 +17,12 @@
 package org.onosproject.persistence.impl;
 
 import org.mapdb.DB;
+import org.onosproject.persistence.PersistenceEngine;
 import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.store.service.Serializer;
 
 import java.util.Map;
+import java.util.function.Function;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -32,14 +34,25 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
 
     private final DB localDB;
 
+    private final Function<String, LogStructuredStore> logStores;
+
     private String name = null;
 
     private Serializer serializer = null;
 
+    private PersistenceEngine engine = PersistenceEngine.MAPDB;
+
 
     public DefaultPersistentMapBuilder(DB localDB) {
+        this(localDB, name -> {
+            throw new PersistenceException("Log structured storage is not available.");
+        });
+    }
+
+    public DefaultPersistentMapBuilder(DB localDB, Function<String, LogStructuredStore> logStores) {
         checkNotNull(localDB, "The local database cannot be null.");
         this.localDB = localDB;
+        this.logStores = checkNotNull(logStores, "The log store provider cannot be null.");
     }
 
     public PersistentMapBuilder<K, V> withName(String name) {
@@ -54,10 +67,18 @@ public class DefaultPersistentMapBuilder<K, V> implements PersistentMapBuilder<K
         return this;
     }
 
+    public PersistentMapBuilder<K, V> withEngine(PersistenceEngine engine) {
+        this.engine = checkNotNull(engine);
+        return this;
+    }
+
     public Map<K, V> build() {
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The key serializer must be assigned.");
 
+        if (engine == PersistenceEngine.LOG) {
+            return new PersistentMap<K, V>(serializer, new LogStructuredMap(logStores.apply(name)), name);
+        }
         return new PersistentMap<K, V>(serializer, localDB, name);
     }
 }
\ No newline at end of file
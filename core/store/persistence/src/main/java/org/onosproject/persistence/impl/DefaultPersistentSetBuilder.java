@@ -17,9 +17,12 @@
 package org.onosproject.persistence.impl;
 
 import org.mapdb.DB;
+import org.onosproject.persistence.PersistenceEngine;
 import org.onosproject.persistence.PersistentSetBuilder;
 import org.onosproject.store.service.Serializer;
 
+import java.util.function.Function;
+
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -30,12 +33,23 @@ public class DefaultPersistentSetBuilder<E> implements PersistentSetBuilder<E> {
 
     private final DB localDB;
 
+    private final Function<String, LogStructuredStore> logStores;
+
     private String name = null;
 
     private Serializer serializer = null;
 
+    private PersistenceEngine engine = PersistenceEngine.MAPDB;
+
     public DefaultPersistentSetBuilder(DB localDB) {
+        this(localDB, name -> {
+            throw new PersistenceException("Log structured storage is not available.");
+        });
+    }
+
+    public DefaultPersistentSetBuilder(DB localDB, Function<String, LogStructuredStore> logStores) {
         this.localDB = checkNotNull(localDB, "The local database cannot be null.");
+        this.logStores = checkNotNull(logStores, "The log store provider cannot be null.");
     }
 
     public PersistentSetBuilder<E> withName(String name) {
@@ -50,10 +64,18 @@ public class DefaultPersistentSetBuilder<E> implements PersistentSetBuilder<E> {
         return this;
     }
 
+    public PersistentSetBuilder<E> withEngine(PersistenceEngine engine) {
+        this.engine = checkNotNull(engine);
+        return this;
+    }
+
     public PersistentSet<E> build() {
         checkNotNull(name, "The name must be assigned.");
         checkNotNull(serializer, "The serializer must be assigned.");
 
+        if (engine == PersistenceEngine.LOG) {
+            return new PersistentSet<E>(serializer, new LogStructuredSet(logStores.apply(name)), name);
+        }
         return new PersistentSet<E>(serializer, localDB, name);
     }
 }
\ No newline at end of file
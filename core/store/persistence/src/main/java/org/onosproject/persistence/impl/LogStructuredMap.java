@@ -0,0 +1,86 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Maps;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Raw map view of a log structured store; byte array keys are compared by
+ * content.
+ */
+class LogStructuredMap extends AbstractMap<byte[], byte[]> {
+
+    private final LogStructuredStore store;
+
+    LogStructuredMap(LogStructuredStore store) {
+        this.store = checkNotNull(store);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof byte[] && store.containsKey((byte[]) key);
+    }
+
+    @Override
+    public byte[] get(Object key) {
+        return key instanceof byte[] ? store.get((byte[]) key) : null;
+    }
+
+    @Override
+    public byte[] put(byte[] key, byte[] value) {
+        return store.put(key, value);
+    }
+
+    @Override
+    public byte[] remove(Object key) {
+        return key instanceof byte[] ? store.remove((byte[]) key) : null;
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+
+    @Override
+    public Set<Entry<byte[], byte[]>> entrySet() {
+        return new AbstractSet<Entry<byte[], byte[]>>() {
+            @Override
+            public Iterator<Entry<byte[], byte[]>> iterator() {
+                return Iterators.transform(store.keyIterator(),
+                                           key -> Maps.immutableEntry(key, store.get(key)));
+            }
+
+            @Override
+            public int size() {
+                return store.size();
+            }
+        };
+    }
+}
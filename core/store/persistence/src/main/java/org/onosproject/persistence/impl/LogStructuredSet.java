@@ -0,0 +1,67 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence.impl;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Raw set view of a log structured store; byte array elements are compared
+ * by content and stored as keys with empty values.
+ */
+class LogStructuredSet extends AbstractSet<byte[]> {
+
+    private static final byte[] PRESENT = new byte[0];
+
+    private final LogStructuredStore store;
+
+    LogStructuredSet(LogStructuredStore store) {
+        this.store = checkNotNull(store);
+    }
+
+    @Override
+    public int size() {
+        return store.size();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof byte[] && store.containsKey((byte[]) o);
+    }
+
+    @Override
+    public boolean add(byte[] item) {
+        return store.putIfAbsent(item, PRESENT);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return o instanceof byte[] && store.remove((byte[]) o) != null;
+    }
+
+    @Override
+    public void clear() {
+        store.clear();
+    }
+
+    @Override
+    public Iterator<byte[]> iterator() {
+        return store.keyIterator();
+    }
+}
@@ -0,0 +1,728 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence.impl;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.slf4j.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Append-only key/value store made of memory-mapped segment files.
+ * <p>
+ * Every update is appended to the active segment as a checksummed record;
+ * removals are appended as tombstones. An in-memory index maps each live key
+ * to the location of its latest record, so values are read straight from the
+ * mapped segments and never held on heap. Sealed segments accumulate obsolete
+ * records which are reclaimed by {@link #compact()}, and the index is
+ * periodically written to a checksummed index file so that recovery only has
+ * to replay records appended after the last index snapshot.
+ * </p>
+ * <p>
+ * Record layout: {@code crc32(int) keyLength(int) valueLength(int) key value},
+ * where a value length of {@code -1} marks a tombstone.
+ * </p>
+ */
+public class LogStructuredStore {
+
+    static final int DEFAULT_SEGMENT_SIZE = 32 * 1024 * 1024;
+    static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String INDEX_FILE = "index";
+    private static final String INDEX_TEMP_FILE = "index.tmp";
+    private static final int INDEX_MAGIC = 0x4f4e4c53;
+    private static final int HEADER_LENGTH = 12;
+    private static final int TOMBSTONE = -1;
+
+    private final Logger log = getLogger(getClass());
+
+    private final Path directory;
+    private final int segmentSize;
+    private final double compactionThreshold;
+
+    private final Map<Key, Location> index = Maps.newHashMap();
+    private final NavigableMap<Integer, Segment> segments = Maps.newTreeMap();
+    private Segment active;
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * Opens, or creates, a store in the given directory using default
+     * segment size and compaction threshold.
+     *
+     * @param directory directory holding the segment files
+     */
+    public LogStructuredStore(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens, or creates, a store in the given directory.
+     *
+     * @param directory           directory holding the segment files
+     * @param segmentSize         size in bytes of each segment file
+     * @param compactionThreshold fraction of obsolete bytes in sealed segments
+     *                            above which compaction rewrites them
+     */
+    public LogStructuredStore(Path directory, int segmentSize, double compactionThreshold) {
+        checkArgument(segmentSize > HEADER_LENGTH, "Segment size is too small");
+        checkArgument(compactionThreshold > 0 && compactionThreshold <= 1,
+                      "Compaction threshold must be in (0, 1]");
+        this.directory = checkNotNull(directory);
+        this.segmentSize = segmentSize;
+        this.compactionThreshold = compactionThreshold;
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to open log store " + directory + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the value currently associated with the key.
+     *
+     * @param key key bytes
+     * @return value bytes or null if the key is not present
+     */
+    public synchronized byte[] get(byte[] key) {
+        checkNotNull(key);
+        Location location = index.get(new Key(key));
+        return location == null ? null : readValue(location);
+    }
+
+    /**
+     * Returns whether the key is present.
+     *
+     * @param key key bytes
+     * @return true if the key is present
+     */
+    public synchronized boolean containsKey(byte[] key) {
+        checkNotNull(key);
+        return index.containsKey(new Key(key));
+    }
+
+    /**
+     * Associates the value with the key, appending a new record.
+     *
+     * @param key   key bytes
+     * @param value value bytes
+     * @return previous value bytes or null if the key was not present
+     */
+    public synchronized byte[] put(byte[] key, byte[] value) {
+        checkNotNull(key);
+        checkNotNull(value);
+        checkArgument(key.length > 0, "Key cannot be empty");
+        checkState(!closed, "Store is closed");
+        Location location = append(key, value);
+        Location previous = index.put(new Key(key), location);
+        return release(previous, true);
+    }
+
+    /**
+     * Associates the value with the key unless the key is already present.
+     *
+     * @param key   key bytes
+     * @param value value bytes
+     * @return true if the value was added
+     */
+    public synchronized boolean putIfAbsent(byte[] key, byte[] value) {
+        if (containsKey(key)) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Removes the key, appending a tombstone if it was present.
+     *
+     * @param key key bytes
+     * @return previous value bytes or null if the key was not present
+     */
+    public synchronized byte[] remove(byte[] key) {
+        checkNotNull(key);
+        checkState(!closed, "Store is closed");
+        Key wrapped = new Key(key);
+        if (!index.containsKey(wrapped)) {
+            return null;
+        }
+        Location tombstone = append(key, null);
+        // tombstones are never live; count them as obsolete straight away
+        tombstone.segment.obsoleteBytes += tombstone.length;
+        return release(index.remove(wrapped), true);
+    }
+
+    /**
+     * Returns the number of live keys.
+     *
+     * @return number of keys
+     */
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Invokes the consumer for a consistent snapshot of all live entries.
+     *
+     * @param consumer entry consumer
+     */
+    public synchronized void forEach(BiConsumer<byte[], byte[]> consumer) {
+        index.forEach((key, location) -> consumer.accept(key.bytes, readValue(location)));
+    }
+
+    /**
+     * Returns a snapshot of the live keys.
+     *
+     * @return list of key bytes
+     */
+    public synchronized List<byte[]> keys() {
+        List<byte[]> keys = Lists.newArrayListWithCapacity(index.size());
+        index.keySet().forEach(key -> keys.add(key.bytes));
+        return keys;
+    }
+
+    /**
+     * Removes all entries and deletes all segments.
+     */
+    public synchronized void clear() {
+        checkState(!closed, "Store is closed");
+        index.clear();
+        for (Segment segment : segments.values()) {
+            segment.delete();
+        }
+        int nextId = active.id + 1;
+        segments.clear();
+        try {
+            // the previous index refers to segments that no longer exist
+            Files.deleteIfExists(directory.resolve(INDEX_FILE));
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to clear log store " + directory + ": " + e.getMessage());
+        }
+        active = createSegment(nextId, segmentSize);
+        dirty = true;
+    }
+
+    /**
+     * Returns the fraction of bytes in sealed segments held by obsolete
+     * records.
+     *
+     * @return obsolete ratio in [0, 1]
+     */
+    public synchronized double obsoleteRatio() {
+        long total = 0;
+        long obsolete = 0;
+        for (Segment segment : segments.values()) {
+            if (segment != active) {
+                total += segment.position;
+                obsolete += segment.obsoleteBytes;
+            }
+        }
+        return total == 0 ? 0 : (double) obsolete / total;
+    }
+
+    /**
+     * Rewrites live records of all sealed segments into the active segment
+     * and deletes the sealed segments, if their obsolete ratio exceeds the
+     * compaction threshold.
+     *
+     * @return true if compaction took place
+     */
+    public synchronized boolean compactIfNeeded() {
+        if (closed || obsoleteRatio() < compactionThreshold) {
+            return false;
+        }
+        compact();
+        return true;
+    }
+
+    /**
+     * Rewrites live records of all sealed segments into the active segment
+     * and deletes the sealed segments.
+     * <p>
+     * All sealed segments are compacted together, so tombstones never need
+     * to be carried over: a tombstone only shadows records in its own or an
+     * older segment, and sealed segments are deleted oldest first so that it
+     * outlives all of them. A crash part way through therefore leaves a
+     * suffix of the sealed segments in place, which replays to the same
+     * values as the copies.
+     * </p>
+     */
+    public synchronized void compact() {
+        checkState(!closed, "Store is closed");
+        int activeId = active.id;
+        List<Segment> sealed = Lists.newArrayList(segments.headMap(activeId, false).values());
+        if (sealed.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<Key, Location> entry : index.entrySet()) {
+            Location location = entry.getValue();
+            if (location.segment.id < activeId) {
+                entry.setValue(append(entry.getKey().bytes, readValue(location)));
+            }
+        }
+        // make the copies durable before the originals disappear
+        active.force();
+        writeIndex();
+        for (Segment segment : sealed) {
+            segment.delete();
+            segments.remove(segment.id);
+        }
+        writeIndex();
+        log.debug("Compacted {} segments of {}", sealed.size(), directory);
+    }
+
+    /**
+     * Forces outstanding writes to disk and snapshots the index.
+     */
+    public synchronized void flush() {
+        if (closed || !dirty) {
+            return;
+        }
+        active.force();
+        writeIndex();
+        dirty = false;
+    }
+
+    /**
+     * Flushes and closes the store.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        flush();
+        closed = true;
+        segments.values().forEach(Segment::unmap);
+        segments.clear();
+        index.clear();
+    }
+
+    /**
+     * Closes the store and deletes all of its files.
+     */
+    public synchronized void destroy() {
+        closed = true;
+        segments.values().forEach(Segment::delete);
+        segments.clear();
+        index.clear();
+        try {
+            Files.deleteIfExists(directory.resolve(INDEX_FILE));
+            Files.deleteIfExists(directory.resolve(INDEX_TEMP_FILE));
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            log.warn("Unable to delete log store {}", directory, e);
+        }
+    }
+
+    private Location append(byte[] key, byte[] value) {
+        int valueLength = value == null ? TOMBSTONE : value.length;
+        int length = HEADER_LENGTH + key.length + Math.max(valueLength, 0);
+        if (active.remaining() < length) {
+            active.force();
+            active = createSegment(active.id + 1, Math.max(segmentSize, length));
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer lengths = ByteBuffer.allocate(8).putInt(key.length).putInt(valueLength);
+        crc.update(lengths.array(), 0, 8);
+        crc.update(key, 0, key.length);
+        if (value != null) {
+            crc.update(value, 0, value.length);
+        }
+
+        int offset = active.position;
+        ByteBuffer buffer = active.buffer;
+        buffer.position(offset);
+        buffer.putInt((int) crc.getValue());
+        buffer.putInt(key.length);
+        buffer.putInt(valueLength);
+        buffer.put(key);
+        if (value != null) {
+            buffer.put(value);
+        }
+        active.position = buffer.position();
+        dirty = true;
+        return new Location(active, offset, length);
+    }
+
+    private byte[] release(Location previous, boolean read) {
+        if (previous == null) {
+            return null;
+        }
+        byte[] value = read ? readValue(previous) : null;
+        previous.segment.obsoleteBytes += previous.length;
+        return value;
+    }
+
+    private byte[] readValue(Location location) {
+        ByteBuffer buffer = location.segment.buffer.duplicate();
+        buffer.position(location.offset + 4);
+        int keyLength = buffer.getInt();
+        int valueLength = buffer.getInt();
+        byte[] value = new byte[valueLength];
+        buffer.position(location.offset + HEADER_LENGTH + keyLength);
+        buffer.get(value);
+        return value;
+    }
+
+    private Segment createSegment(int id, int size) {
+        try {
+            Segment segment = new Segment(id, directory.resolve(segmentName(id)), size);
+            segments.put(id, segment);
+            return segment;
+        } catch (IOException e) {
+            throw new PersistenceException("Unable to create segment " + id + ": " + e.getMessage());
+        }
+    }
+
+    private static String segmentName(int id) {
+        return String.format("%08d%s", id, SEGMENT_SUFFIX);
+    }
+
+    private void recover() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int id = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                segments.put(id, new Segment(id, file, (int) Files.size(file)));
+            }
+        }
+
+        Map<Integer, Integer> replayFrom = readIndex();
+        if (replayFrom == null) {
+            index.clear();
+            segments.values().forEach(s -> s.obsoleteBytes = 0);
+            replayFrom = Maps.newHashMap();
+        } else if (!replayFrom.isEmpty()) {
+            // older segments the index no longer lists were compacted away
+            // but outlived a failed delete; replaying them would resurrect
+            // stale values
+            int newest = Collections.max(replayFrom.keySet());
+            for (Segment stale : Lists.newArrayList(segments.headMap(newest, false).values())) {
+                if (!replayFrom.containsKey(stale.id)) {
+                    stale.delete();
+                    segments.remove(stale.id);
+                }
+            }
+        }
+        for (Segment segment : segments.values()) {
+            replay(segment, replayFrom.getOrDefault(segment.id, 0));
+        }
+
+        if (segments.isEmpty()) {
+            active = createSegment(1, segmentSize);
+        } else {
+            active = segments.lastEntry().getValue();
+        }
+        log.debug("Recovered {} entries from {} segments in {}", index.size(), segments.size(), directory);
+    }
+
+    private void replay(Segment segment, int from) {
+        ByteBuffer buffer = segment.buffer;
+        int offset = from;
+        while (offset + HEADER_LENGTH <= buffer.capacity()) {
+            buffer.position(offset);
+            int checksum = buffer.getInt();
+            int keyLength = buffer.getInt();
+            int valueLength = buffer.getInt();
+            if (keyLength <= 0 || valueLength < TOMBSTONE
+                    || (long) offset + HEADER_LENGTH + keyLength + Math.max(valueLength, 0) > buffer.capacity()) {
+                break;
+            }
+            int length = HEADER_LENGTH + keyLength + Math.max(valueLength, 0);
+            byte[] key = new byte[keyLength];
+            buffer.get(key);
+            CRC32 crc = new CRC32();
+            crc.update(ByteBuffer.allocate(8).putInt(keyLength).putInt(valueLength).array(), 0, 8);
+            crc.update(key, 0, keyLength);
+            if (valueLength > 0) {
+                byte[] value = new byte[valueLength];
+                buffer.get(value);
+                crc.update(value, 0, valueLength);
+            }
+            if ((int) crc.getValue() != checksum) {
+                log.warn("Checksum mismatch in segment {} of {} at offset {}; discarding tail",
+                         segment.id, directory, offset);
+                break;
+            }
+
+            Location location = new Location(segment, offset, length);
+            Key wrapped = new Key(key);
+            if (valueLength == TOMBSTONE) {
+                segment.obsoleteBytes += length;
+                release(index.remove(wrapped), false);
+            } else {
+                release(index.put(wrapped, location), false);
+            }
+            offset += length;
+        }
+        segment.position = offset;
+    }
+
+    /**
+     * Loads the index snapshot, if present and intact.
+     *
+     * Segments deleted by an interrupted compaction after the index was
+     * written are skipped, as no entry refers to them any more.
+     *
+     * @return per segment offsets from which to resume replay, or null if the
+     * index is missing, corrupt or has entries in segments that no longer exist
+     */
+    private Map<Integer, Integer> readIndex() {
+        Path file = directory.resolve(INDEX_FILE);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(file)), crc))) {
+            if (in.readInt() != INDEX_MAGIC) {
+                return null;
+            }
+            Map<Integer, Integer> positions = Maps.newHashMap();
+            int segmentCount = in.readInt();
+            for (int i = 0; i < segmentCount; i++) {
+                int id = in.readInt();
+                int position = in.readInt();
+                long obsolete = in.readLong();
+                Segment segment = segments.get(id);
+                if (segment == null) {
+                    continue;
+                }
+                if (position > segment.buffer.capacity()) {
+                    return null;
+                }
+                segment.obsoleteBytes = obsolete;
+                positions.put(id, position);
+            }
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                int id = in.readInt();
+                int offset = in.readInt();
+                int length = in.readInt();
+                byte[] key = new byte[in.readInt()];
+                in.readFully(key);
+                Segment segment = segments.get(id);
+                if (segment == null) {
+                    return null;
+                }
+                index.put(new Key(key), new Location(segment, offset, length));
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                log.warn("Index checksum mismatch for {}; rebuilding from segments", directory);
+                return null;
+            }
+            return positions;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Unable to read index for {}; rebuilding from segments", directory);
+            return null;
+        }
+    }
+
+    private void writeIndex() {
+        Path temp = directory.resolve(INDEX_TEMP_FILE);
+        CRC32 crc = new CRC32();
+        try (OutputStream file = new BufferedOutputStream(
+                Files.newOutputStream(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING));
+             DataOutputStream out = new DataOutputStream(new CheckedOutputStream(file, crc))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(segments.size());
+            for (Segment segment : segments.values()) {
+                out.writeInt(segment.id);
+                out.writeInt(segment.position);
+                out.writeLong(segment.obsoleteBytes);
+            }
+            out.writeInt(index.size());
+            for (Map.Entry<Key, Location> entry : index.entrySet()) {
+                Location location = entry.getValue();
+                out.writeInt(location.segment.id);
+                out.writeInt(location.offset);
+                out.writeInt(location.length);
+                out.writeInt(entry.getKey().bytes.length);
+                out.write(entry.getKey().bytes);
+            }
+            out.flush();
+            // the trailing checksum is written outside the checked stream
+            new DataOutputStream(file).writeLong(crc.getValue());
+        } catch (IOException e) {
+            log.warn("Unable to write index for {}", directory, e);
+            return;
+        }
+        try {
+            Files.move(temp, directory.resolve(INDEX_FILE),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Unable to install index for {}", directory, e);
+        }
+    }
+
+    /**
+     * Iterator over a snapshot of the live keys which removes through the store.
+     *
+     * @return key iterator
+     */
+    Iterator<byte[]> keyIterator() {
+        Iterator<byte[]> keys = keys().iterator();
+        return new Iterator<byte[]>() {
+            private byte[] current;
+
+            @Override
+            public boolean hasNext() {
+                return keys.hasNext();
+            }
+
+            @Override
+            public byte[] next() {
+                current = keys.next();
+                return current;
+            }
+
+            @Override
+            public void remove() {
+                checkState(current != null);
+                LogStructuredStore.this.remove(current);
+                current = null;
+            }
+        };
+    }
+
+    /**
+     * Memory-mapped segment file.
+     */
+    private static final class Segment {
+        private final int id;
+        private final Path file;
+        private final MappedByteBuffer buffer;
+        private int position;
+        private long obsoleteBytes;
+
+        private Segment(int id, Path file, int size) throws IOException {
+            this.id = id;
+            this.file = file;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                                                        StandardOpenOption.READ,
+                                                        StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+        }
+
+        private int remaining() {
+            return buffer.capacity() - position;
+        }
+
+        private void force() {
+            buffer.force();
+        }
+
+        /**
+         * Releases the mapping eagerly rather than when the buffer happens
+         * to be garbage collected, so that deleted segments free their disk
+         * space and file handles straight away.
+         */
+        private void unmap() {
+            try {
+                Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+                cleanerMethod.setAccessible(true);
+                Object cleaner = cleanerMethod.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // left to the garbage collector
+            }
+        }
+
+        private void delete() {
+            unmap();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new PersistenceException("Unable to delete segment " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Location of the latest record for a key.
+     */
+    private static final class Location {
+        private final Segment segment;
+        private final int offset;
+        private final int length;
+
+        private Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Byte array wrapper with content based equality.
+     */
+    private static final class Key {
+        private final byte[] bytes;
+        private final int hash;
+
+        private Key(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(bytes, ((Key) other).bytes);
+        }
+    }
+}
@@ -16,26 +16,35 @@
 
 package org.onosproject.persistence.impl;
 
+import com.google.common.collect.Maps;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Service;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.onosproject.persistence.PersistenceEngine;
 import org.onosproject.persistence.PersistenceService;
 import org.onosproject.persistence.PersistentMapBuilder;
 import org.onosproject.persistence.PersistentSetBuilder;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Dictionary;
 import java.util.Map;
 import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
 
+import static org.onlab.util.Tools.get;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PERSISTENCE_WRITE;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -53,6 +62,8 @@ public class PersistenceManager implements PersistenceService {
 
     private static final String DATABASE_PATH = "cache";
 
+    private static final String LOG_STORE_PATH = "log";
+
     static final String MAP_PREFIX = "map:";
     static final String SET_PREFIX = "set:";
 
@@ -60,14 +71,25 @@ public class PersistenceManager implements PersistenceService {
 
     private DB localDB = null;
 
+    private Path logStoreRoot;
+
+    private final Map<String, LogStructuredStore> logStores = Maps.newConcurrentMap();
+
     private static final int FLUSH_FREQUENCY_MILLIS = 3000;
 
+    private static final String DEFAULT_ENGINE = "MAPDB";
+    @Property(name = "engine", value = DEFAULT_ENGINE,
+            label = "Storage engine of persistent maps and sets which do not choose one: " +
+                    "MAPDB or LOG; contents written by the other engine are not carried over")
+    private PersistenceEngine engine = PersistenceEngine.valueOf(DEFAULT_ENGINE);
+
     private Timer timer;
 
     private final CommitTask commitTask = new CommitTask();
 
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        readComponentConfiguration(context);
         timer = new Timer();
 
         File dbFolderPath = new File(DATABASE_ROOT);
@@ -92,6 +114,7 @@ public class PersistenceManager implements PersistenceService {
         } else {
             log.info("A previous database file has been found.");
         }
+        logStoreRoot = dbFolderPath.toPath().resolve(LOG_STORE_PATH);
         localDB = DBMaker.newFileDB(dbPath.toFile())
                 .asyncWriteEnable()
                 .closeOnJvmShutdown()
@@ -124,19 +147,70 @@ public class PersistenceManager implements PersistenceService {
         }
         localDB.commit();
         localDB.close();
+        logStores.values().forEach(store -> {
+            if (store.size() == 0) {
+                //the store is empty and may be deleted
+                store.destroy();
+            } else {
+                store.close();
+            }
+        });
+        logStores.clear();
         log.info("Stopped");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        readComponentConfiguration(context);
+    }
+
+    /**
+     * Extracts properties from the component configuration context. The
+     * configuration is read straight from the context rather than through
+     * the component config service, which is itself backed by storage that
+     * depends on this service.
+     *
+     * @param context the component context
+     */
+    private void readComponentConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context == null ? null : context.getProperties();
+        String s = properties == null ? null : get(properties, "engine");
+        try {
+            engine = PersistenceEngine.valueOf(s == null ? DEFAULT_ENGINE : s.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown persistence engine {}; using {}", s, DEFAULT_ENGINE);
+            engine = PersistenceEngine.valueOf(DEFAULT_ENGINE);
+        }
+        log.info("Settings: engine={}", engine);
+    }
+
     @Override
     public <K, V> PersistentMapBuilder<K, V> persistentMapBuilder() {
         checkPermission(PERSISTENCE_WRITE);
-        return new DefaultPersistentMapBuilder<>(localDB);
+        return new DefaultPersistentMapBuilder<K, V>(localDB, this::logStore).withEngine(engine);
     }
 
     @Override
     public <E> PersistentSetBuilder<E> persistentSetBuilder() {
         checkPermission(PERSISTENCE_WRITE);
-        return new DefaultPersistentSetBuilder<>(localDB);
+        return new DefaultPersistentSetBuilder<E>(localDB, this::logStore).withEngine(engine);
+    }
+
+    /**
+     * Returns the log structured store with the given name, opening it if
+     * necessary.
+     *
+     * @param name prefixed name of the map or set
+     * @return log structured store
+     */
+    private LogStructuredStore logStore(String name) {
+        return logStores.computeIfAbsent(name, n -> {
+            try {
+                return new LogStructuredStore(logStoreRoot.resolve(URLEncoder.encode(n, "UTF-8")));
+            } catch (UnsupportedEncodingException e) {
+                throw new PersistenceException("Unable to encode store name " + n);
+            }
+        });
     }
 
     private class CommitTask extends TimerTask {
@@ -144,6 +218,14 @@ public class PersistenceManager implements PersistenceService {
         @Override
         public void run() {
             localDB.commit();
+            logStores.values().forEach(store -> {
+                try {
+                    store.compactIfNeeded();
+                    store.flush();
+                } catch (PersistenceException e) {
+                    log.warn("Unable to flush log store", e);
+                }
+            });
         }
     }
 }
\ No newline at end of file
@@ -35,22 +35,30 @@ public class PersistentSet<E> implements Set<E> {
 
     private final org.onosproject.store.service.Serializer serializer;
 
-    private final org.mapdb.DB database;
-
     private final Set<byte[]> items;
 
     private final String name;
 
     public PersistentSet(org.onosproject.store.service.Serializer serializer, DB database, String name) {
-        this.serializer = checkNotNull(serializer);
-        this.database = checkNotNull(database);
-        this.name = checkNotNull(name);
-
-        items = database
-                .createHashSet(name)
+        this(serializer, checkNotNull(database)
+                .createHashSet(checkNotNull(name))
                 .serializer(Serializer.BYTE_ARRAY)
                 .hasher(Hasher.BYTE_ARRAY)
-                .makeOrGet();
+                .<byte[]>makeOrGet(), name);
+    }
+
+    /**
+     * Creates a set backed by the given raw set, which must compare byte
+     * array elements by content.
+     *
+     * @param serializer serializer for the elements
+     * @param items      backing raw set
+     * @param name       name of the set
+     */
+    public PersistentSet(org.onosproject.store.service.Serializer serializer, Set<byte[]> items, String name) {
+        this.serializer = checkNotNull(serializer);
+        this.items = checkNotNull(items);
+        this.name = checkNotNull(name);
     }
 
     public void readInto(Set<E> items) {
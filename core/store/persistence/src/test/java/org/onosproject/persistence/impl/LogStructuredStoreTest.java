@@ -0,0 +1,238 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.onosproject.persistence.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Test suite for the log structured store.
+ */
+public class LogStructuredStoreTest {
+
+    private static final int SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private Path directory;
+    private LogStructuredStore store;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = tmpFolder.newFolder().toPath();
+        store = open();
+    }
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    private LogStructuredStore open() {
+        return new LogStructuredStore(directory, SEGMENT_SIZE, 0.5);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(p -> p.toString().endsWith(".log")).collect(Collectors.counting());
+        }
+    }
+
+    @Test
+    public void testBasics() {
+        assertNull(store.put(bytes("a"), bytes("1")));
+        assertArrayEquals(bytes("1"), store.put(bytes("a"), bytes("2")));
+        assertArrayEquals(bytes("2"), store.get(bytes("a")));
+        assertTrue(store.containsKey(bytes("a")));
+        assertEquals(1, store.size());
+        assertFalse(store.putIfAbsent(bytes("a"), bytes("3")));
+
+        assertArrayEquals(bytes("2"), store.remove(bytes("a")));
+        assertNull(store.remove(bytes("a")));
+        assertNull(store.get(bytes("a")));
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    public void testRecoveryFromIndex() {
+        for (int i = 0; i < 100; i++) {
+            store.put(bytes("key" + i), bytes("value" + i));
+        }
+        store.remove(bytes("key7"));
+        store.close();
+
+        store = open();
+        assertEquals(99, store.size());
+        assertNull(store.get(bytes("key7")));
+        assertArrayEquals(bytes("value42"), store.get(bytes("key42")));
+    }
+
+    @Test
+    public void testRecoveryReplaysTail() {
+        store.put(bytes("a"), bytes("1"));
+        store.flush();
+        // written after the index snapshot and never flushed
+        store.put(bytes("b"), bytes("2"));
+        store.remove(bytes("a"));
+
+        LogStructuredStore reopened = open();
+        assertEquals(1, reopened.size());
+        assertNull(reopened.get(bytes("a")));
+        assertArrayEquals(bytes("2"), reopened.get(bytes("b")));
+    }
+
+    @Test
+    public void testRecoveryWithCorruptIndex() throws Exception {
+        for (int i = 0; i < 50; i++) {
+            store.put(bytes("key" + i), bytes("value" + i));
+        }
+        store.close();
+
+        Path index = directory.resolve("index");
+        byte[] contents = Files.readAllBytes(index);
+        contents[contents.length / 2] ^= 0xff;
+        Files.write(index, contents);
+
+        store = open();
+        assertEquals(50, store.size());
+        assertArrayEquals(bytes("value13"), store.get(bytes("key13")));
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 10; i++) {
+                store.put(bytes("key" + i), bytes("value" + round));
+            }
+        }
+        long before = segmentCount();
+        assertTrue(before > 1);
+        assertTrue(store.obsoleteRatio() > 0.5);
+
+        assertTrue(store.compactIfNeeded());
+        assertTrue(segmentCount() < before);
+        assertEquals(10, store.size());
+        assertArrayEquals(bytes("value19"), store.get(bytes("key3")));
+
+        store.close();
+        store = open();
+        assertEquals(10, store.size());
+        assertArrayEquals(bytes("value19"), store.get(bytes("key9")));
+    }
+
+    @Test
+    public void testRecoveryAfterInterruptedCompaction() throws Exception {
+        for (int i = 0; i < 80; i++) {
+            store.put(bytes("key" + i), bytes("value" + i));
+        }
+        for (int i = 0; i < 80; i += 2) {
+            store.remove(bytes("key" + i));
+        }
+        store.put(bytes("tail"), bytes("value"));
+        store.flush();
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(p -> p.toString().endsWith(".log")).sorted().collect(Collectors.toList());
+        }
+        assertTrue(segments.size() > 2);
+        // the newest sealed segment is the last one a compaction deletes
+        Path newestSealed = segments.get(segments.size() - 2);
+        byte[] contents = Files.readAllBytes(newestSealed);
+
+        store.compact();
+        store.close();
+
+        // with the index intact, the leftover segment is discarded
+        Files.write(newestSealed, contents);
+        store = open();
+        assertEquals(41, store.size());
+        assertFalse(Files.exists(newestSealed));
+        store.close();
+
+        // with the index lost, the leftover segment is replayed in full
+        Files.write(newestSealed, contents);
+        Files.delete(directory.resolve("index"));
+        store = open();
+        assertEquals(41, store.size());
+        for (int i = 0; i < 80; i++) {
+            assertEquals(i % 2 == 0, store.get(bytes("key" + i)) == null);
+        }
+        assertArrayEquals(bytes("value79"), store.get(bytes("key79")));
+    }
+
+    @Test
+    public void testRecoveryWithCorruptLengths() throws Exception {
+        store.put(bytes("a"), bytes("1"));
+        store.close();
+        Files.delete(directory.resolve("index"));
+
+        // a torn header whose lengths overflow when added together
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(p -> p.toString().endsWith(".log")).findFirst().get();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(12)
+                    .putInt(0).putInt(Integer.MAX_VALUE - 4).putInt(Integer.MAX_VALUE - 4);
+            header.flip();
+            channel.write(header, 14);
+        }
+
+        store = open();
+        assertEquals(1, store.size());
+        assertArrayEquals(bytes("1"), store.get(bytes("a")));
+    }
+
+    @Test
+    public void testClear() {
+        store.put(bytes("a"), bytes("1"));
+        store.flush();
+        store.clear();
+        assertEquals(0, store.size());
+        store.put(bytes("b"), bytes("2"));
+        store.close();
+
+        store = open();
+        assertEquals(1, store.size());
+        assertNull(store.get(bytes("a")));
+    }
+}
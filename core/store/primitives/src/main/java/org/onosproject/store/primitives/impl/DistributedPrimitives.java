@@ -66,6 +66,19 @@ public final class DistributedPrimitives {
         return new CachingAsyncConsistentMap<>(map);
     }
 
+    /**
+     * Creates an instance of {@code AsyncConsistentMap} that serves reads from a
+     * full local replica of the map.
+     *
+     * @param map backing map
+     * @return replicated map
+     * @param <K> map key type
+     * @param <V> map value type
+     */
+    public static <K, V> AsyncConsistentMap<K, V> newLocalReplicaMap(AsyncConsistentMap<K, V> map) {
+        return new LocalReplicaAsyncConsistentMap<>(map);
+    }
+
     /**
      * Creates an instance of {@code AsyncConsistentMap} that disallows updates.
      *
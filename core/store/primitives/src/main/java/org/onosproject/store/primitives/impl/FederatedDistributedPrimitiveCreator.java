@@ -19,10 +19,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
@@ -33,6 +37,9 @@ import com.google.common.hash.Hashing;
 import org.onlab.util.HexString;
 import org.onosproject.cluster.PartitionId;
 import org.onosproject.store.primitives.DistributedPrimitiveCreator;
+import org.onosproject.store.primitives.impl.RebalancingAsyncConsistentMap.EntryMover;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMap;
+import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.AsyncAtomicCounter;
 import org.onosproject.store.service.AsyncAtomicCounterMap;
 import org.onosproject.store.service.AsyncAtomicIdGenerator;
@@ -45,48 +52,108 @@ import org.onosproject.store.service.AsyncDocumentTree;
 import org.onosproject.store.service.AsyncLeaderElector;
 import org.onosproject.store.service.DocumentPath;
 import org.onosproject.store.service.Ordering;
+import org.onosproject.store.service.ReadConsistency;
 import org.onosproject.store.service.Serializer;
+import org.onosproject.store.service.Versioned;
 import org.onosproject.store.service.WorkQueue;
+import org.slf4j.Logger;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
 
 /**
  * {@code DistributedPrimitiveCreator} that federates responsibility for creating
  * distributed primitives to a collection of other {@link DistributedPrimitiveCreator creators}.
+ * <p>
+ * When partitions have been added, consistent maps spread their keys across all partitions and move
+ * keys placed by previous layouts to their new owners. Once all keys of a map have been moved, the
+ * number of partitions of the current layout is recorded for the map, and the layouts preceding it are no
+ * longer consulted for the map. Other primitives keep the placement of the original layout, since their
+ * state is not migrated.
  */
 public class FederatedDistributedPrimitiveCreator implements DistributedPrimitiveCreator {
 
     private static final Funnel<Iterable<? extends CharSequence>> STR_LIST_FUNNEL =
                 Funnels.sequentialFunnel(Funnels.unencodedCharsFunnel());
 
+    private final Logger log = getLogger(getClass());
+
     private final TreeMap<PartitionId, DistributedPrimitiveCreator> members;
     private final List<PartitionId> sortedMemberPartitionIds;
+    private final List<List<PartitionId>> previousLayouts;
+    private final List<PartitionId> placementPartitionIds;
+    private final AsyncConsistentMap<String, Integer> rebalancedLayouts;
+    private final Map<String, CompletableFuture<Void>> rebalancing = Maps.newConcurrentMap();
     private final int buckets;
 
     public FederatedDistributedPrimitiveCreator(Map<PartitionId, DistributedPrimitiveCreator> members, int buckets) {
+        this(members, buckets, ImmutableList.of(), null);
+    }
+
+    /**
+     * Creates a federated creator for partitions some of which have been added since primitives were created.
+     *
+     * @param members         primitive creators by partition identifier
+     * @param buckets         number of buckets keys are hashed into
+     * @param previousLayouts numbers of partitions primitives were previously spread across, oldest first;
+     *                        the lowest partition identifiers were the ones in use
+     * @param rebalancedLayouts numbers of partitions of the layouts consistent maps have last been rebalanced
+     *                        to, by map name; may be {@code null} if there are no previous layouts
+     */
+    public FederatedDistributedPrimitiveCreator(Map<PartitionId, DistributedPrimitiveCreator> members, int buckets,
+                                                List<Integer> previousLayouts,
+                                                AsyncConsistentMap<String, Integer> rebalancedLayouts) {
         this.members = Maps.newTreeMap();
         this.members.putAll(checkNotNull(members));
-        this.sortedMemberPartitionIds = Lists.newArrayList(members.keySet());
+        this.sortedMemberPartitionIds = Lists.newArrayList(this.members.keySet());
+        this.previousLayouts = previousLayouts.stream()
+                .filter(size -> size > 0 && size < sortedMemberPartitionIds.size())
+                .map(size -> ImmutableList.copyOf(sortedMemberPartitionIds.subList(0, size)))
+                .collect(Collectors.toList());
+        this.placementPartitionIds = this.previousLayouts.isEmpty()
+                ? sortedMemberPartitionIds : this.previousLayouts.get(0);
+        this.rebalancedLayouts = rebalancedLayouts;
         this.buckets = buckets;
     }
 
     @Override
-    public <K, V> AsyncConsistentMap<K, V> newAsyncConsistentMap(String name, Serializer serializer) {
+    public <K, V> AsyncConsistentMap<K, V> newAsyncConsistentMap(String name, Serializer serializer,
+                                                                 ReadConsistency readConsistency) {
         checkNotNull(name);
         checkNotNull(serializer);
-        Map<PartitionId, AsyncConsistentMap<byte[], byte[]>> maps =
+        // the partition maps are created once, since each of them opens a session
+        Map<PartitionId, AsyncConsistentMap<String, byte[]>> rawMaps = ImmutableMap.copyOf(
                 Maps.transformValues(members,
-                                     partition -> DistributedPrimitives.newTranscodingMap(
-                                             partition.<String, byte[]>newAsyncConsistentMap(name, null),
+                                     partition -> partition.<String, byte[]>newAsyncConsistentMap(
+                                             name, null, readConsistency)));
+        Map<PartitionId, AsyncConsistentMap<byte[], byte[]>> maps = ImmutableMap.copyOf(
+                Maps.transformValues(rawMaps,
+                                     rawMap -> DistributedPrimitives.newTranscodingMap(
+                                             rawMap,
                                              HexString::toHexString,
                                              HexString::fromHexString,
                                              Function.identity(),
-                                             Function.identity()));
-        Hasher<byte[]> hasher = key -> {
-            int bucket = Math.abs(Hashing.murmur3_32().hashBytes(key).asInt()) % buckets;
-            return sortedMemberPartitionIds.get(Hashing.consistentHash(bucket, sortedMemberPartitionIds.size()));
-        };
+                                             Function.identity())));
+        Hasher<byte[]> hasher = keyHasher(sortedMemberPartitionIds);
         AsyncConsistentMap<byte[], byte[]> partitionedMap = new PartitionedAsyncConsistentMap<>(name, maps, hasher);
+        List<List<PartitionId>> layouts = unbalancedLayouts(name);
+        if (!layouts.isEmpty()) {
+            Map<PartitionId, EntryMover<byte[], byte[]>> movers =
+                    Maps.transformValues(rawMaps, FederatedDistributedPrimitiveCreator::entryMover);
+            RebalancingAsyncConsistentMap<byte[], byte[]> rebalancingMap = new RebalancingAsyncConsistentMap<>(
+                    partitionedMap, maps, movers, hasher,
+                    layouts.stream().map(this::keyHasher).collect(Collectors.toList()));
+            CompletableFuture<Void> rebalanced = rebalancingMap.rebalance()
+                    .thenCompose(v -> rebalancedLayouts.put(name, sortedMemberPartitionIds.size()))
+                    .whenComplete((r, e) -> {
+                        if (e != null) {
+                            log.warn("Failed to move keys of map {} to their partitions", name, e);
+                        }
+                    })
+                    .thenApply(r -> null);
+            rebalancing.put(name, rebalanced);
+            partitionedMap = rebalancingMap;
+        }
         return DistributedPrimitives.newTranscodingMap(partitionedMap,
                 key -> serializer.encode(key),
                 bytes -> serializer.decode(bytes),
@@ -94,6 +161,84 @@ public class FederatedDistributedPrimitiveCreator implements DistributedPrimitiv
                 bytes -> serializer.decode(bytes));
     }
 
+    /**
+     * Returns a future completed once the keys of a consistent map have been moved to the partitions of the
+     * current layout.
+     * <p>
+     * If no instance of the map is being rebalanced yet, one is created to rebalance it. A failed rebalance is
+     * started over.
+     *
+     * @param name map name
+     * @return future to be completed once the keys of the map are on their partitions
+     */
+    public CompletableFuture<Void> rebalanced(String name) {
+        if (previousLayouts.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> future = rebalancing.get(name);
+        if (future != null && !future.isCompletedExceptionally()) {
+            return future;
+        }
+        if (unbalancedLayouts(name).isEmpty()) {
+            future = CompletableFuture.completedFuture(null);
+            rebalancing.put(name, future);
+            return future;
+        }
+        newAsyncConsistentMap(name, Serializer.using(KryoNamespaces.BASIC));
+        return rebalancing.get(name);
+    }
+
+    /**
+     * Returns the previous layouts the keys of a consistent map may still be placed by.
+     * <p>
+     * Layouts preceding the one the map has last been rebalanced to are skipped, so that maps are only
+     * rebalanced once per layout change.
+     *
+     * @param name map name
+     * @return partitions of the layouts, oldest first
+     */
+    private List<List<PartitionId>> unbalancedLayouts(String name) {
+        if (previousLayouts.isEmpty()) {
+            return previousLayouts;
+        }
+        Versioned<Integer> rebalanced = rebalancedLayouts.get(name).join();
+        if (rebalanced == null) {
+            return previousLayouts;
+        }
+        return previousLayouts.stream()
+                .filter(layout -> layout.size() >= rebalanced.value())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Returns an entry mover for a partition map, with keys encoded as the transcoding partition maps do.
+     * <p>
+     * Partitions backed by anything other than an {@link AtomixConsistentMap} fall back to conditional
+     * updates, which change the versions of moved entries and publish events.
+     *
+     * @param map partition map
+     * @return entry mover
+     */
+    private static EntryMover<byte[], byte[]> entryMover(AsyncConsistentMap<String, byte[]> map) {
+        return new EntryMover<byte[], byte[]>() {
+            @Override
+            public CompletableFuture<Boolean> moveIn(byte[] key, Versioned<byte[]> value) {
+                if (map instanceof AtomixConsistentMap) {
+                    return ((AtomixConsistentMap) map).moveIn(HexString.toHexString(key), value);
+                }
+                return map.putIfAbsent(HexString.toHexString(key), value.value()).thenApply(v -> v == null);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> moveOut(byte[] key, long version) {
+                if (map instanceof AtomixConsistentMap) {
+                    return ((AtomixConsistentMap) map).moveOut(HexString.toHexString(key), version);
+                }
+                return map.remove(HexString.toHexString(key), version);
+            }
+        };
+    }
+
     @Override
     public <V> AsyncConsistentTreeMap<V> newAsyncConsistentTreeMap(String name, Serializer serializer) {
         return getCreator(name).newAsyncConsistentTreeMap(name, serializer);
@@ -137,7 +282,7 @@ public class FederatedDistributedPrimitiveCreator implements DistributedPrimitiv
                                      partition -> partition.newAsyncLeaderElector(name, leaderTimeout, timeUnit));
         Hasher<String> hasher = topic -> {
             int hashCode = Hashing.sha256().hashString(topic, Charsets.UTF_8).asInt();
-            return sortedMemberPartitionIds.get(Math.abs(hashCode) % members.size());
+            return placementPartitionIds.get(Math.abs(hashCode) % placementPartitionIds.size());
         };
         return new PartitionedAsyncLeaderElector(name, leaderElectors, hasher);
     }
@@ -158,7 +303,7 @@ public class FederatedDistributedPrimitiveCreator implements DistributedPrimitiv
                     Math.abs(Hashing.murmur3_32()
                                   .hashObject(key.pathElements(), STR_LIST_FUNNEL)
                                   .asInt()) % buckets;
-            return sortedMemberPartitionIds.get(Hashing.consistentHash(bucket, sortedMemberPartitionIds.size()));
+            return placementPartitionIds.get(Hashing.consistentHash(bucket, placementPartitionIds.size()));
         };
         return new PartitionedAsyncDocumentTree<>(name, trees, hasher);
     }
@@ -197,6 +342,18 @@ public class FederatedDistributedPrimitiveCreator implements DistributedPrimitiv
      */
     private DistributedPrimitiveCreator getCreator(String name) {
         int hashCode = Hashing.sha256().hashString(name, Charsets.UTF_8).asInt();
-        return members.get(sortedMemberPartitionIds.get(Math.abs(hashCode) % members.size()));
+        return members.get(placementPartitionIds.get(Math.abs(hashCode) % placementPartitionIds.size()));
+    }
+
+    /**
+     * Returns a hasher placing keys across the given partitions.
+     * @param partitionIds sorted partition identifiers
+     * @return key hasher
+     */
+    private Hasher<byte[]> keyHasher(List<PartitionId> partitionIds) {
+        return key -> {
+            int bucket = Math.abs(Hashing.murmur3_32().hashBytes(key).asInt()) % buckets;
+            return partitionIds.get(Hashing.consistentHash(bucket, partitionIds.size()));
+        };
     }
 }
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.MapEvent;
+import org.onosproject.store.service.MapEventListener;
+import org.onosproject.store.service.Versioned;
+import org.slf4j.Logger;
+
+import static org.onosproject.store.service.DistributedPrimitive.Status.ACTIVE;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * {@code AsyncConsistentMap} that keeps a full replica of a small map locally.
+ * <p>
+ * The replica is bootstrapped from a snapshot of the backing map and kept
+ * current by map events. Entries carry the version assigned by the backing map,
+ * so stale events and snapshot entries are discarded, and events received while
+ * a snapshot is being taken take precedence over it. Once synchronized, all read
+ * operations are served from the replica without contacting the backing map or
+ * taking locks. Updates are written through to the backing map.
+ * <p>
+ * When the backing map is suspended or becomes inactive, reads fall back to the
+ * backing map until the replica has been resynchronized.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class LocalReplicaAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMap<K, V> {
+    private final Logger log = getLogger(getClass());
+
+    private final Map<K, Versioned<V>> replica = Maps.newConcurrentMap();
+    // latest version per key seen in events since the last snapshot was requested
+    private final Map<K, Long> recent = Maps.newHashMap();
+    private final MapEventListener<K, V> replicaUpdater = this::update;
+    private final Consumer<Status> statusListener;
+
+    private volatile boolean synced;
+    private boolean syncing;
+    private long generation;
+
+    /**
+     * Creates a replicated map and starts synchronizing it.
+     *
+     * @param backingMap a distributed, strongly consistent map for backing
+     */
+    public LocalReplicaAsyncConsistentMap(AsyncConsistentMap<K, V> backingMap) {
+        super(backingMap);
+        statusListener = status -> {
+            log.debug("{} status changed to {}", this.name(), status);
+            if (status == ACTIVE) {
+                sync();
+            } else {
+                // Events may be missed until the map is active again.
+                synced = false;
+            }
+        };
+        super.addStatusChangeListener(statusListener);
+        super.addListener(replicaUpdater).thenRun(this::sync);
+    }
+
+    /**
+     * Returns whether reads are served by the local replica.
+     *
+     * @return true if the replica is synchronized
+     */
+    public boolean isSynchronized() {
+        return synced;
+    }
+
+    /**
+     * Resynchronizes the replica from a snapshot of the backing map.
+     */
+    private void sync() {
+        long snapshot;
+        synchronized (recent) {
+            synced = false;
+            syncing = true;
+            recent.clear();
+            snapshot = ++generation;
+        }
+        super.entrySet().whenComplete((entries, error) -> {
+            if (error != null) {
+                log.warn("Unable to synchronize replica of {}", name(), error);
+                return;
+            }
+            synchronized (recent) {
+                if (snapshot != generation) {
+                    return;
+                }
+                Set<K> keys = Sets.newHashSetWithExpectedSize(entries.size());
+                entries.forEach(entry -> {
+                    keys.add(entry.getKey());
+                    Long seen = recent.get(entry.getKey());
+                    if (seen == null || entry.getValue().version() > seen) {
+                        replica.merge(entry.getKey(), entry.getValue(), LocalReplicaAsyncConsistentMap::newer);
+                    }
+                });
+                replica.keySet().removeIf(key -> !keys.contains(key) && !recent.containsKey(key));
+                recent.clear();
+                syncing = false;
+                synced = true;
+            }
+        });
+    }
+
+    private void update(MapEvent<K, V> event) {
+        synchronized (recent) {
+            K key = event.key();
+            Versioned<V> newValue = event.newValue();
+            long version;
+            if (newValue != null) {
+                replica.merge(key, newValue, LocalReplicaAsyncConsistentMap::newer);
+                version = newValue.version();
+            } else {
+                Versioned<V> oldValue = event.oldValue();
+                version = oldValue != null ? oldValue.version() : Long.MAX_VALUE;
+                replica.computeIfPresent(key, (k, current) -> current.version() <= version ? null : current);
+            }
+            if (syncing) {
+                recent.merge(key, version, Math::max);
+            }
+        }
+    }
+
+    private static <V> Versioned<V> newer(Versioned<V> current, Versioned<V> candidate) {
+        return candidate.version() > current.version() ? candidate : current;
+    }
+
+    @Override
+    public CompletableFuture<Void> destroy() {
+        super.removeStatusChangeListener(statusListener);
+        return super.destroy().thenCompose(v -> removeListener(replicaUpdater));
+    }
+
+    @Override
+    public CompletableFuture<Integer> size() {
+        return synced ? CompletableFuture.completedFuture(replica.size()) : super.size();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> isEmpty() {
+        return synced ? CompletableFuture.completedFuture(replica.isEmpty()) : super.isEmpty();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsKey(K key) {
+        return synced ? CompletableFuture.completedFuture(replica.containsKey(key)) : super.containsKey(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsValue(V value) {
+        if (!synced) {
+            return super.containsValue(value);
+        }
+        return CompletableFuture.completedFuture(
+                replica.values().stream().anyMatch(v -> Objects.equals(v.value(), value)));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> get(K key) {
+        return synced ? CompletableFuture.completedFuture(replica.get(key)) : super.get(key);
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> getOrDefault(K key, V defaultValue) {
+        if (!synced) {
+            return super.getOrDefault(key, defaultValue);
+        }
+        Versioned<V> value = replica.get(key);
+        return CompletableFuture.completedFuture(value != null ? value : new Versioned<>(defaultValue, 0));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        if (!synced) {
+            return super.getAll(keys);
+        }
+        Map<K, Versioned<V>> values = Maps.newHashMap();
+        keys.forEach(key -> {
+            Versioned<V> value = replica.get(key);
+            if (value != null) {
+                values.put(key, value);
+            }
+        });
+        return CompletableFuture.completedFuture(values);
+    }
+
+    @Override
+    public CompletableFuture<Set<K>> keySet() {
+        return synced ? CompletableFuture.completedFuture(ImmutableSet.copyOf(replica.keySet())) : super.keySet();
+    }
+
+    @Override
+    public CompletableFuture<Collection<Versioned<V>>> values() {
+        return synced ? CompletableFuture.completedFuture(ImmutableList.copyOf(replica.values())) : super.values();
+    }
+
+    @Override
+    public CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet() {
+        return synced ? CompletableFuture.completedFuture(ImmutableMap.copyOf(replica).entrySet()) : super.entrySet();
+    }
+}
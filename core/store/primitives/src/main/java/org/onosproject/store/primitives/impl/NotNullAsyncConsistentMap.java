@@ -22,6 +22,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
+import com.google.common.collect.Maps;
 import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.Versioned;
 
@@ -70,6 +71,21 @@ public class NotNullAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMa
         return super.putAndGet(key, value);
     }
 
+    @Override
+    public CompletableFuture<Void> putAll(Map<K, V> entries) {
+        if (!entries.containsValue(null)) {
+            return super.putAll(entries);
+        }
+        Map<K, V> puts = Maps.filterValues(entries, Objects::nonNull);
+        Set<K> removes = Maps.filterValues(entries, Objects::isNull).keySet();
+        return CompletableFuture.allOf(super.putAll(puts), super.removeAll(removes));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        return super.getAll(keys).thenApply(values -> Maps.filterValues(values, v -> v.value() != null));
+    }
+
     @Override
     public CompletableFuture<Collection<Versioned<V>>> values() {
         return super.values().thenApply(value -> value.stream()
@@ -18,24 +18,35 @@ package org.onosproject.store.primitives.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Dictionary;
 import java.nio.file.Files;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableSet;
+import com.codahale.metrics.Gauge;
 import com.google.common.collect.Maps;
+import io.atomix.storage.StorageLevel;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
+import org.apache.felix.scr.annotations.Modified;
+import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
+import org.apache.felix.scr.annotations.ReferencePolicy;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.Tools;
+import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.cluster.ClusterEvent;
 import org.onosproject.cluster.ClusterEventListener;
 import org.onosproject.cluster.ClusterMetadata;
@@ -65,8 +76,11 @@ import org.onosproject.upgrade.Upgrade;
 import org.onosproject.upgrade.UpgradeEvent;
 import org.onosproject.upgrade.UpgradeEventListener;
 import org.onosproject.upgrade.UpgradeService;
+import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static org.onlab.util.Tools.get;
 import static org.onosproject.security.AppGuard.checkPermission;
 import static org.onosproject.security.AppPermission.Type.PARTITION_READ;
 import static org.slf4j.LoggerFactory.getLogger;
@@ -81,6 +95,36 @@ public class PartitionManager extends AbstractListenerManager<PartitionEvent, Pa
 
     private final Logger log = getLogger(getClass());
 
+    private static final String DEFAULT_RAFT_STORAGE_LEVEL = "MAPPED";
+    private static final String METRICS_COMPONENT = "StoragePartitions";
+    private static final String LOG_SIZE_METRIC = "logSize";
+    private static final String STARTUP_TIME_METRIC = "startupMillis";
+
+    @Property(name = "raftStorageLevel", value = DEFAULT_RAFT_STORAGE_LEVEL,
+            label = "Raft log storage level of partition servers: DISK, MAPPED or MEMORY; " +
+                    "applies to partition servers started afterwards")
+    private String raftStorageLevel = DEFAULT_RAFT_STORAGE_LEVEL;
+
+    @Property(name = "raftMaxSegmentSize", intValue = RaftStorageConfig.DEFAULT_MAX_SEGMENT_SIZE,
+            label = "Maximum size in bytes of a Raft log segment; " +
+                    "applies to partition servers started afterwards")
+    private int raftMaxSegmentSize = RaftStorageConfig.DEFAULT_MAX_SEGMENT_SIZE;
+
+    @Property(name = "raftMaxEntriesPerSegment", intValue = RaftStorageConfig.DEFAULT_MAX_ENTRIES_PER_SEGMENT,
+            label = "Maximum number of entries in a Raft log segment; " +
+                    "applies to partition servers started afterwards")
+    private int raftMaxEntriesPerSegment = RaftStorageConfig.DEFAULT_MAX_ENTRIES_PER_SEGMENT;
+
+    // This must be optional to avoid a cyclic dependency
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY,
+            bind = "bindComponentConfigService",
+            unbind = "unbindComponentConfigService",
+            policy = ReferencePolicy.DYNAMIC)
+    protected ComponentConfigService cfgService;
+
+    @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
+    protected MetricsService metricsService;
+
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected ClusterCommunicationService clusterCommunicator;
 
@@ -104,8 +148,36 @@ public class PartitionManager extends AbstractListenerManager<PartitionEvent, Pa
     private final UpgradeEventListener upgradeListener = new InternalUpgradeEventListener();
     private final ClusterMetadataEventListener metadataListener = new InternalClusterMetadataListener();
 
+    private volatile RaftStorageConfig storageConfig = RaftStorageConfig.DEFAULT;
+    private MetricsComponent metricsComponent;
+
+    /**
+     * Hook for wiring up optional reference to a service.
+     *
+     * @param service service being announced
+     */
+    protected void bindComponentConfigService(ComponentConfigService service) {
+        if (cfgService == null) {
+            cfgService = service;
+            cfgService.registerProperties(getClass());
+        }
+    }
+
+    /**
+     * Hook for unwiring optional reference to a service.
+     *
+     * @param service service being withdrawn
+     */
+    protected void unbindComponentConfigService(ComponentConfigService service) {
+        if (cfgService == service) {
+            cfgService.unregisterProperties(getClass(), false);
+            cfgService = null;
+        }
+    }
+
     @Activate
-    public void activate() {
+    public void activate(ComponentContext context) {
+        readComponentConfiguration(context);
         eventDispatcher.addSink(PartitionEvent.class, listenerRegistry);
         currentClusterMetadata.set(metadataService.getClusterMetadata());
 
@@ -140,6 +212,8 @@ public class PartitionManager extends AbstractListenerManager<PartitionEvent, Pa
                                 clusterService));
                     });
 
+            applyStorageConfig();
+
             // We have to fork existing partitions before we can start inactive partition servers to
             // avoid duplicate message handlers when both servers are running.
             openFuture = CompletableFuture.allOf(activePartitions.values().stream()
@@ -155,17 +229,25 @@ public class PartitionManager extends AbstractListenerManager<PartitionEvent, Pa
                             partition,
                             clusterCommunicator,
                             clusterService)));
+            applyStorageConfig();
             openFuture = CompletableFuture.allOf(activePartitions.values().stream()
                     .map(StoragePartition::open)
                     .toArray(CompletableFuture[]::new));
         }
 
         openFuture.join();
+        registerMetrics();
         log.info("Started");
     }
 
+    @Modified
+    public void modified(ComponentContext context) {
+        readComponentConfiguration(context);
+    }
+
     @Deactivate
     public void deactivate() {
+        unregisterMetrics();
         clusterService.removeListener(clusterListener);
         upgradeService.removeListener(upgradeListener);
         metadataService.removeListener(metadataListener);
@@ -223,6 +305,70 @@ public class PartitionManager extends AbstractListenerManager<PartitionEvent, Pa
                          .collect(Collectors.toList());
     }
 
+    /**
+     * Extracts properties from the component configuration context.
+     *
+     * @param context the component context
+     */
+    private void readComponentConfiguration(ComponentContext context) {
+        Dictionary<?, ?> properties = context != null ? context.getProperties() : new Properties();
+
+        String s = get(properties, "raftStorageLevel");
+        if (!isNullOrEmpty(s)) {
+            try {
+                StorageLevel.valueOf(s.trim().toUpperCase());
+                raftStorageLevel = s.trim().toUpperCase();
+            } catch (IllegalArgumentException e) {
+                log.warn("Unknown Raft storage level {}, using {}", s, raftStorageLevel);
+            }
+        }
+
+        Integer size = Tools.getIntegerProperty(properties, "raftMaxSegmentSize");
+        if (size != null && size > 0) {
+            raftMaxSegmentSize = size;
+        }
+
+        Integer entries = Tools.getIntegerProperty(properties, "raftMaxEntriesPerSegment");
+        if (entries != null && entries > 0) {
+            raftMaxEntriesPerSegment = entries;
+        }
+
+        storageConfig = new RaftStorageConfig(
+                StorageLevel.valueOf(raftStorageLevel), raftMaxSegmentSize, raftMaxEntriesPerSegment);
+        log.info("Configured Raft storage: {}", storageConfig);
+        applyStorageConfig();
+    }
+
+    private void applyStorageConfig() {
+        RaftStorageConfig config = storageConfig;
+        activePartitions.values().forEach(partition -> partition.setStorageConfig(config));
+        inactivePartitions.values().forEach(partition -> partition.setStorageConfig(config));
+    }
+
+    private void registerMetrics() {
+        metricsComponent = metricsService.registerComponent(METRICS_COMPONENT);
+        activePartitions.values().forEach(this::registerMetrics);
+    }
+
+    private void registerMetrics(StoragePartition partition) {
+        MetricsFeature feature = metricsComponent.registerFeature(partition.getId().toString());
+        metricsService.registerMetric(metricsComponent, feature, LOG_SIZE_METRIC,
+                                      (Gauge<Long>) partition::getLogSize);
+        metricsService.registerMetric(metricsComponent, feature, STARTUP_TIME_METRIC,
+                                      (Gauge<Long>) partition::getStartupMillis);
+    }
+
+    private void unregisterMetrics() {
+        if (metricsComponent == null) {
+            return;
+        }
+        activePartitions.keySet().forEach(partitionId -> {
+            MetricsFeature feature = metricsComponent.registerFeature(partitionId.toString());
+            metricsService.removeMetric(metricsComponent, feature, LOG_SIZE_METRIC);
+            metricsService.removeMetric(metricsComponent, feature, STARTUP_TIME_METRIC);
+        });
+    }
+
     /**
      * Returns a list of nodes sorted by time ordered oldest to newest.
      *
@@ -357,9 +503,33 @@ public class PartitionManager extends AbstractListenerManager<PartitionEvent, Pa
                     .stream()
                     .filter(PartitionDiff::hasChanged)
                     .forEach(diff -> activePartitions.get(diff.partitionId()).onUpdate(diff.newValue()));
+        diffExaminer.partitionsAdded().forEach(this::openPartition);
         currentClusterMetadata.set(clusterMetadata);
     }
 
+    /**
+     * Opens a partition added to the cluster metadata. Consistent maps start spreading keys across the
+     * partition once the cluster has been restarted with the new layout.
+     *
+     * @param partition the added partition
+     */
+    private void openPartition(Partition partition) {
+        log.info("Opening added storage partition {}", partition);
+        StoragePartition storagePartition = new ActiveStoragePartition(
+                partition,
+                clusterCommunicator,
+                clusterService);
+        storagePartition.setStorageConfig(storageConfig);
+        activePartitions.put(partition.getId(), storagePartition);
+        storagePartition.open().whenComplete((r, e) -> {
+            if (e == null) {
+                registerMetrics(storagePartition);
+            } else {
+                log.warn("Failed to open added storage partition {}", partition, e);
+            }
+        });
+    }
+
     private class InternalClusterEventListener implements ClusterEventListener {
         @Override
         public void event(ClusterEvent event) {
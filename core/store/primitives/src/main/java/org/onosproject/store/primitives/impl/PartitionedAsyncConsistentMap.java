@@ -18,8 +18,10 @@ package org.onosproject.store.primitives.impl;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
@@ -35,14 +37,17 @@ import org.onosproject.cluster.PartitionId;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Version;
 import org.onosproject.store.service.Versioned;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 
 /**
  * {@link AsyncConsistentMap} that has its entries partitioned horizontally across
@@ -126,6 +131,32 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
         return getMap(key).remove(key);
     }
 
+    @Override
+    public CompletableFuture<Void> putAll(Map<K, V> entries) {
+        Map<PartitionId, Map<K, V>> batches = Maps.newHashMap();
+        entries.forEach((key, value) ->
+                batches.computeIfAbsent(keyHasher.hash(key), p -> Maps.newHashMap()).put(key, value));
+        return CompletableFuture.allOf(batches.entrySet().stream()
+                                              .map(e -> partitions.get(e.getKey()).putAll(e.getValue()))
+                                              .toArray(CompletableFuture[]::new));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        return Tools.allOf(partitionKeys(keys).entrySet().stream()
+                                   .map(e -> partitions.get(e.getKey()).getAll(e.getValue()))
+                                   .collect(Collectors.toList()),
+                           (m1, m2) -> ImmutableMap.<K, Versioned<V>>builder().putAll(m1).putAll(m2).build(),
+                           ImmutableMap.of());
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAll(Collection<K> keys) {
+        return CompletableFuture.allOf(partitionKeys(keys).entrySet().stream()
+                                              .map(e -> partitions.get(e.getKey()).removeAll(e.getValue()))
+                                              .toArray(CompletableFuture[]::new));
+    }
+
     @Override
     public CompletableFuture<Void> clear() {
         return CompletableFuture.allOf(getMaps().stream()
@@ -147,6 +178,11 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
                     ImmutableList.of());
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K, Versioned<V>>>> iterator() {
+        return CompletableFuture.completedFuture(new PartitionedIterator(getMaps().iterator()));
+    }
+
     @Override
     public CompletableFuture<Set<Entry<K, Versioned<V>>>> entrySet() {
         return Tools.allOf(getMaps().stream().map(m -> m.entrySet()).collect(Collectors.toList()),
@@ -247,6 +283,17 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
         return partitions.get(keyHasher.hash(key));
     }
 
+    /**
+     * Groups the given keys by the partition they map to.
+     * @param keys keys
+     * @return keys by partition
+     */
+    private Map<PartitionId, Collection<K>> partitionKeys(Collection<K> keys) {
+        Map<PartitionId, Collection<K>> batches = Maps.newHashMap();
+        keys.forEach(key -> batches.computeIfAbsent(keyHasher.hash(key), p -> Sets.newHashSet()).add(key));
+        return batches;
+    }
+
     /**
      * Returns all the constituent maps.
      * @return collection of maps.
@@ -254,4 +301,57 @@ public class PartitionedAsyncConsistentMap<K, V> implements AsyncConsistentMap<K
     private Collection<AsyncConsistentMap<K, V>> getMaps() {
         return partitions.values();
     }
+
+    /**
+     * Iterator that walks the partitions one after the other, opening the
+     * iterator of each partition only once the previous one is exhausted.
+     */
+    private class PartitionedIterator implements AsyncIterator<Entry<K, Versioned<V>>> {
+        private final Iterator<AsyncConsistentMap<K, V>> maps;
+        private volatile AsyncIterator<Entry<K, Versioned<V>>> current;
+
+        PartitionedIterator(Iterator<AsyncConsistentMap<K, V>> maps) {
+            this.maps = maps;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            if (current == null) {
+                if (!maps.hasNext()) {
+                    return CompletableFuture.completedFuture(false);
+                }
+                return maps.next().iterator().thenCompose(iterator -> {
+                    current = iterator;
+                    return hasNext();
+                });
+            }
+            return current.hasNext().thenCompose(hasNext -> {
+                if (hasNext) {
+                    return CompletableFuture.completedFuture(true);
+                }
+                current = null;
+                return hasNext();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Entry<K, Versioned<V>>> next() {
+            return hasNext().thenCompose(hasNext -> {
+                if (!hasNext) {
+                    return Tools.exceptionalFuture(new NoSuchElementException());
+                }
+                return current.next();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            AsyncIterator<Entry<K, Versioned<V>>> iterator = current;
+            current = null;
+            while (maps.hasNext()) {
+                maps.next();
+            }
+            return iterator != null ? iterator.close() : CompletableFuture.completedFuture(null);
+        }
+    }
 }
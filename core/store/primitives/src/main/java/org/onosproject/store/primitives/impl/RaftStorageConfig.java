@@ -0,0 +1,114 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Objects;
+
+import io.atomix.storage.StorageLevel;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Raft log storage settings for storage partition servers.
+ * <p>
+ * Only the layout of the log is configurable; snapshots and log compaction are scheduled by
+ * the Raft servers themselves.
+ */
+public final class RaftStorageConfig {
+
+    public static final StorageLevel DEFAULT_STORAGE_LEVEL = StorageLevel.MAPPED;
+    public static final int DEFAULT_MAX_SEGMENT_SIZE = 1024 * 1024 * 64;
+    public static final int DEFAULT_MAX_ENTRIES_PER_SEGMENT = 1024 * 1024;
+
+    public static final RaftStorageConfig DEFAULT = new RaftStorageConfig(
+            DEFAULT_STORAGE_LEVEL, DEFAULT_MAX_SEGMENT_SIZE, DEFAULT_MAX_ENTRIES_PER_SEGMENT);
+
+    private final StorageLevel storageLevel;
+    private final int maxSegmentSize;
+    private final int maxEntriesPerSegment;
+
+    /**
+     * Creates Raft storage settings.
+     *
+     * @param storageLevel         log storage level
+     * @param maxSegmentSize       maximum size of a log segment in bytes
+     * @param maxEntriesPerSegment maximum number of entries in a log segment
+     */
+    public RaftStorageConfig(StorageLevel storageLevel, int maxSegmentSize, int maxEntriesPerSegment) {
+        checkArgument(maxSegmentSize > 0, "maxSegmentSize must be positive");
+        checkArgument(maxEntriesPerSegment > 0, "maxEntriesPerSegment must be positive");
+        this.storageLevel = checkNotNull(storageLevel);
+        this.maxSegmentSize = maxSegmentSize;
+        this.maxEntriesPerSegment = maxEntriesPerSegment;
+    }
+
+    /**
+     * Returns the log storage level.
+     *
+     * @return storage level
+     */
+    public StorageLevel storageLevel() {
+        return storageLevel;
+    }
+
+    /**
+     * Returns the maximum size of a log segment in bytes.
+     *
+     * @return maximum segment size
+     */
+    public int maxSegmentSize() {
+        return maxSegmentSize;
+    }
+
+    /**
+     * Returns the maximum number of entries in a log segment.
+     *
+     * @return maximum entries per segment
+     */
+    public int maxEntriesPerSegment() {
+        return maxEntriesPerSegment;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(storageLevel, maxSegmentSize, maxEntriesPerSegment);
+    }
+
+    @Override
+    public boolean equals(Object object) {
+        if (this == object) {
+            return true;
+        }
+        if (!(object instanceof RaftStorageConfig)) {
+            return false;
+        }
+        RaftStorageConfig that = (RaftStorageConfig) object;
+        return storageLevel == that.storageLevel
+                && maxSegmentSize == that.maxSegmentSize
+                && maxEntriesPerSegment == that.maxEntriesPerSegment;
+    }
+
+    @Override
+    public String toString() {
+        return toStringHelper(this)
+                .add("storageLevel", storageLevel)
+                .add("maxSegmentSize", maxSegmentSize)
+                .add("maxEntriesPerSegment", maxEntriesPerSegment)
+                .toString();
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Predicate;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.onlab.util.SharedScheduledExecutors;
+import org.onosproject.cluster.PartitionId;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
+import org.onosproject.store.service.Versioned;
+import org.slf4j.Logger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * {@code AsyncConsistentMap} that moves keys to the partitions owning them after partitions have been added.
+ * <p>
+ * Keys are hashed into a fixed number of buckets which are assigned to partitions by consistent hashing, so
+ * adding partitions only moves the keys of the buckets reassigned to the new partitions. Until the map has
+ * been swept by {@link #rebalance()}, a key is moved from the partition owning it under each previous layout
+ * before it is accessed: its current entry is read from the old partition and copied to its owner unless
+ * already present there, and the old copy is then removed unless it has changed in the meantime. A key locked
+ * by a transaction on its owner is left in place and moved again once the transaction is over. Entries are
+ * moved with {@link EntryMover movers}, which keep their versions and publish no events, so moving a key is
+ * invisible to listeners and to version based updates. Keys not yet moved are still found by whole-map
+ * operations since the partitions of previous layouts are a subset of the current ones.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class RebalancingAsyncConsistentMap<K, V> extends DelegatingAsyncConsistentMap<K, V> {
+
+    private static final long MOVE_RETRY_MILLIS = 100;
+
+    private final Logger log = getLogger(getClass());
+
+    private final Map<PartitionId, AsyncConsistentMap<K, V>> partitions;
+    private final Map<PartitionId, EntryMover<K, V>> movers;
+    private final Hasher<K> hasher;
+    private final List<Hasher<K>> previousHashers;
+    private volatile boolean rebalanced;
+
+    /**
+     * Creates a rebalancing map.
+     *
+     * @param delegateMap     partitioned map placing keys by the current layout
+     * @param partitions      partition maps by partition identifier
+     * @param movers          entry movers of the partition maps by partition identifier
+     * @param hasher          hasher of the current layout
+     * @param previousHashers hashers of the previous layouts, oldest first
+     */
+    public RebalancingAsyncConsistentMap(AsyncConsistentMap<K, V> delegateMap,
+                                         Map<PartitionId, AsyncConsistentMap<K, V>> partitions,
+                                         Map<PartitionId, EntryMover<K, V>> movers,
+                                         Hasher<K> hasher,
+                                         List<Hasher<K>> previousHashers) {
+        super(delegateMap);
+        this.partitions = ImmutableMap.copyOf(checkNotNull(partitions));
+        this.movers = ImmutableMap.copyOf(checkNotNull(movers));
+        this.hasher = checkNotNull(hasher);
+        this.previousHashers = ImmutableList.copyOf(checkNotNull(previousHashers));
+    }
+
+    /**
+     * Returns whether all keys of the map have been moved to their owners.
+     *
+     * @return true once the map has been swept
+     */
+    public boolean isRebalanced() {
+        return rebalanced;
+    }
+
+    /**
+     * Sweeps all partitions, moving every key not stored on its owner.
+     *
+     * @return future to be completed once the map has been swept
+     */
+    public CompletableFuture<Void> rebalance() {
+        if (rebalanced) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(partitions.entrySet().stream()
+                                               .map(e -> sweep(e.getKey(), e.getValue()))
+                                               .toArray(CompletableFuture[]::new))
+                .thenRun(() -> {
+                    rebalanced = true;
+                    log.info("Moved keys of map {} to their partitions", name());
+                });
+    }
+
+    private CompletableFuture<Void> sweep(PartitionId partitionId, AsyncConsistentMap<K, V> source) {
+        return source.iterator().thenCompose(iterator -> sweep(partitionId, source, iterator));
+    }
+
+    private CompletableFuture<Void> sweep(PartitionId partitionId, AsyncConsistentMap<K, V> source,
+                                          AsyncIterator<Entry<K, Versioned<V>>> iterator) {
+        return iterator.hasNext().thenCompose(hasNext -> {
+            if (!hasNext) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return iterator.next()
+                    .thenCompose(entry -> {
+                        PartitionId owner = hasher.hash(entry.getKey());
+                        return owner.equals(partitionId)
+                                ? CompletableFuture.<Void>completedFuture(null)
+                                : move(entry.getKey(), partitionId, owner);
+                    })
+                    // resumes asynchronously so that entries already buffered do not deepen the stack
+                    .thenComposeAsync(v -> sweep(partitionId, source, iterator));
+        });
+    }
+
+    /**
+     * Moves the given key to its owner from the partitions owning it under previous layouts.
+     *
+     * @param key key to move
+     * @return future to be completed once the key is on its owner
+     */
+    private CompletableFuture<Void> migrate(K key) {
+        if (rebalanced) {
+            return CompletableFuture.completedFuture(null);
+        }
+        PartitionId owner = hasher.hash(key);
+        CompletableFuture<Void> future = CompletableFuture.completedFuture(null);
+        for (Hasher<K> previousHasher : previousHashers) {
+            PartitionId previous = previousHasher.hash(key);
+            if (!previous.equals(owner)) {
+                future = future.thenCompose(v -> move(key, previous, owner));
+            }
+        }
+        return future;
+    }
+
+    private CompletableFuture<Void> migrateAll(Collection<K> keys) {
+        if (rebalanced) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return CompletableFuture.allOf(keys.stream().map(this::migrate).toArray(CompletableFuture[]::new));
+    }
+
+    /**
+     * Moves the given key from a partition to its owner.
+     * <p>
+     * The entry is read again rather than taken from the sweep, so that an entry that has already been moved
+     * and then removed from the owner is not copied back from a stale iterator batch. The source copy is only
+     * removed once the owner holds a committed value for the key; if the key is locked by a transaction on the
+     * owner, whose outcome is not known yet, the move is retried later.
+     *
+     * @param key    key to move
+     * @param source partition to move the key from
+     * @param target partition owning the key
+     * @return future to be completed once the key has been moved
+     */
+    private CompletableFuture<Void> move(K key, PartitionId source, PartitionId target) {
+        return partitions.get(source).get(key).thenCompose(value -> {
+            if (value == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return movers.get(target).moveIn(key, value)
+                    .thenCompose(moved -> moved
+                            ? CompletableFuture.completedFuture(true)
+                            : partitions.get(target).containsKey(key))
+                    .thenCompose(owned -> owned
+                            ? movers.get(source).moveOut(key, value.version()).thenApply(v -> null)
+                            : retryMove(key, source, target));
+        });
+    }
+
+    private CompletableFuture<Void> retryMove(K key, PartitionId source, PartitionId target) {
+        log.debug("Key {} of map {} is locked on partition {}; moving it later", key, name(), target);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        SharedScheduledExecutors.newTimeout(() -> move(key, source, target).whenComplete((v, error) -> {
+            if (error == null) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(error);
+            }
+        }), MOVE_RETRY_MILLIS, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    /**
+     * Moves entries into and out of a partition map without changing their versions or publishing events.
+     *
+     * @param <K> key type
+     * @param <V> value type
+     */
+    public interface EntryMover<K, V> {
+
+        /**
+         * Inserts an entry moved from another partition unless the key is present or locked by a transaction.
+         *
+         * @param key   key of the entry
+         * @param value value and version of the entry in its source partition
+         * @return future to be completed with whether the entry was inserted
+         */
+        CompletableFuture<Boolean> moveIn(K key, Versioned<V> value);
+
+        /**
+         * Removes an entry moved to another partition if it still has the given version.
+         *
+         * @param key     key of the entry
+         * @param version version of the moved entry
+         * @return future to be completed with whether the entry was removed
+         */
+        CompletableFuture<Boolean> moveOut(K key, long version);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> containsKey(K key) {
+        return migrate(key).thenCompose(v -> super.containsKey(key));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> get(K key) {
+        return migrate(key).thenCompose(v -> super.get(key));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> getOrDefault(K key, V defaultValue) {
+        return migrate(key).thenCompose(v -> super.getOrDefault(key, defaultValue));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> computeIf(K key,
+            Predicate<? super V> condition,
+            BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return migrate(key).thenCompose(v -> super.computeIf(key, condition, remappingFunction));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> put(K key, V value) {
+        return migrate(key).thenCompose(v -> super.put(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putAndGet(K key, V value) {
+        return migrate(key).thenCompose(v -> super.putAndGet(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> remove(K key) {
+        return migrate(key).thenCompose(v -> super.remove(key));
+    }
+
+    @Override
+    public CompletableFuture<Void> putAll(Map<K, V> entries) {
+        return migrateAll(entries.keySet()).thenCompose(v -> super.putAll(entries));
+    }
+
+    @Override
+    public CompletableFuture<Map<K, Versioned<V>>> getAll(Collection<K> keys) {
+        return migrateAll(keys).thenCompose(v -> super.getAll(keys));
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAll(Collection<K> keys) {
+        return migrateAll(keys).thenCompose(v -> super.removeAll(keys));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> putIfAbsent(K key, V value) {
+        return migrate(key).thenCompose(v -> super.putIfAbsent(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(K key, V value) {
+        return migrate(key).thenCompose(v -> super.remove(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(K key, long version) {
+        return migrate(key).thenCompose(v -> super.remove(key, version));
+    }
+
+    @Override
+    public CompletableFuture<Versioned<V>> replace(K key, V value) {
+        return migrate(key).thenCompose(v -> super.replace(key, value));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replace(K key, V oldValue, V newValue) {
+        return migrate(key).thenCompose(v -> super.replace(key, oldValue, newValue));
+    }
+
+    @Override
+    public CompletableFuture<Boolean> replace(K key, long oldVersion, V newValue) {
+        return migrate(key).thenCompose(v -> super.replace(key, oldVersion, newValue));
+    }
+}
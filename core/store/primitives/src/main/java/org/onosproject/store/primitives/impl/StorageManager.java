@@ -15,6 +15,7 @@
  */
 package org.onosproject.store.primitives.impl;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -36,6 +37,7 @@ import org.onosproject.store.primitives.PartitionService;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.AsyncAtomicValue;
+import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.AsyncConsistentMultimap;
 import org.onosproject.store.service.AsyncConsistentTreeMap;
 import org.onosproject.store.service.AsyncDocumentTree;
@@ -63,6 +65,7 @@ import org.onosproject.store.service.WorkQueueStats;
 import org.slf4j.Logger;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
@@ -81,6 +84,8 @@ import static org.slf4j.LoggerFactory.getLogger;
 public class StorageManager implements StorageService, StorageAdminService {
 
     private static final int BUCKETS = 128;
+    private static final String PARTITION_LAYOUT = "onos-partition-layout";
+    private static final String REBALANCED_LAYOUTS = "onos-partition-layout-rebalanced";
 
     private final Logger log = getLogger(getClass());
 
@@ -113,11 +118,62 @@ public class StorageManager implements StorageService, StorageAdminService {
         partitionService.getAllPartitionIds().stream()
             .filter(id -> !id.equals(PartitionId.SHARED))
             .forEach(id -> partitionMap.put(id, partitionService.getDistributedPrimitiveCreator(id)));
-        federatedPrimitiveCreator = new FederatedDistributedPrimitiveCreator(partitionMap, BUCKETS);
-        transactionManager = new TransactionManager(this, partitionService, BUCKETS);
+        List<Integer> previousLayouts = recordPartitionLayout(partitionMap);
+        AsyncConsistentMap<String, Integer> rebalancedLayouts = previousLayouts.isEmpty() ? null
+                : partitionMap.get(Collections.min(partitionMap.keySet()))
+                        .newAsyncConsistentMap(REBALANCED_LAYOUTS, Serializer.using(KryoNamespaces.BASIC));
+        FederatedDistributedPrimitiveCreator federatedCreator = new FederatedDistributedPrimitiveCreator(
+                partitionMap, BUCKETS, previousLayouts, rebalancedLayouts);
+        federatedPrimitiveCreator = federatedCreator;
+        transactionManager = new TransactionManager(this, partitionService, BUCKETS, true,
+                                                    federatedCreator::rebalanced);
         log.info("Started");
     }
 
+    /**
+     * Records the current number of partitions in the cluster-wide history of partition layouts.
+     * <p>
+     * The history lists the number of partitions primitives have been spread across, oldest first. It is
+     * kept in the lowest partition, which is present in every layout.
+     *
+     * @param partitionMap primitive creators by partition identifier
+     * @return numbers of partitions of the layouts preceding the current one, oldest first
+     */
+    private List<Integer> recordPartitionLayout(Map<PartitionId, DistributedPrimitiveCreator> partitionMap) {
+        int partitions = partitionMap.size();
+        if (partitions == 0) {
+            return ImmutableList.of();
+        }
+        AsyncAtomicValue<ImmutableList<Integer>> layouts = partitionMap.get(Collections.min(partitionMap.keySet()))
+                .newAsyncAtomicValue(PARTITION_LAYOUT, Serializer.using(KryoNamespaces.BASIC));
+        while (true) {
+            ImmutableList<Integer> history = layouts.get().join();
+            if (history == null || history.isEmpty()) {
+                // all nodes record the same layout, so there is no need to compare and set
+                layouts.set(ImmutableList.of(partitions)).join();
+                return ImmutableList.of();
+            }
+            int current = history.get(history.size() - 1);
+            if (current == partitions) {
+                return history.subList(0, history.size() - 1);
+            }
+            if (current > partitions) {
+                log.warn("Partitions reduced from {} to {}; primitives on removed partitions are unavailable",
+                         current, partitions);
+                return ImmutableList.of();
+            }
+            ImmutableList<Integer> update = ImmutableList.<Integer>builder()
+                    .addAll(history)
+                    .add(partitions)
+                    .build();
+            if (layouts.compareAndSet(history, update).join()) {
+                log.info("Partitions increased from {} to {}; moving consistent map keys to new partitions",
+                         current, partitions);
+                return update.subList(0, update.size() - 1);
+            }
+        }
+    }
+
     @Deactivate
     public void deactivate() {
         log.info("Stopped");
@@ -48,6 +48,8 @@ import org.onosproject.store.service.Ordering;
 import org.onosproject.store.service.PartitionInfo;
 import org.onosproject.store.service.Serializer;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+
 /**
  * Storage partition.
  */
@@ -62,6 +64,7 @@ public abstract class StoragePartition implements Managed<StoragePartition> {
     protected NodeId localNodeId;
     protected StoragePartitionServer server;
     protected StoragePartitionClient client;
+    protected volatile RaftStorageConfig storageConfig = RaftStorageConfig.DEFAULT;
 
     public static final Map<String, Supplier<RaftService>> RAFT_SERVICES =
             ImmutableMap.<String, Supplier<RaftService>>builder()
@@ -126,6 +129,52 @@ public abstract class StoragePartition implements Managed<StoragePartition> {
         return closeServer().thenCompose(v -> closeClient()).thenRun(() -> deleteServer());
     }
 
+    /**
+     * Returns the Raft log storage settings for the partition server.
+     *
+     * @return storage settings
+     */
+    public RaftStorageConfig getStorageConfig() {
+        return storageConfig;
+    }
+
+    /**
+     * Sets the Raft log storage settings for the partition server. The settings apply to
+     * servers opened afterwards.
+     *
+     * @param storageConfig storage settings
+     */
+    public void setStorageConfig(RaftStorageConfig storageConfig) {
+        this.storageConfig = checkNotNull(storageConfig);
+    }
+
+    /**
+     * Returns the size of the partition data folder, which holds the Raft log and snapshots.
+     *
+     * @return size in bytes
+     */
+    public long getLogSize() {
+        File[] files = getDataFolder().listFiles();
+        if (files == null) {
+            return 0;
+        }
+        long size = 0;
+        for (File file : files) {
+            size += file.length();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the time taken by the partition server to start, including the replay of its log.
+     *
+     * @return startup time in millis; 0 if this node does not serve the partition
+     */
+    public long getStartupMillis() {
+        StoragePartitionServer server = this.server;
+        return server != null ? server.startupMillis() : 0;
+    }
+
     /**
      * Returns the partition data folder.
      *
@@ -102,13 +102,15 @@ public class StoragePartitionClient implements DistributedPrimitiveCreator, Mana
 
     @Override
     @SuppressWarnings("unchecked")
-    public <K, V> AsyncConsistentMap<K, V> newAsyncConsistentMap(String name, Serializer serializer) {
+    public <K, V> AsyncConsistentMap<K, V> newAsyncConsistentMap(
+            String name, Serializer serializer,
+            org.onosproject.store.service.ReadConsistency readConsistency) {
         AtomixConsistentMap rawMap =
                 new AtomixConsistentMap(client.newProxyBuilder()
                         .withName(name)
                         .withServiceType(DistributedPrimitive.Type.CONSISTENT_MAP.name())
-                        .withReadConsistency(ReadConsistency.SEQUENTIAL)
-                        .withCommunicationStrategy(CommunicationStrategy.ANY)
+                        .withReadConsistency(raftReadConsistency(readConsistency))
+                        .withCommunicationStrategy(communicationStrategy(readConsistency))
                         .withTimeout(Duration.ofSeconds(30))
                         .withMaxRetries(5)
                         .build()
@@ -125,6 +127,40 @@ public class StoragePartitionClient implements DistributedPrimitiveCreator, Mana
         return (AsyncConsistentMap<K, V>) rawMap;
     }
 
+    /**
+     * Returns the Raft read consistency implementing the given read consistency.
+     *
+     * @param readConsistency read consistency
+     * @return Raft read consistency
+     */
+    private static ReadConsistency raftReadConsistency(
+            org.onosproject.store.service.ReadConsistency readConsistency) {
+        switch (readConsistency) {
+            case LINEARIZABLE:
+                return ReadConsistency.LINEARIZABLE;
+            case SEQUENTIAL:
+            default:
+                return ReadConsistency.SEQUENTIAL;
+        }
+    }
+
+    /**
+     * Returns the members a proxy should talk to for the given read consistency.
+     *
+     * @param readConsistency read consistency
+     * @return communication strategy
+     */
+    private static CommunicationStrategy communicationStrategy(
+            org.onosproject.store.service.ReadConsistency readConsistency) {
+        switch (readConsistency) {
+            case LINEARIZABLE:
+                return CommunicationStrategy.LEADER;
+            case SEQUENTIAL:
+            default:
+                return CommunicationStrategy.ANY;
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public <V> AsyncConsistentTreeMap<V> newAsyncConsistentTreeMap(String name, Serializer serializer) {
@@ -30,7 +30,6 @@ import java.util.stream.Collectors;
 import io.atomix.protocols.raft.RaftServer;
 import io.atomix.protocols.raft.cluster.MemberId;
 import io.atomix.protocols.raft.storage.RaftStorage;
-import io.atomix.storage.StorageLevel;
 import org.onosproject.cluster.Partition;
 import org.onosproject.store.cluster.messaging.ClusterCommunicationService;
 import org.onosproject.store.primitives.resources.impl.AtomixSerializerAdapter;
@@ -47,7 +46,6 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
 
     private final Logger log = getLogger(getClass());
 
-    private static final int MAX_SEGMENT_SIZE = 1024 * 1024 * 64;
     private static final long ELECTION_TIMEOUT_MILLIS = 2500;
     private static final long HEARTBEAT_INTERVAL_MILLIS = 250;
 
@@ -55,6 +53,7 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
     private final StoragePartition partition;
     private final ClusterCommunicationService clusterCommunicator;
     private RaftServer server;
+    private volatile long startupMillis;
 
     public StoragePartitionServer(
             StoragePartition partition,
@@ -68,6 +67,7 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
     @Override
     public CompletableFuture<Void> open() {
         log.info("Starting server for partition {} ({})", partition.getId(), partition.getVersion());
+        long start = System.currentTimeMillis();
         CompletableFuture<RaftServer> serverOpenFuture;
         if (partition.getMemberIds().contains(localMemberId)) {
             if (server != null && server.isRunning()) {
@@ -82,8 +82,9 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
         }
         return serverOpenFuture.whenComplete((r, e) -> {
             if (e == null) {
-                log.info("Successfully started server for partition {} ({})",
-                        partition.getId(), partition.getVersion());
+                startupMillis = System.currentTimeMillis() - start;
+                log.info("Successfully started server for partition {} ({}) in {} ms",
+                        partition.getId(), partition.getVersion(), startupMillis);
             } else {
                 log.info("Failed to start server for partition {} ({})",
                         partition.getId(), partition.getVersion(), e);
@@ -143,13 +144,7 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
                         clusterCommunicator))
                 .withElectionTimeout(Duration.ofMillis(ELECTION_TIMEOUT_MILLIS))
                 .withHeartbeatInterval(Duration.ofMillis(HEARTBEAT_INTERVAL_MILLIS))
-                .withStorage(RaftStorage.newBuilder()
-                        .withPrefix(String.format("partition-%s", partition.getId()))
-                        .withStorageLevel(StorageLevel.MAPPED)
-                        .withSerializer(new AtomixSerializerAdapter(Serializer.using(StorageNamespaces.RAFT_STORAGE)))
-                        .withDirectory(partition.getDataFolder())
-                        .withMaxSegmentSize(MAX_SEGMENT_SIZE)
-                        .build());
+                .withStorage(buildStorage());
         StoragePartition.RAFT_SERVICES.forEach(builder::addService);
         RaftServer server = builder.build();
 
@@ -191,6 +186,18 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
                 }).thenApply(v -> null);
     }
 
+    private RaftStorage buildStorage() {
+        RaftStorageConfig config = partition.getStorageConfig();
+        return RaftStorage.newBuilder()
+                .withPrefix(String.format("partition-%s", partition.getId()))
+                .withStorageLevel(config.storageLevel())
+                .withSerializer(new AtomixSerializerAdapter(Serializer.using(StorageNamespaces.RAFT_STORAGE)))
+                .withDirectory(partition.getDataFolder())
+                .withMaxSegmentSize(config.maxSegmentSize())
+                .withMaxEntriesPerSegment(config.maxEntriesPerSegment())
+                .build();
+    }
+
     private RaftServer buildServer() {
         RaftServer.Builder builder = RaftServer.newBuilder(localMemberId)
                 .withName(String.format("partition-%s", partition.getId()))
@@ -200,22 +207,18 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
                         clusterCommunicator))
                 .withElectionTimeout(Duration.ofMillis(ELECTION_TIMEOUT_MILLIS))
                 .withHeartbeatInterval(Duration.ofMillis(HEARTBEAT_INTERVAL_MILLIS))
-                .withStorage(RaftStorage.newBuilder()
-                        .withPrefix(String.format("partition-%s", partition.getId()))
-                        .withStorageLevel(StorageLevel.MAPPED)
-                        .withSerializer(new AtomixSerializerAdapter(Serializer.using(StorageNamespaces.RAFT_STORAGE)))
-                        .withDirectory(partition.getDataFolder())
-                        .withMaxSegmentSize(MAX_SEGMENT_SIZE)
-                        .build());
+                .withStorage(buildStorage());
         StoragePartition.RAFT_SERVICES.forEach(builder::addService);
         return builder.build();
     }
 
     public CompletableFuture<Void> join(Collection<MemberId> otherMembers) {
         log.info("Joining partition {} ({})", partition.getId(), partition.getName());
+        long start = System.currentTimeMillis();
         server = buildServer();
         return server.join(otherMembers).whenComplete((r, e) -> {
             if (e == null) {
+                startupMillis = System.currentTimeMillis() - start;
                 log.info("Successfully joined partition {} ({})", partition.getId(), partition.getName());
             } else {
                 log.info("Failed to join partition {} ({})", partition.getId(), partition.getName(), e);
@@ -223,6 +226,15 @@ public class StoragePartitionServer implements Managed<StoragePartitionServer> {
         }).thenApply(v -> null);
     }
 
+    /**
+     * Returns the time taken by the server to start, including the replay of its log.
+     *
+     * @return startup time in millis; 0 if the server has not started
+     */
+    public long startupMillis() {
+        return startupMillis;
+    }
+
     @Override
     public boolean isOpen() {
         return server.isRunning();
@@ -17,6 +17,7 @@ package org.onosproject.store.primitives.impl;
 
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.Sets;
@@ -25,6 +26,7 @@ import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.CommitStatus;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.TransactionalMap;
+import org.onosproject.utils.MeteringAgent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,8 +34,17 @@ import static com.google.common.base.MoreObjects.toStringHelper;
 
 /**
  * Transaction coordinator.
+ * <p>
+ * Transactions with updates to a single participant are committed in one phase; others go through
+ * a two-phase commit. The latency of each phase is timed by the transaction manager's metering agent.
  */
 public class TransactionCoordinator {
+    private static final String PREPARE_AND_COMMIT = "prepareAndCommit";
+    private static final String PREPARE = "prepare";
+    private static final String COMMIT = "commit";
+    private static final String ROLLBACK = "rollback";
+    private static final String REGISTRY = "registry";
+
     private final Logger log = LoggerFactory.getLogger(getClass());
     protected final TransactionId transactionId;
     protected final TransactionManager transactionManager;
@@ -77,8 +88,8 @@ public class TransactionCoordinator {
             return transactionParticipants.stream()
                     .filter(TransactionParticipant::hasPendingUpdates)
                     .findFirst()
+                    .map(participant -> timed(PREPARE_AND_COMMIT, participant::prepareAndCommit))
                     .get()
-                    .prepareAndCommit()
                     .thenApply(v -> v ? CommitStatus.SUCCESS : CommitStatus.FAILURE);
         } else {
             log.debug("Committing transaction {} via {} participants", transactionId, totalParticipants);
@@ -86,20 +97,43 @@ public class TransactionCoordinator {
                     .filter(TransactionParticipant::hasPendingUpdates)
                     .collect(Collectors.toSet());
 
-            CompletableFuture<CommitStatus> status = transactionManager.updateState(
-                    transactionId, Transaction.State.PREPARING)
-                    .thenCompose(v -> prepare(transactionParticipants))
+            CompletableFuture<CommitStatus> status = updateState(Transaction.State.PREPARING)
+                    .thenCompose(v -> timed(PREPARE, () -> prepare(transactionParticipants)))
                     .thenCompose(result -> result
-                            ? transactionManager.updateState(transactionId, Transaction.State.COMMITTING)
-                            .thenCompose(v -> commit(transactionParticipants))
+                            ? updateState(Transaction.State.COMMITTING)
+                            .thenCompose(v -> timed(COMMIT, () -> commit(transactionParticipants)))
                             .thenApply(v -> CommitStatus.SUCCESS)
-                            : transactionManager.updateState(transactionId, Transaction.State.ROLLING_BACK)
-                            .thenCompose(v -> rollback(transactionParticipants))
+                            : updateState(Transaction.State.ROLLING_BACK)
+                            .thenCompose(v -> timed(ROLLBACK, () -> rollback(transactionParticipants)))
                             .thenApply(v -> CommitStatus.FAILURE));
-            return status.thenCompose(v -> transactionManager.remove(transactionId).thenApply(u -> v));
+            return status.thenCompose(v -> timed(REGISTRY, () -> transactionManager.remove(transactionId))
+                    .thenApply(u -> v));
         }
     }
 
+    /**
+     * Records the state of the transaction in the transaction registry.
+     *
+     * @param state the transaction state
+     * @return a completable future to be completed once the state has been recorded
+     */
+    private CompletableFuture<Void> updateState(Transaction.State state) {
+        return timed(REGISTRY, () -> transactionManager.updateState(transactionId, state));
+    }
+
+    /**
+     * Times the given commit phase.
+     *
+     * @param phase the name of the phase
+     * @param operation the phase operation
+     * @param <T> result type
+     * @return the result of the phase
+     */
+    private <T> CompletableFuture<T> timed(String phase, Supplier<CompletableFuture<T>> operation) {
+        MeteringAgent.Context timer = transactionManager.monitor().startTimer(phase);
+        return operation.get().whenComplete((result, error) -> timer.stop(error));
+    }
+
     /**
      * Performs the prepare phase of the two-phase commit protocol for the given transaction participants.
      *
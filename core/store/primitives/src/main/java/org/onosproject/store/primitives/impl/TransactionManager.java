@@ -20,13 +20,17 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.Futures;
 import org.onosproject.cluster.PartitionId;
@@ -38,12 +42,22 @@ import org.onosproject.store.service.AsyncConsistentMap;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
 import org.onosproject.store.service.TransactionException;
+import org.onosproject.utils.MeteringAgent;
 
 /**
  * Transaction manager for managing state shared across multiple transactions.
+ * <p>
+ * Updates to the transaction registry are group committed: while a batch of
+ * updates is being written, updates from concurrent transactions are queued
+ * and written together in the next batch.
+ * <p>
+ * Transactional maps place keys by the current partition layout. After partitions have been added, a
+ * transaction on a map waits for the keys of the map to have been moved to their new partitions, so that it
+ * does not miss keys still held by their previous partition.
  */
 public class TransactionManager {
     private static final int DEFAULT_CACHE_SIZE = 100;
+    private static final String PRIMITIVE_NAME = "transactions";
 
     private final PartitionService partitionService;
     private final List<PartitionId> sortedPartitions;
@@ -51,17 +65,71 @@ public class TransactionManager {
     private final int cacheSize;
     private final int buckets;
     private final Map<PartitionId, Cache<String, CachedMap>> partitionCache = Maps.newConcurrentMap();
+    private final MeteringAgent monitor;
+    private final Function<String, CompletableFuture<Void>> rebalanced;
+    private List<RegistryUpdate> pendingUpdates = Lists.newArrayList();
+    private boolean flushing;
 
     public TransactionManager(StorageService storageService, PartitionService partitionService, int buckets) {
         this(storageService, partitionService, DEFAULT_CACHE_SIZE, buckets);
     }
 
+    public TransactionManager(
+            StorageService storageService,
+            PartitionService partitionService,
+            int buckets,
+            boolean meteringEnabled) {
+        this(storageService, partitionService, DEFAULT_CACHE_SIZE, buckets, meteringEnabled);
+    }
+
+    public TransactionManager(
+            StorageService storageService,
+            PartitionService partitionService,
+            int buckets,
+            boolean meteringEnabled,
+            Function<String, CompletableFuture<Void>> rebalanced) {
+        this(storageService, partitionService, DEFAULT_CACHE_SIZE, buckets, meteringEnabled, rebalanced);
+    }
+
     public TransactionManager(
             StorageService storageService,
             PartitionService partitionService,
             int cacheSize,
             int buckets) {
+        this(storageService, partitionService, cacheSize, buckets, false);
+    }
+
+    public TransactionManager(
+            StorageService storageService,
+            PartitionService partitionService,
+            int cacheSize,
+            int buckets,
+            boolean meteringEnabled) {
+        this(storageService, partitionService, cacheSize, buckets, meteringEnabled,
+             name -> CompletableFuture.completedFuture(null));
+    }
+
+    /**
+     * Creates a transaction manager for partitions some of which may have been added since maps were created.
+     *
+     * @param storageService   storage service
+     * @param partitionService partition service
+     * @param cacheSize        number of transactional map partitions cached
+     * @param buckets          number of buckets keys are hashed into
+     * @param meteringEnabled  whether transaction commits are timed
+     * @param rebalanced       returns, for a map name, a future completed once the keys of the map have been
+     *                         moved to the partitions of the current layout
+     */
+    public TransactionManager(
+            StorageService storageService,
+            PartitionService partitionService,
+            int cacheSize,
+            int buckets,
+            boolean meteringEnabled,
+            Function<String, CompletableFuture<Void>> rebalanced) {
         this.partitionService = partitionService;
+        this.rebalanced = rebalanced;
+        this.monitor = new MeteringAgent(PRIMITIVE_NAME, "*", meteringEnabled);
         this.cacheSize = cacheSize;
         this.buckets = buckets;
         this.transactions = storageService.<TransactionId, Transaction.State>consistentMapBuilder()
@@ -87,7 +155,8 @@ public class TransactionManager {
      * Returns a partitioned transactional map for use within a transaction context.
      * <p>
      * The transaction coordinator will return a map that takes advantage of caching that's shared across transaction
-     * contexts.
+     * contexts. If the keys of the map are still being moved to the partitions of the current layout, this
+     * waits for them to have been moved.
      *
      * @param name the map name
      * @param serializer the map serializer
@@ -100,6 +169,11 @@ public class TransactionManager {
             String name,
             Serializer serializer,
             TransactionCoordinator transactionCoordinator) {
+        try {
+            rebalanced.apply(name).join();
+        } catch (CompletionException e) {
+            throw new TransactionException(e.getCause());
+        }
         Map<PartitionId, TransactionalMapParticipant<K, V>> partitions = new HashMap<>();
         for (PartitionId partitionId : partitionService.getAllPartitionIds()) {
             partitions.put(partitionId, getTransactionalMapPartition(
@@ -144,7 +218,7 @@ public class TransactionManager {
      * @return a completable future to be completed once the transaction state has been updated in the registry
      */
     CompletableFuture<Void> updateState(TransactionId transactionId, Transaction.State state) {
-        return transactions.put(transactionId, state).thenApply(v -> null);
+        return enqueue(new RegistryUpdate(transactionId, state));
     }
 
     /**
@@ -154,7 +228,78 @@ public class TransactionManager {
      * @return a completable future to be completed once the transaction state has been removed from the registry
      */
     CompletableFuture<Void> remove(TransactionId transactionId) {
-        return transactions.remove(transactionId).thenApply(v -> null);
+        return enqueue(new RegistryUpdate(transactionId, null));
+    }
+
+    /**
+     * Returns the agent timing the phases of transaction commits.
+     *
+     * @return metering agent
+     */
+    MeteringAgent monitor() {
+        return monitor;
+    }
+
+    private CompletableFuture<Void> enqueue(RegistryUpdate update) {
+        synchronized (this) {
+            pendingUpdates.add(update);
+            if (flushing) {
+                return update.future;
+            }
+            flushing = true;
+        }
+        flush();
+        return update.future;
+    }
+
+    private void flush() {
+        List<RegistryUpdate> batch;
+        synchronized (this) {
+            if (pendingUpdates.isEmpty()) {
+                flushing = false;
+                return;
+            }
+            batch = pendingUpdates;
+            pendingUpdates = Lists.newArrayList();
+        }
+
+        Map<TransactionId, Transaction.State> puts = Maps.newHashMap();
+        Set<TransactionId> removes = Sets.newHashSet();
+        for (RegistryUpdate update : batch) {
+            if (update.state != null) {
+                puts.put(update.transactionId, update.state);
+                removes.remove(update.transactionId);
+            } else {
+                removes.add(update.transactionId);
+                puts.remove(update.transactionId);
+            }
+        }
+
+        CompletableFuture<Void> putFuture = puts.isEmpty()
+                ? CompletableFuture.completedFuture(null) : transactions.putAll(puts);
+        CompletableFuture<Void> removeFuture = removes.isEmpty()
+                ? CompletableFuture.completedFuture(null) : transactions.removeAll(removes);
+        CompletableFuture.allOf(putFuture, removeFuture).whenComplete((result, error) -> {
+            batch.forEach(update -> {
+                if (error == null) {
+                    update.future.complete(null);
+                } else {
+                    update.future.completeExceptionally(error);
+                }
+            });
+            flush();
+        });
+    }
+
+    private static class RegistryUpdate {
+        private final TransactionId transactionId;
+        private final Transaction.State state;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        RegistryUpdate(TransactionId transactionId, Transaction.State state) {
+            this.transactionId = transactionId;
+            this.state = state;
+        }
     }
 
     private static class CachedMap<K, V> {
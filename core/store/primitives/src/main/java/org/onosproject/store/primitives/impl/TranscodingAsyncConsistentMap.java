@@ -21,6 +21,7 @@ import org.onlab.util.Tools;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
@@ -163,6 +164,41 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
         }
     }
 
+    @Override
+    public CompletableFuture<Void> putAll(Map<K1, V1> entries) {
+        try {
+            Map<K2, V2> encoded = Maps.newHashMap();
+            entries.forEach((key, value) -> encoded.put(keyEncoder.apply(key), valueEncoder.apply(value)));
+            return backingMap.putAll(encoded);
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Map<K1, Versioned<V1>>> getAll(Collection<K1> keys) {
+        try {
+            return backingMap.getAll(keys.stream().map(keyEncoder).collect(Collectors.toList()))
+                    .thenApply(m -> {
+                        Map<K1, Versioned<V1>> decoded = Maps.newHashMap();
+                        m.forEach((key, value) -> decoded.put(keyDecoder.apply(key),
+                                                              versionedValueTransform.apply(value)));
+                        return decoded;
+                    });
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAll(Collection<K1> keys) {
+        try {
+            return backingMap.removeAll(keys.stream().map(keyEncoder).collect(Collectors.toList()));
+        } catch (Exception e) {
+            return Tools.exceptionalFuture(e);
+        }
+    }
+
     @Override
     public CompletableFuture<Void> clear() {
         return backingMap.clear();
@@ -189,6 +225,11 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
                                           .collect(Collectors.toSet()));
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<K1, Versioned<V1>>>> iterator() {
+        return backingMap.iterator().thenApply(TranscodingIterator::new);
+    }
+
     @Override
     public CompletableFuture<Versioned<V1>> putIfAbsent(K1 key, V1 value) {
         try {
@@ -346,4 +387,29 @@ public class TranscodingAsyncConsistentMap<K1, V1, K2, V2> implements AsyncConsi
                     event.oldValue() != null ? event.oldValue().map(valueDecoder) : null));
         }
     }
+
+    private class TranscodingIterator implements AsyncIterator<Entry<K1, Versioned<V1>>> {
+        private final AsyncIterator<Entry<K2, Versioned<V2>>> iterator;
+
+        TranscodingIterator(AsyncIterator<Entry<K2, Versioned<V2>>> iterator) {
+            this.iterator = iterator;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public CompletableFuture<Entry<K1, Versioned<V1>>> next() {
+            return iterator.next().thenApply(entry -> Maps.immutableEntry(keyDecoder.apply(entry.getKey()),
+                                                                          versionedValueTransform
+                                                                                  .apply(entry.getValue())));
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            return iterator.close();
+        }
+    }
 }
@@ -16,10 +16,13 @@
 package org.onosproject.store.primitives.resources.impl;
 
 import java.util.Collection;
+import java.util.Collections;
 import java.util.ConcurrentModificationException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
@@ -35,9 +38,15 @@ import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ContainsKey;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ContainsValue;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Get;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GetAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GetOrDefault;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IteratorBatch;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IteratorPosition;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.MoveIn;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Put;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PutAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Remove;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.RemoveAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.RemoveValue;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.RemoveVersion;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Replace;
@@ -50,6 +59,7 @@ import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperat
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.TransactionRollback;
 import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.ConsistentMapException;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
@@ -62,22 +72,30 @@ import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMa
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ADD_LISTENER;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.BEGIN;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CLEAR;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CLOSE_ITERATOR;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.COMMIT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CONTAINS_KEY;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CONTAINS_VALUE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ENTRY_SET;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET_ALL;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET_OR_DEFAULT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IS_EMPTY;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ITERATE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.KEY_SET;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.MOVE_IN;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.MOVE_OUT;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.NEXT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PREPARE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PREPARE_AND_COMMIT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT_ALL;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT_AND_GET;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT_IF_ABSENT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_LISTENER;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_VALUE;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_ALL;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_VERSION;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REPLACE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REPLACE_VALUE;
@@ -167,6 +185,12 @@ public class AtomixConsistentMap extends AbstractRaftPrimitive implements AsyncC
         return proxy.invoke(ENTRY_SET, serializer()::decode);
     }
 
+    @Override
+    public CompletableFuture<AsyncIterator<Entry<String, Versioned<byte[]>>>> iterator() {
+        return proxy.<Long>invoke(ITERATE, serializer()::decode)
+                .thenApply(id -> new ConsistentMapIterator(id));
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     public CompletableFuture<Versioned<byte[]>> put(String key, byte[] value) {
@@ -275,6 +299,69 @@ public class AtomixConsistentMap extends AbstractRaftPrimitive implements AsyncC
                 .thenApply(v -> v.updated());
     }
 
+    @Override
+    public CompletableFuture<Void> putAll(Map<String, byte[]> entries) {
+        return proxy.<PutAll, MapEntryUpdateResult.Status>invoke(
+                PUT_ALL,
+                serializer()::encode,
+                new PutAll(entries),
+                serializer()::decode)
+                .whenComplete((r, e) -> throwIfLocked(r))
+                .thenApply(v -> null);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, Versioned<byte[]>>> getAll(Collection<String> keys) {
+        return proxy.invoke(GET_ALL, serializer()::encode, new GetAll(keys), serializer()::decode);
+    }
+
+    @Override
+    public CompletableFuture<Void> removeAll(Collection<String> keys) {
+        return proxy.<RemoveAll, MapEntryUpdateResult.Status>invoke(
+                REMOVE_ALL,
+                serializer()::encode,
+                new RemoveAll(keys),
+                serializer()::decode)
+                .whenComplete((r, e) -> throwIfLocked(r))
+                .thenApply(v -> null);
+    }
+
+    /**
+     * Inserts an entry migrated from another partition.
+     * <p>
+     * The entry keeps the given version and no event is published. The entry
+     * is not inserted if the key is already present or locked by a transaction.
+     *
+     * @param key key of the entry
+     * @param value value and version of the entry in its source partition
+     * @return future that completes with {@code true} if the entry was inserted
+     */
+    public CompletableFuture<Boolean> moveIn(String key, Versioned<byte[]> value) {
+        return proxy.invoke(
+                MOVE_IN,
+                serializer()::encode,
+                new MoveIn(key, value.value(), value.version()),
+                serializer()::decode);
+    }
+
+    /**
+     * Removes an entry that has been migrated to another partition.
+     * <p>
+     * The entry is removed only if it still has the given version. No event
+     * is published.
+     *
+     * @param key key of the entry
+     * @param version version of the entry that was migrated
+     * @return future that completes with {@code true} if the entry was removed
+     */
+    public CompletableFuture<Boolean> moveOut(String key, long version) {
+        return proxy.invoke(
+                MOVE_OUT,
+                serializer()::encode,
+                new RemoveVersion(key, version),
+                serializer()::decode);
+    }
+
     @Override
     public CompletableFuture<Void> clear() {
         return proxy.<MapEntryUpdateResult.Status>invoke(CLEAR, serializer()::decode)
@@ -430,4 +517,79 @@ public class AtomixConsistentMap extends AbstractRaftPrimitive implements AsyncC
     private boolean isListening() {
         return !mapEventListeners.isEmpty();
     }
-}
\ No newline at end of file
+
+    /**
+     * Consistent map iterator that fetches entries from the partition in batches.
+     */
+    private class ConsistentMapIterator implements AsyncIterator<Entry<String, Versioned<byte[]>>> {
+        private final long id;
+        private Iterator<Entry<String, Versioned<byte[]>>> batch = Collections.emptyIterator();
+        private int position;
+        private boolean last;
+        private boolean closed;
+
+        ConsistentMapIterator(long id) {
+            this.id = id;
+        }
+
+        @Override
+        public CompletableFuture<Boolean> hasNext() {
+            if (batch.hasNext()) {
+                return CompletableFuture.completedFuture(true);
+            }
+            if (last) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return fetch().thenCompose(v -> hasNext());
+        }
+
+        @Override
+        public CompletableFuture<Entry<String, Versioned<byte[]>>> next() {
+            return hasNext().thenApply(hasNext -> {
+                if (!hasNext) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            });
+        }
+
+        @Override
+        public CompletableFuture<Void> close() {
+            batch = Collections.emptyIterator();
+            last = true;
+            return release();
+        }
+
+        // releases the iterator held by the partition
+        private CompletableFuture<Void> release() {
+            if (closed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            closed = true;
+            return proxy.invoke(CLOSE_ITERATOR, serializer()::encode, id);
+        }
+
+        private CompletableFuture<Void> fetch() {
+            return proxy.<IteratorPosition, IteratorBatch>invoke(
+                    NEXT,
+                    serializer()::encode,
+                    new IteratorPosition(id, position),
+                    serializer()::decode)
+                    .thenCompose(result -> {
+                        if (result == null) {
+                            last = true;
+                            closed = true;
+                            return Tools.exceptionalFuture(
+                                    new ConsistentMapException("Iterator " + id + " expired"));
+                        }
+                        batch = result.entries().iterator();
+                        position = result.position();
+                        if (result.isLast()) {
+                            last = true;
+                            return release();
+                        }
+                        return CompletableFuture.completedFuture(null);
+                    });
+        }
+    }
+}
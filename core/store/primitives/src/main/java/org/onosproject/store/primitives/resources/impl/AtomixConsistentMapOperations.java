@@ -15,6 +15,8 @@
  */
 package org.onosproject.store.primitives.resources.impl;
 
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import io.atomix.protocols.raft.operation.OperationId;
 import io.atomix.protocols.raft.operation.OperationType;
 import io.atomix.utils.ArraySizeHashPrinter;
@@ -26,6 +28,11 @@ import org.onosproject.store.serializers.KryoNamespaces;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Versioned;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -39,18 +46,26 @@ public enum AtomixConsistentMapOperations implements OperationId {
     CONTAINS_VALUE(OperationType.QUERY),
     GET(OperationType.QUERY),
     GET_OR_DEFAULT(OperationType.QUERY),
+    GET_ALL(OperationType.QUERY),
     KEY_SET(OperationType.QUERY),
     VALUES(OperationType.QUERY),
     ENTRY_SET(OperationType.QUERY),
+    ITERATE(OperationType.COMMAND),
+    NEXT(OperationType.COMMAND),
+    CLOSE_ITERATOR(OperationType.COMMAND),
     PUT(OperationType.COMMAND),
     PUT_IF_ABSENT(OperationType.COMMAND),
     PUT_AND_GET(OperationType.COMMAND),
+    PUT_ALL(OperationType.COMMAND),
     REMOVE(OperationType.COMMAND),
     REMOVE_VALUE(OperationType.COMMAND),
     REMOVE_VERSION(OperationType.COMMAND),
+    REMOVE_ALL(OperationType.COMMAND),
     REPLACE(OperationType.COMMAND),
     REPLACE_VALUE(OperationType.COMMAND),
     REPLACE_VERSION(OperationType.COMMAND),
+    MOVE_IN(OperationType.COMMAND),
+    MOVE_OUT(OperationType.COMMAND),
     CLEAR(OperationType.COMMAND),
     ADD_LISTENER(OperationType.COMMAND),
     REMOVE_LISTENER(OperationType.COMMAND),
@@ -107,6 +122,12 @@ public enum AtomixConsistentMapOperations implements OperationId {
             .register(MapEntryUpdateResult.Status.class)
             .register(Versioned.class)
             .register(byte[].class)
+            .register(GetAll.class)
+            .register(PutAll.class)
+            .register(RemoveAll.class)
+            .register(IteratorPosition.class)
+            .register(IteratorBatch.class)
+            .register(MoveIn.class)
             .build("AtomixConsistentMapOperations");
 
     /**
@@ -283,6 +304,92 @@ public enum AtomixConsistentMapOperations implements OperationId {
         }
     }
 
+    /**
+     * Abstract multi-key operation.
+     */
+    @SuppressWarnings("serial")
+    public abstract static class KeysOperation extends MapOperation {
+        protected Set<String> keys;
+
+        public KeysOperation() {
+        }
+
+        public KeysOperation(Collection<String> keys) {
+            this.keys = Sets.newHashSet(checkNotNull(keys, "keys cannot be null"));
+        }
+
+        /**
+         * Returns the keys.
+         * @return keys
+         */
+        public Set<String> keys() {
+            return keys;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(getClass())
+                    .add("keys", keys.size())
+                    .toString();
+        }
+    }
+
+    /**
+     * Multi-key get query.
+     */
+    @SuppressWarnings("serial")
+    public static class GetAll extends KeysOperation {
+        public GetAll() {
+        }
+
+        public GetAll(Collection<String> keys) {
+            super(keys);
+        }
+    }
+
+    /**
+     * Multi-key put operation.
+     */
+    @SuppressWarnings("serial")
+    public static class PutAll extends MapOperation {
+        private Map<String, byte[]> entries;
+
+        public PutAll() {
+        }
+
+        public PutAll(Map<String, byte[]> entries) {
+            this.entries = Maps.newHashMap(checkNotNull(entries, "entries cannot be null"));
+        }
+
+        /**
+         * Returns the entries to put.
+         * @return entries
+         */
+        public Map<String, byte[]> entries() {
+            return entries;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("entries", entries.size())
+                    .toString();
+        }
+    }
+
+    /**
+     * Multi-key remove operation.
+     */
+    @SuppressWarnings("serial")
+    public static class RemoveAll extends KeysOperation {
+        public RemoveAll() {
+        }
+
+        public RemoveAll(Collection<String> keys) {
+            super(keys);
+        }
+    }
+
     /**
      * Remove operation.
      */
@@ -399,6 +506,38 @@ public enum AtomixConsistentMapOperations implements OperationId {
         }
     }
 
+    /**
+     * Partition migration insert operation.
+     */
+    public static class MoveIn extends KeyValueOperation {
+        private long version;
+
+        public MoveIn() {
+        }
+
+        public MoveIn(String key, byte[] value, long version) {
+            super(key, value);
+            this.version = version;
+        }
+
+        /**
+         * Returns the version the entry had in its source partition.
+         * @return version
+         */
+        public long version() {
+            return version;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("key", key)
+                    .add("value", ArraySizeHashPrinter.of(value))
+                    .add("version", version)
+                    .toString();
+        }
+    }
+
     /**
      * Transaction begin command.
      */
@@ -561,4 +700,101 @@ public enum AtomixConsistentMapOperations implements OperationId {
                     .toString();
         }
     }
+
+    /**
+     * Iterator position command.
+     */
+    @SuppressWarnings("serial")
+    public static class IteratorPosition extends MapOperation {
+        private long iteratorId;
+        private int position;
+
+        public IteratorPosition() {
+        }
+
+        public IteratorPosition(long iteratorId, int position) {
+            this.iteratorId = iteratorId;
+            this.position = position;
+        }
+
+        /**
+         * Returns the iterator identifier.
+         *
+         * @return the iterator identifier
+         */
+        public long iteratorId() {
+            return iteratorId;
+        }
+
+        /**
+         * Returns the position of the next entry to return.
+         *
+         * @return the iterator position
+         */
+        public int position() {
+            return position;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("iteratorId", iteratorId)
+                    .add("position", position)
+                    .toString();
+        }
+    }
+
+    /**
+     * Batch of entries returned by an iterator.
+     */
+    public static class IteratorBatch {
+        private int position;
+        private List<Map.Entry<String, Versioned<byte[]>>> entries;
+        private boolean last;
+
+        public IteratorBatch() {
+        }
+
+        public IteratorBatch(int position, List<Map.Entry<String, Versioned<byte[]>>> entries, boolean last) {
+            this.position = position;
+            this.entries = entries;
+            this.last = last;
+        }
+
+        /**
+         * Returns the position of the entry following the batch.
+         *
+         * @return the iterator position
+         */
+        public int position() {
+            return position;
+        }
+
+        /**
+         * Returns the entries in the batch.
+         *
+         * @return the entries
+         */
+        public List<Map.Entry<String, Versioned<byte[]>>> entries() {
+            return entries;
+        }
+
+        /**
+         * Returns whether this is the last batch.
+         *
+         * @return whether the iterator is exhausted
+         */
+        public boolean isLast() {
+            return last;
+        }
+
+        @Override
+        public String toString() {
+            return toStringHelper(this)
+                    .add("position", position)
+                    .add("entries", entries.size())
+                    .add("last", last)
+                    .toString();
+        }
+    }
 }
@@ -23,6 +23,7 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
@@ -43,9 +44,15 @@ import org.onosproject.store.primitives.TransactionId;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ContainsKey;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ContainsValue;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Get;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GetAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GetOrDefault;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IteratorBatch;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IteratorPosition;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.MoveIn;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Put;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PutAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Remove;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.RemoveAll;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.RemoveValue;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.RemoveVersion;
 import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Replace;
@@ -67,22 +74,30 @@ import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMa
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ADD_LISTENER;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.BEGIN;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CLEAR;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CLOSE_ITERATOR;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.COMMIT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CONTAINS_KEY;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.CONTAINS_VALUE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ENTRY_SET;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET_ALL;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET_OR_DEFAULT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IS_EMPTY;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ITERATE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.KEY_SET;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.MOVE_IN;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.MOVE_OUT;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.NEXT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PREPARE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PREPARE_AND_COMMIT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT_ALL;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT_AND_GET;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT_IF_ABSENT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_LISTENER;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_VALUE;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_ALL;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REMOVE_VERSION;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REPLACE;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.REPLACE_VALUE;
@@ -96,6 +111,10 @@ import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMa
  */
 public class AtomixConsistentMapService extends AbstractRaftService {
 
+    private static final int MAX_ITERATOR_BATCH_SIZE = 1000;
+    // iterators not advanced for this long are released; clients may abandon them without closing
+    private static final long ITERATOR_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+
     private static final Serializer SERIALIZER = Serializer.using(KryoNamespace.newBuilder()
             .register(KryoNamespaces.BASIC)
             .register(AtomixConsistentMapOperations.NAMESPACE)
@@ -114,6 +133,8 @@ public class AtomixConsistentMapService extends AbstractRaftService {
     protected Set<String> preparedKeys = Sets.newHashSet();
     protected Map<TransactionId, TransactionScope> activeTransactions = Maps.newHashMap();
     protected long currentVersion;
+    protected long versionOffset;
+    protected Map<Long, IteratorContext> iterators = Maps.newHashMap();
 
     public AtomixConsistentMapService() {
         map = createMap();
@@ -138,6 +159,14 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         writer.writeObject(entries(), serializer()::encode);
         writer.writeObject(activeTransactions, serializer()::encode);
         writer.writeLong(currentVersion);
+        writer.writeLong(versionOffset);
+        writer.writeInt(iterators.size());
+        iterators.forEach((id, context) -> {
+            writer.writeLong(id);
+            writer.writeLong(context.sessionId);
+            writer.writeLong(context.lastAccessed);
+            writer.writeObject(context.keys, serializer()::encode);
+        });
     }
 
     @Override
@@ -150,6 +179,16 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         map = reader.readObject(serializer()::decode);
         activeTransactions = reader.readObject(serializer()::decode);
         currentVersion = reader.readLong();
+        versionOffset = reader.readLong();
+        iterators = Maps.newHashMap();
+        int iteratorCount = reader.readInt();
+        for (int i = 0; i < iteratorCount; i++) {
+            long id = reader.readLong();
+            long sessionId = reader.readLong();
+            long lastAccessed = reader.readLong();
+            List<String> keys = reader.readObject(serializer()::decode);
+            iterators.put(id, new IteratorContext(sessionId, keys, lastAccessed));
+        }
     }
 
     @Override
@@ -163,6 +202,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         executor.register(ENTRY_SET, (Commit<Void> c) -> entrySet(), serializer()::encode);
         executor.register(GET, serializer()::decode, this::get, serializer()::encode);
         executor.register(GET_OR_DEFAULT, serializer()::decode, this::getOrDefault, serializer()::encode);
+        executor.register(GET_ALL, serializer()::decode, this::getAll, serializer()::encode);
         executor.register(IS_EMPTY, (Commit<Void> c) -> isEmpty(), serializer()::encode);
         executor.register(KEY_SET, (Commit<Void> c) -> keySet(), serializer()::encode);
         executor.register(SIZE, (Commit<Void> c) -> size(), serializer()::encode);
@@ -171,13 +211,20 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         executor.register(PUT, serializer()::decode, this::put, serializer()::encode);
         executor.register(PUT_IF_ABSENT, serializer()::decode, this::putIfAbsent, serializer()::encode);
         executor.register(PUT_AND_GET, serializer()::decode, this::putAndGet, serializer()::encode);
+        executor.register(PUT_ALL, serializer()::decode, this::putAll, serializer()::encode);
         executor.register(REMOVE, serializer()::decode, this::remove, serializer()::encode);
         executor.register(REMOVE_VALUE, serializer()::decode, this::removeValue, serializer()::encode);
         executor.register(REMOVE_VERSION, serializer()::decode, this::removeVersion, serializer()::encode);
+        executor.register(REMOVE_ALL, serializer()::decode, this::removeAll, serializer()::encode);
         executor.register(REPLACE, serializer()::decode, this::replace, serializer()::encode);
         executor.register(REPLACE_VALUE, serializer()::decode, this::replaceValue, serializer()::encode);
         executor.register(REPLACE_VERSION, serializer()::decode, this::replaceVersion, serializer()::encode);
+        executor.register(MOVE_IN, serializer()::decode, this::moveIn, serializer()::encode);
+        executor.register(MOVE_OUT, serializer()::decode, this::moveOut, serializer()::encode);
         executor.register(CLEAR, (Commit<Void> c) -> clear(), serializer()::encode);
+        executor.register(ITERATE, this::iterate, serializer()::encode);
+        executor.register(NEXT, serializer()::decode, this::next, serializer()::encode);
+        executor.register(CLOSE_ITERATOR, serializer()::decode, this::closeIterator);
         executor.register(BEGIN, serializer()::decode, this::begin, serializer()::encode);
         executor.register(PREPARE, serializer()::decode, this::prepare, serializer()::encode);
         executor.register(PREPARE_AND_COMMIT, serializer()::decode, this::prepareAndCommit, serializer()::encode);
@@ -236,6 +283,23 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         }
     }
 
+    /**
+     * Handles a get all commit.
+     *
+     * @param commit get all commit
+     * @return values mapped to those of the keys that are present
+     */
+    protected Map<String, Versioned<byte[]>> getAll(Commit<? extends GetAll> commit) {
+        Map<String, Versioned<byte[]>> result = new HashMap<>();
+        for (String key : commit.value().keys()) {
+            Versioned<byte[]> value = toVersioned(entries().get(key));
+            if (value != null) {
+                result.put(key, value);
+            }
+        }
+        return result;
+    }
+
     /**
      * Handles a size commit.
      *
@@ -293,6 +357,78 @@ public class AtomixConsistentMapService extends AbstractRaftService {
                 .collect(Collectors.toSet());
     }
 
+    /**
+     * Handles an iterate commit.
+     * <p>
+     * The keys present at the time of the commit are captured in sorted order, so
+     * that all replicas agree on the position of each key. Values are read as the
+     * iterator advances. Iterators are part of snapshots and released when idle
+     * for longer than {@link #ITERATOR_IDLE_TIMEOUT_MILLIS}.
+     *
+     * @param commit iterate commit
+     * @return iterator identifier
+     */
+    protected long iterate(Commit<Void> commit) {
+        long now = commit.wallClockTime().unixTimestamp();
+        expireIterators(now);
+        List<String> keys = entries().entrySet().stream()
+                .filter(entry -> entry.getValue().type() != MapEntryValue.Type.TOMBSTONE)
+                .map(Map.Entry::getKey)
+                .sorted()
+                .collect(Collectors.toList());
+        iterators.put(commit.index(), new IteratorContext(commit.session().sessionId().id(), keys, now));
+        return commit.index();
+    }
+
+    /**
+     * Handles an iterator next commit.
+     * <p>
+     * Advancing an iterator is a command rather than a query so that the time
+     * it was last used is agreed upon by all replicas.
+     *
+     * @param commit next commit
+     * @return next batch of entries or {@code null} if the iterator is unknown
+     */
+    protected IteratorBatch next(Commit<? extends IteratorPosition> commit) {
+        long now = commit.wallClockTime().unixTimestamp();
+        expireIterators(now);
+        IteratorContext context = iterators.get(commit.value().iteratorId());
+        if (context == null) {
+            return null;
+        }
+        context.lastAccessed = now;
+        List<String> keys = context.keys;
+        int position = commit.value().position();
+        List<Map.Entry<String, Versioned<byte[]>>> batch = Lists.newArrayList();
+        while (position < keys.size() && batch.size() < MAX_ITERATOR_BATCH_SIZE) {
+            String key = keys.get(position++);
+            Versioned<byte[]> value = toVersioned(entries().get(key));
+            if (value != null) {
+                batch.add(Maps.immutableEntry(key, value));
+            }
+        }
+        return new IteratorBatch(position, batch, position >= keys.size());
+    }
+
+    /**
+     * Handles a close iterator commit.
+     *
+     * @param commit close iterator commit
+     */
+    protected void closeIterator(Commit<Long> commit) {
+        iterators.remove(commit.value());
+        expireIterators(commit.wallClockTime().unixTimestamp());
+    }
+
+    /**
+     * Releases iterators that have not been advanced in a while.
+     *
+     * @param now current state machine time
+     */
+    private void expireIterators(long now) {
+        iterators.values().removeIf(context -> now - context.lastAccessed > ITERATOR_IDLE_TIMEOUT_MILLIS);
+    }
+
     /**
      * Returns a boolean indicating whether the given MapEntryValues are equal.
      *
@@ -327,6 +463,20 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         return value == null || value.type() == MapEntryValue.Type.TOMBSTONE;
     }
 
+    /**
+     * Returns the version of the entries written by a commit.
+     * <p>
+     * Entries are versioned by commit index, offset once entries moved in
+     * from another partition carry a higher version than the index, so that
+     * the versions of a key keep increasing after it has been moved.
+     *
+     * @param commit the commit
+     * @return version of the entries written by the commit
+     */
+    protected long version(Commit<?> commit) {
+        return commit.index() + versionOffset;
+    }
+
     /**
      * Handles a put commit.
      *
@@ -336,7 +486,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
     protected MapEntryUpdateResult<String, byte[]> put(Commit<? extends Put> commit) {
         String key = commit.value().key();
         MapEntryValue oldValue = entries().get(key);
-        MapEntryValue newValue = new MapEntryValue(MapEntryValue.Type.VALUE, commit.index(), commit.value().value());
+        MapEntryValue newValue = new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), commit.value().value());
 
         // If the value is null or a tombstone, this is an insert.
         // Otherwise, only update the value if it has changed to reduce the number of events.
@@ -345,7 +495,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
             if (preparedKeys.contains(key)) {
                 return new MapEntryUpdateResult<>(
                         MapEntryUpdateResult.Status.WRITE_LOCK,
-                        commit.index(),
+                        version(commit),
                         key,
                         toVersioned(oldValue));
             }
@@ -353,13 +503,13 @@ public class AtomixConsistentMapService extends AbstractRaftService {
                     new MapEntryValue(MapEntryValue.Type.VALUE, newValue.version(), newValue.value()));
             Versioned<byte[]> result = toVersioned(oldValue);
             publish(new MapEvent<>(MapEvent.Type.INSERT, "", key, toVersioned(newValue), result));
-            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, commit.index(), key, result);
+            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, version(commit), key, result);
         } else if (!valuesEqual(oldValue, newValue)) {
             // If the key has been locked by a transaction, return a WRITE_LOCK error.
             if (preparedKeys.contains(key)) {
                 return new MapEntryUpdateResult<>(
                         MapEntryUpdateResult.Status.WRITE_LOCK,
-                        commit.index(),
+                        version(commit),
                         key,
                         toVersioned(oldValue));
             }
@@ -367,10 +517,46 @@ public class AtomixConsistentMapService extends AbstractRaftService {
                     new MapEntryValue(MapEntryValue.Type.VALUE, newValue.version(), newValue.value()));
             Versioned<byte[]> result = toVersioned(oldValue);
             publish(new MapEvent<>(MapEvent.Type.UPDATE, "", key, toVersioned(newValue), result));
-            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, commit.index(), key, result);
+            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, version(commit), key, result);
         }
         // If the value hasn't changed, return a NOOP result.
-        return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.NOOP, commit.index(), key, toVersioned(oldValue));
+        return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.NOOP, version(commit), key, toVersioned(oldValue));
+    }
+
+    /**
+     * Handles a put all commit.
+     * <p>
+     * The entries are applied atomically: if any of the keys is locked by a
+     * transaction, none of them is updated. Events for all changed entries are
+     * published together.
+     *
+     * @param commit put all commit
+     * @return update status
+     */
+    protected MapEntryUpdateResult.Status putAll(Commit<? extends PutAll> commit) {
+        Map<String, byte[]> updates = commit.value().entries();
+        if (updates.keySet().stream().anyMatch(preparedKeys::contains)) {
+            return MapEntryUpdateResult.Status.WRITE_LOCK;
+        }
+
+        List<MapEvent<String, byte[]>> events = Lists.newArrayList();
+        updates.forEach((key, value) -> {
+            MapEntryValue oldValue = entries().get(key);
+            MapEntryValue newValue = new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), value);
+            // Only update the value if it has changed to reduce the number of events.
+            if (valueIsNull(oldValue)) {
+                entries().put(key, newValue);
+                events.add(new MapEvent<>(MapEvent.Type.INSERT, "", key, toVersioned(newValue), null));
+            } else if (!valuesEqual(oldValue, newValue)) {
+                entries().put(key, newValue);
+                events.add(new MapEvent<>(MapEvent.Type.UPDATE, "", key,
+                        toVersioned(newValue), toVersioned(oldValue)));
+            }
+        });
+        if (!events.isEmpty()) {
+            publish(events);
+        }
+        return MapEntryUpdateResult.Status.OK;
     }
 
     /**
@@ -389,22 +575,22 @@ public class AtomixConsistentMapService extends AbstractRaftService {
             if (preparedKeys.contains(key)) {
                 return new MapEntryUpdateResult<>(
                         MapEntryUpdateResult.Status.WRITE_LOCK,
-                        commit.index(),
+                        version(commit),
                         key,
                         toVersioned(oldValue));
             }
             MapEntryValue newValue = new MapEntryValue(
                     MapEntryValue.Type.VALUE,
-                    commit.index(),
+                    version(commit),
                     commit.value().value());
             entries().put(commit.value().key(), newValue);
             Versioned<byte[]> result = toVersioned(newValue);
             publish(new MapEvent<>(MapEvent.Type.INSERT, "", key, result, null));
-            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, commit.index(), key, null);
+            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, version(commit), key, null);
         }
         return new MapEntryUpdateResult<>(
                 MapEntryUpdateResult.Status.PRECONDITION_FAILED,
-                commit.index(),
+                version(commit),
                 key,
                 toVersioned(oldValue));
     }
@@ -418,7 +604,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
     protected MapEntryUpdateResult<String, byte[]> putAndGet(Commit<? extends Put> commit) {
         String key = commit.value().key();
         MapEntryValue oldValue = entries().get(key);
-        MapEntryValue newValue = new MapEntryValue(MapEntryValue.Type.VALUE, commit.index(), commit.value().value());
+        MapEntryValue newValue = new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), commit.value().value());
 
         // If the value is null or a tombstone, this is an insert.
         // Otherwise, only update the value if it has changed to reduce the number of events.
@@ -427,29 +613,29 @@ public class AtomixConsistentMapService extends AbstractRaftService {
             if (preparedKeys.contains(key)) {
                 return new MapEntryUpdateResult<>(
                         MapEntryUpdateResult.Status.WRITE_LOCK,
-                        commit.index(),
+                        version(commit),
                         key,
                         toVersioned(oldValue));
             }
             entries().put(commit.value().key(), newValue);
             Versioned<byte[]> result = toVersioned(newValue);
             publish(new MapEvent<>(MapEvent.Type.INSERT, "", key, result, null));
-            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, commit.index(), key, result);
+            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, version(commit), key, result);
         } else if (!valuesEqual(oldValue, newValue)) {
             // If the key has been locked by a transaction, return a WRITE_LOCK error.
             if (preparedKeys.contains(key)) {
                 return new MapEntryUpdateResult<>(
                         MapEntryUpdateResult.Status.WRITE_LOCK,
-                        commit.index(),
+                        version(commit),
                         key,
                         toVersioned(oldValue));
             }
             entries().put(commit.value().key(), newValue);
             Versioned<byte[]> result = toVersioned(newValue);
             publish(new MapEvent<>(MapEvent.Type.UPDATE, "", key, result, toVersioned(oldValue)));
-            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, commit.index(), key, result);
+            return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.OK, version(commit), key, result);
         }
-        return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.NOOP, commit.index(), key, toVersioned(oldValue));
+        return new MapEntryUpdateResult<>(MapEntryUpdateResult.Status.NOOP, version(commit), key, toVersioned(oldValue));
     }
 
     /**
@@ -492,7 +678,43 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return map entry update result
      */
     protected MapEntryUpdateResult<String, byte[]> remove(Commit<? extends Remove> commit) {
-        return removeIf(commit.index(), commit.value().key(), v -> true);
+        return removeIf(version(commit), commit.value().key(), v -> true);
+    }
+
+    /**
+     * Handles a remove all commit.
+     * <p>
+     * The keys are removed atomically: if any of them is locked by a
+     * transaction, none of them is removed. Events for all removed entries are
+     * published together.
+     *
+     * @param commit remove all commit
+     * @return update status
+     */
+    protected MapEntryUpdateResult.Status removeAll(Commit<? extends RemoveAll> commit) {
+        Set<String> keys = commit.value().keys();
+        if (keys.stream().anyMatch(preparedKeys::contains)) {
+            return MapEntryUpdateResult.Status.WRITE_LOCK;
+        }
+
+        List<MapEvent<String, byte[]>> events = Lists.newArrayList();
+        for (String key : keys) {
+            MapEntryValue value = entries().get(key);
+            if (valueIsNull(value)) {
+                continue;
+            }
+            // If no transactions are active, remove the key. Otherwise, replace it with a tombstone.
+            if (activeTransactions.isEmpty()) {
+                entries().remove(key);
+            } else {
+                entries().put(key, new MapEntryValue(MapEntryValue.Type.TOMBSTONE, version(commit), null));
+            }
+            events.add(new MapEvent<>(MapEvent.Type.REMOVE, "", key, null, toVersioned(value)));
+        }
+        if (!events.isEmpty()) {
+            publish(events);
+        }
+        return MapEntryUpdateResult.Status.OK;
     }
 
     /**
@@ -502,8 +724,8 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return map entry update result
      */
     protected MapEntryUpdateResult<String, byte[]> removeValue(Commit<? extends RemoveValue> commit) {
-        return removeIf(commit.index(), commit.value().key(), v ->
-                valuesEqual(v, new MapEntryValue(MapEntryValue.Type.VALUE, commit.index(), commit.value().value())));
+        return removeIf(version(commit), commit.value().key(), v ->
+                valuesEqual(v, new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), commit.value().value())));
     }
 
     /**
@@ -513,7 +735,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return map entry update result
      */
     protected MapEntryUpdateResult<String, byte[]> removeVersion(Commit<? extends RemoveVersion> commit) {
-        return removeIf(commit.index(), commit.value().key(), v -> v.version() == commit.value().version());
+        return removeIf(version(commit), commit.value().key(), v -> v.version() == commit.value().version());
     }
 
     /**
@@ -556,8 +778,8 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return map entry update result
      */
     protected MapEntryUpdateResult<String, byte[]> replace(Commit<? extends Replace> commit) {
-        MapEntryValue value = new MapEntryValue(MapEntryValue.Type.VALUE, commit.index(), commit.value().value());
-        return replaceIf(commit.index(), commit.value().key(), value, v -> true);
+        MapEntryValue value = new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), commit.value().value());
+        return replaceIf(version(commit), commit.value().key(), value, v -> true);
     }
 
     /**
@@ -567,8 +789,8 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return map entry update result
      */
     protected MapEntryUpdateResult<String, byte[]> replaceValue(Commit<? extends ReplaceValue> commit) {
-        MapEntryValue value = new MapEntryValue(MapEntryValue.Type.VALUE, commit.index(), commit.value().newValue());
-        return replaceIf(commit.index(), commit.value().key(), value,
+        MapEntryValue value = new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), commit.value().newValue());
+        return replaceIf(version(commit), commit.value().key(), value,
                 v -> valuesEqual(v.value(), commit.value().oldValue()));
     }
 
@@ -579,11 +801,58 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return map entry update result
      */
     protected MapEntryUpdateResult<String, byte[]> replaceVersion(Commit<? extends ReplaceVersion> commit) {
-        MapEntryValue value = new MapEntryValue(MapEntryValue.Type.VALUE, commit.index(), commit.value().newValue());
-        return replaceIf(commit.index(), commit.value().key(), value,
+        MapEntryValue value = new MapEntryValue(MapEntryValue.Type.VALUE, version(commit), commit.value().newValue());
+        return replaceIf(version(commit), commit.value().key(), value,
                 v -> v.version() == commit.value().oldVersion());
     }
 
+    /**
+     * Handles a moveIn commit.
+     * <p>
+     * The entry is inserted with the version it had in its source partition
+     * and no event is published, so that a partition migration is invisible
+     * to listeners and to version based updates. Versions of later writes
+     * are raised above the version of the moved entry if needed.
+     *
+     * @param commit moveIn commit
+     * @return {@code true} if the entry was inserted
+     */
+    protected boolean moveIn(Commit<? extends MoveIn> commit) {
+        String key = commit.value().key();
+        if (!valueIsNull(entries().get(key)) || preparedKeys.contains(key)) {
+            return false;
+        }
+        long version = commit.value().version();
+        if (version >= version(commit)) {
+            versionOffset = version - commit.index() + 1;
+        }
+        entries().put(key, new MapEntryValue(MapEntryValue.Type.VALUE, version, commit.value().value()));
+        return true;
+    }
+
+    /**
+     * Handles a moveOut commit.
+     * <p>
+     * The entry is removed only if it still has the given version. No event is
+     * published.
+     *
+     * @param commit moveOut commit
+     * @return {@code true} if the entry was removed
+     */
+    protected boolean moveOut(Commit<? extends RemoveVersion> commit) {
+        String key = commit.value().key();
+        MapEntryValue value = entries().get(key);
+        if (valueIsNull(value) || value.version() != commit.value().version() || preparedKeys.contains(key)) {
+            return false;
+        }
+        if (activeTransactions.isEmpty()) {
+            entries().remove(key);
+        } else {
+            entries().put(key, new MapEntryValue(MapEntryValue.Type.TOMBSTONE, version(commit), null));
+        }
+        return true;
+    }
+
     /**
      * Handles a clear commit.
      *
@@ -635,7 +904,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
      * @return transaction state version
      */
     protected long begin(Commit<? extends TransactionBegin> commit) {
-        long version = commit.index();
+        long version = version(commit);
         activeTransactions.put(commit.value().transactionId(), new TransactionScope(version));
         return version;
     }
@@ -651,7 +920,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         PrepareResult prepareResult = prepare(commit);
         TransactionScope transactionScope = activeTransactions.remove(transactionId);
         if (prepareResult == PrepareResult.OK) {
-            this.currentVersion = commit.index();
+            this.currentVersion = version(commit);
             transactionScope = transactionScope.prepared(commit);
             commitTransaction(transactionScope);
         }
@@ -749,7 +1018,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         }
 
         try {
-            this.currentVersion = commit.index();
+            this.currentVersion = version(commit);
             return commitTransaction(transactionScope);
         } catch (Exception e) {
             logger().warn("Failure applying {}", commit, e);
@@ -929,6 +1198,7 @@ public class AtomixConsistentMapService extends AbstractRaftService {
 
     private void closeListener(Long sessionId) {
         listeners.remove(sessionId);
+        iterators.values().removeIf(context -> context.sessionId == sessionId);
     }
 
     /**
@@ -981,6 +1251,21 @@ public class AtomixConsistentMapService extends AbstractRaftService {
         }
     }
 
+    /**
+     * Map iterator state.
+     */
+    protected static final class IteratorContext {
+        private final long sessionId;
+        private final List<String> keys;
+        private long lastAccessed;
+
+        private IteratorContext(long sessionId, List<String> keys, long lastAccessed) {
+            this.sessionId = sessionId;
+            this.keys = keys;
+            this.lastAccessed = lastAccessed;
+        }
+    }
+
     /**
      * Map transaction scope.
      */
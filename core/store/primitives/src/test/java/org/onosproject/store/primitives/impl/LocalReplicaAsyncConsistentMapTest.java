@@ -0,0 +1,103 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Arrays;
+
+import io.atomix.protocols.raft.proxy.RaftProxy;
+import io.atomix.protocols.raft.service.RaftService;
+import org.junit.Test;
+import org.onlab.util.Tools;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMap;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapService;
+import org.onosproject.store.primitives.resources.impl.AtomixTestBase;
+import org.onosproject.store.service.Versioned;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.onlab.junit.TestTools.assertAfter;
+
+/**
+ * Unit tests for {@link LocalReplicaAsyncConsistentMap}.
+ */
+public class LocalReplicaAsyncConsistentMapTest extends AtomixTestBase<AtomixConsistentMap> {
+
+    private final byte[] value1 = Tools.getBytesUtf8("value1");
+    private final byte[] value2 = Tools.getBytesUtf8("value2");
+
+    @Override
+    protected RaftService createService() {
+        return new AtomixConsistentMapService();
+    }
+
+    @Override
+    protected AtomixConsistentMap createPrimitive(RaftProxy proxy) {
+        return new AtomixConsistentMap(proxy);
+    }
+
+    /**
+     * Tests that the replica is bootstrapped from the existing map contents.
+     */
+    @Test
+    public void testBootstrap() throws Throwable {
+        AtomixConsistentMap backingMap = newPrimitive("testBootstrap");
+        backingMap.put("foo", value1).join();
+        backingMap.put("bar", value2).join();
+
+        LocalReplicaAsyncConsistentMap<String, byte[]> map = new LocalReplicaAsyncConsistentMap<>(backingMap);
+        assertAfter(5000, () -> assertTrue(map.isSynchronized()));
+
+        assertEquals(2, (int) map.size().join());
+        assertArrayEquals(value1, map.get("foo").join().value());
+        assertEquals(backingMap.get("bar").join().version(), map.get("bar").join().version());
+        assertTrue(map.keySet().join().containsAll(Arrays.asList("foo", "bar")));
+        assertNull(map.get("baz").join());
+    }
+
+    /**
+     * Tests that local and remote updates are reflected in the replica.
+     */
+    @Test
+    public void testUpdates() throws Throwable {
+        AtomixConsistentMap remoteMap = newPrimitive("testUpdates");
+        LocalReplicaAsyncConsistentMap<String, byte[]> map =
+                new LocalReplicaAsyncConsistentMap<>(newPrimitive("testUpdates"));
+        assertAfter(5000, () -> assertTrue(map.isSynchronized()));
+        assertTrue(map.isEmpty().join());
+
+        // events are delivered ahead of the response to the update
+        map.put("foo", value1).join();
+        assertArrayEquals(value1, map.get("foo").join().value());
+
+        remoteMap.put("bar", value2).join();
+        remoteMap.put("foo", value2).join();
+        assertAfter(5000, () -> {
+            assertArrayEquals(value2, map.get("foo").join().value());
+            assertTrue(map.containsKey("bar").join());
+        });
+
+        Versioned<byte[]> bar = map.get("bar").join();
+        remoteMap.remove("bar").join();
+        assertAfter(5000, () -> assertFalse(map.containsKey("bar").join()));
+        assertFalse(map.values().join().stream().anyMatch(v -> v.version() == bar.version()));
+
+        map.clear().join();
+        assertTrue(map.isEmpty().join());
+    }
+}
@@ -297,4 +297,24 @@ public class PartitionedAsyncConsistentMapTest {
         assertThat(partitionedAsyncConsistentMap.isEmpty().join(), is(true));
 
     }
+
+    @Test
+    public void batchOperations() {
+        Map<String, String> entries = new HashMap<>();
+        entries.put(TEST3, VALUE3);
+        entries.put(TEST4, VALUE4);
+        partitionedAsyncConsistentMap.putAll(entries).join();
+        assertThat(partitionedAsyncConsistentMap.containsKey(TEST3).join(), is(true));
+        assertThat(partitionedAsyncConsistentMap.containsKey(TEST4).join(), is(true));
+
+        Map<String, Versioned<String>> values =
+                partitionedAsyncConsistentMap.getAll(Lists.newArrayList(KEY1, TEST3)).join();
+        assertThat(values.size(), is(2));
+        assertThat(values.get(TEST3).value(), is(VALUE3));
+
+        partitionedAsyncConsistentMap.removeAll(Lists.newArrayList(KEY1, TEST3, TEST4)).join();
+        assertThat(partitionedAsyncConsistentMap.containsKey(KEY1).join(), is(false));
+        assertThat(partitionedAsyncConsistentMap.containsKey(TEST3).join(), is(false));
+        assertThat(partitionedAsyncConsistentMap.containsKey(KEY2).join(), is(true));
+    }
 }
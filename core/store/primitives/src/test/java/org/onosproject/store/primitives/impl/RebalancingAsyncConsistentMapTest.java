@@ -0,0 +1,213 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.store.primitives.impl;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import io.atomix.protocols.raft.proxy.RaftProxy;
+import io.atomix.protocols.raft.service.RaftService;
+import org.junit.Test;
+import org.onlab.util.Tools;
+import org.onosproject.cluster.PartitionId;
+import org.onosproject.store.primitives.MapUpdate;
+import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMap;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapService;
+import org.onosproject.store.primitives.resources.impl.AtomixTestBase;
+import org.onosproject.store.primitives.impl.RebalancingAsyncConsistentMap.EntryMover;
+import org.onosproject.store.service.AsyncConsistentMap;
+import org.onosproject.store.service.TransactionLog;
+import org.onosproject.store.service.Version;
+import org.onosproject.store.service.Versioned;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for {@link RebalancingAsyncConsistentMap}.
+ */
+public class RebalancingAsyncConsistentMapTest extends AtomixTestBase<AtomixConsistentMap> {
+
+    private static final PartitionId P1 = PartitionId.from(1);
+    private static final PartitionId P2 = PartitionId.from(2);
+
+    private final byte[] value1 = Tools.getBytesUtf8("value1");
+    private final byte[] value2 = Tools.getBytesUtf8("value2");
+
+    // keys starting with "b" moved to the added partition
+    private final Hasher<String> previousHasher = key -> P1;
+    private final Hasher<String> hasher = key -> key.startsWith("b") ? P2 : P1;
+
+    @Override
+    protected RaftService createService() {
+        return new AtomixConsistentMapService();
+    }
+
+    @Override
+    protected AtomixConsistentMap createPrimitive(RaftProxy proxy) {
+        return new AtomixConsistentMap(proxy);
+    }
+
+    private RebalancingAsyncConsistentMap<String, byte[]> newMap(Map<PartitionId, AtomixConsistentMap> partitions) {
+        Map<PartitionId, AsyncConsistentMap<String, byte[]>> maps = ImmutableMap.copyOf(partitions);
+        return new RebalancingAsyncConsistentMap<>(
+                new PartitionedAsyncConsistentMap<>("test", maps, hasher),
+                maps, Maps.transformValues(partitions, this::entryMover), hasher, ImmutableList.of(previousHasher));
+    }
+
+    private EntryMover<String, byte[]> entryMover(AtomixConsistentMap map) {
+        return new EntryMover<String, byte[]>() {
+            @Override
+            public CompletableFuture<Boolean> moveIn(String key, Versioned<byte[]> value) {
+                return map.moveIn(key, value);
+            }
+
+            @Override
+            public CompletableFuture<Boolean> moveOut(String key, long version) {
+                return map.moveOut(key, version);
+            }
+        };
+    }
+
+    /**
+     * Tests that keys are moved to their new partition when accessed.
+     */
+    @Test
+    public void testMoveOnAccess() throws Throwable {
+        AtomixConsistentMap partition1 = newPrimitive("testMoveOnAccess-1");
+        AtomixConsistentMap partition2 = newPrimitive("testMoveOnAccess-2");
+        partition1.put("foo", value1).join();
+        partition1.put("bar", value1).join();
+        partition1.put("baz", value1).join();
+
+        RebalancingAsyncConsistentMap<String, byte[]> map = newMap(ImmutableMap.of(P1, partition1, P2, partition2));
+        assertArrayEquals(value1, map.get("bar").join().value());
+        assertFalse(partition1.containsKey("bar").join());
+        assertArrayEquals(value1, partition2.get("bar").join().value());
+
+        // a removed key is not left behind on its previous partition
+        assertArrayEquals(value1, map.remove("baz").join().value());
+        assertFalse(partition1.containsKey("baz").join());
+        assertNull(map.get("baz").join());
+
+        // keys owned by their previous partition stay in place
+        map.put("foo", value2).join();
+        assertArrayEquals(value2, partition1.get("foo").join().value());
+        assertFalse(partition2.containsKey("foo").join());
+    }
+
+    /**
+     * Tests that a sweep moves all keys not on their owner.
+     */
+    @Test
+    public void testRebalance() throws Throwable {
+        AtomixConsistentMap partition1 = newPrimitive("testRebalance-1");
+        AtomixConsistentMap partition2 = newPrimitive("testRebalance-2");
+        for (String key : Arrays.asList("foo", "bar", "baz", "boo")) {
+            partition1.put(key, value1).join();
+        }
+        // a newer value already written to the owner is not overwritten
+        partition2.put("boo", value2).join();
+
+        RebalancingAsyncConsistentMap<String, byte[]> map = newMap(ImmutableMap.of(P1, partition1, P2, partition2));
+        map.rebalance().join();
+        assertTrue(map.isRebalanced());
+
+        assertEquals(1, (int) partition1.size().join());
+        assertEquals(3, (int) partition2.size().join());
+        assertEquals(4, (int) map.size().join());
+        assertArrayEquals(value2, map.get("boo").join().value());
+    }
+
+    /**
+     * Tests that moved keys keep their versions.
+     */
+    @Test
+    public void testMoveKeepsVersion() throws Throwable {
+        AtomixConsistentMap partition1 = newPrimitive("testMoveKeepsVersion-1");
+        AtomixConsistentMap partition2 = newPrimitive("testMoveKeepsVersion-2");
+        long version = partition1.put("bar", value1).thenCompose(v -> partition1.get("bar")).join().version();
+
+        RebalancingAsyncConsistentMap<String, byte[]> map = newMap(ImmutableMap.of(P1, partition1, P2, partition2));
+        assertEquals(version, map.get("bar").join().version());
+        assertEquals(version, partition2.get("bar").join().version());
+        assertTrue(map.replace("bar", version, value2).join());
+        assertArrayEquals(value2, partition2.get("bar").join().value());
+    }
+
+    /**
+     * Tests that a key removed after being moved is not moved again by a sweep.
+     */
+    @Test
+    public void testRemovedKeyNotMovedBack() throws Throwable {
+        AtomixConsistentMap partition1 = newPrimitive("testRemovedKeyNotMovedBack-1");
+        AtomixConsistentMap partition2 = newPrimitive("testRemovedKeyNotMovedBack-2");
+        partition1.put("bar", value1).join();
+        Versioned<byte[]> stale = partition1.get("bar").join();
+
+        RebalancingAsyncConsistentMap<String, byte[]> map = newMap(ImmutableMap.of(P1, partition1, P2, partition2));
+        assertArrayEquals(value1, map.remove("bar").join().value());
+
+        // the entry read before the removal can no longer be moved out of its previous partition
+        assertFalse(partition1.moveOut("bar", stale.version()).join());
+        map.rebalance().join();
+        assertNull(map.get("bar").join());
+        assertTrue(partition2.isEmpty().join());
+    }
+
+    /**
+     * Tests that a key locked by a transaction on its owner is kept on its previous partition until the
+     * transaction is over.
+     */
+    @Test
+    public void testLockedKeyMovedLater() throws Throwable {
+        AtomixConsistentMap partition1 = newPrimitive("testLockedKeyMovedLater-1");
+        AtomixConsistentMap partition2 = newPrimitive("testLockedKeyMovedLater-2");
+        partition1.put("bar", value1).join();
+
+        TransactionId transactionId = TransactionId.from("tx1");
+        Version lock = partition2.begin(transactionId).join();
+        MapUpdate<String, byte[]> update = MapUpdate.<String, byte[]>newBuilder()
+                .withType(MapUpdate.Type.PUT_IF_VERSION_MATCH)
+                .withKey("bar")
+                .withValue(value2)
+                .withVersion(lock.value())
+                .build();
+        assertTrue(partition2.prepare(new TransactionLog<>(transactionId, lock.value(), Arrays.asList(update)))
+                           .join());
+
+        RebalancingAsyncConsistentMap<String, byte[]> map = newMap(ImmutableMap.of(P1, partition1, P2, partition2));
+        CompletableFuture<Versioned<byte[]>> read = map.get("bar");
+        Thread.sleep(500);
+        assertFalse(read.isDone());
+        assertArrayEquals(value1, partition1.get("bar").join().value());
+
+        // once the transaction is rolled back the key is moved
+        partition2.rollback(transactionId).join();
+        assertArrayEquals(value1, read.get(5, TimeUnit.SECONDS).value());
+        assertFalse(partition1.containsKey("bar").join());
+        assertArrayEquals(value1, partition2.get("bar").join().value());
+    }
+}
@@ -20,9 +20,11 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import com.google.common.collect.Sets;
+import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.cluster.PartitionId;
 import org.onosproject.store.primitives.DistributedPrimitiveCreator;
@@ -34,6 +36,7 @@ import org.onosproject.store.service.ConsistentMapBuilder;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.StorageService;
+import org.onosproject.store.service.TransactionException;
 
 import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.anyString;
@@ -41,6 +44,8 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.mock;
 import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertSame;
 
 /**
@@ -48,8 +53,11 @@ import static org.junit.Assert.assertSame;
  */
 public class TransactionManagerTest {
 
-    @Test
-    public void testTransactionMapCaching() throws Exception {
+    private StorageService storageService;
+    private PartitionService partitionService;
+
+    @Before
+    public void setUp() {
         AsyncConsistentMap asyncMap = mock(AsyncConsistentMap.class);
         expect(asyncMap.name()).andReturn("foo");
         expect(asyncMap.addListener(anyObject(MapEventListener.class), anyObject(Executor.class)))
@@ -67,10 +75,10 @@ public class TransactionManagerTest {
         expect(primitiveCreator.newAsyncConsistentMap(anyString(), anyObject(Serializer.class)))
                 .andReturn(asyncMap).anyTimes();
 
-        StorageService storageService = mock(StorageService.class);
+        storageService = mock(StorageService.class);
         expect(storageService.consistentMapBuilder()).andReturn(mapBuilder);
 
-        PartitionService partitionService = mock(PartitionService.class);
+        partitionService = mock(PartitionService.class);
         Set<PartitionId> partitionIds = Sets.newHashSet(PartitionId.from(1), PartitionId.from(2), PartitionId.from(3));
         expect(partitionService.getAllPartitionIds())
                 .andReturn(partitionIds).anyTimes();
@@ -80,7 +88,10 @@ public class TransactionManagerTest {
                 .andReturn(primitiveCreator).anyTimes();
 
         replay(storageService, partitionService, asyncMap, primitiveCreator, mapBuilder);
+    }
 
+    @Test
+    public void testTransactionMapCaching() throws Exception {
         TransactionManager transactionManager = new TransactionManager(storageService, partitionService, 128);
         TransactionId transactionId = TransactionId.from(UUID.randomUUID().toString());
         TransactionCoordinator transactionCoordinator = new TransactionCoordinator(transactionId, transactionManager);
@@ -99,4 +110,32 @@ public class TransactionManagerTest {
                 transactionalMap2.partitions.get(PartitionId.from(3)).transaction.transactionalObject);
     }
 
+    @Test
+    public void testWaitForRebalance() throws Exception {
+        CompletableFuture<Void> rebalanced = new CompletableFuture<>();
+        TransactionManager transactionManager = new TransactionManager(
+                storageService, partitionService, 128, false, name -> rebalanced);
+        TransactionId transactionId = TransactionId.from(UUID.randomUUID().toString());
+        TransactionCoordinator transactionCoordinator = new TransactionCoordinator(transactionId, transactionManager);
+        Serializer serializer = Serializer.using(KryoNamespaces.API);
+
+        CompletableFuture<PartitionedTransactionalMap<String, String>> transactionalMap =
+                CompletableFuture.supplyAsync(() -> transactionManager.getTransactionalMap(
+                        "foo", serializer, transactionCoordinator));
+        Thread.sleep(100);
+        assertFalse(transactionalMap.isDone());
+        rebalanced.complete(null);
+        assertNotNull(transactionalMap.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = TransactionException.class)
+    public void testFailedRebalance() throws Exception {
+        CompletableFuture<Void> rebalanced = new CompletableFuture<>();
+        rebalanced.completeExceptionally(new IllegalStateException());
+        TransactionManager transactionManager = new TransactionManager(
+                storageService, partitionService, 128, false, name -> rebalanced);
+        TransactionId transactionId = TransactionId.from(UUID.randomUUID().toString());
+        TransactionCoordinator transactionCoordinator = new TransactionCoordinator(transactionId, transactionManager);
+        transactionManager.getTransactionalMap("foo", Serializer.using(KryoNamespaces.API), transactionCoordinator);
+    }
 }
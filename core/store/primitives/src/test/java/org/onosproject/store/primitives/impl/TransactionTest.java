@@ -45,6 +45,7 @@ import org.onosproject.store.service.Serializer;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Version;
 import org.onosproject.store.service.Versioned;
+import org.onosproject.utils.MeteringAgent;
 
 import static junit.framework.TestCase.assertNull;
 import static org.easymock.EasyMock.anyObject;
@@ -200,6 +201,9 @@ public class TransactionTest {
         expect(transactionManager.remove(anyObject(TransactionId.class)))
                 .andReturn(CompletableFuture.completedFuture(null))
                 .anyTimes();
+        expect(transactionManager.monitor())
+                .andReturn(new MeteringAgent("transactions", "*", false))
+                .anyTimes();
         mocks.add(transactionManager);
 
         TransactionCoordinator transactionCoordinator = new TransactionCoordinator(transactionId, transactionManager);
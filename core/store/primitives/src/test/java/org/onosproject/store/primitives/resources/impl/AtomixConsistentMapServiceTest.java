@@ -17,6 +17,7 @@ package org.onosproject.store.primitives.resources.impl;
 
 import io.atomix.protocols.raft.service.ServiceId;
 import io.atomix.protocols.raft.service.impl.DefaultCommit;
+import io.atomix.protocols.raft.session.SessionId;
 import io.atomix.protocols.raft.session.impl.RaftSessionContext;
 import io.atomix.protocols.raft.storage.RaftStorage;
 import io.atomix.protocols.raft.storage.snapshot.Snapshot;
@@ -26,12 +27,23 @@ import io.atomix.protocols.raft.storage.snapshot.SnapshotWriter;
 import io.atomix.storage.StorageLevel;
 import io.atomix.time.WallClockTimestamp;
 import org.junit.Test;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IteratorBatch;
+import org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.IteratorPosition;
 import org.onosproject.store.service.Versioned;
 
+import java.util.concurrent.TimeUnit;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.mock;
+import static org.easymock.EasyMock.replay;
 import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.GET;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.ITERATE;
+import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.NEXT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.PUT;
 import static org.onosproject.store.primitives.resources.impl.AtomixConsistentMapOperations.Put;
 
@@ -76,4 +88,56 @@ public class AtomixConsistentMapServiceTest {
         assertNotNull(value);
         assertArrayEquals("Hello world!".getBytes(), value.value());
     }
+
+    @Test
+    public void testIteratorSnapshot() throws Exception {
+        SnapshotStore store = new SnapshotStore(RaftStorage.newBuilder()
+                .withPrefix("test")
+                .withStorageLevel(StorageLevel.MEMORY)
+                .build());
+        Snapshot snapshot = store.newSnapshot(ServiceId.from(1), "test", 3, new WallClockTimestamp());
+
+        RaftSessionContext session = session();
+        long now = System.currentTimeMillis();
+        AtomixConsistentMapService service = new AtomixConsistentMapService();
+        service.put(new DefaultCommit<>(2, PUT, new Put("foo", "Hello world!".getBytes()), session, now));
+        long iteratorId = service.iterate(new DefaultCommit<>(3, ITERATE, null, session, now));
+
+        try (SnapshotWriter writer = snapshot.openWriter()) {
+            service.snapshot(writer);
+        }
+        snapshot.complete();
+
+        // an iterator opened before the snapshot can be advanced after a restore
+        service = new AtomixConsistentMapService();
+        try (SnapshotReader reader = snapshot.openReader()) {
+            service.install(reader);
+        }
+        IteratorBatch batch = service.next(new DefaultCommit<>(
+                4, NEXT, new IteratorPosition(iteratorId, 0), session, now));
+        assertNotNull(batch);
+        assertEquals(1, batch.entries().size());
+        assertEquals("foo", batch.entries().get(0).getKey());
+    }
+
+    @Test
+    public void testIteratorExpiry() {
+        RaftSessionContext session = session();
+        long now = System.currentTimeMillis();
+        AtomixConsistentMapService service = new AtomixConsistentMapService();
+        service.put(new DefaultCommit<>(2, PUT, new Put("foo", "Hello world!".getBytes()), session, now));
+        long iteratorId = service.iterate(new DefaultCommit<>(3, ITERATE, null, session, now));
+
+        // idle iterators are released once another iterator command comes along
+        long later = now + TimeUnit.MINUTES.toMillis(10);
+        assertNull(service.next(new DefaultCommit<>(
+                4, NEXT, new IteratorPosition(iteratorId, 0), session, later)));
+    }
+
+    private static RaftSessionContext session() {
+        RaftSessionContext session = createMock(RaftSessionContext.class);
+        expect(session.sessionId()).andReturn(SessionId.from(1)).anyTimes();
+        replay(session);
+        return session;
+    }
 }
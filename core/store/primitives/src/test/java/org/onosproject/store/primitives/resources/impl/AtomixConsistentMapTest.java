@@ -18,12 +18,19 @@ package org.onosproject.store.primitives.resources.impl;
 import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import io.atomix.protocols.raft.proxy.RaftProxy;
 import io.atomix.protocols.raft.service.RaftService;
@@ -31,12 +38,14 @@ import org.junit.Test;
 import org.onlab.util.Tools;
 import org.onosproject.store.primitives.MapUpdate;
 import org.onosproject.store.primitives.TransactionId;
+import org.onosproject.store.service.AsyncIterator;
 import org.onosproject.store.service.MapEvent;
 import org.onosproject.store.service.MapEventListener;
 import org.onosproject.store.service.TransactionLog;
 import org.onosproject.store.service.Version;
 import org.onosproject.store.service.Versioned;
 
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
@@ -116,6 +125,182 @@ public class AtomixConsistentMapTest extends AtomixTestBase<AtomixConsistentMap>
         }).join();
     }
 
+    /**
+     * Tests multi-key batch operations.
+     */
+    @Test
+    public void testBatchOperations() throws Throwable {
+        final byte[] value1 = Tools.getBytesUtf8("value1");
+        final byte[] value2 = Tools.getBytesUtf8("value2");
+
+        AtomixConsistentMap map = newPrimitive("testBatchOperations");
+        TestMapEventListener listener = new TestMapEventListener();
+        map.addListener(listener).join();
+
+        map.putAll(ImmutableMap.of("foo", value1, "bar", value1)).join();
+        Set<String> inserted = Sets.newHashSet(listener.event().key(), listener.event().key());
+        assertEquals(Sets.newHashSet("foo", "bar"), inserted);
+
+        map.getAll(Arrays.asList("foo", "bar", "baz")).thenAccept(result -> {
+            assertEquals(Sets.newHashSet("foo", "bar"), result.keySet());
+            assertArrayEquals(value1, result.get("foo").value());
+        }).join();
+
+        // only changed entries generate events
+        map.putAll(ImmutableMap.of("foo", value1, "bar", value2)).join();
+        MapEvent<String, byte[]> event = listener.event();
+        assertEquals(MapEvent.Type.UPDATE, event.type());
+        assertEquals("bar", event.key());
+        assertFalse(listener.eventReceived());
+
+        // a key locked by a transaction fails the whole batch
+        TransactionId transactionId = TransactionId.from("tx1");
+        Version lock = map.begin(transactionId).join();
+        MapUpdate<String, byte[]> update = MapUpdate.<String, byte[]>newBuilder()
+                .withType(MapUpdate.Type.LOCK)
+                .withKey("foo")
+                .withVersion(lock.value())
+                .build();
+        assertTrue(map.prepare(new TransactionLog<>(transactionId, lock.value(), Arrays.asList(update))).join());
+        try {
+            map.removeAll(Arrays.asList("foo", "bar")).join();
+            fail();
+        } catch (CompletionException e) {
+            assertThat(Throwables.getRootCause(e), instanceOf(ConcurrentModificationException.class));
+        }
+        assertTrue(map.containsKey("bar").join());
+        map.rollback(transactionId).join();
+
+        map.removeAll(Arrays.asList("foo", "bar", "baz")).join();
+        assertEquals(MapEvent.Type.REMOVE, listener.event().type());
+        assertEquals(MapEvent.Type.REMOVE, listener.event().type());
+        assertTrue(map.isEmpty().join());
+        map.removeListener(listener).join();
+    }
+
+    /**
+     * Tests the partition migration operations.
+     */
+    @Test
+    public void testMoveOperations() throws Throwable {
+        final byte[] value1 = Tools.getBytesUtf8("value1");
+        final byte[] value2 = Tools.getBytesUtf8("value2");
+
+        AtomixConsistentMap map = newPrimitive("testMoveOperations");
+        TestMapEventListener listener = new TestMapEventListener();
+        map.addListener(listener).join();
+
+        // moved entries keep their version and publish no events
+        assertTrue(map.moveIn("foo", new Versioned<>(value1, 1000)).join());
+        assertEquals(1000, map.get("foo").join().version());
+        assertFalse(map.moveIn("foo", new Versioned<>(value2, 2000)).join());
+        assertArrayEquals(value1, map.get("foo").join().value());
+        assertTrue(map.replace("foo", 1000, value2).join());
+        assertEquals(MapEvent.Type.UPDATE, listener.event().type());
+
+        // entries are only moved out with the version they were moved with
+        long version = map.get("foo").join().version();
+        assertFalse(map.moveOut("foo", 1000).join());
+        assertTrue(map.moveOut("foo", version).join());
+        assertFalse(map.containsKey("foo").join());
+        assertFalse(map.moveOut("foo", version).join());
+        assertFalse(listener.eventReceived());
+        map.removeListener(listener).join();
+    }
+
+    /**
+     * Tests that versions keep increasing after an entry is moved in with a
+     * version higher than those of the target partition.
+     */
+    @Test
+    public void testMoveThenUpdate() throws Throwable {
+        final byte[] value1 = Tools.getBytesUtf8("value1");
+        final byte[] value2 = Tools.getBytesUtf8("value2");
+        final long movedVersion = 1_000_000_000L;
+
+        AtomixConsistentMap map = newPrimitive("testMoveThenUpdate");
+        map.put("bar", value1).join();
+        assertTrue(map.get("bar").join().version() < movedVersion);
+
+        assertTrue(map.moveIn("foo", new Versioned<>(value1, movedVersion)).join());
+        Versioned<byte[]> updated = map.putAndGet("foo", value2).join();
+        assertTrue(updated.version() > movedVersion);
+        assertEquals(updated.version(), map.get("foo").join().version());
+
+        // other keys of the partition are versioned after the moved entry too
+        long barVersion = map.putAndGet("bar", value2).join().version();
+        assertTrue(barVersion > updated.version());
+        assertTrue(map.remove("bar", barVersion).join());
+        assertFalse(map.containsKey("bar").join());
+    }
+
+    /**
+     * Tests iterating over a map larger than a single iterator batch.
+     */
+    @Test
+    public void testIterator() throws Throwable {
+        final int entries = 2500;
+        final byte[] value = Tools.getBytesUtf8("value");
+
+        AtomixConsistentMap map = newPrimitive("testIterator");
+        Map<String, byte[]> batch = Maps.newHashMap();
+        IntStream.range(0, entries).forEach(i -> batch.put("key" + i, value));
+        map.putAll(batch).join();
+
+        AsyncIterator<Map.Entry<String, Versioned<byte[]>>> iterator = map.iterator().join();
+        // entries removed after the iterator is opened are skipped
+        map.remove("key0").join();
+        Set<String> keys = Sets.newHashSet();
+        while (iterator.hasNext().join()) {
+            Map.Entry<String, Versioned<byte[]>> entry = iterator.next().join();
+            assertArrayEquals(value, entry.getValue().value());
+            assertTrue(keys.add(entry.getKey()));
+        }
+        assertEquals(entries - 1, keys.size());
+        assertFalse(keys.contains("key0"));
+
+        // an iterator closed early can no longer be advanced
+        iterator = map.iterator().join();
+        iterator.next().join();
+        iterator.close().join();
+        assertFalse(iterator.hasNext().join());
+    }
+
+    /**
+     * Tests that each batch of puts is applied by a single commit, where
+     * per-key puts take a commit each.
+     */
+    @Test
+    public void testBatchCommittedOnce() throws Throwable {
+        final int entries = 10000;
+        final int batchSize = 1000;
+        final int singles = 10;
+        final byte[] value = Tools.getBytesUtf8("value");
+
+        AtomixConsistentMap map = newPrimitive("testBatchCommittedOnce");
+
+        Map<String, byte[]> batch = Maps.newHashMap();
+        List<CompletableFuture<Void>> futures = Lists.newArrayList();
+        for (int i = 0; i < entries; i++) {
+            batch.put("key" + i, value);
+            if (batch.size() == batchSize) {
+                futures.add(map.putAll(batch));
+                batch = Maps.newHashMap();
+            }
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).join();
+        CompletableFuture.allOf(IntStream.range(0, singles)
+                .mapToObj(i -> map.put("single" + i, value))
+                .toArray(CompletableFuture[]::new)).join();
+        assertEquals(entries + singles, (int) map.size().join());
+
+        // entries take the version of the commit that applied them
+        Set<Long> versions = map.entrySet().join().stream()
+                .map(entry -> entry.getValue().version())
+                .collect(Collectors.toSet());
+        assertEquals(entries / batchSize + singles, versions.size());
+    }
+
     /**
      * Tests map event notifications.
      */
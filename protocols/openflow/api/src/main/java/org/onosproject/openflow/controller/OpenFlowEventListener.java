@@ -30,4 +30,16 @@ public interface OpenFlowEventListener {
      * @param msg the message
      */
     void handleMessage(Dpid dpid, OFMessage msg);
+
+    /**
+     * Indicates whether the listener takes each part of a multipart stats
+     * reply as it arrives, honouring the REPLY_MORE flag, rather than the
+     * reassembled reply. Partial replies are only handed to such listeners
+     * when partial stats batches are enabled on the controller.
+     *
+     * @return true if the listener handles partial stats replies
+     */
+    default boolean handlesPartialStats() {
+        return false;
+    }
 }
@@ -16,10 +16,14 @@
 
 package org.onosproject.openflow.controller.impl;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.Timer;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.epoll.EpollEventLoopGroup;
@@ -30,6 +34,9 @@ import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
 
+import org.onlab.metrics.MetricsComponent;
+import org.onlab.metrics.MetricsFeature;
+import org.onlab.metrics.MetricsService;
 import org.onlab.util.ItemNotFoundException;
 import org.onosproject.net.DeviceId;
 import org.onosproject.net.driver.DefaultDriverData;
@@ -42,6 +49,7 @@ import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
 import org.projectfloodlight.openflow.protocol.OFDescStatsReply;
 import org.projectfloodlight.openflow.protocol.OFFactories;
 import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,6 +65,10 @@ import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -94,6 +106,18 @@ public class Controller {
     // Configuration options
     protected List<Integer> openFlowPorts = ImmutableList.of(6633, 6653);
     protected int workerThreads = 0;
+    // 0 dispatches the messages of each channel on a thread of its own
+    protected int sharedDispatcherThreads = 0;
+    // 0 writes flow mods through as they are sent
+    protected int flowModFlushDelayMicros = 0;
+    protected int flowModBatchSize = 1000;
+    // 0 transmits flow mods as fast as they are sent
+    protected int flowModRate = 0;
+    protected int flowModBurst = 500;
+    protected boolean flowModRateAutoTune = true;
+    // 0 admits all switch handshakes at once
+    protected int maxConcurrentHandshakes = 0;
+    protected boolean pipelinedHandshake = false;
 
     // Start time of the controller
     protected long systemStartTime;
@@ -115,6 +139,17 @@ public class Controller {
     private DriverService driverService;
     private boolean enableOfTls = TLS_DISABLED;
 
+    private ExecutorService dispatcherPool;
+    private HandshakeAdmission handshakeAdmission = new HandshakeAdmission(0);
+
+    private static final String DISPATCH_METRICS = "OpenFlowDispatch";
+    private static final String QUEUE_DEPTH_METRIC = "queueDepth";
+    private static final String DISPATCH_LATENCY_METRIC = "dispatchLatency";
+    private static final String MESSAGES_PER_FLUSH_METRIC = "messagesPerFlush";
+
+    private MetricsService metricsService;
+    private MetricsComponent metricsComponent;
+
     // ***************
     // Getters/Setters
     // ***************
@@ -153,6 +188,8 @@ public class Controller {
             bootstrap.childOption(ChannelOption.SO_KEEPALIVE, true);
             bootstrap.childOption(ChannelOption.TCP_NODELAY, true);
             bootstrap.childOption(ChannelOption.SO_SNDBUF, Controller.SEND_BUFFER_SIZE);
+            // messages are encoded into, and decoded from, pooled direct buffers
+            bootstrap.childOption(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT);
 //            bootstrap.childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
 //                                  new WriteBufferWaterMark(8 * 1024, 32 * 1024));
 
@@ -222,6 +259,166 @@ public class Controller {
             this.workerThreads = Integer.parseInt(threads);
         }
         log.debug("Number of worker threads set to {}", this.workerThreads);
+
+        threads = get(properties, "sharedDispatcherThreads");
+        if (!Strings.isNullOrEmpty(threads)) {
+            this.sharedDispatcherThreads = Integer.parseInt(threads);
+        }
+        log.debug("Number of shared dispatcher threads set to {}", this.sharedDispatcherThreads);
+
+        String delay = get(properties, "flowModFlushDelayMicros");
+        if (!Strings.isNullOrEmpty(delay)) {
+            this.flowModFlushDelayMicros = Integer.parseInt(delay);
+        }
+        log.debug("Flow mod flush delay set to {} us", this.flowModFlushDelayMicros);
+
+        String batchSize = get(properties, "flowModBatchSize");
+        if (!Strings.isNullOrEmpty(batchSize)) {
+            this.flowModBatchSize = Integer.parseInt(batchSize);
+        }
+        log.debug("Flow mod batch size set to {}", this.flowModBatchSize);
+
+        String rate = get(properties, "flowModRate");
+        if (!Strings.isNullOrEmpty(rate)) {
+            this.flowModRate = Integer.parseInt(rate);
+        }
+        log.debug("Flow mod rate set to {} per second", this.flowModRate);
+
+        String burst = get(properties, "flowModBurst");
+        if (!Strings.isNullOrEmpty(burst)) {
+            this.flowModBurst = Integer.parseInt(burst);
+        }
+        log.debug("Flow mod burst set to {}", this.flowModBurst);
+
+        String autoTune = get(properties, "flowModRateAutoTune");
+        if (!Strings.isNullOrEmpty(autoTune)) {
+            this.flowModRateAutoTune = Boolean.parseBoolean(autoTune);
+        }
+        log.debug("Flow mod rate auto-tuning is {}", this.flowModRateAutoTune ? "enabled" : "disabled");
+
+        String handshakes = get(properties, "maxConcurrentHandshakes");
+        if (!Strings.isNullOrEmpty(handshakes)) {
+            this.maxConcurrentHandshakes = Integer.parseInt(handshakes);
+        }
+        log.debug("Maximum concurrent handshakes set to {}", this.maxConcurrentHandshakes);
+
+        String pipelined = get(properties, "pipelinedHandshake");
+        if (!Strings.isNullOrEmpty(pipelined)) {
+            this.pipelinedHandshake = Boolean.parseBoolean(pipelined);
+        }
+        log.debug("Pipelined handshake is {}", this.pipelinedHandshake ? "enabled" : "disabled");
+    }
+
+    /**
+     * Sets the metrics service used to report the dispatch queue depth and
+     * latency of each channel.
+     *
+     * @param metricsService metrics service; null disables dispatch metrics
+     */
+    public void setMetricsService(MetricsService metricsService) {
+        this.metricsService = metricsService;
+        this.metricsComponent = metricsService == null ? null :
+                metricsService.registerComponent(DISPATCH_METRICS);
+    }
+
+    /**
+     * Returns the pool shared by the channels to dispatch their messages.
+     *
+     * @return shared dispatcher pool or null if each channel dispatches
+     * on a thread of its own
+     */
+    ExecutorService dispatcherPool() {
+        return dispatcherPool;
+    }
+
+    /**
+     * Returns the admission controller of switch handshakes.
+     *
+     * @return handshake admission controller
+     */
+    HandshakeAdmission handshakeAdmission() {
+        return handshakeAdmission;
+    }
+
+    /**
+     * Returns whether the handshake requests that do not depend on each
+     * other are sent together rather than one reply at a time.
+     *
+     * @return true if the handshake is pipelined
+     */
+    boolean isHandshakePipelined() {
+        return pipelinedHandshake;
+    }
+
+    /**
+     * Registers the dispatch metrics of a channel.
+     *
+     * @param channelId  channel identifier
+     * @param queueDepth gauge of the dispatch queue depth of the channel
+     * @return timer of the dispatch latency of the channel; null if metrics
+     * are disabled
+     */
+    Timer registerDispatchMetrics(String channelId, Gauge<Integer> queueDepth) {
+        MetricsService service = metricsService;
+        if (service == null) {
+            return null;
+        }
+        MetricsFeature feature = metricsComponent.registerFeature(channelId);
+        service.registerMetric(metricsComponent, feature, QUEUE_DEPTH_METRIC, queueDepth);
+        return service.createTimer(metricsComponent, feature, DISPATCH_LATENCY_METRIC);
+    }
+
+    /**
+     * Creates the aggregator of the flow mods written to a channel.
+     *
+     * @param channelId channel identifier
+     * @param writer    writes and flushes a batch of messages to the channel
+     * @param scheduler scheduler for delayed flushes
+     * @return write aggregator or null if flow mods are written through
+     */
+    OFWriteAggregator createWriteAggregator(String channelId, Consumer<List<OFMessage>> writer,
+                                            ScheduledExecutorService scheduler) {
+        if (flowModFlushDelayMicros <= 0) {
+            return null;
+        }
+        MetricsService service = metricsService;
+        Histogram messagesPerFlush = service == null ? null :
+                service.createHistogram(metricsComponent, metricsComponent.registerFeature(channelId),
+                                        MESSAGES_PER_FLUSH_METRIC);
+        return new OFWriteAggregator(writer, scheduler, flowModBatchSize,
+                                     flowModFlushDelayMicros, messagesPerFlush);
+    }
+
+    /**
+     * Creates the scheduler pacing the flow mods transmitted to a switch.
+     *
+     * @param writer    transmits a batch of messages to the switch
+     * @param scheduler scheduler for delayed transmissions
+     * @return transmit scheduler or null if flow mods are not paced
+     */
+    OFTransmitScheduler createTransmitScheduler(Consumer<List<OFMessage>> writer,
+                                                ScheduledExecutorService scheduler) {
+        if (flowModRate <= 0) {
+            return null;
+        }
+        return new OFTransmitScheduler(writer, scheduler, flowModRate, flowModBurst,
+                                       flowModRateAutoTune, System::nanoTime);
+    }
+
+    /**
+     * Removes the dispatch and write metrics of a channel.
+     *
+     * @param channelId channel identifier
+     */
+    void unregisterChannelMetrics(String channelId) {
+        MetricsService service = metricsService;
+        if (service == null) {
+            return;
+        }
+        MetricsFeature feature = metricsComponent.registerFeature(channelId);
+        service.removeMetric(metricsComponent, feature, QUEUE_DEPTH_METRIC);
+        service.removeMetric(metricsComponent, feature, DISPATCH_LATENCY_METRIC);
+        service.removeMetric(metricsComponent, feature, MESSAGES_PER_FLUSH_METRIC);
     }
 
     /**
@@ -357,6 +554,11 @@ public class Controller {
         log.info("Starting OpenFlow IO");
         this.agent = ag;
         this.driverService = driverService;
+        handshakeAdmission = new HandshakeAdmission(maxConcurrentHandshakes);
+        if (sharedDispatcherThreads > 0) {
+            dispatcherPool = Executors.newFixedThreadPool(
+                    sharedDispatcherThreads, groupedThreads("onos/of", "dispatcher-%d", log));
+        }
         this.init();
         this.run();
     }
@@ -378,6 +580,11 @@ public class Controller {
             log.warn("Interrupted while stopping", e);
             Thread.currentThread().interrupt();
         }
+
+        if (dispatcherPool != null) {
+            dispatcherPool.shutdownNow();
+            dispatcherPool = null;
+        }
     }
 
 }
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Admits the handshakes of new switch connections, so that no more than a
+ * given number of them are in progress at once.
+ * <p>
+ * When many switches connect at the same time, as after a controller
+ * restart, handshakes beyond the limit wait for earlier ones to complete,
+ * in the order the connections were made, instead of all competing for the
+ * controller and device subsystem at once.
+ * </p>
+ */
+final class HandshakeAdmission {
+
+    private final int maxConcurrent;
+    private final Deque<Ticket> waiting = new ArrayDeque<>();
+    private int admitted;
+
+    /**
+     * Creates a handshake admission controller.
+     *
+     * @param maxConcurrent number of handshakes allowed in progress at once;
+     *                      0 or less admits all handshakes right away
+     */
+    HandshakeAdmission(int maxConcurrent) {
+        this.maxConcurrent = maxConcurrent;
+    }
+
+    /**
+     * Requests the admission of a handshake. The handshake is started right
+     * away if the limit allows, or else once an earlier one is released.
+     *
+     * @param start starts the handshake once admitted
+     * @return ticket to release once the handshake completes or the
+     * connection is lost
+     */
+    Ticket admit(Runnable start) {
+        Ticket ticket = new Ticket(start);
+        synchronized (this) {
+            if (maxConcurrent > 0 && admitted >= maxConcurrent) {
+                waiting.add(ticket);
+                return ticket;
+            }
+            admitted++;
+            ticket.started = true;
+        }
+        start.run();
+        return ticket;
+    }
+
+    private void release(Ticket ticket) {
+        Ticket next;
+        synchronized (this) {
+            if (ticket.released) {
+                return;
+            }
+            ticket.released = true;
+            if (!ticket.started) {
+                waiting.remove(ticket);
+                return;
+            }
+            next = waiting.poll();
+            if (next == null) {
+                admitted--;
+                return;
+            }
+            next.started = true;
+        }
+        next.start.run();
+    }
+
+    /**
+     * Returns the number of handshakes in progress.
+     *
+     * @return admitted handshake count
+     */
+    synchronized int admitted() {
+        return admitted;
+    }
+
+    /**
+     * Returns the number of handshakes waiting for admission.
+     *
+     * @return waiting handshake count
+     */
+    synchronized int waiting() {
+        return waiting.size();
+    }
+
+    /**
+     * Admission of a handshake, held until released.
+     */
+    final class Ticket {
+        private final Runnable start;
+        private boolean started;
+        private boolean released;
+
+        private Ticket(Runnable start) {
+            this.start = start;
+        }
+
+        /**
+         * Releases the admission, admitting the next waiting handshake;
+         * withdraws the request if the handshake was not yet admitted.
+         * Releasing a ticket more than once has no effect.
+         */
+        void release() {
+            HandshakeAdmission.this.release(this);
+        }
+    }
+}
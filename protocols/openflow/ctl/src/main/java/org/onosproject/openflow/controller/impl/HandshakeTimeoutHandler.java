@@ -27,6 +27,10 @@ import io.netty.channel.ChannelPromise;
 
 /**
  * Trigger a timeout if a switch fails to complete handshake soon enough.
+ * <p>
+ * The timeout runs from the admission of the handshake, so that the time a
+ * switch spends waiting for its turn does not count against it.
+ * </p>
  */
 public class HandshakeTimeoutHandler
     extends ChannelDuplexHandler {
@@ -35,23 +39,14 @@ public class HandshakeTimeoutHandler
 
     final OFChannelHandler channelHandler;
     final long timeoutMillis;
-    volatile long deadline;
+    // not armed until the handshake is admitted
+    volatile long deadline = Long.MAX_VALUE;
 
     public HandshakeTimeoutHandler(OFChannelHandler channelHandler,
                                    long timeoutSeconds) {
         super();
         this.channelHandler = channelHandler;
         this.timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
-        this.deadline = System.currentTimeMillis() + timeoutMillis;
-    }
-
-    @Override
-    public void channelActive(ChannelHandlerContext ctx) throws Exception {
-        if (timeoutMillis > 0) {
-            // set Handshake deadline
-            deadline = System.currentTimeMillis() + timeoutMillis;
-        }
-        super.channelActive(ctx);
     }
 
     @Override
@@ -78,6 +73,16 @@ public class HandshakeTimeoutHandler
         super.userEventTriggered(ctx, evt);
     }
 
+    /**
+     * Starts the handshake timeout from now, once the handshake is admitted
+     * after waiting for its turn.
+     */
+    void resetDeadline() {
+        if (timeoutMillis > 0) {
+            deadline = System.currentTimeMillis() + timeoutMillis;
+        }
+    }
+
     void checkTimeout(ChannelHandlerContext ctx) {
         if (channelHandler.isHandshakeComplete()) {
             // handshake complete, Handshake monitoring timeout no-longer needed
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import org.onosproject.openflow.controller.Dpid;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Reassembly buffers for the parts of multipart stats replies, kept per
+ * switch and per transaction id.
+ * <p>
+ * The parts of a reply from a switch are dispatched in order by a single
+ * dispatcher at a time, so a buffer is never touched concurrently and
+ * replies from different switches, or to different requests of the same
+ * switch, proceed without contending on a shared lock.
+ * </p>
+ *
+ * @param <E> type of stats entry
+ */
+final class MultipartBuffer<E> {
+
+    private final ConcurrentMap<Dpid, Map<Long, List<E>>> parts = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the entries of a reply part and returns all entries of the reply
+     * once its last part is added.
+     *
+     * @param dpid    switch the reply is from
+     * @param xid     transaction id of the reply
+     * @param entries entries of the part
+     * @param more    whether more parts of the reply are to follow
+     * @return all entries of the reply, which are the given entries
+     * themselves if the reply has a single part; null if more parts are to
+     * follow
+     */
+    List<E> add(Dpid dpid, long xid, List<E> entries, boolean more) {
+        if (!more) {
+            Map<Long, List<E>> pending = parts.get(dpid);
+            List<E> earlier = pending == null ? null : pending.remove(xid);
+            if (earlier == null) {
+                return entries;
+            }
+            earlier.addAll(entries);
+            return earlier;
+        }
+        parts.computeIfAbsent(dpid, d -> new ConcurrentHashMap<>())
+                .computeIfAbsent(xid, x -> new ArrayList<>())
+                .addAll(entries);
+        return null;
+    }
+
+    /**
+     * Discards the parts buffered for a switch.
+     *
+     * @param dpid switch identifier
+     */
+    void clear(Dpid dpid) {
+        parts.remove(dpid);
+    }
+
+    /**
+     * Discards all buffered parts.
+     */
+    void clear() {
+        parts.clear();
+    }
+}
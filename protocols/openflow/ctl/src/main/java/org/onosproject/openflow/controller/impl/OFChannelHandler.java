@@ -36,6 +36,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.onlab.packet.IpAddress;
 import org.onosproject.openflow.controller.Dpid;
 import org.onosproject.openflow.controller.OpenFlowSession;
@@ -83,11 +85,15 @@ import org.projectfloodlight.openflow.types.U32;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.codahale.metrics.Timer;
+
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.ReadTimeoutException;
+import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.util.ReferenceCountUtil;
 
 /**
@@ -185,6 +191,68 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      */
     private final Deque<OFMessage> dispatchBacklog = new ArrayDeque<>();
 
+    /**
+     * Maximum number of messages dispatched by one drain of the dispatch
+     * queue on the shared dispatcher pool, so that a busy switch yields the
+     * pool threads to the others.
+     */
+    static final int DRAIN_BUDGET = 256;
+
+    /**
+     * Whether the dispatcher is the pool shared by all channels rather than
+     * a thread of this channel's own.
+     */
+    private boolean sharedDispatcher;
+
+    /**
+     * Whether a drain of the dispatch queue is scheduled or running on the
+     * shared dispatcher pool. At most one is, which preserves the order of
+     * the messages of the switch.
+     */
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    /**
+     * Time spent by drains waiting for a shared dispatcher thread; null if
+     * metrics are disabled.
+     */
+    private Timer dispatchLatency;
+
+    /**
+     * Aggregator of the flow mods sent to the switch; null if flow mods are
+     * written through.
+     */
+    private volatile OFWriteAggregator writeAggregator;
+
+    /**
+     * Scheduler pacing the flow mods transmitted to the switch; null if flow
+     * mods are not paced.
+     */
+    private volatile OFTransmitScheduler transmitScheduler;
+
+    /**
+     * Admission of the handshake of the switch, held until the switch is
+     * active or disconnects; null once released.
+     */
+    private volatile HandshakeAdmission.Ticket handshakeTicket;
+
+    /**
+     * Whether the handshake of the switch has been admitted; until then the
+     * switch is neither read from nor timed out.
+     */
+    private volatile boolean handshakeAdmitted;
+
+    /**
+     * Read timeout suspended while the handshake waits for admission; zero
+     * if there is none.
+     */
+    private long suspendedReadTimeoutMillis;
+
+    /**
+     * Whether the handshake requests were sent together upon the features
+     * reply, so that they are not sent again upon each later reply.
+     */
+    private boolean handshakePipelined;
+
     /**
      * Create a new unconnected OFChannelHandler.
      * @param controller parent controller
@@ -329,6 +397,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                 if (h.ofVersion == OFVersion.OF_10) {
                     h.sendHandshakeSetConfig();
                     h.setState(WAIT_CONFIG_REPLY);
+                } else if (h.controller.isHandshakePipelined()) {
+                    // the replies are still processed one state at a time
+                    h.sendPipelinedHandshake();
+                    h.setState(WAIT_PORT_DESC_REPLY);
                 } else {
                     //version is 1.3, must get switchport information
                     h.sendHandshakeOFPortDescRequest();
@@ -673,8 +745,7 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                     log.info("{} did not respond to MeterFeaturesRequest on time, " +
                             "moving on without it.",
                             h.getSwitchInfoString());
-                   h.sendHandshakeDescriptionStatsRequest();
-                   h.setState(WAIT_DESCRIPTION_STAT_REPLY);
+                    skipMeterFeatures(h);
                 }
             }
 
@@ -705,6 +776,20 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                         h.sendHandshakeDescriptionStatsRequest();
                         h.setState(WAIT_DESCRIPTION_STAT_REPLY);
                         break;
+                    case DESC:
+                        if (h.handshakePipelined) {
+                            // the switch answered the pipelined description
+                            // request without answering the meter features one
+                            log.info("{} did not respond to MeterFeaturesRequest, " +
+                                     "moving on without it.",
+                                     h.getSwitchInfoString());
+                            h.setState(WAIT_DESCRIPTION_STAT_REPLY);
+                            h.state.processOFStatisticsReply(h, m);
+                            break;
+                        }
+                        log.error("Unexpected OF Multi Part stats reply");
+                        illegalMessageReceived(h, m);
+                        break;
                     default:
                         log.error("Unexpected OF Multi Part stats reply");
                         illegalMessageReceived(h, m);
@@ -729,6 +814,20 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                 log.info("{} did not respond to MeterFeaturesRequest, " +
                          "moving on without it.",
                          h.getSwitchInfoString());
+                skipMeterFeatures(h);
+            }
+
+            /**
+             * Moves on without the meter features once the switch has not
+             * answered in time. The description request is sent again even
+             * if it was pipelined, as a switch that did not answer the meter
+             * features request may not have answered the requests after it.
+             *
+             * @param h current channel handler
+             * @throws IOException
+             */
+            private void skipMeterFeatures(OFChannelHandler h) throws IOException {
+                h.handshakePipelined = false;
                 h.sendHandshakeDescriptionStatsRequest();
                 h.setState(WAIT_DESCRIPTION_STAT_REPLY);
             }
@@ -826,6 +925,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
 
             @Override
             void processOFBarrierReply(OFChannelHandler h, OFBarrierReply m) {
+                OFTransmitScheduler scheduler = h.transmitScheduler;
+                if (scheduler != null) {
+                    scheduler.barrierReplied(m.getXid());
+                }
                 h.dispatchMessage(m);
             }
 
@@ -1253,7 +1356,16 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             channelId = channel.toString();
         }
 
-        dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
+        dispatcher = controller.dispatcherPool();
+        sharedDispatcher = dispatcher != null;
+        if (sharedDispatcher) {
+            dispatchLatency = controller.registerDispatchMetrics(channelId, dispatchQueue::size);
+        } else {
+            dispatcher = Executors.newSingleThreadExecutor(groupedThreads("onos/of/dispatcher", channelId, log));
+        }
+        writeAggregator = controller.createWriteAggregator(
+                channelId, batch -> channel.writeAndFlush(batch, channel.voidPromise()), channel.eventLoop());
+        transmitScheduler = controller.createTransmitScheduler(this::write, channel.eventLoop());
 
         /*
             hack to wait for the switch to tell us what it's
@@ -1262,6 +1374,16 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
          */
         //sendHandshakeHelloMessage();
         setState(ChannelState.WAIT_HELLO);
+
+        // the hello of the switch is left unread until its handshake is admitted,
+        // so the read timeout is suspended until then
+        ChannelHandler readTimeout = channel.pipeline().get("timeout");
+        if (readTimeout instanceof ReadTimeoutHandler) {
+            suspendedReadTimeoutMillis = ((ReadTimeoutHandler) readTimeout).getReaderIdleTimeInMillis();
+            channel.pipeline().remove(readTimeout);
+        }
+        channel.config().setAutoRead(false);
+        handshakeTicket = controller.handshakeAdmission().admit(this::handshakeAdmitted);
     }
 
     @Override
@@ -1271,10 +1393,17 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         log.info("Switch disconnected callback for sw:{}. Cleaning up ...",
                  getSwitchInfoString());
 
-        if (dispatcher != null) {
+        if (sharedDispatcher) {
+            dispatchQueue.clear();
+            dispatcher = null;
+        } else if (dispatcher != null) {
             dispatcher.shutdownNow();
             dispatcher = null;
         }
+        writeAggregator = null;
+        transmitScheduler = null;
+        controller.unregisterChannelMetrics(channelId);
+        releaseHandshakeAdmission();
 
          if (thisdpid != 0) {
              if (!duplicateDpidFound) {
@@ -1360,6 +1489,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     protected void channelIdle(ChannelHandlerContext ctx,
                                IdleStateEvent e)
             throws Exception {
+        if (!handshakeAdmitted) {
+            // nothing is read from a switch waiting for admission
+            return;
+        }
         OFMessage m = factory.buildEchoRequest().build();
         log.debug("Sending Echo Request on idle channel: {}",
                   ctx.channel());
@@ -1443,6 +1576,10 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             }
         }
 
+        if (sharedDispatcher) {
+            scheduleDrain();
+            return;
+        }
 
         if (dispatcherHandle.isDone()) {
             // dispatcher terminated for some reason, restart
@@ -1477,6 +1614,58 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         }
     }
 
+    /**
+     * Schedules a drain of the dispatch queue on the shared dispatcher pool,
+     * unless one is already scheduled or running. The messages are dropped
+     * if the pool is shut down, as it is when the controller stops.
+     */
+    private void scheduleDrain() {
+        ExecutorService pool = dispatcher;
+        if (pool == null || !draining.compareAndSet(false, true)) {
+            return;
+        }
+        long scheduled = System.nanoTime();
+        try {
+            pool.execute(() -> drain(scheduled));
+        } catch (RejectedExecutionException e) {
+            log.debug("Dispatcher pool shut down, dropping messages from {}",
+                      getSwitchInfoString());
+            dispatchQueue.clear();
+            draining.set(false);
+        }
+    }
+
+    /**
+     * Dispatches up to {@link #DRAIN_BUDGET} messages from the dispatch queue
+     * and schedules another drain if messages remain.
+     *
+     * @param scheduled time in nanos at which the drain was scheduled
+     */
+    private void drain(long scheduled) {
+        Timer latency = dispatchLatency;
+        if (latency != null) {
+            latency.update(System.nanoTime() - scheduled, TimeUnit.NANOSECONDS);
+        }
+        try {
+            for (int i = 0; i < DRAIN_BUDGET; i++) {
+                OFMessage msg = dispatchQueue.poll();
+                if (msg == null) {
+                    break;
+                }
+                sw.handleMessage(msg);
+            }
+        } finally {
+            if (!channel.config().isAutoRead()) {
+                channel.config().setAutoRead(true);
+            }
+            draining.set(false);
+        }
+        // messages queued after the last poll found the drain still running
+        if (!dispatchQueue.isEmpty() && channel.isActive()) {
+            scheduleDrain();
+        }
+    }
+
     /**
      * Return a string describing this switch based on the already available
      * information (DPID and/or remote socket).
@@ -1509,6 +1698,34 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
     private void setState(ChannelState state) {
         this.state = state;
         this.lastStateChange = System.currentTimeMillis();
+        if (state == ChannelState.ACTIVE) {
+            releaseHandshakeAdmission();
+        }
+    }
+
+    /**
+     * Starts reading from the switch once its handshake is admitted, giving
+     * it the full handshake and read timeouts from then on.
+     */
+    private void handshakeAdmitted() {
+        handshakeAdmitted = true;
+        ChannelHandler timeoutHandler = channel.pipeline().get("handshaketimeout");
+        if (timeoutHandler instanceof HandshakeTimeoutHandler) {
+            ((HandshakeTimeoutHandler) timeoutHandler).resetDeadline();
+            if (suspendedReadTimeoutMillis > 0 && channel.pipeline().get("timeout") == null) {
+                channel.pipeline().addBefore("handshaketimeout", "timeout",
+                        new ReadTimeoutHandler(suspendedReadTimeoutMillis, TimeUnit.MILLISECONDS));
+            }
+        }
+        channel.config().setAutoRead(true);
+    }
+
+    private void releaseHandshakeAdmission() {
+        HandshakeAdmission.Ticket ticket = handshakeTicket;
+        if (ticket != null) {
+            handshakeTicket = null;
+            ticket.release();
+        }
     }
 
     /**
@@ -1556,7 +1773,14 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      * @throws IOException
      */
     private void sendHandshakeSetConfig() throws IOException {
+        if (handshakePipelined) {
+            return;
+        }
         log.debug("Sending CONFIG_REQUEST to {}", channel.remoteAddress());
+        channel.writeAndFlush(setConfigRequests());
+    }
+
+    private List<OFMessage> setConfigRequests() {
         List<OFMessage> msglist = new ArrayList<>(3);
 
         // Ensure we receive the full packet via PacketIn
@@ -1585,7 +1809,7 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
                 .setXid(this.handshakeTransactionIds--)
                 .build();
         msglist.add(gcr);
-        channel.writeAndFlush(msglist);
+        return msglist;
     }
 
     /**
@@ -1593,13 +1817,19 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      * @throws IOException
      */
     private void sendHandshakeDescriptionStatsRequest() throws IOException {
+        if (handshakePipelined) {
+            return;
+        }
         // Get Description to set switch-specific flags
         log.debug("Sending DESC_STATS_REQUEST to {}", channel.remoteAddress());
-        OFDescStatsRequest dreq = factory
+        channel.writeAndFlush(Collections.singletonList(descriptionStatsRequest()));
+    }
+
+    private OFDescStatsRequest descriptionStatsRequest() {
+        return factory
                 .buildDescStatsRequest()
                 .setXid(handshakeTransactionIds--)
                 .build();
-        channel.writeAndFlush(Collections.singletonList(dreq));
     }
 
     /**
@@ -1608,24 +1838,50 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
      * @throws IOException
      */
     private void sendMeterFeaturesRequest() throws IOException {
+        if (handshakePipelined) {
+            return;
+        }
+        log.debug("Sending METER_FEATURES_REQUEST to {}", channel.remoteAddress());
+        channel.writeAndFlush(Collections.singletonList(meterFeaturesRequest()));
+    }
+
+    private OFMeterFeaturesStatsRequest meterFeaturesRequest() {
         // Get meter features including the MaxMeters value available for the device
         OFFactory factory = OFFactories.getFactory(ofVersion);
-        log.debug("Sending METER_FEATURES_REQUEST to {}", channel.remoteAddress());
-        OFMeterFeaturesStatsRequest mfreq = factory
+        return factory
                 .buildMeterFeaturesStatsRequest()
                 .setXid(handshakeTransactionIds--)
                 .build();
-        channel.writeAndFlush(Collections.singletonList(mfreq));
     }
 
     private void sendHandshakeOFPortDescRequest() throws IOException {
         log.debug("Sending OF_PORT_DESC_REQUEST to {}", channel.remoteAddress());
+        channel.writeAndFlush(Collections.singletonList(portDescRequest()));
+    }
+
+    private OFPortDescStatsRequest portDescRequest() {
         // Get port description for 1.3+ switch
-        OFPortDescStatsRequest preq = factory
+        return factory
                 .buildPortDescStatsRequest()
                 .setXid(handshakeTransactionIds--)
                 .build();
-        channel.writeAndFlush(Collections.singletonList(preq));
+    }
+
+    /**
+     * Sends the port description, config, meter features and description
+     * requests of an OpenFlow 1.3+ handshake at once, in the order their
+     * replies are expected, rather than each upon the reply to the previous
+     * one. The later handshake states then only wait for the replies.
+     */
+    private void sendPipelinedHandshake() {
+        log.debug("Sending pipelined handshake requests to {}", channel.remoteAddress());
+        List<OFMessage> msglist = new ArrayList<>(6);
+        msglist.add(portDescRequest());
+        msglist.addAll(setConfigRequests());
+        msglist.add(meterFeaturesRequest());
+        msglist.add(descriptionStatsRequest());
+        handshakePipelined = true;
+        channel.writeAndFlush(msglist);
     }
 
     ChannelState getStateForTesting() {
@@ -1654,7 +1910,12 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
             if (log.isTraceEnabled()) {
                 log.trace("Sending messages for switch {} via openflow channel: {}", getSwitchInfoString(), msgs);
             }
-            channel.writeAndFlush(msgs, channel.voidPromise());
+            OFTransmitScheduler scheduler = transmitScheduler;
+            if (scheduler != null) {
+                scheduler.send(msgs);
+            } else {
+                write(msgs);
+            }
             return true;
         } else {
             log.warn("Dropping messages for switch {} because channel is not connected: {}",
@@ -1663,6 +1924,15 @@ class OFChannelHandler extends ChannelInboundHandlerAdapter
         }
     }
 
+    private void write(Iterable<OFMessage> msgs) {
+        OFWriteAggregator aggregator = writeAggregator;
+        if (aggregator != null) {
+            aggregator.write(msgs);
+        } else {
+            channel.writeAndFlush(msgs, channel.voidPromise());
+        }
+    }
+
     @Override
     public CharSequence sessionInfo() {
         return channelId;
@@ -25,6 +25,8 @@ import io.netty.channel.ChannelPromise;
 import io.netty.handler.codec.EncoderException;
 import static org.slf4j.LoggerFactory.getLogger;
 
+import java.util.Collection;
+
 import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.slf4j.Logger;
 
@@ -39,6 +41,11 @@ public final class OFMessageEncoder extends ChannelOutboundHandlerAdapter {
 
     private static final OFMessageEncoder INSTANCE = new OFMessageEncoder();
 
+    // typical length of an encoded flow mod, used to size buffers up front
+    private static final int ESTIMATED_MESSAGE_LENGTH = 128;
+    private static final int MIN_BUFFER_CAPACITY = 256;
+    private static final int MAX_INITIAL_BUFFER_CAPACITY = 1 << 20;
+
     public static OFMessageEncoder getInstance() {
         return INSTANCE;
     }
@@ -52,6 +59,14 @@ public final class OFMessageEncoder extends ChannelOutboundHandlerAdapter {
         msgs.forEach(msg -> msg.writeTo(out));
     }
 
+    static int initialCapacity(Iterable<OFMessage> msgs) {
+        if (!(msgs instanceof Collection)) {
+            return MIN_BUFFER_CAPACITY;
+        }
+        long estimate = (long) ((Collection<?>) msgs).size() * ESTIMATED_MESSAGE_LENGTH;
+        return (int) Math.max(MIN_BUFFER_CAPACITY, Math.min(estimate, MAX_INITIAL_BUFFER_CAPACITY));
+    }
+
     // MessageToByteEncoder without dependency to TypeParameterMatcher
     @Override
     public void write(ChannelHandlerContext ctx,
@@ -63,7 +78,9 @@ public final class OFMessageEncoder extends ChannelOutboundHandlerAdapter {
             if (msg instanceof Iterable) {
                 @SuppressWarnings("unchecked")
                 Iterable<OFMessage> ofmsgs =  (Iterable<OFMessage>) msg;
-                buf = ctx.alloc().ioBuffer();
+                // encode straight into a buffer of the channel's allocator,
+                // sized for the batch so it is not grown and copied
+                buf = ctx.alloc().ioBuffer(initialCapacity(ofmsgs));
 
                 encode(ctx, ofmsgs, buf);
 
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import org.projectfloodlight.openflow.protocol.OFActionType;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFNiciraControllerRoleRequest;
+import org.projectfloodlight.openflow.protocol.OFPacketOut;
+import org.projectfloodlight.openflow.protocol.OFType;
+import org.projectfloodlight.openflow.protocol.action.OFAction;
+import org.projectfloodlight.openflow.protocol.action.OFActionOutput;
+import org.projectfloodlight.openflow.types.OFPort;
+import org.slf4j.Logger;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Paces the bulk messages sent to a switch, such as flow, group and meter
+ * mods, with a token bucket so that they do not arrive faster than the
+ * switch can absorb them.
+ * <p>
+ * Bulk messages are queued and transmitted in order as tokens become
+ * available, while control messages, such as echo, stats and feature
+ * requests, are transmitted right away ahead of any queued bulk messages.
+ * Barrier requests, bundle control messages, role requests and packet outs
+ * sent to the flow table consume no tokens but stay in order behind the bulk
+ * messages sent before them: barrier replies would otherwise acknowledge
+ * messages not yet transmitted, a role change would overtake the flow mods
+ * sent under the previous role, and a packet out to the flow table would be
+ * processed by rules not yet installed. Packet outs to a port, such as link
+ * discovery probes, are control messages, so that they are not delayed
+ * behind flow mods long enough for links to time out.
+ * </p>
+ * <p>
+ * The queue is bounded: once more messages are queued than the bound, the
+ * excess is transmitted without pacing, in order, rather than held back.
+ * </p>
+ * <p>
+ * If auto-tuning is enabled, the rate adapts to the round trip time of
+ * barriers: it backs off multiplicatively while barriers take much longer
+ * than the shortest round trip seen, a sign that the switch is falling
+ * behind, and otherwise creeps back up to the configured rate.
+ * </p>
+ */
+final class OFTransmitScheduler {
+
+    /**
+     * Default number of messages queued before the excess is transmitted
+     * without pacing.
+     */
+    static final int DEFAULT_MAX_QUEUED = 65536;
+
+    private static final long NANOS_PER_SEC = TimeUnit.SECONDS.toNanos(1);
+    private static final long MIN_DRAIN_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final int MAX_PENDING_BARRIERS = 1024;
+
+    private static final double RTT_TOLERANCE = 2.0;
+    private static final long MIN_CONGESTED_RTT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final double RATE_DECREASE = 0.5;
+    private static final double RATE_INCREASE = 0.05;
+    private static final double MIN_RATE_FRACTION = 0.01;
+
+    private final Logger log = getLogger(getClass());
+
+    private final Consumer<List<OFMessage>> writer;
+    private final ScheduledExecutorService scheduler;
+    private final LongSupplier clock;
+    private final double maxRate;
+    private final double minRate;
+    private final double burst;
+    private final boolean autoTune;
+    private final int maxQueued;
+
+    private final Deque<OFMessage> bulk = new ArrayDeque<>();
+    private final Map<Long, Long> pendingBarriers =
+            new LinkedHashMap<Long, Long>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                    return size() > MAX_PENDING_BARRIERS;
+                }
+            };
+
+    private double rate;
+    private double tokens;
+    private long refilled;
+    private boolean drainScheduled;
+    private boolean overflowed;
+    private long minRtt = Long.MAX_VALUE;
+
+    /**
+     * Creates a transmit scheduler.
+     *
+     * @param writer    transmits a batch of messages to the switch
+     * @param scheduler scheduler for delayed transmissions
+     * @param rate      bulk messages transmitted per second
+     * @param burst     bulk messages that may be transmitted at once
+     * @param autoTune  whether to adapt the rate to barrier round trip times
+     * @param clock     source of time in nanos
+     */
+    OFTransmitScheduler(Consumer<List<OFMessage>> writer, ScheduledExecutorService scheduler,
+                        int rate, int burst, boolean autoTune, LongSupplier clock) {
+        this(writer, scheduler, rate, burst, autoTune, DEFAULT_MAX_QUEUED, clock);
+    }
+
+    /**
+     * Creates a transmit scheduler with a bounded queue.
+     *
+     * @param writer    transmits a batch of messages to the switch
+     * @param scheduler scheduler for delayed transmissions
+     * @param rate      bulk messages transmitted per second
+     * @param burst     bulk messages that may be transmitted at once
+     * @param autoTune  whether to adapt the rate to barrier round trip times
+     * @param maxQueued messages queued before the excess is transmitted
+     *                  without pacing
+     * @param clock     source of time in nanos
+     */
+    OFTransmitScheduler(Consumer<List<OFMessage>> writer, ScheduledExecutorService scheduler,
+                        int rate, int burst, boolean autoTune, int maxQueued, LongSupplier clock) {
+        this.writer = writer;
+        this.scheduler = scheduler;
+        this.clock = clock;
+        this.maxRate = rate;
+        this.minRate = Math.max(1.0, rate * MIN_RATE_FRACTION);
+        this.burst = Math.max(1, burst);
+        this.autoTune = autoTune;
+        this.maxQueued = Math.max(1, maxQueued);
+        this.rate = rate;
+        this.tokens = this.burst;
+        this.refilled = clock.getAsLong();
+    }
+
+    /**
+     * Returns whether a message is queued with the bulk messages.
+     *
+     * @param msg message
+     * @return true for flow, group and meter mods, bundle messages, barrier
+     * and role requests and packet outs to the flow table
+     */
+    static boolean isBulk(OFMessage msg) {
+        switch (msg.getType()) {
+            case FLOW_MOD:
+            case GROUP_MOD:
+            case METER_MOD:
+            case BUNDLE_ADD_MESSAGE:
+            case BUNDLE_CONTROL:
+            case BARRIER_REQUEST:
+            case ROLE_REQUEST:
+                return true;
+            case PACKET_OUT:
+                return msg instanceof OFPacketOut && isToTable((OFPacketOut) msg);
+            default:
+                return msg instanceof OFNiciraControllerRoleRequest;
+        }
+    }
+
+    /**
+     * Returns whether a packet out is sent to the flow table.
+     *
+     * @param packetOut packet out
+     * @return true if any of its actions outputs to the flow table
+     */
+    private static boolean isToTable(OFPacketOut packetOut) {
+        for (OFAction action : packetOut.getActions()) {
+            if (action.getType() == OFActionType.OUTPUT
+                    && OFPort.TABLE.equals(((OFActionOutput) action).getPort())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns whether a bulk message consumes a token.
+     *
+     * @param msg bulk message
+     * @return true for flow, group and meter mods and bundle add messages
+     */
+    private static boolean isPaced(OFMessage msg) {
+        switch (msg.getType()) {
+            case FLOW_MOD:
+            case GROUP_MOD:
+            case METER_MOD:
+            case BUNDLE_ADD_MESSAGE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Sends messages, transmitting control messages right away and queuing
+     * bulk messages for transmission at the current rate.
+     *
+     * @param msgs messages to send
+     */
+    synchronized void send(Iterable<OFMessage> msgs) {
+        List<OFMessage> control = null;
+        for (OFMessage msg : msgs) {
+            if (isBulk(msg)) {
+                bulk.add(msg);
+            } else {
+                if (control == null) {
+                    control = new ArrayList<>();
+                }
+                control.add(msg);
+            }
+        }
+        if (control != null) {
+            writer.accept(control);
+        }
+        drain();
+    }
+
+    /**
+     * Transmits as many queued bulk messages as tokens allow and schedules
+     * the transmission of the rest unless a transmission is already
+     * scheduled.
+     */
+    synchronized void drain() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilled) * rate / NANOS_PER_SEC);
+        refilled = now;
+
+        List<OFMessage> batch = null;
+        while (!bulk.isEmpty()) {
+            OFMessage msg = bulk.peek();
+            if (msg.getType() == OFType.BARRIER_REQUEST) {
+                pendingBarriers.put(msg.getXid(), now);
+            } else if (isPaced(msg)) {
+                if (tokens >= 1) {
+                    tokens -= 1;
+                } else if (bulk.size() <= maxQueued) {
+                    break;
+                } else if (!overflowed) {
+                    overflowed = true;
+                    log.warn("More than {} messages queued; transmitting the excess without pacing", maxQueued);
+                }
+            }
+            if (batch == null) {
+                batch = new ArrayList<>();
+            }
+            batch.add(bulk.poll());
+        }
+        if (batch != null) {
+            writer.accept(batch);
+        }
+        if (bulk.size() < maxQueued) {
+            overflowed = false;
+        }
+        if (!bulk.isEmpty() && !drainScheduled) {
+            drainScheduled = true;
+            long delay = (long) ((1 - tokens) * NANOS_PER_SEC / rate);
+            scheduler.schedule(this::scheduledDrain, Math.max(delay, MIN_DRAIN_DELAY_NANOS), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // only the scheduled transmission clears the flag, so that transmissions
+    // triggered by sends do not schedule one more each
+    private synchronized void scheduledDrain() {
+        drainScheduled = false;
+        drain();
+    }
+
+    /**
+     * Notes the reply to a barrier request and adapts the rate to its round
+     * trip time if auto-tuning is enabled.
+     *
+     * @param xid transaction id of the barrier
+     */
+    synchronized void barrierReplied(long xid) {
+        Long sent = pendingBarriers.remove(xid);
+        if (sent == null || !autoTune) {
+            return;
+        }
+        long rtt = clock.getAsLong() - sent;
+        minRtt = Math.min(minRtt, rtt);
+        if (rtt > MIN_CONGESTED_RTT_NANOS && rtt > RTT_TOLERANCE * minRtt) {
+            rate = Math.max(minRate, rate * RATE_DECREASE);
+        } else {
+            rate = Math.min(maxRate, rate + maxRate * RATE_INCREASE);
+        }
+    }
+
+    /**
+     * Returns the current rate.
+     *
+     * @return bulk messages transmitted per second
+     */
+    synchronized double rate() {
+        return rate;
+    }
+
+    /**
+     * Returns the number of bulk messages waiting to be transmitted.
+     *
+     * @return queue length
+     */
+    synchronized int queued() {
+        return bulk.size();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.codahale.metrics.Histogram;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Accumulates the flow mods sent over an OpenFlow channel so that they are
+ * encoded and flushed to the switch in batches rather than one by one.
+ * <p>
+ * Pending flow mods, bare or added to a bundle, are flushed once the batch
+ * size is reached, after the flush delay elapses, or as soon as any other
+ * message, such as a barrier request or a bundle commit, is sent, so that
+ * messages are always written in the order they were sent and flow mods
+ * never lag behind a barrier.
+ * </p>
+ */
+final class OFWriteAggregator {
+
+    private final Consumer<List<OFMessage>> writer;
+    private final ScheduledExecutorService scheduler;
+    private final int batchSize;
+    private final long flushDelayMicros;
+    private final Histogram messagesPerFlush;
+
+    private List<OFMessage> pending = new ArrayList<>();
+    private boolean flushScheduled;
+    private long flushes;
+    private long messages;
+
+    /**
+     * Creates a write aggregator.
+     *
+     * @param writer           writes and flushes a batch of messages to the channel
+     * @param scheduler        scheduler for delayed flushes
+     * @param batchSize        number of pending flow mods that triggers a flush
+     * @param flushDelayMicros longest time flow mods are held back, in micros
+     * @param messagesPerFlush histogram of messages per flush; null if none
+     */
+    OFWriteAggregator(Consumer<List<OFMessage>> writer, ScheduledExecutorService scheduler,
+                      int batchSize, long flushDelayMicros, Histogram messagesPerFlush) {
+        this.writer = writer;
+        this.scheduler = scheduler;
+        this.batchSize = batchSize;
+        this.flushDelayMicros = flushDelayMicros;
+        this.messagesPerFlush = messagesPerFlush;
+    }
+
+    /**
+     * Sends messages, holding flow mods back for a later flush.
+     *
+     * @param msgs messages to send
+     */
+    synchronized void write(Iterable<OFMessage> msgs) {
+        boolean flushNow = false;
+        for (OFMessage msg : msgs) {
+            pending.add(msg);
+            flushNow |= msg.getType() != OFType.FLOW_MOD &&
+                    msg.getType() != OFType.BUNDLE_ADD_MESSAGE;
+        }
+        if (flushNow || pending.size() >= batchSize) {
+            flush();
+        } else if (!flushScheduled && !pending.isEmpty()) {
+            flushScheduled = true;
+            scheduler.schedule(this::flush, flushDelayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    /**
+     * Writes and flushes all pending messages.
+     */
+    synchronized void flush() {
+        flushScheduled = false;
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<OFMessage> batch = pending;
+        pending = new ArrayList<>();
+        flushes++;
+        messages += batch.size();
+        if (messagesPerFlush != null) {
+            messagesPerFlush.update(batch.size());
+        }
+        // written under the lock so that batches reach the channel in order
+        writer.accept(batch);
+    }
+
+    /**
+     * Returns the number of flushes.
+     *
+     * @return flush count
+     */
+    synchronized long flushCount() {
+        return flushes;
+    }
+
+    /**
+     * Returns the number of messages flushed.
+     *
+     * @return flushed message count
+     */
+    synchronized long messageCount() {
+        return messages;
+    }
+}
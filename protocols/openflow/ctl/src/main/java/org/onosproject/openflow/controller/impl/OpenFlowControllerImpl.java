@@ -26,6 +26,8 @@ import org.apache.felix.scr.annotations.Property;
 import org.apache.felix.scr.annotations.Reference;
 import org.apache.felix.scr.annotations.ReferenceCardinality;
 import org.apache.felix.scr.annotations.Service;
+import org.onlab.metrics.MetricsService;
+import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.CoreService;
 import org.onosproject.net.device.DeviceEvent;
@@ -74,8 +76,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -87,6 +89,8 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import static org.onlab.util.Tools.groupedThreads;
 import static org.onosproject.net.Device.Type.CONTROLLER;
@@ -100,6 +104,15 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     private static final String APP_ID = "org.onosproject.openflow-base";
     private static final String DEFAULT_OFPORT = "6633,6653";
     private static final int DEFAULT_WORKER_THREADS = 0;
+    private static final int DEFAULT_SHARED_DISPATCHER_THREADS = 0;
+    private static final boolean DEFAULT_PARTIAL_STATS_BATCHES = false;
+    private static final int DEFAULT_FLOW_MOD_FLUSH_DELAY_MICROS = 0;
+    private static final int DEFAULT_FLOW_MOD_BATCH_SIZE = 1000;
+    private static final int DEFAULT_FLOW_MOD_RATE = 0;
+    private static final int DEFAULT_FLOW_MOD_BURST = 500;
+    private static final boolean DEFAULT_FLOW_MOD_RATE_AUTO_TUNE = true;
+    private static final int DEFAULT_MAX_CONCURRENT_HANDSHAKES = 0;
+    private static final boolean DEFAULT_PIPELINED_HANDSHAKE = false;
     protected static final String SCHEME = "of";
 
     private static final Logger log =
@@ -117,6 +130,8 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Reference(cardinality = ReferenceCardinality.MANDATORY_UNARY)
     protected DeviceService deviceService;
 
+    @Reference(cardinality = ReferenceCardinality.OPTIONAL_UNARY)
+    protected MetricsService metricsService;
 
     @Property(name = "openflowPorts", value = DEFAULT_OFPORT,
             label = "Port numbers (comma separated) used by OpenFlow protocol; default is 6633,6653")
@@ -126,6 +141,48 @@ public class OpenFlowControllerImpl implements OpenFlowController {
             label = "Number of controller worker threads")
     private int workerThreads = DEFAULT_WORKER_THREADS;
 
+    @Property(name = "sharedDispatcherThreads", intValue = DEFAULT_SHARED_DISPATCHER_THREADS,
+            label = "Number of threads shared by all switches to dispatch their messages; " +
+                    "default is 0, that is one dispatcher thread per switch")
+    private int sharedDispatcherThreads = DEFAULT_SHARED_DISPATCHER_THREADS;
+
+    @Property(name = "partialStatsBatches", boolValue = DEFAULT_PARTIAL_STATS_BATCHES,
+            label = "Hand each part of multipart stats replies as it arrives to the listeners " +
+                    "handling partial stats; the other listeners still get the reassembled reply")
+    private boolean partialStatsBatches = DEFAULT_PARTIAL_STATS_BATCHES;
+
+    @Property(name = "flowModFlushDelayMicros", intValue = DEFAULT_FLOW_MOD_FLUSH_DELAY_MICROS,
+            label = "Longest time in microseconds flow mods are held back to be written to " +
+                    "the switch in batches; default is 0, that is flow mods are written through")
+    private int flowModFlushDelayMicros = DEFAULT_FLOW_MOD_FLUSH_DELAY_MICROS;
+
+    @Property(name = "flowModBatchSize", intValue = DEFAULT_FLOW_MOD_BATCH_SIZE,
+            label = "Number of held back flow mods that triggers a write to the switch")
+    private int flowModBatchSize = DEFAULT_FLOW_MOD_BATCH_SIZE;
+
+    @Property(name = "flowModRate", intValue = DEFAULT_FLOW_MOD_RATE,
+            label = "Flow, group and meter mods transmitted per second to each switch; " +
+                    "default is 0, that is unlimited")
+    private int flowModRate = DEFAULT_FLOW_MOD_RATE;
+
+    @Property(name = "flowModBurst", intValue = DEFAULT_FLOW_MOD_BURST,
+            label = "Flow, group and meter mods that may be transmitted at once to a switch")
+    private int flowModBurst = DEFAULT_FLOW_MOD_BURST;
+
+    @Property(name = "flowModRateAutoTune", boolValue = DEFAULT_FLOW_MOD_RATE_AUTO_TUNE,
+            label = "Lower the flow mod rate of switches whose barrier replies slow down")
+    private boolean flowModRateAutoTune = DEFAULT_FLOW_MOD_RATE_AUTO_TUNE;
+
+    @Property(name = "maxConcurrentHandshakes", intValue = DEFAULT_MAX_CONCURRENT_HANDSHAKES,
+            label = "Number of switch handshakes allowed in progress at once, later connections " +
+                    "waiting their turn; default is 0, that is unlimited")
+    private int maxConcurrentHandshakes = DEFAULT_MAX_CONCURRENT_HANDSHAKES;
+
+    @Property(name = "pipelinedHandshake", boolValue = DEFAULT_PIPELINED_HANDSHAKE,
+            label = "Send the port description, config, meter features and description requests " +
+                    "of the handshake together to OpenFlow 1.3+ switches")
+    private boolean pipelinedHandshake = DEFAULT_PIPELINED_HANDSHAKE;
+
     protected ExecutorService executorMsgs =
         Executors.newFixedThreadPool(32, groupedThreads("onos/of", "event-stats-%d", log));
 
@@ -161,28 +218,23 @@ public class OpenFlowControllerImpl implements OpenFlowController {
 
     protected Set<OpenFlowMessageListener> ofMessageListener = new CopyOnWriteArraySet<>();
 
-    protected Multimap<Dpid, OFFlowStatsEntry> fullFlowStats =
-            ArrayListMultimap.create();
+    protected final MultipartBuffer<OFFlowStatsEntry> flowStatsParts = new MultipartBuffer<>();
 
-    protected Multimap<Dpid, OFFlowLightweightStatsEntry> fullFlowLightweightStats =
-            ArrayListMultimap.create();
+    protected final MultipartBuffer<OFFlowLightweightStatsEntry> flowLightweightStatsParts =
+            new MultipartBuffer<>();
 
-    protected Multimap<Dpid, OFTableStatsEntry> fullTableStats =
-            ArrayListMultimap.create();
+    protected final MultipartBuffer<OFTableStatsEntry> tableStatsParts = new MultipartBuffer<>();
 
-    protected Multimap<Dpid, OFGroupStatsEntry> fullGroupStats =
-            ArrayListMultimap.create();
+    protected final MultipartBuffer<OFGroupStatsEntry> groupStatsParts = new MultipartBuffer<>();
 
-    protected Multimap<Dpid, OFGroupDescStatsEntry> fullGroupDescStats =
-            ArrayListMultimap.create();
+    protected final MultipartBuffer<OFGroupDescStatsEntry> groupDescStatsParts = new MultipartBuffer<>();
 
     // deprecated in 1.11.0, no longer referenced from anywhere
     @Deprecated
     protected Multimap<Dpid, OFPortStatsEntry> fullPortStats =
             ArrayListMultimap.create();
 
-    protected Multimap<Dpid, OFQueueStatsEntry> fullQueueStats =
-            ArrayListMultimap.create();
+    protected final MultipartBuffer<OFQueueStatsEntry> queueStatsParts = new MultipartBuffer<>();
 
     private final Controller ctrl = new Controller();
     private InternalDeviceListener listener = new InternalDeviceListener();
@@ -192,7 +244,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         coreService.registerApplication(APP_ID, this::cleanup);
         cfgService.registerProperties(getClass());
         deviceService.addListener(listener);
-        ctrl.setConfigParams(context.getProperties());
+        Dictionary<?, ?> properties = context.getProperties();
+        readComponentConfiguration(properties);
+        ctrl.setConfigParams(properties);
+        ctrl.setMetricsService(metricsService);
         ctrl.start(agent, driverService);
     }
 
@@ -204,6 +259,32 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         connectedSwitches.clear();
         activeMasterSwitches.clear();
         activeEqualSwitches.clear();
+        clearStatsParts(null);
+    }
+
+    private void readComponentConfiguration(Dictionary<?, ?> properties) {
+        Boolean partial = Tools.isPropertyEnabled(properties, "partialStatsBatches");
+        if (partial == null) {
+            log.info("Partial stats batches is not configured, using current value of {}",
+                     partialStatsBatches);
+        } else {
+            partialStatsBatches = partial;
+            log.info("Configured. Partial stats batches is {}",
+                     partialStatsBatches ? "enabled" : "disabled");
+        }
+    }
+
+    // discards the stats parts buffered for a switch, or for all if null
+    private void clearStatsParts(Dpid dpid) {
+        for (MultipartBuffer<?> parts : ImmutableList.of(flowStatsParts, flowLightweightStatsParts,
+                                                        tableStatsParts, groupStatsParts,
+                                                        groupDescStatsParts, queueStatsParts)) {
+            if (dpid == null) {
+                parts.clear();
+            } else {
+                parts.clear(dpid);
+            }
+        }
     }
 
     @Deactivate
@@ -216,7 +297,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     @Modified
     public void modified(ComponentContext context) {
         ctrl.stop();
-        ctrl.setConfigParams(context.getProperties());
+        Dictionary<?, ?> properties = context.getProperties();
+        readComponentConfiguration(properties);
+        ctrl.setConfigParams(properties);
+        ctrl.setMetricsService(metricsService);
         ctrl.start(agent, driverService);
     }
 
@@ -405,14 +489,10 @@ public class OpenFlowControllerImpl implements OpenFlowController {
     private void processStatsReply(Dpid dpid, OFStatsReply reply) {
         switch (reply.getStatsType()) {
             case QUEUE:
-                Collection<OFQueueStatsEntry> queueStatsEntries = publishQueueStats(dpid, (OFQueueStatsReply) reply);
-                if (queueStatsEntries != null) {
-                    OFQueueStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildQueueStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(queueStatsEntries));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                OFQueueStatsReply queueStatsReply = (OFQueueStatsReply) reply;
+                publishStats(dpid, queueStatsReply, queueStatsReply.getEntries(), queueStatsParts,
+                             entries -> OFFactories.getFactory(reply.getVersion()).buildQueueStatsReply()
+                                     .setEntries(entries).setXid(reply.getXid()).build());
                 break;
 
             case PORT_DESC:
@@ -422,57 +502,38 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                 break;
 
             case FLOW:
-                Collection<OFFlowStatsEntry> flowStats = publishFlowStats(dpid, (OFFlowStatsReply) reply);
-                if (flowStats != null) {
-                    OFFlowStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildFlowStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(flowStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                OFFlowStatsReply flowStatsReply = (OFFlowStatsReply) reply;
+                publishStats(dpid, flowStatsReply, flowStatsReply.getEntries(), flowStatsParts,
+                             entries -> OFFactories.getFactory(reply.getVersion()).buildFlowStatsReply()
+                                     .setEntries(entries).setXid(reply.getXid()).build());
                 break;
             case FLOW_LIGHTWEIGHT:
-                Collection<OFFlowLightweightStatsEntry> flowLightweightStats =
-                        publishFlowStatsLightweight(dpid, (OFFlowLightweightStatsReply) reply);
-                if (flowLightweightStats != null) {
-                    OFFlowLightweightStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildFlowLightweightStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(flowLightweightStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                OFFlowLightweightStatsReply flowLightweightStatsReply = (OFFlowLightweightStatsReply) reply;
+                publishStats(dpid, flowLightweightStatsReply, flowLightweightStatsReply.getEntries(),
+                             flowLightweightStatsParts,
+                             entries -> OFFactories.getFactory(reply.getVersion())
+                                     .buildFlowLightweightStatsReply()
+                                     .setEntries(entries).setXid(reply.getXid()).build());
                 break;
             case TABLE:
-                Collection<OFTableStatsEntry> tableStats = publishTableStats(dpid, (OFTableStatsReply) reply);
-                if (tableStats != null) {
-                    OFTableStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildTableStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(tableStats));
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                OFTableStatsReply tableStatsReply = (OFTableStatsReply) reply;
+                publishStats(dpid, tableStatsReply, tableStatsReply.getEntries(), tableStatsParts,
+                             entries -> OFFactories.getFactory(reply.getVersion()).buildTableStatsReply()
+                                     .setEntries(entries).setXid(reply.getXid()).build());
                 break;
 
             case GROUP:
-                Collection<OFGroupStatsEntry> groupStats = publishGroupStats(dpid, (OFGroupStatsReply) reply);
-                if (groupStats != null) {
-                    OFGroupStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildGroupStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(groupStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                OFGroupStatsReply groupStatsReply = (OFGroupStatsReply) reply;
+                publishStats(dpid, groupStatsReply, groupStatsReply.getEntries(), groupStatsParts,
+                             entries -> OFFactories.getFactory(reply.getVersion()).buildGroupStatsReply()
+                                     .setEntries(entries).setXid(reply.getXid()).build());
                 break;
 
             case GROUP_DESC:
-                Collection<OFGroupDescStatsEntry> groupDescStats = publishGroupDescStats(dpid,
-                        (OFGroupDescStatsReply) reply);
-                if (groupDescStats != null) {
-                    OFGroupDescStatsReply.Builder rep =
-                            OFFactories.getFactory(reply.getVersion()).buildGroupDescStatsReply();
-                    rep.setEntries(ImmutableList.copyOf(groupDescStats));
-                    rep.setXid(reply.getXid());
-                    executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                }
+                OFGroupDescStatsReply groupDescStatsReply = (OFGroupDescStatsReply) reply;
+                publishStats(dpid, groupDescStatsReply, groupDescStatsReply.getEntries(), groupDescStatsParts,
+                             entries -> OFFactories.getFactory(reply.getVersion()).buildGroupDescStatsReply()
+                                     .setEntries(entries).setXid(reply.getXid()).build());
                 break;
 
             case PORT:
@@ -520,14 +581,13 @@ public class OpenFlowControllerImpl implements OpenFlowController {
                         entries.add(fs);
                     }
                     fsr.setEntries(entries);
+                    fsr.setFlags(reply.getFlags());
+                    fsr.setXid(reply.getXid());
 
-                    flowStats = publishFlowStats(dpid, fsr.build());
-                    if (flowStats != null) {
-                        OFFlowStatsReply.Builder rep =
-                                sw.factory().buildFlowStatsReply();
-                        rep.setEntries(ImmutableList.copyOf(flowStats));
-                        executorMsgs.execute(new OFMessageHandler(dpid, rep.build()));
-                    }
+                    OFFlowStatsReply converted = fsr.build();
+                    publishStats(dpid, converted, converted.getEntries(), flowStatsParts,
+                                 all -> sw.factory().buildFlowStatsReply()
+                                         .setEntries(all).setXid(reply.getXid()).build());
                 } else {
                     executorMsgs.execute(new OFMessageHandler(dpid, reply));
                 }
@@ -538,63 +598,35 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         }
     }
 
-    private synchronized Collection<OFFlowStatsEntry> publishFlowStats(Dpid dpid,
-                                                                       OFFlowStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullFlowStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullFlowStats.removeAll(dpid);
-        }
-        return null;
-    }
-
-    private synchronized Collection<OFFlowLightweightStatsEntry> publishFlowStatsLightweight(
-            Dpid dpid,
-            OFFlowLightweightStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullFlowLightweightStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullFlowLightweightStats.removeAll(dpid);
-        }
-        return null;
-    }
-
-    private synchronized Collection<OFTableStatsEntry> publishTableStats(Dpid dpid,
-                                                                       OFTableStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullTableStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullTableStats.removeAll(dpid);
-        }
-        return null;
-    }
-
-    private synchronized Collection<OFGroupStatsEntry> publishGroupStats(Dpid dpid,
-                                                                      OFGroupStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullGroupStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullGroupStats.removeAll(dpid);
+    /**
+     * Hands a stats reply to the listeners once all its parts have arrived;
+     * if partial stats batches are enabled, the listeners handling partial
+     * stats get each part right away instead.
+     *
+     * @param dpid    switch the reply is from
+     * @param reply   reply part
+     * @param entries entries of the reply part
+     * @param parts   reassembly buffer for the type of stats
+     * @param merge   function building a reply out of the entries of all parts
+     * @param <E>     type of stats entry
+     */
+    private <E> void publishStats(Dpid dpid, OFStatsReply reply, List<E> entries,
+                                  MultipartBuffer<E> parts, Function<List<E>, OFStatsReply> merge) {
+        List<E> all = parts.add(dpid, reply.getXid(), entries,
+                                reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE));
+        // single part replies are handed over as they are
+        if (all == entries) {
+            executorMsgs.execute(new OFMessageHandler(dpid, reply));
+            return;
         }
-        return null;
-    }
-
-    private synchronized Collection<OFGroupDescStatsEntry> publishGroupDescStats(Dpid dpid,
-                                                                  OFGroupDescStatsReply reply) {
-        //TODO: Get rid of synchronized
-        fullGroupDescStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullGroupDescStats.removeAll(dpid);
+        if (partialStatsBatches) {
+            executorMsgs.execute(new OFMessageHandler(dpid, reply, OpenFlowEventListener::handlesPartialStats));
         }
-        return null;
-    }
-
-    private synchronized Collection<OFQueueStatsEntry> publishQueueStats(Dpid dpid, OFQueueStatsReply reply) {
-        fullQueueStats.putAll(dpid, reply.getEntries());
-        if (!reply.getFlags().contains(OFStatsReplyFlags.REPLY_MORE)) {
-            return fullQueueStats.removeAll(dpid);
+        if (all != null) {
+            Predicate<OpenFlowEventListener> whole = partialStatsBatches ?
+                    listener -> !listener.handlesPartialStats() : listener -> true;
+            executorMsgs.execute(new OFMessageHandler(dpid, merge.apply(all), whole));
         }
-        return null;
     }
 
     @Override
@@ -777,6 +809,7 @@ public class OpenFlowControllerImpl implements OpenFlowController {
         @Override
         public void removeConnectedSwitch(Dpid dpid) {
             connectedSwitches.remove(dpid);
+            clearStatsParts(dpid);
             OpenFlowSwitch sw = activeMasterSwitches.remove(dpid);
             if (sw == null) {
                 log.debug("sw was null for {}", dpid);
@@ -819,16 +852,24 @@ public class OpenFlowControllerImpl implements OpenFlowController {
 
         final OFMessage msg;
         final Dpid dpid;
+        final Predicate<OpenFlowEventListener> recipients;
 
         public OFMessageHandler(Dpid dpid, OFMessage msg) {
+            this(dpid, msg, listener -> true);
+        }
+
+        public OFMessageHandler(Dpid dpid, OFMessage msg, Predicate<OpenFlowEventListener> recipients) {
             this.msg = msg;
             this.dpid = dpid;
+            this.recipients = recipients;
         }
 
         @Override
         public void run() {
             for (OpenFlowEventListener listener : ofEventListener) {
-                listener.handleMessage(dpid, msg);
+                if (recipients.test(listener)) {
+                    listener.handleMessage(dpid, msg);
+                }
             }
         }
     }
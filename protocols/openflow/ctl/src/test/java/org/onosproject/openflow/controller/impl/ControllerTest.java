@@ -185,6 +185,27 @@ public class ControllerTest {
         assertThat(controller.workerThreads, is(5));
     }
 
+    /**
+     * Tests the lifecycle of the shared dispatcher pool.
+     */
+    @Test
+    public void testSharedDispatcher() {
+        controller.start(null, new MockDriverService());
+        assertThat(controller.dispatcherPool(), nullValue());
+        controller.stop();
+
+        Dictionary<String, String> properties = new Hashtable<>();
+        properties.put("sharedDispatcherThreads", "4");
+        controller.setConfigParams(properties);
+        assertThat(controller.sharedDispatcherThreads, is(4));
+
+        controller.start(null, new MockDriverService());
+        assertThat(controller.dispatcherPool(), notNullValue());
+        assertThat(controller.registerDispatchMetrics("channel", () -> 0), nullValue());
+        controller.stop();
+        assertThat(controller.dispatcherPool(), nullValue());
+    }
+
     /**
      * Tests the SSL/TLS methods in the controller.
      */
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for the handshake admission controller.
+ */
+public class HandshakeAdmissionTest {
+
+    private final List<String> started = new ArrayList<>();
+
+    /**
+     * Tests that handshakes beyond the limit wait for earlier ones, in order.
+     */
+    @Test
+    public void testLimit() {
+        HandshakeAdmission admission = new HandshakeAdmission(2);
+        HandshakeAdmission.Ticket a = admission.admit(() -> started.add("a"));
+        HandshakeAdmission.Ticket b = admission.admit(() -> started.add("b"));
+        admission.admit(() -> started.add("c"));
+        admission.admit(() -> started.add("d"));
+        assertThat(started, is(ImmutableList.of("a", "b")));
+        assertThat(admission.waiting(), is(2));
+
+        a.release();
+        a.release();
+        assertThat(started, is(ImmutableList.of("a", "b", "c")));
+        b.release();
+        assertThat(started, is(ImmutableList.of("a", "b", "c", "d")));
+        assertThat(admission.admitted(), is(2));
+        assertThat(admission.waiting(), is(0));
+    }
+
+    /**
+     * Tests that a waiting handshake whose connection is lost is withdrawn.
+     */
+    @Test
+    public void testWithdraw() {
+        HandshakeAdmission admission = new HandshakeAdmission(1);
+        HandshakeAdmission.Ticket a = admission.admit(() -> started.add("a"));
+        HandshakeAdmission.Ticket b = admission.admit(() -> started.add("b"));
+        admission.admit(() -> started.add("c"));
+
+        b.release();
+        a.release();
+        assertThat(started, is(ImmutableList.of("a", "c")));
+        assertThat(admission.admitted(), is(1));
+    }
+
+    /**
+     * Tests that all handshakes are admitted without a limit.
+     */
+    @Test
+    public void testUnlimited() {
+        HandshakeAdmission admission = new HandshakeAdmission(0);
+        for (int i = 0; i < 100; i++) {
+            admission.admit(() -> started.add("s"));
+        }
+        assertThat(started.size(), is(100));
+        assertThat(admission.waiting(), is(0));
+    }
+}
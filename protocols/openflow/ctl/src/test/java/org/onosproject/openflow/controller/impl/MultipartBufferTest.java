@@ -0,0 +1,75 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.onosproject.openflow.controller.Dpid;
+
+import java.util.List;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+/**
+ * Unit tests for the multipart stats reassembly buffers.
+ */
+public class MultipartBufferTest {
+
+    private static final Dpid DPID1 = new Dpid(1);
+    private static final Dpid DPID2 = new Dpid(2);
+
+    private final MultipartBuffer<String> parts = new MultipartBuffer<>();
+
+    /**
+     * Tests that single part replies are handed back as they are.
+     */
+    @Test
+    public void singlePart() {
+        List<String> entries = ImmutableList.of("a", "b");
+        assertThat(parts.add(DPID1, 1, entries, false), sameInstance(entries));
+    }
+
+    /**
+     * Tests reassembling interleaved replies per switch and transaction id.
+     */
+    @Test
+    public void interleavedParts() {
+        assertThat(parts.add(DPID1, 1, ImmutableList.of("a"), true), nullValue());
+        assertThat(parts.add(DPID1, 2, ImmutableList.of("x"), true), nullValue());
+        assertThat(parts.add(DPID2, 1, ImmutableList.of("p"), true), nullValue());
+        assertThat(parts.add(DPID1, 1, ImmutableList.of("b"), true), nullValue());
+
+        assertThat(parts.add(DPID1, 1, ImmutableList.of("c"), false), is(ImmutableList.of("a", "b", "c")));
+        assertThat(parts.add(DPID1, 2, ImmutableList.of("y"), false), is(ImmutableList.of("x", "y")));
+        assertThat(parts.add(DPID2, 1, ImmutableList.of("q"), false), is(ImmutableList.of("p", "q")));
+    }
+
+    /**
+     * Tests discarding the parts of a switch.
+     */
+    @Test
+    public void clearSwitch() {
+        parts.add(DPID1, 1, ImmutableList.of("a"), true);
+        parts.add(DPID2, 1, ImmutableList.of("p"), true);
+        parts.clear(DPID1);
+
+        assertThat(parts.add(DPID1, 1, ImmutableList.of("b"), false), is(ImmutableList.of("b")));
+        assertThat(parts.add(DPID2, 1, ImmutableList.of("q"), false), is(ImmutableList.of("p", "q")));
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import com.google.common.collect.Lists;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.OpenflowSwitchDriverAdapter;
+import org.onosproject.openflow.controller.driver.OpenFlowSwitchDriver;
+import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
+import org.projectfloodlight.openflow.protocol.OFDescStatsReply;
+import org.projectfloodlight.openflow.protocol.OFDescStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFMeterFeaturesStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFPacketInReason;
+import org.projectfloodlight.openflow.protocol.OFPortDescStatsRequest;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.DatapathId;
+import org.projectfloodlight.openflow.types.OFErrorCauseData;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for the pipelined handshake of the OpenFlow channel handler and the
+ * dispatch of its messages on the shared dispatcher pool.
+ */
+public class OFChannelHandlerTest {
+
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+
+    private final HandshakeAdmission admission = new HandshakeAdmission(1);
+    private final QueuedExecutor pool = new QueuedExecutor();
+    private final TestSwitchDriver sw = new TestSwitchDriver();
+    private final TestController controller = new TestController();
+    private OFChannelHandler handler;
+    private EmbeddedChannel channel;
+
+    @Before
+    public void setUp() {
+        controller.pipelinedHandshake = true;
+        handler = new OFChannelHandler(controller);
+        channel = new EmbeddedChannel(handler);
+    }
+
+    @After
+    public void tearDown() {
+        channel.finish();
+    }
+
+    /**
+     * Takes the handshake up to the reply to the config request, checking
+     * that all the requests after the features request are sent at once.
+     */
+    private void handshakeToMeterFeatures() {
+        assertThat(admission.admitted(), is(1));
+        channel.writeInbound(FACTORY.buildHello().build());
+        drainOutbound();
+        channel.writeInbound(FACTORY.buildFeaturesReply()
+                                     .setDatapathId(DatapathId.of(1))
+                                     .setNBuffers(0)
+                                     .build());
+
+        List<?> requests = (List<?>) channel.readOutbound();
+        assertThat(requests.size(), is(5));
+        assertThat(requests.get(0), instanceOf(OFPortDescStatsRequest.class));
+        assertThat(requests.get(3), instanceOf(OFMeterFeaturesStatsRequest.class));
+        assertThat(requests.get(4), instanceOf(OFDescStatsRequest.class));
+        assertThat(channel.readOutbound(), nullValue());
+
+        channel.writeInbound(FACTORY.buildPortDescStatsReply()
+                                     .setEntries(Collections.emptyList())
+                                     .build());
+        channel.writeInbound(FACTORY.buildBarrierReply().build());
+        channel.writeInbound(FACTORY.buildGetConfigReply().setMissSendLen(0xffff).build());
+        assertThat(handler.getStateForTesting(),
+                   is(OFChannelHandler.ChannelState.WAIT_METER_FEATURES_REPLY));
+    }
+
+    /**
+     * Checks that the description reply activates the switch without any
+     * request being sent again, and that the admission is released.
+     */
+    private void assertActivated() {
+        channel.writeInbound(FACTORY.buildDescStatsReply().build());
+        assertThat(handler.getStateForTesting(), is(OFChannelHandler.ChannelState.ACTIVE));
+        assertThat(channel.readOutbound(), nullValue());
+        assertThat(admission.admitted(), is(0));
+    }
+
+    private void activate() {
+        handshakeToMeterFeatures();
+        assertActivated();
+    }
+
+    private void drainOutbound() {
+        while (channel.readOutbound() != null) {
+            // discard the hello and features request
+        }
+    }
+
+    /**
+     * Tests the pipelined handshake of a switch answering all the requests.
+     */
+    @Test
+    public void testPipelinedHandshake() {
+        handshakeToMeterFeatures();
+        channel.writeInbound(FACTORY.buildMeterFeaturesStatsReply()
+                                     .setFeatures(FACTORY.buildMeterFeatures().build())
+                                     .build());
+        assertThat(handler.getStateForTesting(),
+                   is(OFChannelHandler.ChannelState.WAIT_DESCRIPTION_STAT_REPLY));
+        assertActivated();
+    }
+
+    /**
+     * Tests the pipelined handshake of a switch rejecting the meter features
+     * request.
+     */
+    @Test
+    public void testPipelinedMeterError() {
+        handshakeToMeterFeatures();
+        channel.writeInbound(FACTORY.errorMsgs().buildBadRequestErrorMsg()
+                                     .setCode(OFBadRequestCode.BAD_STAT)
+                                     .setData(OFErrorCauseData.NONE)
+                                     .build());
+        assertThat(handler.getStateForTesting(),
+                   is(OFChannelHandler.ChannelState.WAIT_DESCRIPTION_STAT_REPLY));
+        assertActivated();
+    }
+
+    /**
+     * Tests the pipelined handshake of a switch answering the description
+     * request without answering the meter features one.
+     */
+    @Test
+    public void testPipelinedMeterFeaturesMissing() {
+        handshakeToMeterFeatures();
+        assertActivated();
+    }
+
+    /**
+     * Tests that the messages of a switch are dispatched in order by a
+     * single drain at a time, which yields the pool after its budget and
+     * schedules another drain for the remaining messages.
+     */
+    @Test
+    public void testDrainOrderedAndRequeued() {
+        activate();
+        int count = OFChannelHandler.DRAIN_BUDGET + 1;
+        for (int xid = 0; xid < count; xid++) {
+            channel.writeInbound(FACTORY.buildPacketIn()
+                                         .setXid(xid)
+                                         .setReason(OFPacketInReason.NO_MATCH)
+                                         .build());
+        }
+        assertThat(pool.tasks.size(), is(1));
+
+        pool.runNext();
+        assertThat(sw.handled.size(), is(OFChannelHandler.DRAIN_BUDGET));
+        assertThat(pool.tasks.size(), is(1));
+
+        pool.runNext();
+        assertThat(pool.tasks.size(), is(0));
+        List<Long> xids = sw.handled.stream().map(OFMessage::getXid).collect(Collectors.toList());
+        assertThat(xids, is(LongStream.range(0, count).boxed().collect(Collectors.toList())));
+    }
+
+    private class TestController extends Controller {
+        @Override
+        ExecutorService dispatcherPool() {
+            return pool;
+        }
+
+        @Override
+        HandshakeAdmission handshakeAdmission() {
+            return admission;
+        }
+
+        @Override
+        protected OpenFlowSwitchDriver getOFSwitchInstance(long dpid, OFDescStatsReply desc, OFVersion ofv) {
+            return sw;
+        }
+    }
+
+    // runs the submitted tasks one at a time, when told to
+    private static class QueuedExecutor extends AbstractExecutorService {
+        private final Deque<Runnable> tasks = new ArrayDeque<>();
+
+        void runNext() {
+            tasks.poll().run();
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Lists.newArrayList(tasks);
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return false;
+        }
+    }
+
+    private static class TestSwitchDriver extends OpenflowSwitchDriverAdapter {
+        private final List<OFMessage> handled = Lists.newArrayList();
+
+        @Override
+        public void handleMessage(OFMessage fromSwitch) {
+            handled.add(fromSwitch);
+        }
+
+        @Override
+        public boolean connectSwitch() {
+            return true;
+        }
+
+        @Override
+        public boolean isDriverHandshakeComplete() {
+            return true;
+        }
+    }
+}
@@ -16,19 +16,32 @@
 package org.onosproject.openflow.controller.impl;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
 
 import org.hamcrest.Matchers;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
 import org.projectfloodlight.openflow.protocol.OFType;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.protocol.match.MatchField;
+import org.projectfloodlight.openflow.types.EthType;
+import org.projectfloodlight.openflow.types.IPv4Address;
+import org.projectfloodlight.openflow.types.OFPort;
+import org.projectfloodlight.openflow.types.U64;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 
 /**
@@ -75,4 +88,46 @@ public class OFMessageEncoderTest {
         String expectedListMessage = "message1 ";
         assertThat(channelBytes, is(expectedListMessage.getBytes()));
     }
+
+    private static List<OFMessage> flowMods(int count) {
+        OFFactory factory = OFFactories.getFactory(OFVersion.OF_13);
+        List<OFMessage> mods = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            mods.add(factory.buildFlowAdd()
+                             .setXid(i)
+                             .setCookie(U64.of(i))
+                             .setPriority(40000)
+                             .setMatch(factory.buildMatch()
+                                               .setExact(MatchField.IN_PORT, OFPort.of(1 + i % 48))
+                                               .setExact(MatchField.ETH_TYPE, EthType.IPv4)
+                                               .setExact(MatchField.IPV4_DST, IPv4Address.of(0x0a000000 + i))
+                                               .build())
+                             .setInstructions(Collections.singletonList(
+                                     factory.instructions().applyActions(Collections.singletonList(
+                                             factory.actions().output(OFPort.of(2), 0)))))
+                             .build());
+        }
+        return mods;
+    }
+
+    /**
+     * Tests that a batch of flow mods is encoded into a single buffer sized
+     * for the batch up front, rather than grown and copied as it fills.
+     */
+    @Test
+    public void testBatchBufferNotGrown() {
+        List<OFMessage> mods = flowMods(1000);
+        int capacity = OFMessageEncoder.initialCapacity(mods);
+        EmbeddedChannel channel = new EmbeddedChannel(OFMessageEncoder.getInstance());
+        channel.writeOutbound(mods);
+
+        ByteBuf out = (ByteBuf) channel.readOutbound();
+        try {
+            assertThat(out.capacity(), is(capacity));
+            assertThat(out.readableBytes(), greaterThan(capacity / 2));
+        } finally {
+            out.release();
+            channel.finish();
+        }
+    }
 }
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.OFBufferId;
+import org.projectfloodlight.openflow.types.OFPort;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Unit tests for the flow mod transmit scheduler.
+ */
+public class OFTransmitSchedulerTest {
+
+    private static final OFMessage FLOW_MOD = new OfMessageAdapter(OFType.FLOW_MOD);
+    private static final OFMessage BARRIER = new OfMessageAdapter(OFType.BARRIER_REQUEST);
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_13);
+    private static final OFMessage PACKET_OUT = packetOut(OFPort.TABLE);
+    private static final OFMessage PROBE = packetOut(OFPort.of(1));
+    private static final OFMessage ROLE_REQUEST = new OfMessageAdapter(OFType.ROLE_REQUEST);
+    private static final OFMessage ECHO_REQUEST = new OfMessageAdapter(OFType.ECHO_REQUEST);
+
+    private final List<OFMessage> written = new ArrayList<>();
+    private ScheduledExecutorService executor;
+    private long now;
+
+    @Before
+    public void setUp() {
+        // drains are driven by hand, the executor only keeps them from failing
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static OFMessage packetOut(OFPort port) {
+        return FACTORY.buildPacketOut()
+                .setBufferId(OFBufferId.NO_BUFFER)
+                .setInPort(OFPort.CONTROLLER)
+                .setActions(ImmutableList.of(FACTORY.actions().output(port, 0)))
+                .setData(new byte[0])
+                .build();
+    }
+
+    private OFTransmitScheduler scheduler(int rate, int burst, boolean autoTune) {
+        return new OFTransmitScheduler(written::addAll, executor, rate, burst, autoTune, () -> now);
+    }
+
+    private void advance(long millis) {
+        now += TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * Tests that flow mods are paced by the token bucket.
+     */
+    @Test
+    public void pacing() {
+        OFTransmitScheduler scheduler = scheduler(10, 2, false);
+        scheduler.send(ImmutableList.of(FLOW_MOD, FLOW_MOD, FLOW_MOD, FLOW_MOD, FLOW_MOD));
+        assertThat(written.size(), is(2));
+        assertThat(scheduler.queued(), is(3));
+
+        advance(100);
+        scheduler.drain();
+        assertThat(written.size(), is(3));
+
+        advance(1000);
+        scheduler.drain();
+        assertThat(written.size(), is(5));
+        assertThat(scheduler.queued(), is(0));
+    }
+
+    /**
+     * Tests that control messages overtake queued flow mods while barriers,
+     * role requests and packet outs to the flow table stay behind them
+     * without consuming tokens.
+     */
+    @Test
+    public void priorities() {
+        OFTransmitScheduler scheduler = scheduler(10, 1, false);
+        scheduler.send(ImmutableList.of(FLOW_MOD, FLOW_MOD, BARRIER));
+        scheduler.send(ImmutableList.of(PACKET_OUT, ROLE_REQUEST));
+        scheduler.send(ImmutableList.of(ECHO_REQUEST));
+        assertThat(written, is(ImmutableList.of(FLOW_MOD, ECHO_REQUEST)));
+
+        advance(100);
+        scheduler.drain();
+        assertThat(written, is(ImmutableList.of(FLOW_MOD, ECHO_REQUEST, FLOW_MOD, BARRIER,
+                                                PACKET_OUT, ROLE_REQUEST)));
+
+        // with nothing queued, packet outs are transmitted right away
+        scheduler.send(ImmutableList.of(PACKET_OUT));
+        assertThat(written.size(), is(7));
+    }
+
+    /**
+     * Tests that packet outs to a port, such as link discovery probes, are
+     * transmitted right away rather than behind queued flow mods.
+     */
+    @Test
+    public void probesNotQueued() {
+        OFTransmitScheduler scheduler = scheduler(10, 1, false);
+        scheduler.send(ImmutableList.of(FLOW_MOD, FLOW_MOD, PACKET_OUT));
+        scheduler.send(ImmutableList.of(PROBE));
+        assertThat(written, is(ImmutableList.of(FLOW_MOD, PROBE)));
+        assertThat(scheduler.queued(), is(2));
+
+        advance(100);
+        scheduler.drain();
+        assertThat(written, is(ImmutableList.of(FLOW_MOD, PROBE, FLOW_MOD, PACKET_OUT)));
+    }
+
+    /**
+     * Tests that sends do not schedule a transmission while one is pending.
+     */
+    @Test
+    public void singleScheduledDrain() {
+        ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(1);
+        try {
+            OFTransmitScheduler scheduler =
+                    new OFTransmitScheduler(written::addAll, pool, 1, 1, false, () -> now);
+            for (int i = 0; i < 10; i++) {
+                scheduler.send(ImmutableList.of(FLOW_MOD));
+            }
+            assertThat(written.size(), is(1));
+            assertThat(pool.getQueue().size(), is(1));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests that messages queued beyond the bound are transmitted in order
+     * without pacing.
+     */
+    @Test
+    public void boundedQueue() {
+        OFTransmitScheduler scheduler =
+                new OFTransmitScheduler(written::addAll, executor, 10, 1, false, 3, () -> now);
+        scheduler.send(ImmutableList.of(FLOW_MOD, FLOW_MOD, FLOW_MOD, FLOW_MOD, FLOW_MOD, FLOW_MOD));
+        assertThat(written.size(), is(3));
+        assertThat(scheduler.queued(), is(3));
+
+        scheduler.send(ImmutableList.of(FLOW_MOD, BARRIER));
+        assertThat(written.size(), is(5));
+        assertThat(scheduler.queued(), is(3));
+    }
+
+    /**
+     * Tests that the rate backs off when barriers slow down and recovers
+     * when they speed up again.
+     */
+    @Test
+    public void autoTune() {
+        OFTransmitScheduler scheduler = scheduler(1000, 1000, true);
+        scheduler.send(ImmutableList.of(FLOW_MOD, BARRIER));
+        advance(20);
+        scheduler.barrierReplied(BARRIER.getXid());
+        assertThat(scheduler.rate(), is(1000.0));
+
+        scheduler.send(ImmutableList.of(FLOW_MOD, BARRIER));
+        advance(100);
+        scheduler.barrierReplied(BARRIER.getXid());
+        assertThat(scheduler.rate(), is(500.0));
+
+        scheduler.send(ImmutableList.of(FLOW_MOD, BARRIER));
+        advance(20);
+        scheduler.barrierReplied(BARRIER.getXid());
+        assertThat(scheduler.rate(), is(550.0));
+    }
+}
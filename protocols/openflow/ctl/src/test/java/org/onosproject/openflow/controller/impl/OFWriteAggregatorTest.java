@@ -0,0 +1,96 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.openflow.controller.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.openflow.OfMessageAdapter;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFType;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.onlab.junit.TestTools.assertAfter;
+
+/**
+ * Unit tests for the flow mod write aggregator.
+ */
+public class OFWriteAggregatorTest {
+
+    private static final OFMessage FLOW_MOD = new OfMessageAdapter(OFType.FLOW_MOD);
+    private static final OFMessage BARRIER = new OfMessageAdapter(OFType.BARRIER_REQUEST);
+
+    private final List<List<OFMessage>> writes = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setUp() {
+        scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Tests that flow mods are held back until a barrier is sent.
+     */
+    @Test
+    public void flushOnBarrier() {
+        OFWriteAggregator aggregator = new OFWriteAggregator(writes::add, scheduler, 100, 10_000_000, null);
+        aggregator.write(ImmutableList.of(FLOW_MOD));
+        aggregator.write(ImmutableList.of(FLOW_MOD));
+        assertThat(writes.size(), is(0));
+
+        aggregator.write(ImmutableList.of(BARRIER));
+        assertThat(writes, is(ImmutableList.of(ImmutableList.of(FLOW_MOD, FLOW_MOD, BARRIER))));
+        assertThat(aggregator.flushCount(), is(1L));
+        assertThat(aggregator.messageCount(), is(3L));
+    }
+
+    /**
+     * Tests that flow mods are flushed once the batch size is reached.
+     */
+    @Test
+    public void flushOnBatchSize() {
+        OFWriteAggregator aggregator = new OFWriteAggregator(writes::add, scheduler, 3, 10_000_000, null);
+        aggregator.write(ImmutableList.of(FLOW_MOD, FLOW_MOD));
+        assertThat(writes.size(), is(0));
+
+        aggregator.write(ImmutableList.of(FLOW_MOD));
+        assertThat(writes.size(), is(1));
+        assertThat(writes.get(0).size(), is(3));
+    }
+
+    /**
+     * Tests that flow mods are flushed once the flush delay elapses.
+     */
+    @Test
+    public void flushOnDelay() {
+        OFWriteAggregator aggregator = new OFWriteAggregator(writes::add, scheduler, 100, 1_000, null);
+        aggregator.write(ImmutableList.of(FLOW_MOD));
+        assertAfter(1000, () -> assertThat(writes.size(), is(1)));
+        assertThat(aggregator.messageCount(), is(1L));
+    }
+}
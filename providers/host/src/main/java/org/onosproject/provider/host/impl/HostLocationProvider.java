@@ -49,6 +49,7 @@ import org.onlab.packet.ndp.NeighborAdvertisement;
 import org.onlab.packet.ndp.NeighborSolicitation;
 import org.onlab.packet.ndp.RouterAdvertisement;
 import org.onlab.packet.ndp.RouterSolicitation;
+import org.onlab.util.SharedScheduledExecutors;
 import org.onlab.util.Tools;
 import org.onosproject.cfg.ComponentConfigService;
 import org.onosproject.core.ApplicationId;
@@ -70,6 +71,8 @@ import org.onosproject.net.flow.TrafficSelector;
 import org.onosproject.net.flow.TrafficTreatment;
 import org.onosproject.net.host.DefaultHostDescription;
 import org.onosproject.net.host.HostDescription;
+import org.onosproject.net.host.HostEvent;
+import org.onosproject.net.host.HostListener;
 import org.onosproject.net.host.HostProvider;
 import org.onosproject.net.host.HostProviderRegistry;
 import org.onosproject.net.host.HostProviderService;
@@ -89,11 +92,13 @@ import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
 import java.util.Dictionary;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 import java.util.Set;
@@ -139,6 +144,7 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
 
     private final InternalHostProvider processor = new InternalHostProvider();
     private final DeviceListener deviceListener = new InternalDeviceListener();
+    private final HostListener hostListener = new InternalHostListener();
 
     private ApplicationId appId;
 
@@ -172,6 +178,25 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
             label = "Allow hosts to be multihomed")
     private boolean multihomingEnabled = false;
 
+    private static final int DEFAULT_SIGHTING_WINDOW_MS = 1000;
+    @Property(name = "hostSightingWindowMs", intValue = DEFAULT_SIGHTING_WINDOW_MS,
+            label = "Window in millis within which repeated sightings of an unchanged " +
+                    "host are not reported; 0 reports every sighting")
+    private int hostSightingWindowMs = DEFAULT_SIGHTING_WINDOW_MS;
+
+    @Property(name = "hostDetectionBatchMs", intValue = 0,
+            label = "Interval in millis over which changed host detections are " +
+                    "coalesced per host before being reported; 0 reports them immediately")
+    private int hostDetectionBatchMs = 0;
+
+    private static final long SIGHTING_STATS_PERIOD_SEC = 60;
+
+    private final HostSightingCache sightingCache = new HostSightingCache(DEFAULT_SIGHTING_WINDOW_MS);
+    private ScheduledFuture<?> batchTask;
+    private ScheduledFuture<?> statsTask;
+    private long lastSeen;
+    private long lastSuppressed;
+
     private int probeInitDelayMs = 1000;
 
     protected ExecutorService eventHandler;
@@ -194,6 +219,10 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
         providerService = providerRegistry.register(this);
         packetService.addProcessor(processor, PacketProcessor.advisor(1));
         deviceService.addListener(deviceListener);
+        hostService.addListener(hostListener);
+        statsTask = SharedScheduledExecutors.getSingleThreadExecutor()
+                .scheduleAtFixedRate(this::logSightingStats, SIGHTING_STATS_PERIOD_SEC,
+                                     SIGHTING_STATS_PERIOD_SEC, TimeUnit.SECONDS);
 
         modified(context);
 
@@ -206,9 +235,14 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
 
         withdrawIntercepts();
 
-        providerRegistry.unregister(this);
         packetService.removeProcessor(processor);
+        // report detections still queued while still registered
+        scheduleBatches(0);
+        providerRegistry.unregister(this);
         deviceService.removeListener(deviceListener);
+        hostService.removeListener(hostListener);
+        statsTask.cancel(false);
+        sightingCache.clear();
         eventHandler.shutdown();
         providerService = null;
         log.info("Stopped");
@@ -223,6 +257,60 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
         } else {
             withdrawIntercepts();
         }
+
+        sightingCache.setWindow(hostSightingWindowMs);
+        scheduleBatches(hostDetectionBatchMs);
+    }
+
+    /**
+     * (Re)schedules reporting of batched host detections.
+     *
+     * @param periodMs batch interval in millis; 0 stops batching, reporting
+     *                 whatever is still queued
+     */
+    private synchronized void scheduleBatches(int periodMs) {
+        if (batchTask != null) {
+            batchTask.cancel(false);
+            batchTask = null;
+        }
+        if (periodMs > 0) {
+            batchTask = SharedScheduledExecutors.getSingleThreadExecutor()
+                    .scheduleAtFixedRate(this::reportBatch, periodMs, periodMs, TimeUnit.MILLISECONDS);
+        } else {
+            reportBatch();
+        }
+    }
+
+    /**
+     * Reports all queued host detections.
+     */
+    private void reportBatch() {
+        HostProviderService service = providerService;
+        Map<HostId, HostDescription> batch = sightingCache.drain();
+        if (service == null || batch.isEmpty()) {
+            return;
+        }
+        log.trace("Reporting {} batched host detections", batch.size());
+        batch.forEach((hid, desc) -> {
+            try {
+                service.hostDetected(hid, desc, false);
+            } catch (IllegalStateException e) {
+                log.debug("Host {} suppressed", hid);
+            } catch (RuntimeException e) {
+                log.warn("Unable to report host {}", hid, e);
+            }
+        });
+    }
+
+    private void logSightingStats() {
+        long seen = sightingCache.seenCount();
+        long suppressed = sightingCache.suppressedCount();
+        if (seen > lastSeen) {
+            log.debug("Suppressed {} of {} host sightings in the last {}s",
+                      suppressed - lastSuppressed, seen - lastSeen, SIGHTING_STATS_PERIOD_SEC);
+        }
+        lastSeen = seen;
+        lastSuppressed = suppressed;
     }
 
     /**
@@ -346,6 +434,25 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
             log.info("Configured. Multihoming is {}",
                     multihomingEnabled ? "enabled" : "disabled");
         }
+
+        Integer value = Tools.getIntegerProperty(properties, "hostSightingWindowMs");
+        if (value == null || value < 0) {
+            log.info("Host sighting window is not configured, " +
+                    "using current value of {} ms", hostSightingWindowMs);
+        } else {
+            hostSightingWindowMs = value;
+            log.info("Configured. Host sighting window is {} ms", hostSightingWindowMs);
+        }
+
+        value = Tools.getIntegerProperty(properties, "hostDetectionBatchMs");
+        if (value == null || value < 0) {
+            log.info("Host detection batching is not configured, " +
+                    "using current value of {} ms", hostDetectionBatchMs);
+        } else {
+            hostDetectionBatchMs = value;
+            log.info("Configured. Host detection batching is {}",
+                    hostDetectionBatchMs > 0 ? hostDetectionBatchMs + " ms" : "disabled");
+        }
     }
 
     @Override
@@ -475,6 +582,24 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
             HostDescription desc = ip == null || ip.isZero() || ip.isSelfAssigned() ?
                     new DefaultHostDescription(mac, vlan, newLocations, Sets.newHashSet(), false) :
                     new DefaultHostDescription(mac, vlan, newLocations, Sets.newHashSet(ip), false);
+            reportHost(hid, desc);
+        }
+
+        /**
+         * Reports the host unless it was last reported unchanged within the
+         * sighting window, either right away or with the next batch.
+         *
+         * @param hid  host ID
+         * @param desc host description
+         */
+        private void reportHost(HostId hid, HostDescription desc) {
+            if (sightingCache.isRedundant(hid, desc, System.currentTimeMillis())) {
+                return;
+            }
+            if (hostDetectionBatchMs > 0) {
+                sightingCache.enqueue(hid, desc);
+                return;
+            }
             try {
                 providerService.hostDetected(hid, desc, false);
             } catch (IllegalStateException e) {
@@ -497,11 +622,7 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
 
             HostDescription desc = new DefaultHostDescription(hid.mac(), hid.vlanId(),
                     host.locations(), Sets.newHashSet(ip), false);
-            try {
-                providerService.hostDetected(hid, desc, false);
-            } catch (IllegalStateException e) {
-                log.debug("Host {} suppressed", hid);
-            }
+            reportHost(hid, desc);
         }
 
         @Override
@@ -779,6 +900,22 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
         }
     }
 
+    // Sightings are no longer current once the store changes the host
+    private class InternalHostListener implements HostListener {
+        @Override
+        public void event(HostEvent event) {
+            switch (event.type()) {
+                case HOST_REMOVED:
+                case HOST_MOVED:
+                case HOST_UPDATED:
+                    sightingCache.invalidate(event.subject().id());
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
     /**
      * When a device goes down, update the location of affected hosts.
      *
@@ -787,8 +924,10 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
     private void processDeviceDown(DeviceId deviceId) {
         hostService.getConnectedHosts(deviceId).forEach(affectedHost -> affectedHost.locations().stream()
                 .filter(hostLocation -> hostLocation.deviceId().equals(deviceId))
-                .forEach(affectedLocation ->
-                        providerService.removeLocationFromHost(affectedHost.id(), affectedLocation))
+                .forEach(affectedLocation -> {
+                    sightingCache.invalidate(affectedHost.id());
+                    providerService.removeLocationFromHost(affectedHost.id(), affectedLocation);
+                })
         );
     }
 
@@ -798,9 +937,10 @@ public class HostLocationProvider extends AbstractProvider implements HostProvid
      * @param connectPoint the port that goes down
      */
     private void processPortDown(ConnectPoint connectPoint) {
-        hostService.getConnectedHosts(connectPoint).forEach(affectedHost ->
-                providerService.removeLocationFromHost(affectedHost.id(), new HostLocation(connectPoint, 0L))
-        );
+        hostService.getConnectedHosts(connectPoint).forEach(affectedHost -> {
+            sightingCache.invalidate(affectedHost.id());
+            providerService.removeLocationFromHost(affectedHost.id(), new HostLocation(connectPoint, 0L));
+        });
     }
 
 }
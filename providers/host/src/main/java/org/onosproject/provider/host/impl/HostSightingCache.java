@@ -0,0 +1,183 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.host.impl;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.onlab.packet.IpAddress;
+import org.onosproject.net.HostId;
+import org.onosproject.net.HostLocation;
+import org.onosproject.net.host.DefaultHostDescription;
+import org.onosproject.net.host.HostDescription;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Local cache of recent host sightings, used to keep repeated sightings of
+ * unchanged hosts, as during ARP storms, from being written through to the
+ * host store.
+ */
+final class HostSightingCache {
+
+    private final Map<HostId, Sighting> sightings = Maps.newConcurrentMap();
+    private final Map<HostId, HostDescription> pending = Maps.newConcurrentMap();
+
+    private final AtomicLong seen = new AtomicLong();
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private volatile long windowMillis;
+
+    /**
+     * Creates a sighting cache.
+     *
+     * @param windowMillis window within which unchanged sightings are
+     *                     suppressed; 0 disables suppression
+     */
+    HostSightingCache(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * Sets the window within which unchanged sightings are suppressed.
+     *
+     * @param windowMillis window in millis; 0 disables suppression
+     */
+    void setWindow(long windowMillis) {
+        this.windowMillis = windowMillis;
+        if (windowMillis <= 0) {
+            sightings.clear();
+        }
+    }
+
+    /**
+     * Records a sighting of the given host and returns whether it merely
+     * repeats one already reported within the window, that is, the host was
+     * seen at the same locations and with no IP address not already reported.
+     *
+     * @param hostId      host identifier
+     * @param description host description of the sighting
+     * @param now         current time in millis
+     * @return true if the sighting can be suppressed
+     */
+    boolean isRedundant(HostId hostId, HostDescription description, long now) {
+        seen.incrementAndGet();
+        long window = windowMillis;
+        if (window <= 0) {
+            return false;
+        }
+        Set<HostLocation> locations = ImmutableSet.copyOf(description.locations());
+        boolean[] redundant = new boolean[1];
+        sightings.compute(hostId, (id, last) -> {
+            if (last != null && now - last.reported < window &&
+                    last.locations.equals(locations) &&
+                    last.ips.containsAll(description.ipAddress())) {
+                redundant[0] = true;
+                return last;
+            }
+            Set<IpAddress> ips = last != null && last.locations.equals(locations) ?
+                    Sets.union(last.ips, description.ipAddress()).immutableCopy() :
+                    ImmutableSet.copyOf(description.ipAddress());
+            return new Sighting(locations, ips, now);
+        });
+        if (redundant[0]) {
+            suppressed.incrementAndGet();
+        }
+        return redundant[0];
+    }
+
+    /**
+     * Forgets the last sighting of the given host, so that the next one is
+     * reported regardless of the window.
+     *
+     * @param hostId host identifier
+     */
+    void invalidate(HostId hostId) {
+        sightings.remove(hostId);
+    }
+
+    /**
+     * Forgets all sightings.
+     */
+    void clear() {
+        sightings.clear();
+    }
+
+    /**
+     * Queues a changed host description for the next batch, merging it with
+     * any description already queued for the host. The latest locations
+     * prevail and IP addresses accumulate, as they would in the store.
+     * Queued descriptions are learnt rather than configured.
+     *
+     * @param hostId      host identifier
+     * @param description host description
+     */
+    void enqueue(HostId hostId, HostDescription description) {
+        pending.merge(hostId, description, (queued, latest) ->
+                new DefaultHostDescription(latest.hwAddress(), latest.vlan(), latest.locations(),
+                                           Sets.union(queued.ipAddress(), latest.ipAddress()).immutableCopy(),
+                                           false));
+    }
+
+    /**
+     * Removes and returns all queued host descriptions.
+     *
+     * @return queued host descriptions keyed by host
+     */
+    Map<HostId, HostDescription> drain() {
+        Map<HostId, HostDescription> batch = Maps.newHashMap();
+        pending.keySet().forEach(hostId -> {
+            HostDescription description = pending.remove(hostId);
+            if (description != null) {
+                batch.put(hostId, description);
+            }
+        });
+        return batch;
+    }
+
+    /**
+     * Returns the number of sightings recorded.
+     *
+     * @return sighting count
+     */
+    long seenCount() {
+        return seen.get();
+    }
+
+    /**
+     * Returns the number of sightings suppressed.
+     *
+     * @return suppressed sighting count
+     */
+    long suppressedCount() {
+        return suppressed.get();
+    }
+
+    // locations and addresses last reported for a host
+    private static final class Sighting {
+        private final Set<HostLocation> locations;
+        private final Set<IpAddress> ips;
+        private final long reported;
+
+        private Sighting(Set<HostLocation> locations, Set<IpAddress> ips, long reported) {
+            this.locations = locations;
+            this.ips = ips;
+            this.reported = reported;
+        }
+    }
+}
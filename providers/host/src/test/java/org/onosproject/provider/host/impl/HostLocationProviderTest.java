@@ -351,6 +351,30 @@ public class HostLocationProviderTest {
         assertThat(descr.vlan(), is(VLAN));
     }
 
+    /**
+     * When receiving the same ARP again within the sighting window,
+     * does not report the unchanged host again.
+     */
+    @Test
+    public void suppressRepeatedArp() {
+        testProcessor.process(new TestArpPacketContext(DEV1));
+        testProcessor.process(new TestArpPacketContext(DEV1));
+        testProcessor.process(new TestIpv4PacketContext(DEV1));
+        assertThat("suppressRepeatedArp. One host description expected",
+                providerService.descriptions.size(), is(1));
+
+        // The host moved to new switch. Expect one additional host description.
+        testProcessor.process(new TestArpPacketContext(DEV2));
+        assertThat("suppressRepeatedArp. Host motion expected",
+                providerService.descriptions.size(), is(2));
+
+        TestUtils.setField(provider, "hostSightingWindowMs", 0);
+        provider.modified(CTX_FOR_NO_REMOVE);
+        testProcessor.process(new TestArpPacketContext(DEV2));
+        assertThat("suppressRepeatedArp. Suppression disabled",
+                providerService.descriptions.size(), is(3));
+    }
+
     /**
      * When receiving IPv4, updates location only.
      */
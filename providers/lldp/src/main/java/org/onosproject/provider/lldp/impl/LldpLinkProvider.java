@@ -26,6 +26,7 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
@@ -71,6 +72,7 @@ import org.onosproject.net.provider.AbstractProvider;
 import org.onosproject.net.provider.ProviderId;
 import org.onosproject.provider.lldpcommon.LinkDiscovery;
 import org.onosproject.provider.lldpcommon.LinkDiscoveryContext;
+import org.onosproject.provider.lldpcommon.LinkLivenessDetector;
 import org.osgi.service.component.ComponentContext;
 import org.slf4j.Logger;
 
@@ -80,6 +82,7 @@ import com.google.common.collect.Maps;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.onlab.packet.Ethernet.TYPE_BSN;
 import static org.onlab.packet.Ethernet.TYPE_LLDP;
@@ -101,11 +104,16 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
 
     private static final String FORMAT =
             "Settings: enabled={}, useBDDP={}, probeRate={}, " +
-                    "staleLinkAge={}";
+                    "maxProbeRate={}, staleLinkAge={}, fastProbeRate={}, " +
+                    "fastLivenessThreshold={}";
 
     // When a Device/Port has this annotation, do not send out LLDP/BDDP
     public static final String NO_LLDP = "no-lldp";
 
+    // When a Device/Port has this annotation set to true, links from it are
+    // also probed with sequenced probes for fast liveness detection
+    public static final String FAST_LIVENESS = "fast-liveness";
+
     private static final int MAX_RETRIES = 5;
     private static final int RETRY_DELAY = 1_000; // millis
 
@@ -145,6 +153,8 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
 
     private ScheduledExecutorService executor;
     protected ExecutorService eventExecutor;
+    private ScheduledExecutorService livenessExecutor;
+    ScheduledFuture<?> livenessTask;
 
     private boolean shuttingDown = false;
 
@@ -168,12 +178,33 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
             label = "LLDP and BDDP probe rate specified in millis")
     private int probeRate = DEFAULT_PROBE_RATE;
 
+    private static final String PROP_MAX_PROBE_RATE = "maxProbeRate";
+    @Property(name = PROP_MAX_PROBE_RATE, intValue = DEFAULT_PROBE_RATE,
+            label = "Longest probe rate in millis for devices whose ports are unchanged; " +
+                    "kept below half the stale link age")
+    private int maxProbeRate = DEFAULT_PROBE_RATE;
+
     private static final String PROP_STALE_LINK_AGE = "staleLinkAge";
     private static final int DEFAULT_STALE_LINK_AGE = 10000;
     @Property(name = PROP_STALE_LINK_AGE, intValue = DEFAULT_STALE_LINK_AGE,
             label = "Number of millis beyond which links will be considered stale")
     private int staleLinkAge = DEFAULT_STALE_LINK_AGE;
 
+    private static final String PROP_FAST_PROBE_RATE = "fastProbeRate";
+    private static final int DEFAULT_FAST_PROBE_RATE = 0;
+    @Property(name = PROP_FAST_PROBE_RATE, intValue = DEFAULT_FAST_PROBE_RATE,
+            label = "Sequenced probe rate in millis for links annotated for fast liveness detection, " +
+                    "e.g. 10; 0 disables fast liveness detection")
+    private int fastProbeRate = DEFAULT_FAST_PROBE_RATE;
+
+    private static final String PROP_FAST_LIVENESS_THRESHOLD = "fastLivenessThreshold";
+    private static final int DEFAULT_FAST_LIVENESS_THRESHOLD = 4;
+    @Property(name = PROP_FAST_LIVENESS_THRESHOLD, intValue = DEFAULT_FAST_LIVENESS_THRESHOLD,
+            label = "Phi value beyond which a link under fast liveness detection is considered down")
+    private int fastLivenessThreshold = DEFAULT_FAST_LIVENESS_THRESHOLD;
+
+    private final LinkLivenessDetector livenessDetector = new LinkLivenessDetector();
+
     private final LinkDiscoveryContext context = new InternalDiscoveryContext();
     private final InternalRoleListener roleListener = new InternalRoleListener();
     private final InternalDeviceListener deviceListener = new InternalDeviceListener();
@@ -297,7 +328,7 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         Dictionary<?, ?> properties = context != null ? context.getProperties() : new Properties();
 
         boolean newEnabled, newUseBddp;
-        int newProbeRate, newStaleLinkAge;
+        int newProbeRate, newMaxProbeRate, newStaleLinkAge, newFastProbeRate, newFastLivenessThreshold;
         try {
             String s = get(properties, PROP_ENABLED);
             newEnabled = isNullOrEmpty(s) || Boolean.parseBoolean(s.trim());
@@ -308,15 +339,27 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
             s = get(properties, PROP_PROBE_RATE);
             newProbeRate = isNullOrEmpty(s) ? probeRate : Integer.parseInt(s.trim());
 
+            s = get(properties, PROP_MAX_PROBE_RATE);
+            newMaxProbeRate = isNullOrEmpty(s) ? maxProbeRate : Integer.parseInt(s.trim());
+
             s = get(properties, PROP_STALE_LINK_AGE);
             newStaleLinkAge = isNullOrEmpty(s) ? staleLinkAge : Integer.parseInt(s.trim());
 
+            s = get(properties, PROP_FAST_PROBE_RATE);
+            newFastProbeRate = isNullOrEmpty(s) ? fastProbeRate : Integer.parseInt(s.trim());
+
+            s = get(properties, PROP_FAST_LIVENESS_THRESHOLD);
+            newFastLivenessThreshold = isNullOrEmpty(s) ? fastLivenessThreshold : Integer.parseInt(s.trim());
+
         } catch (NumberFormatException e) {
             log.warn("Component configuration had invalid values", e);
             newEnabled = enabled;
             newUseBddp = useBddp;
             newProbeRate = probeRate;
+            newMaxProbeRate = maxProbeRate;
             newStaleLinkAge = staleLinkAge;
+            newFastProbeRate = fastProbeRate;
+            newFastLivenessThreshold = fastLivenessThreshold;
         }
 
         boolean wasEnabled = enabled;
@@ -324,7 +367,11 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         enabled = newEnabled;
         useBddp = newUseBddp;
         probeRate = newProbeRate;
+        maxProbeRate = newMaxProbeRate;
         staleLinkAge = newStaleLinkAge;
+        boolean fastProbeRateChanged = fastProbeRate != newFastProbeRate;
+        fastProbeRate = newFastProbeRate;
+        fastLivenessThreshold = newFastLivenessThreshold;
 
         if (!wasEnabled && enabled) {
             enable();
@@ -334,10 +381,14 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
             if (enabled) {
                 // update all discovery helper state
                 loadDevices();
+                if (fastProbeRateChanged) {
+                    scheduleLivenessTask();
+                }
             }
         }
 
-        log.info(FORMAT, enabled, useBddp, probeRate, staleLinkAge);
+        log.info(FORMAT, enabled, useBddp, probeRate, maxProbeRate, staleLinkAge,
+                 fastProbeRate, fastLivenessThreshold);
     }
 
     /**
@@ -357,9 +408,29 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         executor.scheduleAtFixedRate(new LinkPrunerTask(),
                                      LINK_PRUNER_DELAY, LINK_PRUNER_DELAY, SECONDS);
 
+        livenessExecutor = newSingleThreadScheduledExecutor(groupedThreads("onos/link", "liveness-%d", log));
+        scheduleLivenessTask();
+
         requestIntercepts();
     }
 
+    /**
+     * (Re)schedules fast liveness probing and detection at the current
+     * fast probe rate.
+     */
+    private synchronized void scheduleLivenessTask() {
+        if (livenessTask != null) {
+            livenessTask.cancel(false);
+            livenessTask = null;
+        }
+        livenessDetector.clear();
+        if (livenessExecutor != null && fastProbeRate > 0) {
+            livenessTask = livenessExecutor.scheduleAtFixedRate(new LinkLivenessTask(),
+                                                                fastProbeRate, fastProbeRate,
+                                                                MILLISECONDS);
+        }
+    }
+
     /**
      * Disables link discovery processing.
      */
@@ -374,9 +445,17 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         if (executor != null) {
             executor.shutdownNow();
         }
+        synchronized (this) {
+            if (livenessExecutor != null) {
+                livenessExecutor.shutdownNow();
+                livenessExecutor = null;
+                livenessTask = null;
+            }
+        }
         discoverers.values().forEach(LinkDiscovery::stop);
         discoverers.clear();
         linkTimes.clear();
+        livenessDetector.clear();
 
         providerService = null;
     }
@@ -752,6 +831,39 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
         }
     }
 
+    /**
+     * Sends sequenced probes for fast liveness detection and declares links
+     * whose phi exceeds the threshold as vanished, well ahead of the regular
+     * stale link pruning.
+     */
+    private class LinkLivenessTask implements Runnable {
+        @Override
+        public void run() {
+            try {
+                discoverers.values().forEach(LinkDiscovery::sendFastProbes);
+
+                for (LinkKey key : livenessDetector.links()) {
+                    if (!masterService.isLocalMaster(key.dst().deviceId())) {
+                        livenessDetector.remove(key);
+                    } else if (livenessDetector.phi(key) > fastLivenessThreshold) {
+                        log.debug("Link {} declared down after {} lost probes",
+                                  key, livenessDetector.lostProbes(key));
+                        livenessDetector.remove(key);
+                        linkTimes.remove(key);
+                        providerService.linkVanished(new DefaultLinkDescription(key.src(), key.dst(), DIRECT));
+                    }
+                }
+            } catch (Exception e) {
+                // Catch all exceptions to avoid task being suppressed
+                if (!shuttingDown) {
+                    log.error("Exception thrown during fast link liveness detection", e);
+                } else {
+                    log.trace("Shutting down, ignoring error", e);
+                }
+            }
+        }
+    }
+
     /**
      * Provides processing context for the device link discovery helpers.
      */
@@ -776,6 +888,12 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
             return probeRate;
         }
 
+        @Override
+        public long maxProbeRate() {
+            // links must be probed at least twice within their stale age
+            return Math.max(probeRate, Math.min(maxProbeRate, staleLinkAge / 2));
+        }
+
         @Override
         public boolean useBddp() {
             return useBddp;
@@ -786,6 +904,19 @@ public class LldpLinkProvider extends AbstractProvider implements ProbedLinkProv
             linkTimes.put(key, System.currentTimeMillis());
         }
 
+        @Override
+        public boolean useFastLiveness(Port port) {
+            return fastProbeRate > 0 &&
+                    (Boolean.parseBoolean(port.annotations().value(FAST_LIVENESS)) ||
+                            (port.element() != null &&
+                                    Boolean.parseBoolean(port.element().annotations().value(FAST_LIVENESS))));
+        }
+
+        @Override
+        public boolean reportLiveness(LinkKey key, int sequence) {
+            return livenessDetector.report(key, sequence);
+        }
+
         @Override
         public DeviceService deviceService() {
             return deviceService;
@@ -17,8 +17,10 @@ package org.onosproject.provider.lldp.impl;
 
 import java.nio.ByteBuffer;
 import java.util.Collections;
+import java.util.Dictionary;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -30,6 +32,7 @@ import org.junit.Test;
 import org.onlab.packet.ChassisId;
 import org.onlab.packet.Ethernet;
 import org.onlab.packet.MacAddress;
+import org.onlab.osgi.ComponentContextAdapter;
 import org.onlab.packet.ONOSLLDP;
 import org.onosproject.cfg.ComponentConfigAdapter;
 import org.onosproject.cluster.ClusterMetadataServiceAdapter;
@@ -468,6 +471,32 @@ public class LldpLinkProviderTest {
     }
 
 
+    /**
+     * Tests that fast liveness detection only probes once a fast probe rate
+     * is configured, and stops when it is set back to 0.
+     */
+    @Test
+    public void fastLivenessOffByDefault() {
+        assertNull("Fast liveness probing should be off", provider.livenessTask);
+
+        provider.modified(fastProbeRate("10"));
+        assertNotNull("Fast liveness probing should be on", provider.livenessTask);
+
+        provider.modified(fastProbeRate("0"));
+        assertNull("Fast liveness probing should be off", provider.livenessTask);
+    }
+
+    private ComponentContextAdapter fastProbeRate(String rate) {
+        return new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("fastProbeRate", rate);
+                return props;
+            }
+        };
+    }
+
     @After
     public void tearDown() {
         provider.deactivate();
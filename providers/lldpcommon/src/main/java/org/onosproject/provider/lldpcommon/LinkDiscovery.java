@@ -40,7 +40,10 @@ import org.onosproject.net.link.ProbedLinkProvider;
 import org.slf4j.Logger;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -54,6 +57,16 @@ import static org.slf4j.LoggerFactory.getLogger;
  * fast. Every probeRate milliseconds, loop over all fast ports and send an
  * LLDP, send an LLDP for a single slow port. Based on FlowVisor topology
  * discovery implementation.
+ * <p>
+ * Probes are patched from per-device templates rather than serialized anew,
+ * and while the ports of the device remain unchanged the probe interval is
+ * relaxed step by step up to the context's maximum probe rate; any port
+ * change brings it back to the base probe rate.
+ * </p>
+ * <p>
+ * Ports selected for fast liveness detection additionally get sequenced
+ * probes whenever {@link #sendFastProbes()} is invoked.
+ * </p>
  */
 public class LinkDiscovery implements TimerTask {
 
@@ -62,13 +75,22 @@ public class LinkDiscovery implements TimerTask {
     private final Device device;
     private final LinkDiscoveryContext context;
 
-    private final Ethernet ethPacket;
-    private final Ethernet bddpEth;
+    // number of unchanged probe rounds after which the probe interval doubles
+    private static final int STABLE_ROUNDS = 3;
+
+    private LinkProbeTemplate lldpTemplate;
+    private LinkProbeTemplate bddpTemplate;
+    private LinkProbeTemplate sequencedTemplate;
+
+    private volatile int stableRounds;
 
     private Timeout timeout;
     private volatile boolean isStopped;
     // Set of ports to be probed
     private final Set<Long> ports = Sets.newConcurrentHashSet();
+    // Subset of ports also probed for fast liveness detection
+    private final Set<Long> fastPorts = Sets.newConcurrentHashSet();
+    private final AtomicInteger sequence = new AtomicInteger();
 
     /**
      * Instantiates discovery manager for the given physical switch. Creates a
@@ -82,16 +104,6 @@ public class LinkDiscovery implements TimerTask {
         this.device = device;
         this.context = context;
 
-        ethPacket = new Ethernet();
-        ethPacket.setEtherType(Ethernet.TYPE_LLDP);
-        ethPacket.setDestinationMACAddress(MacAddress.ONOS_LLDP);
-        ethPacket.setPad(true);
-
-        bddpEth = new Ethernet();
-        bddpEth.setEtherType(Ethernet.TYPE_BSN);
-        bddpEth.setDestinationMACAddress(MacAddress.BROADCAST);
-        bddpEth.setPad(true);
-
         isStopped = true;
         start();
         log.debug("Started discovery manager for switch {}", device.id());
@@ -110,6 +122,7 @@ public class LinkDiscovery implements TimerTask {
     public synchronized void start() {
         if (isStopped) {
             isStopped = false;
+            stableRounds = 0;
             timeout = Timer.newTimeout(this, 0, MILLISECONDS);
         } else {
             log.warn("LinkDiscovery started multiple times?");
@@ -128,6 +141,14 @@ public class LinkDiscovery implements TimerTask {
      */
     public void addPort(Port port) {
         boolean newPort = ports.add(port.number().toLong());
+        if (newPort) {
+            stableRounds = 0;
+        }
+        if (context.useFastLiveness(port)) {
+            fastPorts.add(port.number().toLong());
+        } else {
+            fastPorts.remove(port.number().toLong());
+        }
         boolean isMaster = context.mastershipService().isLocalMaster(device.id());
         if (newPort && isMaster) {
             log.debug("Sending initial probe to port {}@{}", port.number().toLong(), device.id());
@@ -140,7 +161,10 @@ public class LinkDiscovery implements TimerTask {
      * @param port the port number
      */
     public void removePort(PortNumber port) {
-        ports.remove(port.toLong());
+        if (ports.remove(port.toLong())) {
+            stableRounds = 0;
+        }
+        fastPorts.remove(port.toLong());
     }
 
     /**
@@ -178,6 +202,22 @@ public class LinkDiscovery implements TimerTask {
                 ConnectPoint dst = new ConnectPoint(dstDeviceId, dstPort);
 
                 LinkDescription ld = new DefaultLinkDescription(src, dst, lt);
+                Integer seq = onoslldp.getSequence();
+                if (seq != null) {
+                    // sequenced probes keep links alive and only announce
+                    // them when they are not tracked, e.g. once declared down
+                    LinkKey key = LinkKey.linkKey(src, dst);
+                    if (context.reportLiveness(key, seq)) {
+                        try {
+                            context.providerService().linkDetected(ld);
+                        } catch (IllegalStateException e) {
+                            return true;
+                        }
+                    }
+                    context.touchLink(key);
+                    return true;
+                }
+
                 try {
                     context.providerService().linkDetected(ld);
                     context.touchLink(LinkKey.linkKey(src, dst));
@@ -215,14 +255,28 @@ public class LinkDiscovery implements TimerTask {
 
         if (context.mastershipService().isLocalMaster(device.id())) {
             log.trace("Sending probes from {}", device.id());
-            ports.forEach(this::sendProbes);
+            sendProbes(ports);
         }
 
         if (!isStopped()) {
-            timeout = t.timer().newTimeout(this, context.probeRate(), MILLISECONDS);
+            timeout = t.timer().newTimeout(this, nextProbeInterval(), MILLISECONDS);
         }
     }
 
+    /**
+     * Returns the delay until the next probe round, doubling the base probe
+     * rate for every {@value #STABLE_ROUNDS} rounds without port changes,
+     * up to the maximum probe rate.
+     *
+     * @return delay in millis
+     */
+    private long nextProbeInterval() {
+        long probeRate = context.probeRate();
+        long maxProbeRate = Math.max(probeRate, context.maxProbeRate());
+        int doublings = Math.min(stableRounds++ / STABLE_ROUNDS, Long.numberOfLeadingZeros(probeRate) - 1);
+        return Math.min(probeRate << doublings, maxProbeRate);
+    }
+
     /**
      * Creates packet_out LLDP for specified output port.
      *
@@ -233,11 +287,7 @@ public class LinkDiscovery implements TimerTask {
         if (port == null) {
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(port);
-        ethPacket.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
-        return new DefaultOutboundPacket(device.id(),
-                                         builder().setOutput(portNumber(port)).build(),
-                                         ByteBuffer.wrap(ethPacket.serialize()));
+        return createOutBound(lldpTemplate(), port);
     }
 
     /**
@@ -250,15 +300,59 @@ public class LinkDiscovery implements TimerTask {
         if (port == null) {
             return null;
         }
-        ONOSLLDP lldp = getLinkProbe(port);
-        bddpEth.setSourceMACAddress(context.fingerprint()).setPayload(lldp);
+        return createOutBound(bddpTemplate(), port);
+    }
+
+    private OutboundPacket createOutBound(LinkProbeTemplate template, long port) {
         return new DefaultOutboundPacket(device.id(),
                                          builder().setOutput(portNumber(port)).build(),
-                                         ByteBuffer.wrap(bddpEth.serialize()));
+                                         ByteBuffer.wrap(template.probe(port)));
     }
 
-    private ONOSLLDP getLinkProbe(Long port) {
-        return ONOSLLDP.onosLLDP(device.id().toString(), device.chassisId(), port.intValue());
+    // templates are rebuilt should the cluster fingerprint change
+    private synchronized LinkProbeTemplate lldpTemplate() {
+        String fingerprint = context.fingerprint();
+        if (lldpTemplate == null || !lldpTemplate.matches(fingerprint)) {
+            lldpTemplate = LinkProbeTemplate.create(device.id().toString(), device.chassisId(),
+                                                    Ethernet.TYPE_LLDP, MacAddress.ONOS_LLDP, fingerprint);
+        }
+        return lldpTemplate;
+    }
+
+    private synchronized LinkProbeTemplate bddpTemplate() {
+        String fingerprint = context.fingerprint();
+        if (bddpTemplate == null || !bddpTemplate.matches(fingerprint)) {
+            bddpTemplate = LinkProbeTemplate.create(device.id().toString(), device.chassisId(),
+                                                    Ethernet.TYPE_BSN, MacAddress.BROADCAST, fingerprint);
+        }
+        return bddpTemplate;
+    }
+
+    private synchronized LinkProbeTemplate sequencedTemplate() {
+        String fingerprint = context.fingerprint();
+        if (sequencedTemplate == null || !sequencedTemplate.matches(fingerprint)) {
+            sequencedTemplate = LinkProbeTemplate.createSequenced(device.id().toString(), device.chassisId(),
+                                                                  fingerprint);
+        }
+        return sequencedTemplate;
+    }
+
+    /**
+     * Sends the next sequenced probe out of each port selected for fast
+     * liveness detection, if this instance is master of the device.
+     */
+    public void sendFastProbes() {
+        if (isStopped() || fastPorts.isEmpty() || context.packetService() == null ||
+                !context.mastershipService().isLocalMaster(device.id())) {
+            return;
+        }
+        LinkProbeTemplate template = sequencedTemplate();
+        int seq = sequence.incrementAndGet();
+        for (long port : fastPorts) {
+            context.packetService().emit(new DefaultOutboundPacket(device.id(),
+                                                                   builder().setOutput(portNumber(port)).build(),
+                                                                   ByteBuffer.wrap(template.probe(port, seq))));
+        }
     }
 
     private void sendProbes(Long portNumber) {
@@ -274,6 +368,28 @@ public class LinkDiscovery implements TimerTask {
         }
     }
 
+    /**
+     * Sends probes out of all given ports, building the whole batch from the
+     * device templates before handing it to the packet service.
+     *
+     * @param portNumbers port numbers
+     */
+    private void sendProbes(Set<Long> portNumbers) {
+        if (context.packetService() == null || portNumbers.isEmpty()) {
+            return;
+        }
+        LinkProbeTemplate lldp = lldpTemplate();
+        LinkProbeTemplate bddp = context.useBddp() ? bddpTemplate() : null;
+        List<OutboundPacket> batch = new ArrayList<>(portNumbers.size() * (bddp == null ? 1 : 2));
+        for (long port : portNumbers) {
+            batch.add(createOutBound(lldp, port));
+            if (bddp != null) {
+                batch.add(createOutBound(bddp, port));
+            }
+        }
+        batch.forEach(context.packetService()::emit);
+    }
+
     public boolean containsPort(long portNumber) {
         return ports.contains(portNumber);
     }
@@ -17,6 +17,7 @@ package org.onosproject.provider.lldpcommon;
 
 import org.onosproject.mastership.MastershipService;
 import org.onosproject.net.LinkKey;
+import org.onosproject.net.Port;
 import org.onosproject.net.device.DeviceService;
 import org.onosproject.net.link.LinkProviderService;
 import org.onosproject.net.packet.PacketService;
@@ -61,6 +62,16 @@ public interface LinkDiscoveryContext {
      */
     long probeRate();
 
+    /**
+     * Returns the longest interval in millis to which probing of a device
+     * may be relaxed while its ports remain unchanged.
+     *
+     * @return maximum probe rate
+     */
+    default long maxProbeRate() {
+        return probeRate();
+    }
+
     /**
      * Indicates whether to emit BDDP.
      *
@@ -75,6 +86,29 @@ public interface LinkDiscoveryContext {
      */
     void touchLink(LinkKey key);
 
+    /**
+     * Indicates whether the link starting at the given port is to be probed
+     * with sequenced probes for fast liveness detection.
+     *
+     * @param port the port
+     * @return true for fast liveness probing
+     */
+    default boolean useFastLiveness(Port port) {
+        return false;
+    }
+
+    /**
+     * Reports a sequenced probe received over the link identified by the
+     * given key.
+     *
+     * @param key      link key
+     * @param sequence probe sequence number
+     * @return true if the link was not being tracked before this probe
+     */
+    default boolean reportLiveness(LinkKey key, int sequence) {
+        return false;
+    }
+
     /**
      * Returns the cluster-wide unique identifier.
      *
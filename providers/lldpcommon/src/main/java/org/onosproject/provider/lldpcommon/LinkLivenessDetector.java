@@ -0,0 +1,222 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import org.onosproject.net.LinkKey;
+
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Phi accrual failure detector for links probed with sequenced LLDP probes.
+ * <p>
+ * Inter-arrival times of probes are tracked per link. The sequence number of
+ * each probe is used to discount probes lost in between from the inter-arrival
+ * samples, so sporadic loss does not stretch the expected interval, and to
+ * ignore duplicated or reordered probes. A run of probes going backwards is
+ * taken as the sender having restarted its sequence, e.g. after a mastership
+ * change, and the sequence is tracked anew from there on.
+ * </p>
+ */
+public class LinkLivenessDetector {
+
+    private static final int DEFAULT_WINDOW_SIZE = 100;
+    private static final int DEFAULT_MIN_SAMPLES = 10;
+    private static final double PHI_FACTOR = 1.0 / Math.log(10.0);
+    // consecutive backward probes after which the sender is deemed restarted
+    private static final int RESTART_THRESHOLD = 3;
+
+    private final Map<LinkKey, History> states = Maps.newConcurrentMap();
+
+    private final int windowSize;
+    private final int minSamples;
+
+    /**
+     * Creates a detector with the default sample window.
+     */
+    public LinkLivenessDetector() {
+        this(DEFAULT_WINDOW_SIZE, DEFAULT_MIN_SAMPLES);
+    }
+
+    /**
+     * Creates a detector.
+     *
+     * @param windowSize number of inter-arrival samples retained per link
+     * @param minSamples number of samples required before phi is computed
+     */
+    public LinkLivenessDetector(int windowSize, int minSamples) {
+        checkArgument(windowSize > 0, "windowSize must be positive");
+        checkArgument(minSamples > 0 && minSamples <= windowSize,
+                      "minSamples must be positive and not exceed windowSize");
+        this.windowSize = windowSize;
+        this.minSamples = minSamples;
+    }
+
+    /**
+     * Reports the arrival of a sequenced probe over the specified link.
+     *
+     * @param key      link key
+     * @param sequence probe sequence number
+     * @return true if the link was not tracked before this probe
+     */
+    public boolean report(LinkKey key, int sequence) {
+        return report(key, sequence, System.nanoTime());
+    }
+
+    /**
+     * Reports the arrival of a sequenced probe over the specified link.
+     *
+     * @param key          link key
+     * @param sequence     probe sequence number
+     * @param arrivalNanos arrival time in nanos
+     * @return true if the link was not tracked before this probe
+     */
+    public boolean report(LinkKey key, int sequence, long arrivalNanos) {
+        checkNotNull(key, "LinkKey must not be null");
+        History history = states.computeIfAbsent(key, k -> new History(windowSize));
+        synchronized (history) {
+            boolean first = !history.started;
+            if (!first) {
+                // wrap-safe distance between sequence numbers
+                int gap = sequence - history.lastSequence;
+                if (gap > 0) {
+                    history.lost += gap - 1;
+                    history.add((double) (arrivalNanos - history.lastArrival) / gap);
+                } else if (++history.backwards < RESTART_THRESHOLD) {
+                    return false;
+                }
+                // on a restart of the sender's sequence the samples still
+                // hold; only the sequence is rebased
+                history.backwards = 0;
+            }
+            history.started = true;
+            history.lastSequence = sequence;
+            history.lastArrival = arrivalNanos;
+            return first;
+        }
+    }
+
+    /**
+     * Computes phi for the specified link.
+     *
+     * @param key link key
+     * @return phi value; 0 while the link has too few samples
+     */
+    public double phi(LinkKey key) {
+        return phi(key, System.nanoTime());
+    }
+
+    /**
+     * Computes phi for the specified link at the given time.
+     *
+     * @param key      link key
+     * @param nowNanos current time in nanos
+     * @return phi value; 0 while the link has too few samples
+     */
+    public double phi(LinkKey key, long nowNanos) {
+        checkNotNull(key, "LinkKey must not be null");
+        History history = states.get(key);
+        if (history == null) {
+            return 0.0;
+        }
+        synchronized (history) {
+            if (history.count < minSamples) {
+                return 0.0;
+            }
+            double mean = history.mean();
+            return mean > 0 ? PHI_FACTOR * (nowNanos - history.lastArrival) / mean : 0.0;
+        }
+    }
+
+    /**
+     * Returns the number of probes known to be lost over the specified link.
+     *
+     * @param key link key
+     * @return number of lost probes
+     */
+    public long lostProbes(LinkKey key) {
+        History history = states.get(key);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            return history.lost;
+        }
+    }
+
+    /**
+     * Returns the links being tracked.
+     *
+     * @return set of link keys
+     */
+    public Set<LinkKey> links() {
+        return ImmutableSet.copyOf(states.keySet());
+    }
+
+    /**
+     * Stops tracking the specified link.
+     *
+     * @param key link key
+     */
+    public void remove(LinkKey key) {
+        states.remove(key);
+    }
+
+    /**
+     * Stops tracking all links.
+     */
+    public void clear() {
+        states.clear();
+    }
+
+    // ring buffer of inter-arrival samples with a running sum
+    private static class History {
+        private final double[] samples;
+        private int next;
+        private int count;
+        private double sum;
+
+        private boolean started;
+        private int lastSequence;
+        private int backwards;
+        private long lastArrival;
+        private long lost;
+
+        History(int windowSize) {
+            samples = new double[windowSize];
+        }
+
+        void add(double sample) {
+            if (count == samples.length) {
+                sum -= samples[next];
+            } else {
+                count++;
+            }
+            samples[next] = sample;
+            sum += sample;
+            next = (next + 1) % samples.length;
+        }
+
+        double mean() {
+            return sum / count;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.LLDPOrganizationalTLV;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.ONOSLLDP;
+
+import java.util.Arrays;
+
+/**
+ * Pre-serialized LLDP or BDDP probe frame for a device. Only the port ID TLV
+ * differs between the probes sent out of the ports of a device, so the frame
+ * is serialized once and the port number is patched into a copy for each port.
+ * Sequenced templates also carry a sequence number TLV patched for each probe.
+ */
+public final class LinkProbeTemplate {
+
+    private static final int ETHERNET_HEADER_LENGTH = 14;
+    private static final int TLV_HEADER_LENGTH = 2;
+    private static final int PORT_TLV_TYPE = 2;
+    private static final int PORT_TLV_LENGTH = 5;
+    private static final int END_TLV_TYPE = 0;
+
+    private final String fingerprint;
+    private final byte[] frame;
+    private final int portOffset;
+    private final int sequenceOffset;
+
+    private LinkProbeTemplate(String fingerprint, byte[] frame, int portOffset, int sequenceOffset) {
+        this.fingerprint = fingerprint;
+        this.frame = frame;
+        this.portOffset = portOffset;
+        this.sequenceOffset = sequenceOffset;
+    }
+
+    /**
+     * Creates a probe template for the given device.
+     *
+     * @param deviceId    device identifier string carried in the probe
+     * @param chassisId   chassis identifier of the device
+     * @param etherType   LLDP or BSN ether type
+     * @param destination destination MAC address
+     * @param fingerprint source MAC address identifying the cluster
+     * @return probe template
+     */
+    public static LinkProbeTemplate create(String deviceId, ChassisId chassisId,
+                                           short etherType, MacAddress destination,
+                                           String fingerprint) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(etherType);
+        eth.setDestinationMACAddress(destination);
+        eth.setSourceMACAddress(fingerprint);
+        eth.setPad(true);
+        eth.setPayload(ONOSLLDP.onosLLDP(deviceId, chassisId, 0));
+        byte[] frame = eth.serialize();
+        return new LinkProbeTemplate(fingerprint, frame, findPortOffset(frame), -1);
+    }
+
+    /**
+     * Creates a template for sequenced LLDP probes of the given device.
+     *
+     * @param deviceId    device identifier string carried in the probe
+     * @param chassisId   chassis identifier of the device
+     * @param fingerprint source MAC address identifying the cluster
+     * @return sequenced probe template
+     */
+    public static LinkProbeTemplate createSequenced(String deviceId, ChassisId chassisId,
+                                                    String fingerprint) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(Ethernet.TYPE_LLDP);
+        eth.setDestinationMACAddress(MacAddress.ONOS_LLDP);
+        eth.setSourceMACAddress(fingerprint);
+        eth.setPad(true);
+        eth.setPayload(ONOSLLDP.onosSequencedLLDP(deviceId, chassisId, 0, 0));
+        byte[] frame = eth.serialize();
+        return new LinkProbeTemplate(fingerprint, frame, findPortOffset(frame), findSequenceOffset(frame));
+    }
+
+    // LLDP mandates the chassis ID TLV first and the port ID TLV second
+    private static int findPortOffset(byte[] frame) {
+        int chassisLength = ((frame[ETHERNET_HEADER_LENGTH] & 0x1) << 8) |
+                (frame[ETHERNET_HEADER_LENGTH + 1] & 0xff);
+        int tlv = ETHERNET_HEADER_LENGTH + TLV_HEADER_LENGTH + chassisLength;
+        int type = (frame[tlv] & 0xff) >> 1;
+        int length = ((frame[tlv] & 0x1) << 8) | (frame[tlv + 1] & 0xff);
+        if (type != PORT_TLV_TYPE || length != PORT_TLV_LENGTH) {
+            throw new IllegalStateException("Unexpected LLDP layout");
+        }
+        // skip the TLV header and the port ID subtype
+        return tlv + TLV_HEADER_LENGTH + 1;
+    }
+
+    // walks the TLVs for the organizational TLV of the ONOS sequence subtype
+    private static int findSequenceOffset(byte[] frame) {
+        byte[] oui = MacAddress.ONOS.oui();
+        int tlv = ETHERNET_HEADER_LENGTH;
+        while (tlv + TLV_HEADER_LENGTH <= frame.length) {
+            int type = (frame[tlv] & 0xff) >> 1;
+            int length = ((frame[tlv] & 0x1) << 8) | (frame[tlv + 1] & 0xff);
+            if (type == END_TLV_TYPE) {
+                break;
+            }
+            int value = tlv + TLV_HEADER_LENGTH;
+            if (type == LLDPOrganizationalTLV.ORGANIZATIONAL_TLV_TYPE &&
+                    frame[value] == oui[0] && frame[value + 1] == oui[1] && frame[value + 2] == oui[2] &&
+                    frame[value + LLDPOrganizationalTLV.OUI_LENGTH] == ONOSLLDP.SEQUENCE_SUBTYPE) {
+                return value + LLDPOrganizationalTLV.OUI_LENGTH + LLDPOrganizationalTLV.SUBTYPE_LENGTH;
+            }
+            tlv = value + length;
+        }
+        throw new IllegalStateException("Unexpected LLDP layout");
+    }
+
+    /**
+     * Returns whether the template was built for the given fingerprint.
+     *
+     * @param fingerprint source MAC address identifying the cluster
+     * @return true if the template matches the fingerprint
+     */
+    public boolean matches(String fingerprint) {
+        return this.fingerprint.equalsIgnoreCase(fingerprint);
+    }
+
+    /**
+     * Returns a serialized probe frame for the given port.
+     *
+     * @param port port number
+     * @return probe frame
+     */
+    public byte[] probe(long port) {
+        byte[] probe = Arrays.copyOf(frame, frame.length);
+        putInt(probe, portOffset, (int) port);
+        return probe;
+    }
+
+    /**
+     * Returns a serialized sequenced probe frame for the given port.
+     *
+     * @param port     port number
+     * @param sequence sequence number
+     * @return probe frame
+     * @throws IllegalStateException if the template is not sequenced
+     */
+    public byte[] probe(long port, int sequence) {
+        if (sequenceOffset < 0) {
+            throw new IllegalStateException("Probe template is not sequenced");
+        }
+        byte[] probe = probe(port);
+        putInt(probe, sequenceOffset, sequence);
+        return probe;
+    }
+
+    private static void putInt(byte[] frame, int offset, int value) {
+        frame[offset] = (byte) (value >>> 24);
+        frame[offset + 1] = (byte) (value >>> 16);
+        frame[offset + 2] = (byte) (value >>> 8);
+        frame[offset + 3] = (byte) value;
+    }
+}
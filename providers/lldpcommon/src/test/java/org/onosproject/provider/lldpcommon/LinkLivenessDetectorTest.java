@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.junit.Test;
+import org.onosproject.net.ConnectPoint;
+import org.onosproject.net.LinkKey;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the link liveness detector.
+ */
+public class LinkLivenessDetectorTest {
+
+    private static final LinkKey LINK = LinkKey.linkKey(ConnectPoint.deviceConnectPoint("of:1/1"),
+                                                        ConnectPoint.deviceConnectPoint("of:2/1"));
+    private static final long INTERVAL = 10_000_000L;
+
+    private final LinkLivenessDetector detector = new LinkLivenessDetector(100, 10);
+
+    private long feed(int count, int step) {
+        long time = 0;
+        for (int seq = 0; seq < count * step; seq += step) {
+            time = (long) seq * INTERVAL;
+            detector.report(LINK, seq, time);
+        }
+        return time;
+    }
+
+    @Test
+    public void tooFewSamples() {
+        long last = feed(5, 1);
+        assertEquals(0.0, detector.phi(LINK, last + 100 * INTERVAL), 0.0);
+    }
+
+    @Test
+    public void phiGrowsWithSilence() {
+        long last = feed(20, 1);
+        double early = detector.phi(LINK, last + INTERVAL);
+        double late = detector.phi(LINK, last + 10 * INTERVAL);
+        assertTrue(early < 1.0);
+        assertTrue(late > 4.0);
+    }
+
+    @Test
+    public void lostProbesDoNotStretchInterval() {
+        long last = feed(20, 3);
+        assertEquals(38, detector.lostProbes(LINK));
+        // inter-arrival is discounted by the number of lost probes
+        assertEquals(detector.phi(LINK, last + 10 * INTERVAL),
+                     10 / Math.log(10.0), 1e-9);
+    }
+
+    @Test
+    public void reorderedProbesIgnored() {
+        long last = feed(20, 1);
+        detector.report(LINK, 5, last + INTERVAL);
+        assertEquals(0, detector.lostProbes(LINK));
+        assertEquals(detector.phi(LINK, last + 10 * INTERVAL),
+                     10 / Math.log(10.0), 1e-9);
+    }
+
+    @Test
+    public void senderRestart() {
+        long last = feed(20, 1);
+        // a new master starts its probes from the beginning again
+        for (int seq = 1; seq <= 3; seq++) {
+            detector.report(LINK, seq, last + seq * INTERVAL);
+        }
+        assertTrue(detector.phi(LINK, last + 4 * INTERVAL) < 1.0);
+        detector.report(LINK, 4, last + 4 * INTERVAL);
+        assertEquals(0, detector.lostProbes(LINK));
+        assertEquals(detector.phi(LINK, last + 14 * INTERVAL),
+                     10 / Math.log(10.0), 1e-9);
+    }
+
+    @Test
+    public void firstProbeReported() {
+        assertTrue(detector.report(LINK, 7, 0));
+        assertFalse(detector.report(LINK, 8, INTERVAL));
+        detector.remove(LINK);
+        assertTrue(detector.report(LINK, 9, 2 * INTERVAL));
+    }
+
+    @Test
+    public void sequenceWrap() {
+        detector.report(LINK, Integer.MAX_VALUE, 0);
+        detector.report(LINK, Integer.MIN_VALUE, INTERVAL);
+        assertEquals(0, detector.lostProbes(LINK));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.lldpcommon;
+
+import org.junit.Test;
+import org.onlab.packet.ChassisId;
+import org.onlab.packet.Ethernet;
+import org.onlab.packet.MacAddress;
+import org.onlab.packet.ONOSLLDP;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the link probe template.
+ */
+public class LinkProbeTemplateTest {
+
+    private static final String DEVICE = "of:0000000000000001";
+    private static final ChassisId CHASSIS = new ChassisId(1);
+    private static final String FINGERPRINT = "a2:30:67:1c:0a:15";
+
+    @Test
+    public void lldpProbes() {
+        LinkProbeTemplate template = LinkProbeTemplate.create(DEVICE, CHASSIS, Ethernet.TYPE_LLDP,
+                                                              MacAddress.ONOS_LLDP, FINGERPRINT);
+        for (long port : new long[]{0, 1, 255, 65536, 0xfffffffeL}) {
+            assertArrayEquals(serialize(Ethernet.TYPE_LLDP, MacAddress.ONOS_LLDP, port),
+                              template.probe(port));
+        }
+    }
+
+    @Test
+    public void bddpProbes() {
+        LinkProbeTemplate template = LinkProbeTemplate.create(DEVICE, CHASSIS, Ethernet.TYPE_BSN,
+                                                              MacAddress.BROADCAST, FINGERPRINT);
+        assertArrayEquals(serialize(Ethernet.TYPE_BSN, MacAddress.BROADCAST, 42), template.probe(42));
+    }
+
+    @Test
+    public void sequencedProbes() {
+        LinkProbeTemplate template = LinkProbeTemplate.createSequenced(DEVICE, CHASSIS, FINGERPRINT);
+        for (int seq : new int[]{0, 1, 1 << 20, -1}) {
+            Ethernet eth = new Ethernet();
+            eth.setEtherType(Ethernet.TYPE_LLDP);
+            eth.setDestinationMACAddress(MacAddress.ONOS_LLDP);
+            eth.setSourceMACAddress(FINGERPRINT);
+            eth.setPad(true);
+            eth.setPayload(ONOSLLDP.onosSequencedLLDP(DEVICE, CHASSIS, 7, seq));
+            assertArrayEquals(eth.serialize(), template.probe(7, seq));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unsequenced() {
+        LinkProbeTemplate.create(DEVICE, CHASSIS, Ethernet.TYPE_LLDP, MacAddress.ONOS_LLDP, FINGERPRINT)
+                .probe(7, 1);
+    }
+
+    @Test
+    public void fingerprint() {
+        LinkProbeTemplate template = LinkProbeTemplate.create(DEVICE, CHASSIS, Ethernet.TYPE_LLDP,
+                                                              MacAddress.ONOS_LLDP, FINGERPRINT);
+        assertTrue(template.matches(FINGERPRINT.toUpperCase()));
+        assertFalse(template.matches("a2:30:67:1c:0a:16"));
+    }
+
+    private byte[] serialize(short etherType, MacAddress destination, long port) {
+        Ethernet eth = new Ethernet();
+        eth.setEtherType(etherType);
+        eth.setDestinationMACAddress(destination);
+        eth.setSourceMACAddress(FINGERPRINT);
+        eth.setPad(true);
+        eth.setPayload(ONOSLLDP.onosLLDP(DEVICE, CHASSIS, (int) port));
+        return eth.serialize();
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import org.onlab.packet.Ip4Address;
 import org.onlab.packet.Ip4Prefix;
 import org.onlab.packet.Ip6Address;
@@ -63,11 +66,14 @@ import org.onosproject.net.flow.criteria.TunnelIdCriterion;
 import org.onosproject.net.flow.criteria.UdpPortCriterion;
 import org.onosproject.net.flow.criteria.VlanIdCriterion;
 import org.onosproject.net.flow.criteria.VlanPcpCriterion;
+import org.onosproject.net.flow.instructions.Instruction;
 import org.onosproject.openflow.controller.ExtensionSelectorInterpreter;
 import org.onosproject.provider.of.flow.util.NoMappingFoundException;
 import org.onosproject.provider.of.flow.util.OpenFlowValueMapper;
 import org.projectfloodlight.openflow.protocol.OFFactory;
 import org.projectfloodlight.openflow.protocol.OFFlowMod;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.protocol.action.OFAction;
 import org.projectfloodlight.openflow.protocol.match.Match;
 import org.projectfloodlight.openflow.protocol.match.MatchField;
 import org.projectfloodlight.openflow.protocol.oxm.OFOxm;
@@ -98,7 +104,10 @@ import org.projectfloodlight.openflow.types.VlanPcp;
 import org.projectfloodlight.openflow.types.VlanVid;
 import org.slf4j.Logger;
 
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -109,6 +118,17 @@ public abstract class FlowModBuilder {
 
     private final Logger log = getLogger(getClass());
 
+    private static final int TEMPLATE_CACHE_SIZE = 10_000;
+
+    // Encoded matches and actions are immutable and depend only on the
+    // selector or instructions and the protocol version, except for
+    // extensions which depend on the device driver, so the ones of
+    // frequently reused selectors and treatments are shared across flow mods
+    private static final Cache<Template, Match> MATCHES =
+            CacheBuilder.newBuilder().maximumSize(TEMPLATE_CACHE_SIZE).build();
+    private static final Cache<Template, List<OFAction>> ACTIONS =
+            CacheBuilder.newBuilder().maximumSize(TEMPLATE_CACHE_SIZE).build();
+
     private final OFFactory factory;
     private final FlowRule flowRule;
     private final TrafficSelector selector;
@@ -183,12 +203,48 @@ public abstract class FlowModBuilder {
     public abstract OFFlowMod buildFlowDel();
 
     /**
-     * Builds the match for the flow mod.
+     * Builds the match for the flow mod, reusing the match encoded earlier
+     * for an equal selector if there is one.
      *
      * @return the match
      */
-    // CHECKSTYLE IGNORE MethodLength FOR NEXT 300 LINES
     protected Match buildMatch() {
+        if (selector.getCriterion(Criterion.Type.EXTENSION) != null) {
+            return encodeMatch();
+        }
+        Template template = new Template(factory.getVersion(), selector);
+        Match match = MATCHES.getIfPresent(template);
+        if (match == null) {
+            match = encodeMatch();
+            MATCHES.put(template, match);
+        }
+        return match;
+    }
+
+    /**
+     * Returns the actions encoded earlier for equal instructions, or encodes
+     * and retains them if there are none.
+     *
+     * @param instructions instructions to encode
+     * @param encoder      encodes the instructions into actions
+     * @return immutable list of actions
+     */
+    protected List<OFAction> cachedActions(List<Instruction> instructions,
+                                           Supplier<List<OFAction>> encoder) {
+        if (instructions.stream().anyMatch(i -> i.type() == Instruction.Type.EXTENSION)) {
+            return encoder.get();
+        }
+        Template template = new Template(factory.getVersion(), instructions);
+        List<OFAction> actions = ACTIONS.getIfPresent(template);
+        if (actions == null) {
+            actions = ImmutableList.copyOf(encoder.get());
+            ACTIONS.put(template, actions);
+        }
+        return actions;
+    }
+
+    // CHECKSTYLE IGNORE MethodLength FOR NEXT 300 LINES
+    private Match encodeMatch() {
         Match.Builder mBuilder = factory.buildMatch();
         Ip6Address ip6Address;
         Ip4Prefix ip4Prefix;
@@ -575,6 +631,34 @@ public abstract class FlowModBuilder {
         return factory;
     }
 
+    // protocol version and selector or instructions an encoding is for
+    private static final class Template {
+        private final OFVersion version;
+        private final Object source;
+
+        private Template(OFVersion version, Object source) {
+            this.version = version;
+            this.source = source;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * version.hashCode() + source.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Template)) {
+                return false;
+            }
+            Template that = (Template) obj;
+            return version == that.version && Objects.equals(source, that.source);
+        }
+    }
+
     private OFOxm buildExtensionOxm(ExtensionSelector extension) {
         if (!driverService.isPresent()) {
             log.error("No driver service present");
@@ -232,6 +232,10 @@ public class FlowModBuilderVer13 extends FlowModBuilder {
         if (treatment == null) {
             return Collections.emptyList();
         }
+        return cachedActions(treatments, () -> encodeActions(treatments));
+    }
+
+    private List<OFAction> encodeActions(List<Instruction> treatments) {
 
         boolean tableFound = false;
         List<OFAction> actions = new LinkedList<>();
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.Sets;
+import io.netty.util.Timeout;
+import org.onlab.util.Timer;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.CompletedBatchOperation;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Table of the flow rule batches sent to switches and awaiting their
+ * barrier reply.
+ * <p>
+ * Each flow mod of a batch is sent with a transaction id of its own, taken
+ * from a contiguous range allocated to the batch, so that the rule an error
+ * refers to is found from the transaction id of the error without scanning
+ * the batch. The ranges are taken from the upper half of the transaction id
+ * space, apart from the ids the switch drivers and the batch identifiers
+ * count up from zero, and are looked up per device. A batch sent as a
+ * bundle takes two more ids, for the messages opening and committing the
+ * bundle, so that errors on those are traced back to the batch too. Batches
+ * whose barrier reply does not arrive in time are failed as a whole by a
+ * hashed-wheel timer.
+ * </p>
+ */
+final class InFlightBatches {
+
+    // transaction ids are 32 bit on the wire; flow mods use the upper half
+    static final long MIN_XID = 0x80000000L;
+    static final long MAX_XID = 0xffffffffL;
+
+    private final Map<Long, Batch> batches = new ConcurrentHashMap<>();
+    private final Map<DeviceId, NavigableMap<Long, Batch>> byFirstXid = new ConcurrentHashMap<>();
+    private final BiConsumer<Long, CompletedBatchOperation> expired;
+    private final long timeoutMillis;
+
+    private long nextXid = MIN_XID;
+
+    /**
+     * Creates a table of in-flight batches.
+     *
+     * @param expired       notified of the batches failed for lack of a
+     *                      barrier reply, with their id
+     * @param timeoutMillis time allowed for the barrier reply of a batch
+     */
+    InFlightBatches(BiConsumer<Long, CompletedBatchOperation> expired, long timeoutMillis) {
+        this.expired = expired;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Adds a batch about to be sent without a bundle.
+     *
+     * @param operation batch operation
+     * @return transaction id of the first flow mod of the batch
+     * @see #add(FlowRuleBatchOperation, boolean)
+     */
+    long add(FlowRuleBatchOperation operation) {
+        return add(operation, false);
+    }
+
+    /**
+     * Adds a batch about to be sent and returns the transaction id of its
+     * first flow mod; the i-th operation of the batch is to be sent with
+     * that id plus i. The bundle of a bundled batch is to be opened with
+     * that id plus the size of the batch, and committed with the id
+     * following that.
+     *
+     * @param operation batch operation
+     * @param bundled   whether the batch is sent as a bundle
+     * @return transaction id of the first flow mod of the batch
+     */
+    long add(FlowRuleBatchOperation operation, boolean bundled) {
+        long firstXid = allocate(Math.max(1, operation.size()) + (bundled ? 2 : 0));
+        Batch batch = new Batch(operation, firstXid, bundled);
+        Batch previous = batches.put(operation.id(), batch);
+        if (previous != null) {
+            remove(previous);
+        }
+        byFirstXid.compute(operation.deviceId(), (d, deviceBatches) -> {
+            NavigableMap<Long, Batch> updated = deviceBatches == null ? new ConcurrentSkipListMap<>() : deviceBatches;
+            updated.put(firstXid, batch);
+            return updated;
+        });
+        batch.timeout = Timer.newTimeout(t -> expire(operation.id()), timeoutMillis, TimeUnit.MILLISECONDS);
+        return firstXid;
+    }
+
+    private synchronized long allocate(int count) {
+        if (nextXid + count > MAX_XID) {
+            nextXid = MIN_XID;
+        }
+        long first = nextXid;
+        nextXid += count;
+        return first;
+    }
+
+    /**
+     * Completes a batch upon its barrier reply.
+     *
+     * @param deviceId device the barrier reply came from
+     * @param batchId  batch identifier, which is the transaction id of its
+     *                 barrier request
+     * @return completed operation, with the failures reported for the
+     * batch; null if the batch is not in flight on the device
+     */
+    CompletedBatchOperation complete(DeviceId deviceId, long batchId) {
+        Batch batch = batches.get(batchId);
+        if (batch == null || !batch.operation.deviceId().equals(deviceId)
+                || !batches.remove(batchId, batch)) {
+            return null;
+        }
+        remove(batch);
+        batch.timeout.cancel();
+        return batch.completed();
+    }
+
+    /**
+     * Takes a batch flagged to be sent again upon its barrier reply, in
+     * place of completing it.
+     *
+     * @param deviceId device the barrier reply came from
+     * @param batchId  batch identifier
+     * @return operation to send again; null if the batch is not in flight
+     * on the device or is not to be sent again
+     */
+    FlowRuleBatchOperation takeRetry(DeviceId deviceId, long batchId) {
+        Batch batch = batches.get(batchId);
+        if (batch == null || !batch.retry || !batch.operation.deviceId().equals(deviceId)
+                || !batches.remove(batchId, batch)) {
+            return null;
+        }
+        remove(batch);
+        batch.timeout.cancel();
+        return batch.operation;
+    }
+
+    /**
+     * Records the failure of the flow mod sent with the given transaction id.
+     *
+     * @param deviceId device the error came from
+     * @param xid      transaction id of the failed flow mod
+     * @return failed rule; null if the transaction id does not belong to a
+     * flow mod of a batch in flight on the device
+     */
+    FlowRule fail(DeviceId deviceId, long xid) {
+        Batch batch = find(deviceId, xid);
+        if (batch == null) {
+            return null;
+        }
+        List<FlowRuleBatchEntry> operations = batch.operation.getOperations();
+        long index = xid - batch.firstXid;
+        if (index >= operations.size()) {
+            return null;
+        }
+        FlowRule rule = operations.get((int) index).target();
+        batch.failures.add(rule);
+        return rule;
+    }
+
+    /**
+     * Records the failure of all the rules of a bundled batch, as when its
+     * bundle fails to open or commit.
+     *
+     * @param deviceId device the error came from
+     * @param xid      transaction id of any message of the bundle
+     * @return identifier of the batch; null if the transaction id does not
+     * belong to a bundled batch in flight on the device
+     */
+    Long failBundle(DeviceId deviceId, long xid) {
+        Batch batch = find(deviceId, xid);
+        if (batch == null || !batch.bundled) {
+            return null;
+        }
+        batch.operation.getOperations().forEach(entry -> batch.failures.add(entry.target()));
+        return batch.operation.id();
+    }
+
+    /**
+     * Flags a bundled batch rejected for the use of a bundle to be sent
+     * again, without one, upon its barrier reply.
+     *
+     * @param deviceId device the error came from
+     * @param xid      transaction id of any message of the bundle
+     * @return identifier of the batch; null if the transaction id does not
+     * belong to a bundled batch in flight on the device
+     */
+    Long retryUnbundled(DeviceId deviceId, long xid) {
+        Batch batch = find(deviceId, xid);
+        if (batch == null || !batch.bundled) {
+            return null;
+        }
+        batch.retry = true;
+        return batch.operation.id();
+    }
+
+    // batch in flight on the device whose range holds the transaction id
+    private Batch find(DeviceId deviceId, long xid) {
+        NavigableMap<Long, Batch> deviceBatches = byFirstXid.get(deviceId);
+        Map.Entry<Long, Batch> entry = deviceBatches == null ? null : deviceBatches.floorEntry(xid);
+        if (entry == null) {
+            return null;
+        }
+        Batch batch = entry.getValue();
+        return xid - batch.firstXid < batch.xidCount() ? batch : null;
+    }
+
+    /**
+     * Cancels the timeouts of all batches in flight and forgets them.
+     */
+    void clear() {
+        batches.values().forEach(batch -> batch.timeout.cancel());
+        batches.clear();
+        byFirstXid.clear();
+    }
+
+    private void expire(long batchId) {
+        Batch batch = batches.remove(batchId);
+        if (batch != null) {
+            remove(batch);
+            expired.accept(batchId, batch.failedCompletion());
+        }
+    }
+
+    private void remove(Batch batch) {
+        byFirstXid.computeIfPresent(batch.operation.deviceId(), (d, deviceBatches) -> {
+            deviceBatches.remove(batch.firstXid, batch);
+            return deviceBatches.isEmpty() ? null : deviceBatches;
+        });
+    }
+
+    // a batch in flight and the failures reported for it so far
+    private static final class Batch {
+        private final FlowRuleBatchOperation operation;
+        private final long firstXid;
+        private final boolean bundled;
+        private final Set<FlowRule> failures = Sets.newConcurrentHashSet();
+        private volatile Timeout timeout;
+        private volatile boolean retry;
+
+        private Batch(FlowRuleBatchOperation operation, long firstXid, boolean bundled) {
+            this.operation = operation;
+            this.firstXid = firstXid;
+            this.bundled = bundled;
+        }
+
+        private int xidCount() {
+            return Math.max(1, operation.size()) + (bundled ? 2 : 0);
+        }
+
+        private CompletedBatchOperation completed() {
+            return new CompletedBatchOperation(failures.isEmpty(),
+                                               Collections.unmodifiableSet(failures),
+                                               operation.deviceId());
+        }
+
+        private CompletedBatchOperation failedCompletion() {
+            Set<FlowRule> fails = operation.getOperations().stream()
+                    .map(FlowRuleBatchEntry::target).collect(Collectors.toSet());
+            return new CompletedBatchOperation(false, Collections.unmodifiableSet(fails),
+                                               operation.deviceId());
+        }
+    }
+}
@@ -15,17 +15,11 @@
  */
 package org.onosproject.provider.of.flow.impl;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalCause;
-import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
-import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
 import org.apache.felix.scr.annotations.Activate;
 import org.apache.felix.scr.annotations.Component;
 import org.apache.felix.scr.annotations.Deactivate;
@@ -66,6 +60,10 @@ import org.onosproject.provider.of.flow.util.FlowEntryBuilder;
 import org.osgi.service.component.ComponentContext;
 import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
 import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
+import org.projectfloodlight.openflow.protocol.OFBundleCtrlMsg;
+import org.projectfloodlight.openflow.protocol.OFBundleCtrlType;
+import org.projectfloodlight.openflow.protocol.OFBundleFailedCode;
+import org.projectfloodlight.openflow.protocol.OFBundleFlags;
 import org.projectfloodlight.openflow.protocol.OFCapabilities;
 import org.projectfloodlight.openflow.protocol.OFErrorMsg;
 import org.projectfloodlight.openflow.protocol.OFFlowLightweightStatsReply;
@@ -78,18 +76,12 @@ import org.projectfloodlight.openflow.protocol.OFStatsReply;
 import org.projectfloodlight.openflow.protocol.OFStatsType;
 import org.projectfloodlight.openflow.protocol.OFTableStatsEntry;
 import org.projectfloodlight.openflow.protocol.OFTableStatsReply;
-import org.projectfloodlight.openflow.protocol.OFType;
 import org.projectfloodlight.openflow.protocol.OFVersion;
-import org.projectfloodlight.openflow.protocol.errormsg.OFBadActionErrorMsg;
-import org.projectfloodlight.openflow.protocol.errormsg.OFBadInstructionErrorMsg;
-import org.projectfloodlight.openflow.protocol.errormsg.OFBadMatchErrorMsg;
 import org.projectfloodlight.openflow.protocol.errormsg.OFBadRequestErrorMsg;
-import org.projectfloodlight.openflow.protocol.errormsg.OFFlowModFailedErrorMsg;
-import org.projectfloodlight.openflow.types.U16;
-import org.projectfloodlight.openflow.types.U64;
+import org.projectfloodlight.openflow.protocol.errormsg.OFBundleFailedErrorMsg;
+import org.projectfloodlight.openflow.types.BundleId;
 import org.slf4j.Logger;
 
-import java.util.Collections;
 import java.util.Dictionary;
 import java.util.List;
 import java.util.Map;
@@ -128,9 +120,15 @@ public class OpenFlowRuleProvider extends AbstractProvider
     protected DriverService driverService;
 
     private static final int DEFAULT_POLL_FREQUENCY = 5;
-    private static final int MIN_EXPECTED_BYTE_LEN = 56;
-    private static final int SKIP_BYTES = 4;
     private static final boolean DEFAULT_ADAPTIVE_FLOW_SAMPLING = false;
+    private static final boolean DEFAULT_USE_BUNDLES = false;
+    private static final Set<OFBundleFlags> BUNDLE_FLAGS =
+            ImmutableSet.of(OFBundleFlags.ATOMIC, OFBundleFlags.ORDERED);
+    // bundle errors telling the switch does not support bundles as used
+    private static final Set<OFBundleFailedCode> BUNDLE_UNSUPPORTED_CODES =
+            ImmutableSet.of(OFBundleFailedCode.BAD_TYPE, OFBundleFailedCode.BAD_FLAGS,
+                            OFBundleFailedCode.MSG_UNSUP);
+    private static final long BATCH_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(10);
 
     @Property(name = "flowPollFrequency", intValue = DEFAULT_POLL_FREQUENCY,
             label = "Frequency (in seconds) for polling flow statistics")
@@ -140,11 +138,18 @@ public class OpenFlowRuleProvider extends AbstractProvider
             label = "Adaptive Flow Sampling is on or off")
     private boolean adaptiveFlowSampling = DEFAULT_ADAPTIVE_FLOW_SAMPLING;
 
+    @Property(name = "useBundles", boolValue = DEFAULT_USE_BUNDLES,
+            label = "Install flow rule batches atomically as bundles on OpenFlow 1.4+ switches")
+    private boolean useBundles = DEFAULT_USE_BUNDLES;
+
     private FlowRuleProviderService providerService;
 
     private final InternalFlowProvider listener = new InternalFlowProvider();
 
-    private Cache<Long, InternalCacheEntry> pendingBatches;
+    private InFlightBatches pendingBatches;
+
+    // switches found not to support bundles, sent flow mods without them
+    private final Set<Dpid> noBundleSwitches = Sets.newConcurrentHashSet();
 
     private final Timer timer = new Timer("onos-openflow-collector");
 
@@ -172,7 +177,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
 
         modified(context);
 
-        pendingBatches = createBatchCache();
+        pendingBatches = new InFlightBatches((batchId, completed) ->
+                providerService.batchOperationCompleted(batchId, completed), BATCH_TIMEOUT_MILLIS);
 
         createCollectors();
 
@@ -184,6 +190,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
     protected void deactivate(ComponentContext context) {
         cfgService.unregisterProperties(getClass(), false);
         stopCollectors();
+        pendingBatches.clear();
         providerRegistry.unregister(this);
         providerService = null;
 
@@ -222,17 +229,11 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
 
         log.info("Settings: adaptiveFlowSampling={}", adaptiveFlowSampling);
-    }
 
-    private Cache<Long, InternalCacheEntry> createBatchCache() {
-        return CacheBuilder.newBuilder()
-                .expireAfterWrite(10, TimeUnit.SECONDS)
-                .removalListener((RemovalNotification<Long, InternalCacheEntry> notification) -> {
-                    if (notification.getCause() == RemovalCause.EXPIRED) {
-                        providerService.batchOperationCompleted(notification.getKey(),
-                                                                notification.getValue().failedCompletion());
-                    }
-                }).build();
+        s = get(properties, "useBundles");
+        useBundles = isNullOrEmpty(s) ? useBundles : Boolean.parseBoolean(s.trim());
+
+        log.info("Settings: useBundles={}", useBundles);
     }
 
     private void createCollectors() {
@@ -363,9 +364,24 @@ public class OpenFlowRuleProvider extends AbstractProvider
                                                     new CompletedBatchOperation(false, failures, batch.deviceId()));
             return;
         }
-        pendingBatches.put(batch.id(), new InternalCacheEntry(batch));
+        // switches supporting bundles apply the whole batch atomically upon
+        // a single commit; a switch rejecting bundles gets the batch again
+        // without one, and no bundles from then on
+        boolean bundled = useBundles && !noBundleSwitches.contains(dpid)
+                && sw.factory().getVersion().getWireVersion() >= OFVersion.OF_14.getWireVersion();
+        // the i-th flow mod of the batch is sent with transaction id xid + i,
+        // and the bundle is opened and committed with the two ids following
+        long xid = pendingBatches.add(batch, bundled);
+        List<FlowRuleBatchEntry> operations = batch.getOperations();
+        BundleId bundleId = null;
+        if (bundled) {
+            bundleId = BundleId.of((int) xid);
+            sw.sendMsg(buildBundleControl(sw, xid + operations.size(), bundleId,
+                                          OFBundleCtrlType.OPEN_REQUEST));
+        }
         OFFlowMod mod;
-        for (FlowRuleBatchEntry fbe : batch.getOperations()) {
+        for (int i = 0; i < operations.size(); i++) {
+            FlowRuleBatchEntry fbe = operations.get(i);
             // flow is the third party privacy flow
 
             FlowRuleExtPayLoad flowRuleExtPayLoad = fbe.target().payLoad();
@@ -376,7 +392,7 @@ public class OpenFlowRuleProvider extends AbstractProvider
             }
             FlowModBuilder builder =
                     FlowModBuilder.builder(fbe.target(), sw.factory(),
-                            Optional.of(batch.id()), Optional.of(driverService));
+                            Optional.of(xid + i), Optional.of(driverService));
             NewAdaptiveFlowStatsCollector collector = afsCollectors.get(dpid);
             switch (fbe.operator()) {
                 case ADD:
@@ -393,13 +409,36 @@ public class OpenFlowRuleProvider extends AbstractProvider
                             fbe.operator(), fbe);
                     continue;
             }
-            sw.sendMsg(mod);
+            if (bundleId == null) {
+                sw.sendMsg(mod);
+            } else {
+                sw.sendMsg(sw.factory().buildBundleAddMsg()
+                                   .setXid(mod.getXid())
+                                   .setBundleId(bundleId)
+                                   .setFlags(BUNDLE_FLAGS)
+                                   .setData(mod)
+                                   .build());
+            }
+        }
+        if (bundleId != null) {
+            sw.sendMsg(buildBundleControl(sw, xid + operations.size() + 1, bundleId,
+                                          OFBundleCtrlType.COMMIT_REQUEST));
         }
         OFBarrierRequest.Builder builder = sw.factory().buildBarrierRequest()
                 .setXid(batch.id());
         sw.sendMsg(builder.build());
     }
 
+    private OFBundleCtrlMsg buildBundleControl(OpenFlowSwitch sw, long xid, BundleId bundleId,
+                                               OFBundleCtrlType type) {
+        return sw.factory().buildBundleCtrlMsg()
+                .setXid(xid)
+                .setBundleId(bundleId)
+                .setBundleCtrlType(type)
+                .setFlags(BUNDLE_FLAGS)
+                .build();
+    }
+
     private boolean hasPayload(FlowRuleExtPayLoad flowRuleExtPayLoad) {
         return flowRuleExtPayLoad != null &&
                 flowRuleExtPayLoad.payLoad() != null &&
@@ -422,6 +461,8 @@ public class OpenFlowRuleProvider extends AbstractProvider
                 stopCollectorIfNeeded(simpleCollectors.remove(dpid));
             }
             stopCollectorIfNeeded(tableStatsCollectors.remove(dpid));
+            // the switch may come back upgraded
+            noBundleSwitches.remove(dpid);
         }
 
         @Override
@@ -457,18 +498,17 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     }
                     break;
                 case BARRIER_REPLY:
-                    try {
-                        InternalCacheEntry entry = pendingBatches.getIfPresent(msg.getXid());
-                        if (entry != null) {
-                            providerService
-                                    .batchOperationCompleted(msg.getXid(),
-                                                             entry.completed());
-                        } else {
-                            log.warn("Received unknown Barrier Reply: {}",
-                                     msg.getXid());
-                        }
-                    } finally {
-                        pendingBatches.invalidate(msg.getXid());
+                    FlowRuleBatchOperation retry = pendingBatches.takeRetry(deviceId, msg.getXid());
+                    if (retry != null) {
+                        executeBatch(retry);
+                        break;
+                    }
+                    CompletedBatchOperation completed = pendingBatches.complete(deviceId, msg.getXid());
+                    if (completed != null) {
+                        providerService.batchOperationCompleted(msg.getXid(), completed);
+                    } else {
+                        log.warn("Received unknown Barrier Reply: {}",
+                                 msg.getXid());
                     }
                     break;
                 case ERROR:
@@ -479,139 +519,67 @@ public class OpenFlowRuleProvider extends AbstractProvider
                     } else {
                         log.warn("Received error message {} from {}", msg, dpid);
                     }
-                    handleErrorMsg(deviceId, msg);
+                    handleErrorMsg(dpid, deviceId, msg);
                     break;
                 default:
                     log.debug("Unhandled message type: {}", msg.getType());
             }
         }
 
-        private void handleErrorMsg(DeviceId deviceId, OFMessage msg) {
-            InternalCacheEntry entry = pendingBatches.getIfPresent(msg.getXid());
+        private void handleErrorMsg(Dpid dpid, DeviceId deviceId, OFMessage msg) {
             OFErrorMsg error = (OFErrorMsg) msg;
-            OFMessage ofMessage = null;
             switch (error.getErrType()) {
                 case BAD_ACTION:
-                    OFBadActionErrorMsg baErrorMsg = (OFBadActionErrorMsg) error;
-                    if (baErrorMsg.getData().getParsedMessage().isPresent()) {
-                        ofMessage = baErrorMsg.getData().getParsedMessage().get();
-                    }
-                    break;
                 case BAD_INSTRUCTION:
-                    OFBadInstructionErrorMsg biErrorMsg = (OFBadInstructionErrorMsg) error;
-                    if (biErrorMsg.getData().getParsedMessage().isPresent()) {
-                        ofMessage = biErrorMsg.getData().getParsedMessage().get();
-                    }
-                    break;
                 case BAD_MATCH:
-                    OFBadMatchErrorMsg bmErrorMsg = (OFBadMatchErrorMsg) error;
-                    if (bmErrorMsg.getData().getParsedMessage().isPresent()) {
-                        ofMessage = bmErrorMsg.getData().getParsedMessage().get();
-                    }
-                    break;
                 case FLOW_MOD_FAILED:
-                    OFFlowModFailedErrorMsg fmFailed = (OFFlowModFailedErrorMsg) error;
-                    if (fmFailed.getData().getParsedMessage().isPresent()) {
-                        ofMessage = fmFailed.getData().getParsedMessage().get();
+                    break;
+                case BAD_REQUEST:
+                    // a switch not knowing bundles rejects their messages
+                    if (((OFBadRequestErrorMsg) error).getCode() == OFBadRequestCode.BAD_TYPE) {
+                        disableBundles(dpid, deviceId, error.getXid());
+                    }
+                    return;
+                case BUNDLE_FAILED:
+                    if (BUNDLE_UNSUPPORTED_CODES.contains(((OFBundleFailedErrorMsg) error).getCode())
+                            && disableBundles(dpid, deviceId, error.getXid())) {
+                        return;
+                    }
+                    // nothing of a batch is applied if its bundle fails
+                    Long batchId = pendingBatches.failBundle(deviceId, error.getXid());
+                    if (batchId != null) {
+                        log.debug("Bundle of batch {} failed on {}", batchId, deviceId);
+                        return;
                     }
                     break;
                 default:
                     // Do nothing.
                     return;
-                }
-
-                if (ofMessage != null) {
-
-                    if (entry != null)  {
-                        OFFlowMod ofFlowMod = (OFFlowMod) ofMessage;
-                        entry.appendFailure(new FlowEntryBuilder(deviceId, ofFlowMod, getDriver(deviceId)).build());
-                    } else {
-                      log.error("No matching batch for this error: {}", error);
-                    }
-
-                } else {
-
-                    U64 cookieId = readCookieIdFromOFErrorMsg(error, msg.getVersion());
-
-                    if (cookieId != null) {
-                        long flowId = cookieId.getValue();
-
-                        if (entry != null) {
-                            for (FlowRuleBatchEntry fbEntry : entry.operation.getOperations()) {
-                                if (fbEntry.target().id().value() == flowId) {
-                                    entry.appendFailure(fbEntry.target());
-                                    break;
-                                }
-                            }
-                        } else {
-                            log.error("No matching batch for this error: {}", error);
-                        }
-
-                    } else {
-                        log.error("Flow installation failed but switch " +
-                                "didn't tell us which one.");
-                    }
-                }
-        }
-
-        /**
-         * Reading cookieId from OFErrorMsg.
-         *
-         * Loxigen OpenFlow API failed in parsing error messages because of
-         * 64 byte data truncation based on OpenFlow specs. The method written
-         * is a workaround to extract the cookieId from the packet till the
-         * issue is resolved in Loxigen OpenFlow code.
-         * Ref: https://groups.google.com/a/onosproject.org/forum/#!topic
-         * /onos-dev/_KwlHZDllLE
-         *
-         * @param msg OF error message
-         * @param ofVersion Openflow version
-         * @return cookieId
-         */
-        private U64 readCookieIdFromOFErrorMsg(OFErrorMsg msg,
-                                               OFVersion ofVersion) {
-
-            if (ofVersion.wireVersion < OFVersion.OF_13.wireVersion) {
-                log.debug("Unhandled error msg with OF version {} " +
-                        "which is less than {}",
-                        ofVersion, OFVersion.OF_13);
-                return null;
             }
 
-            ByteBuf bb = Unpooled.wrappedBuffer(msg.getData().getData());
-
-            if (bb.readableBytes() < MIN_EXPECTED_BYTE_LEN) {
-                log.debug("Wrong length: Expected to be >= {}, was: {}",
-                        MIN_EXPECTED_BYTE_LEN, bb.readableBytes());
-                return null;
-            }
-
-            byte ofVer = bb.readByte();
-
-            if (ofVer != ofVersion.wireVersion) {
-                log.debug("Wrong version: Expected={}, got={}",
-                        ofVersion.wireVersion, ofVer);
-                return null;
+            // each flow mod carries a transaction id of its own, which the
+            // switch echoes in the error, so the failed rule is known without
+            // parsing the possibly truncated flow mod returned in the error
+            FlowRule failed = pendingBatches.fail(deviceId, error.getXid());
+            if (failed == null) {
+                log.error("No matching batch for this error: {}", error);
+            } else {
+                log.debug("Flow rule {} failed on {}", failed.id(), deviceId);
             }
+        }
 
-            byte type = bb.readByte();
-
-            if (type != OFType.FLOW_MOD.ordinal()) {
-                log.debug("Wrong type: Expected={}, got={}",
-                        OFType.FLOW_MOD.ordinal(), type);
-                return null;
+        // sends the bundled batch the error refers to again without a bundle
+        // once it completes, and no bundles to the switch from then on
+        private boolean disableBundles(Dpid dpid, DeviceId deviceId, long xid) {
+            Long batchId = pendingBatches.retryUnbundled(deviceId, xid);
+            if (batchId == null) {
+                return false;
             }
-
-            int length = U16.f(bb.readShort());
-
-            if (length < MIN_EXPECTED_BYTE_LEN) {
-                log.debug("Wrong length: Expected to be >= {}, was: {}",
-                        MIN_EXPECTED_BYTE_LEN, length);
-                return null;
+            if (noBundleSwitches.add(dpid)) {
+                log.warn("{} does not support bundles; installing flow rules without them", deviceId);
             }
-
-            bb.skipBytes(SKIP_BYTES);
-            return U64.ofRaw(bb.readLong());
+            log.debug("Sending batch {} to {} again without a bundle", batchId, deviceId);
+            return true;
         }
 
         @Override
@@ -722,58 +690,4 @@ public class OpenFlowRuleProvider extends AbstractProvider
         }
     }
 
-    /**
-     * The internal cache entry holding the original request as well as
-     * accumulating the any failures along the way.
-     * <p/>
-     * If this entry is evicted from the cache then the entire operation is
-     * considered failed. Otherwise, only the failures reported by the device
-     * will be propagated up.
-     */
-    private class InternalCacheEntry {
-
-        private final FlowRuleBatchOperation operation;
-        private final Set<FlowRule> failures = Sets.newConcurrentHashSet();
-
-        public InternalCacheEntry(FlowRuleBatchOperation operation) {
-            this.operation = operation;
-        }
-
-        /**
-         * Appends a failed rule to the set of failed items.
-         *
-         * @param rule the failed rule
-         */
-        public void appendFailure(FlowRule rule) {
-            failures.add(rule);
-        }
-
-        /**
-         * Fails the entire batch and returns the failed operation.
-         *
-         * @return the failed operation
-         */
-        public CompletedBatchOperation failedCompletion() {
-            Set<FlowRule> fails = operation.getOperations().stream()
-                    .map(op -> op.target()).collect(Collectors.toSet());
-            return new CompletedBatchOperation(false,
-                                               Collections
-                                                       .unmodifiableSet(fails),
-                                               operation.deviceId());
-        }
-
-        /**
-         * Returns the completed operation and whether the batch suceeded.
-         *
-         * @return the completed operation
-         */
-        public CompletedBatchOperation completed() {
-            return new CompletedBatchOperation(
-                    failures.isEmpty(),
-                    Collections
-                            .unmodifiableSet(failures),
-                    operation.deviceId());
-        }
-    }
-
 }
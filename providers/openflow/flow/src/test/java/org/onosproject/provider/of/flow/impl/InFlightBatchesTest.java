@@ -0,0 +1,191 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.flow.CompletedBatchOperation;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry.FlowRuleOperation;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the table of in-flight flow rule batches.
+ */
+public class InFlightBatchesTest {
+
+    private static final DeviceId DID1 = DeviceId.deviceId("of:0000000000000001");
+    private static final DeviceId DID2 = DeviceId.deviceId("of:0000000000000002");
+
+    private InFlightBatches batches;
+
+    @Before
+    public void setUp() {
+        batches = new InFlightBatches((id, completed) -> { }, 60000);
+    }
+
+    @After
+    public void tearDown() {
+        batches.clear();
+    }
+
+    private static FlowRule rule(DeviceId deviceId, int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(deviceId)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(new DefaultApplicationId(1, "test"))
+                .build();
+    }
+
+    private static FlowRuleBatchOperation batch(DeviceId deviceId, long id, FlowRule... rules) {
+        ImmutableList.Builder<FlowRuleBatchEntry> entries = ImmutableList.builder();
+        for (FlowRule rule : rules) {
+            entries.add(new FlowRuleBatchEntry(FlowRuleOperation.ADD, rule));
+        }
+        return new FlowRuleBatchOperation(entries.build(), deviceId, id);
+    }
+
+    /**
+     * Tests that flow mod transaction ids are allocated apart from the ids
+     * counted up from zero by the switch drivers and the batch identifiers.
+     */
+    @Test
+    public void testXidRange() {
+        long xid1 = batches.add(batch(DID1, 1, rule(DID1, 1), rule(DID1, 2)));
+        long xid2 = batches.add(batch(DID1, 2, rule(DID1, 3)));
+        assertTrue(xid1 >= InFlightBatches.MIN_XID);
+        assertEquals(xid1 + 2, xid2);
+        assertTrue(xid2 <= InFlightBatches.MAX_XID);
+    }
+
+    /**
+     * Tests that an error is only matched against the batches of the device
+     * it came from.
+     */
+    @Test
+    public void testFailPerDevice() {
+        FlowRule rule1 = rule(DID1, 1);
+        FlowRule rule2 = rule(DID2, 2);
+        FlowRule rule3 = rule(DID2, 3);
+        long xid1 = batches.add(batch(DID1, 1, rule1));
+        long xid2 = batches.add(batch(DID2, 2, rule2, rule3));
+
+        // the floor entry of the other device's table is not used
+        assertNull(batches.fail(DID1, xid2 + 1));
+        assertNull(batches.fail(DID2, xid1));
+        assertEquals(rule3, batches.fail(DID2, xid2 + 1));
+
+        assertNull(batches.complete(DID1, 2));
+        CompletedBatchOperation completed = batches.complete(DID2, 2);
+        assertFalse(completed.isSuccess());
+        assertEquals(1, completed.failedItems().size());
+        assertTrue(completed.failedItems().contains(rule3));
+
+        completed = batches.complete(DID1, 1);
+        assertTrue(completed.isSuccess());
+        assertNull(batches.complete(DID1, 1));
+    }
+
+    /**
+     * Tests that a bundled batch takes two more transaction ids, for opening
+     * and committing its bundle.
+     */
+    @Test
+    public void testBundleXids() {
+        long xid1 = batches.add(batch(DID1, 1, rule(DID1, 1), rule(DID1, 2)), true);
+        long xid2 = batches.add(batch(DID1, 2, rule(DID1, 3)));
+        assertEquals(xid1 + 4, xid2);
+        // the commit of the bundle is not taken for a flow mod
+        assertNull(batches.fail(DID1, xid1 + 3));
+    }
+
+    /**
+     * Tests failing a whole bundled batch from an error on its bundle.
+     */
+    @Test
+    public void testFailBundle() {
+        FlowRule rule1 = rule(DID1, 1);
+        FlowRule rule2 = rule(DID1, 2);
+        long xid1 = batches.add(batch(DID1, 1, rule1, rule2), true);
+        long xid2 = batches.add(batch(DID1, 2, rule(DID1, 3)));
+
+        assertNull(batches.failBundle(DID2, xid1 + 3));
+        assertNull(batches.failBundle(DID1, xid2));
+        assertEquals(Long.valueOf(1), batches.failBundle(DID1, xid1 + 3));
+        CompletedBatchOperation completed = batches.complete(DID1, 1);
+        assertFalse(completed.isSuccess());
+        assertEquals(2, completed.failedItems().size());
+        assertTrue(batches.complete(DID1, 2).isSuccess());
+    }
+
+    /**
+     * Tests that a bundled batch rejected for its bundle is taken back to be
+     * sent again upon its barrier reply instead of being completed.
+     */
+    @Test
+    public void testRetryUnbundled() {
+        FlowRuleBatchOperation operation = batch(DID1, 1, rule(DID1, 1));
+        long xid1 = batches.add(operation, true);
+        long xid2 = batches.add(batch(DID1, 2, rule(DID1, 2)));
+
+        assertNull(batches.retryUnbundled(DID1, xid2));
+        assertNull(batches.takeRetry(DID1, 2));
+        assertNull(batches.takeRetry(DID1, 1));
+        assertEquals(Long.valueOf(1), batches.retryUnbundled(DID1, xid1 + 1));
+        assertNull(batches.takeRetry(DID2, 1));
+        assertEquals(operation, batches.takeRetry(DID1, 1));
+        assertNull(batches.complete(DID1, 1));
+
+        // errors on the abandoned bundle no longer match
+        assertNull(batches.failBundle(DID1, xid1 + 2));
+        assertTrue(batches.complete(DID1, 2).isSuccess());
+    }
+
+    /**
+     * Tests that a batch whose barrier reply does not arrive is failed.
+     */
+    @Test
+    public void testExpiry() throws InterruptedException {
+        CountDownLatch latch = new CountDownLatch(1);
+        InFlightBatches expiring = new InFlightBatches((id, completed) -> {
+            if (id == 1 && !completed.isSuccess() && completed.failedItems().size() == 1) {
+                latch.countDown();
+            }
+        }, 10);
+        expiring.add(batch(DID1, 1, rule(DID1, 1)));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertNull(expiring.complete(DID1, 1));
+    }
+}
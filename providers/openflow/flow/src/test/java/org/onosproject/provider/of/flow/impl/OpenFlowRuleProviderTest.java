@@ -0,0 +1,328 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onosproject.provider.of.flow.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.onlab.osgi.ComponentContextAdapter;
+import org.onosproject.cfg.ComponentConfigAdapter;
+import org.onosproject.core.DefaultApplicationId;
+import org.onosproject.net.DeviceId;
+import org.onosproject.net.driver.DriverServiceAdapter;
+import org.onosproject.net.flow.CompletedBatchOperation;
+import org.onosproject.net.flow.DefaultFlowRule;
+import org.onosproject.net.flow.DefaultTrafficSelector;
+import org.onosproject.net.flow.DefaultTrafficTreatment;
+import org.onosproject.net.flow.FlowEntry;
+import org.onosproject.net.flow.FlowRule;
+import org.onosproject.net.flow.FlowRuleProvider;
+import org.onosproject.net.flow.FlowRuleProviderRegistry;
+import org.onosproject.net.flow.FlowRuleProviderService;
+import org.onosproject.net.flow.TableStatisticsEntry;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchEntry.FlowRuleOperation;
+import org.onosproject.net.flow.oldbatch.FlowRuleBatchOperation;
+import org.onosproject.net.provider.ProviderId;
+import org.onosproject.openflow.controller.Dpid;
+import org.onosproject.openflow.controller.OpenFlowEventListener;
+import org.onosproject.openflow.controller.OpenFlowSwitch;
+import org.onosproject.openflow.controller.OpenFlowSwitchAdapter;
+import org.onosproject.openflow.controller.OpenflowControllerAdapter;
+import org.projectfloodlight.openflow.protocol.OFBadRequestCode;
+import org.projectfloodlight.openflow.protocol.OFBarrierRequest;
+import org.projectfloodlight.openflow.protocol.OFBundleAddMsg;
+import org.projectfloodlight.openflow.protocol.OFBundleCtrlMsg;
+import org.projectfloodlight.openflow.protocol.OFBundleCtrlType;
+import org.projectfloodlight.openflow.protocol.OFBundleFailedCode;
+import org.projectfloodlight.openflow.protocol.OFFactories;
+import org.projectfloodlight.openflow.protocol.OFFactory;
+import org.projectfloodlight.openflow.protocol.OFFlowMod;
+import org.projectfloodlight.openflow.protocol.OFMessage;
+import org.projectfloodlight.openflow.protocol.OFVersion;
+import org.projectfloodlight.openflow.types.OFErrorCauseData;
+
+import java.util.Dictionary;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the installation of flow rule batches by the OpenFlow rule
+ * provider.
+ */
+public class OpenFlowRuleProviderTest {
+
+    private static final Dpid DPID = new Dpid(1);
+    private static final DeviceId DID = DeviceId.deviceId(Dpid.uri(DPID));
+    private static final OFFactory FACTORY = OFFactories.getFactory(OFVersion.OF_14);
+
+    private final OpenFlowRuleProvider provider = new OpenFlowRuleProvider();
+    private final TestSwitch sw = new TestSwitch();
+    private final TestController controller = new TestController();
+    private final TestProviderService providerService = new TestProviderService();
+
+    @Before
+    public void setUp() {
+        provider.providerRegistry = new TestProviderRegistry();
+        provider.controller = controller;
+        provider.cfgService = new ComponentConfigAdapter();
+        provider.driverService = new DriverServiceAdapter();
+        provider.activate(new ComponentContextAdapter() {
+            @Override
+            public Dictionary getProperties() {
+                Hashtable<String, String> props = new Hashtable<>();
+                props.put("useBundles", "true");
+                return props;
+            }
+        });
+    }
+
+    @After
+    public void tearDown() {
+        provider.deactivate(null);
+    }
+
+    private static FlowRule rule(int priority) {
+        return DefaultFlowRule.builder()
+                .forDevice(DID)
+                .withSelector(DefaultTrafficSelector.emptySelector())
+                .withTreatment(DefaultTrafficTreatment.emptyTreatment())
+                .withPriority(priority)
+                .makePermanent()
+                .fromApp(new DefaultApplicationId(1, "test"))
+                .build();
+    }
+
+    private static FlowRuleBatchOperation batch(long id, FlowRule... rules) {
+        ImmutableList.Builder<FlowRuleBatchEntry> entries = ImmutableList.builder();
+        for (FlowRule rule : rules) {
+            entries.add(new FlowRuleBatchEntry(FlowRuleOperation.ADD, rule));
+        }
+        return new FlowRuleBatchOperation(entries.build(), DID, id);
+    }
+
+    private void receive(OFMessage msg) {
+        controller.eventListener.handleMessage(DPID, msg);
+    }
+
+    /**
+     * Tests that a batch is sent as a bundle opened, filled and committed
+     * with transaction ids of its own, followed by the barrier.
+     */
+    @Test
+    public void testBundleBuilt() {
+        provider.executeBatch(batch(7, rule(1), rule(2)));
+
+        assertEquals(5, sw.sent.size());
+        OFBundleCtrlMsg open = (OFBundleCtrlMsg) sw.sent.get(0);
+        OFBundleAddMsg add1 = (OFBundleAddMsg) sw.sent.get(1);
+        OFBundleAddMsg add2 = (OFBundleAddMsg) sw.sent.get(2);
+        OFBundleCtrlMsg commit = (OFBundleCtrlMsg) sw.sent.get(3);
+        assertEquals(OFBundleCtrlType.OPEN_REQUEST, open.getBundleCtrlType());
+        assertEquals(OFBundleCtrlType.COMMIT_REQUEST, commit.getBundleCtrlType());
+        assertEquals(open.getBundleId(), add1.getBundleId());
+        assertEquals(open.getBundleId(), add2.getBundleId());
+        assertEquals(open.getBundleId(), commit.getBundleId());
+        assertTrue(add1.getData() instanceof OFFlowMod);
+
+        long xid = add1.getXid();
+        assertTrue(xid >= InFlightBatches.MIN_XID);
+        assertEquals(xid, add1.getData().getXid());
+        assertEquals(xid + 1, add2.getXid());
+        assertEquals(xid + 2, open.getXid());
+        assertEquals(xid + 3, commit.getXid());
+        assertEquals(7, sw.sent.get(4).getXid());
+        assertTrue(sw.sent.get(4) instanceof OFBarrierRequest);
+    }
+
+    /**
+     * Tests that a committed bundle completes its batch upon the barrier reply.
+     */
+    @Test
+    public void testBundleCommitted() {
+        provider.executeBatch(batch(7, rule(1), rule(2)));
+        receive(FACTORY.buildBarrierReply().setXid(7).build());
+
+        CompletedBatchOperation completed = providerService.completed.get(7L);
+        assertTrue(completed.isSuccess());
+        assertTrue(completed.failedItems().isEmpty());
+    }
+
+    /**
+     * Tests that a failed commit fails all the rules of the batch.
+     */
+    @Test
+    public void testBundleFailed() {
+        FlowRule rule1 = rule(1);
+        FlowRule rule2 = rule(2);
+        provider.executeBatch(batch(7, rule1, rule2));
+        OFMessage commit = sw.sent.get(3);
+        receive(FACTORY.errorMsgs().buildBundleFailedErrorMsg()
+                        .setXid(commit.getXid())
+                        .setCode(OFBundleFailedCode.MSG_FAILED)
+                        .setData(OFErrorCauseData.NONE)
+                        .build());
+        receive(FACTORY.buildBarrierReply().setXid(7).build());
+
+        CompletedBatchOperation completed = providerService.completed.get(7L);
+        assertFalse(completed.isSuccess());
+        assertEquals(2, completed.failedItems().size());
+        assertTrue(completed.failedItems().contains(rule1));
+        assertTrue(completed.failedItems().contains(rule2));
+    }
+
+    /**
+     * Tests that a switch rejecting the bundle gets the batch again without
+     * one, and no bundles from then on.
+     */
+    @Test
+    public void testBundleUnsupported() {
+        provider.executeBatch(batch(7, rule(1)));
+        OFMessage open = sw.sent.get(0);
+        receive(FACTORY.errorMsgs().buildBadRequestErrorMsg()
+                        .setXid(open.getXid())
+                        .setCode(OFBadRequestCode.BAD_TYPE)
+                        .setData(OFErrorCauseData.NONE)
+                        .build());
+        sw.sent.clear();
+        receive(FACTORY.buildBarrierReply().setXid(7).build());
+
+        assertTrue(providerService.completed.isEmpty());
+        assertEquals(2, sw.sent.size());
+        assertTrue(sw.sent.get(0) instanceof OFFlowMod);
+        assertEquals(7, sw.sent.get(1).getXid());
+
+        receive(FACTORY.buildBarrierReply().setXid(7).build());
+        assertTrue(providerService.completed.get(7L).isSuccess());
+
+        sw.sent.clear();
+        provider.executeBatch(batch(8, rule(2)));
+        assertTrue(sw.sent.get(0) instanceof OFFlowMod);
+    }
+
+    /**
+     * Tests that a bundle error telling bundles are not supported as used
+     * also falls back to sending the batch without a bundle.
+     */
+    @Test
+    public void testBundleBadType() {
+        provider.executeBatch(batch(7, rule(1)));
+        OFMessage open = sw.sent.get(0);
+        receive(FACTORY.errorMsgs().buildBundleFailedErrorMsg()
+                        .setXid(open.getXid())
+                        .setCode(OFBundleFailedCode.BAD_TYPE)
+                        .setData(OFErrorCauseData.NONE)
+                        .build());
+        sw.sent.clear();
+        receive(FACTORY.buildBarrierReply().setXid(7).build());
+
+        assertTrue(providerService.completed.isEmpty());
+        assertTrue(sw.sent.get(0) instanceof OFFlowMod);
+    }
+
+    private class TestProviderRegistry implements FlowRuleProviderRegistry {
+        @Override
+        public FlowRuleProviderService register(FlowRuleProvider provider) {
+            return providerService;
+        }
+
+        @Override
+        public void unregister(FlowRuleProvider provider) {
+        }
+
+        @Override
+        public Set<ProviderId> getProviders() {
+            return null;
+        }
+    }
+
+    private class TestProviderService implements FlowRuleProviderService {
+        private final Map<Long, CompletedBatchOperation> completed = Maps.newConcurrentMap();
+
+        @Override
+        public void flowRemoved(FlowEntry flowEntry) {
+        }
+
+        @Override
+        public void pushFlowMetrics(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+        }
+
+        @Override
+        public void pushFlowMetricsWithoutFlowMissing(DeviceId deviceId, Iterable<FlowEntry> flowEntries) {
+        }
+
+        @Override
+        public void pushTableStatistics(DeviceId deviceId, List<TableStatisticsEntry> tableStatsEntries) {
+        }
+
+        @Override
+        public void batchOperationCompleted(long batchId, CompletedBatchOperation operation) {
+            completed.put(batchId, operation);
+        }
+
+        @Override
+        public FlowRuleProvider provider() {
+            return provider;
+        }
+    }
+
+    private class TestController extends OpenflowControllerAdapter {
+        private OpenFlowEventListener eventListener;
+
+        @Override
+        public Iterable<OpenFlowSwitch> getSwitches() {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public OpenFlowSwitch getSwitch(Dpid dpid) {
+            return DPID.equals(dpid) ? sw : null;
+        }
+
+        @Override
+        public void addEventListener(OpenFlowEventListener listener) {
+            eventListener = listener;
+        }
+    }
+
+    private static class TestSwitch extends OpenFlowSwitchAdapter {
+        private final List<OFMessage> sent = Lists.newArrayList();
+
+        @Override
+        public void sendMsg(OFMessage msg) {
+            sent.add(msg);
+        }
+
+        @Override
+        public OFFactory factory() {
+            return FACTORY;
+        }
+
+        @Override
+        public long getId() {
+            return DPID.value();
+        }
+    }
+}
@@ -157,9 +157,11 @@ public class OpenFlowPacketProvider extends AbstractProvider implements PacketPr
         public void handlePacket(OpenFlowPacketContext pktCtx) {
             DeviceId id = DeviceId.deviceId(Dpid.uri(pktCtx.dpid().value()));
 
+            // the frame is parsed only if a processor asks for its parsed
+            // form; those that only classify it can use its header view
             DefaultInboundPacket inPkt = new DefaultInboundPacket(
                     new ConnectPoint(id, PortNumber.portNumber(pktCtx.inPort())),
-                    pktCtx.parsed(), ByteBuffer.wrap(pktCtx.unparsed()),
+                    pktCtx::parsed, ByteBuffer.wrap(pktCtx.unparsed()),
                     pktCtx.cookie());
 
             DefaultOutboundPacket outPkt = null;
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Read-only view of the headers of a serialized Ethernet frame.
+ * <p>
+ * Header fields are read straight from the frame on demand, without
+ * deserializing it into an {@link Ethernet} tree, so that packets can be
+ * classified by their addresses, ether type, IP protocol and transport
+ * ports at little cost. Accessors of headers that the frame does not carry,
+ * or that are truncated, return a sentinel value rather than failing.
+ * </p>
+ *
+ * @see PacketCursor
+ */
+public final class EthernetView {
+
+    private final PacketCursor cursor = new PacketCursor();
+
+    private EthernetView(byte[] frame, int offset, int length) {
+        cursor.wrap(frame, offset, length);
+    }
+
+    /**
+     * Creates a view of the given frame.
+     *
+     * @param frame serialized Ethernet frame
+     * @return frame view
+     */
+    public static EthernetView of(byte[] frame) {
+        return new EthernetView(checkNotNull(frame), 0, frame.length);
+    }
+
+    /**
+     * Creates a view of the given frame. The frame is read from the start
+     * of the buffer up to its capacity, regardless of its position.
+     *
+     * @param frame buffer holding a serialized Ethernet frame
+     * @return frame view
+     */
+    public static EthernetView of(ByteBuffer frame) {
+        checkNotNull(frame);
+        if (frame.hasArray()) {
+            return new EthernetView(frame.array(), frame.arrayOffset(), frame.capacity());
+        }
+        byte[] bytes = new byte[frame.capacity()];
+        ByteBuffer buffer = frame.duplicate();
+        buffer.clear();
+        buffer.get(bytes);
+        return of(bytes);
+    }
+
+    /**
+     * Returns the destination MAC address.
+     *
+     * @return destination MAC address; null if the frame is truncated
+     */
+    public MacAddress destinationMac() {
+        PacketCursor.EthernetHeader eth = cursor.ethernet();
+        return eth == null ? null : MacAddress.valueOf(eth.destinationMac());
+    }
+
+    /**
+     * Returns the source MAC address.
+     *
+     * @return source MAC address; null if the frame is truncated
+     */
+    public MacAddress sourceMac() {
+        PacketCursor.EthernetHeader eth = cursor.ethernet();
+        return eth == null ? null : MacAddress.valueOf(eth.sourceMac());
+    }
+
+    /**
+     * Returns the ether type of the payload, past any VLAN tags.
+     *
+     * @return ether type; 0 if the frame is truncated
+     */
+    public short etherType() {
+        PacketCursor.EthernetHeader eth = cursor.ethernet();
+        return eth == null ? 0 : eth.etherType();
+    }
+
+    /**
+     * Returns the identifier of the innermost VLAN tag.
+     *
+     * @return VLAN identifier; {@link Ethernet#VLAN_UNTAGGED} if untagged
+     */
+    public short vlanId() {
+        PacketCursor.EthernetHeader eth = cursor.ethernet();
+        return eth == null ? Ethernet.VLAN_UNTAGGED : eth.vlanId();
+    }
+
+    /**
+     * Returns the IP protocol, or the next header of IPv6 packets.
+     *
+     * @return IP protocol number; -1 if the frame is not an IP packet
+     */
+    public int ipProtocol() {
+        if (cursor.ipv4() != null) {
+            return cursor.ipv4().protocol();
+        } else if (cursor.ipv6() != null) {
+            return cursor.ipv6().nextHeader();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the source IP address.
+     *
+     * @return source IP address; null if the frame is not an IP packet
+     */
+    public IpAddress sourceIp() {
+        if (cursor.ipv4() != null) {
+            return Ip4Address.valueOf(cursor.ipv4().sourceAddress());
+        } else if (cursor.ipv6() != null) {
+            return Ip6Address.valueOf(cursor.ipv6().sourceAddress(new byte[Ip6Address.BYTE_LENGTH]));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the destination IP address.
+     *
+     * @return destination IP address; null if the frame is not an IP packet
+     */
+    public IpAddress destinationIp() {
+        if (cursor.ipv4() != null) {
+            return Ip4Address.valueOf(cursor.ipv4().destinationAddress());
+        } else if (cursor.ipv6() != null) {
+            return Ip6Address.valueOf(cursor.ipv6().destinationAddress(new byte[Ip6Address.BYTE_LENGTH]));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the TCP or UDP source port.
+     *
+     * @return source port; -1 if the frame does not carry a complete TCP or
+     * UDP header, as with non-first fragments
+     */
+    public int sourcePort() {
+        if (cursor.tcp() != null) {
+            return cursor.tcp().sourcePort();
+        } else if (cursor.udp() != null) {
+            return cursor.udp().sourcePort();
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the TCP or UDP destination port.
+     *
+     * @return destination port; -1 if the frame does not carry a complete
+     * TCP or UDP header, as with non-first fragments
+     */
+    public int destinationPort() {
+        if (cursor.tcp() != null) {
+            return cursor.tcp().destinationPort();
+        } else if (cursor.udp() != null) {
+            return cursor.udp().destinationPort();
+        }
+        return -1;
+    }
+}
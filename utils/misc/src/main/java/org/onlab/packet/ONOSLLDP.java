@@ -39,10 +39,12 @@ public class ONOSLLDP extends LLDP {
     protected static final byte NAME_SUBTYPE = 1;
     protected static final byte DEVICE_SUBTYPE = 2;
     protected static final byte DOMAIN_SUBTYPE = 3;
+    public static final byte SEQUENCE_SUBTYPE = 4;
 
     private static final short NAME_LENGTH = OUI_LENGTH + SUBTYPE_LENGTH;
     private static final short DEVICE_LENGTH = OUI_LENGTH + SUBTYPE_LENGTH;
     private static final short DOMAIN_LENGTH = OUI_LENGTH + SUBTYPE_LENGTH;
+    private static final short SEQUENCE_LENGTH = OUI_LENGTH + SUBTYPE_LENGTH + Integer.BYTES;
 
     private final HashMap<Byte, LLDPOrganizationalTLV> opttlvs = Maps.newHashMap();
 
@@ -116,6 +118,23 @@ public class ONOSLLDP extends LLDP {
         domaintlv.setOUI(MacAddress.ONOS.oui());
     }
 
+    /**
+     * Sets the probe sequence number. Has no effect unless the probe was
+     * created with the sequence TLV.
+     *
+     * @param sequence sequence number
+     */
+    public void setSequence(int sequence) {
+        LLDPOrganizationalTLV sequencetlv = opttlvs.get(SEQUENCE_SUBTYPE);
+        if (sequencetlv == null) {
+            return;
+        }
+        sequencetlv.setInfoString(ByteBuffer.allocate(Integer.BYTES).putInt(sequence).array());
+        sequencetlv.setLength(SEQUENCE_LENGTH);
+        sequencetlv.setSubType(SEQUENCE_SUBTYPE);
+        sequencetlv.setOUI(MacAddress.ONOS.oui());
+    }
+
     public void setChassisId(final ChassisId chassisId) {
         MacAddress chassisMac = MacAddress.valueOf(chassisId.value());
         byte[] chassis = ArrayUtils.addAll(new byte[] {CHASSIS_TLV_SUBTYPE},
@@ -181,6 +200,24 @@ public class ONOSLLDP extends LLDP {
         return null;
     }
 
+    /**
+     * Gets the TLV carrying the probe sequence number. This TLV will be null
+     * unless the probe was sent for fast link liveness detection.
+     *
+     * @return A TLV containing the sequence number, or null.
+     */
+    public LLDPOrganizationalTLV getSequenceTLV() {
+        for (LLDPTLV tlv : this.getOptionalTLVList()) {
+            if (tlv.getType() == LLDPOrganizationalTLV.ORGANIZATIONAL_TLV_TYPE) {
+                LLDPOrganizationalTLV orgTLV =  (LLDPOrganizationalTLV) tlv;
+                if (orgTLV.getSubType() == SEQUENCE_SUBTYPE) {
+                    return orgTLV;
+                }
+            }
+        }
+        return null;
+    }
+
     public String getNameString() {
         LLDPOrganizationalTLV tlv = getNameTLV();
         if (tlv != null) {
@@ -205,6 +242,19 @@ public class ONOSLLDP extends LLDP {
         return null;
     }
 
+    /**
+     * Returns the probe sequence number.
+     *
+     * @return sequence number, or null if the probe carries none
+     */
+    public Integer getSequence() {
+        LLDPOrganizationalTLV tlv = getSequenceTLV();
+        if (tlv != null && tlv.getInfoString().length == Integer.BYTES) {
+            return ByteBuffer.wrap(tlv.getInfoString()).getInt();
+        }
+        return null;
+    }
+
     public Integer getPort() {
         ByteBuffer portBB = ByteBuffer.wrap(this.getPortId().getValue());
         portBB.position(1);
@@ -244,6 +294,24 @@ public class ONOSLLDP extends LLDP {
         return probe;
     }
 
+    /**
+     * Creates a sequenced link probe for fast link liveness detection.
+     *
+     * @param deviceId The device ID as a String
+     * @param chassisId The chassis ID of the device
+     * @param portNum Port number of port to send probe out of
+     * @param sequence Sequence number of the probe
+     * @return ONOSLLDP probe message
+     */
+    public static ONOSLLDP onosSequencedLLDP(String deviceId, ChassisId chassisId, int portNum, int sequence) {
+        ONOSLLDP probe = new ONOSLLDP(NAME_SUBTYPE, DEVICE_SUBTYPE, SEQUENCE_SUBTYPE);
+        probe.setPortId(portNum);
+        probe.setDevice(deviceId);
+        probe.setChassisId(chassisId);
+        probe.setSequence(sequence);
+        return probe;
+    }
+
     /**
      * Creates a link probe for link discovery/verification.
      *
@@ -0,0 +1,545 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Reusable cursor over the headers of a serialized Ethernet frame.
+ * <p>
+ * Unlike the deserializers, which build an object per layer and copy the
+ * payload of each, the cursor locates the headers of the frame in place
+ * when wrapped around it, and its per-layer header objects read the fields
+ * straight from the frame on demand. Header objects are owned by the cursor
+ * and reused, so rewrapping a cursor around frame after frame parses them
+ * without allocating. Addresses are returned as primitives; MAC addresses
+ * as 48-bit longs and IPv4 addresses as ints.
+ * </p>
+ * <p>
+ * Cursors are not thread-safe, and header objects are only valid until the
+ * cursor is wrapped around another frame.
+ * </p>
+ */
+public final class PacketCursor {
+
+    private static final int MAC_LENGTH = 6;
+    private static final int ETHERNET_HEADER_LENGTH = 14;
+    private static final int VLAN_HEADER_LENGTH = 4;
+    private static final int IPV4_MIN_HEADER_LENGTH = 20;
+    private static final int IPV6_HEADER_LENGTH = 40;
+    private static final int ARP_IPV4_LENGTH = 28;
+    private static final int UDP_HEADER_LENGTH = 8;
+    private static final int TCP_MIN_HEADER_LENGTH = 20;
+    private static final int FRAGMENT_OFFSET_MASK = 0x1fff;
+
+    private final EthernetHeader ethernet = new EthernetHeader();
+    private final Ipv4Header ipv4 = new Ipv4Header();
+    private final Ipv6Header ipv6 = new Ipv6Header();
+    private final ArpHeader arp = new ArpHeader();
+    private final UdpHeader udp = new UdpHeader();
+    private final TcpHeader tcp = new TcpHeader();
+
+    private byte[] data;
+    private int end;
+    private int l2;
+    private int l3;
+    private int l4;
+    private short etherType;
+    private short vlanId;
+    private int ipProtocol;
+
+    /**
+     * Wraps the cursor around a frame, locating its headers.
+     *
+     * @param data   buffer holding the frame
+     * @param offset offset of the frame in the buffer
+     * @param length length of the frame
+     * @return true if the frame holds at least a complete Ethernet header
+     */
+    public boolean wrap(byte[] data, int offset, int length) {
+        checkNotNull(data);
+        checkArgument(offset >= 0 && length >= 0 && offset + length <= data.length,
+                      "Frame out of buffer bounds");
+        this.data = data;
+        this.end = offset + length;
+        this.l2 = offset;
+        this.l3 = -1;
+        this.l4 = -1;
+        this.etherType = 0;
+        this.vlanId = Ethernet.VLAN_UNTAGGED;
+        this.ipProtocol = -1;
+        if (length < ETHERNET_HEADER_LENGTH) {
+            return false;
+        }
+
+        int typeOffset = offset + 2 * MAC_LENGTH;
+        short type = getShort(typeOffset);
+        while (type == Ethernet.TYPE_VLAN || type == Ethernet.TYPE_QINQ) {
+            if (typeOffset + VLAN_HEADER_LENGTH + 2 > end) {
+                return true;
+            }
+            // the innermost tag is the customer VLAN, as in Ethernet
+            vlanId = (short) (getShort(typeOffset + 2) & 0x0fff);
+            typeOffset += VLAN_HEADER_LENGTH;
+            type = getShort(typeOffset);
+        }
+        etherType = type;
+        l3 = typeOffset + 2;
+
+        if (etherType == Ethernet.TYPE_IPV4 && has(l3, IPV4_MIN_HEADER_LENGTH)) {
+            ipProtocol = data[l3 + 9] & 0xff;
+            int headerLength = (data[l3] & 0x0f) * 4;
+            // only first fragments carry the transport header
+            if ((getShort(l3 + 6) & FRAGMENT_OFFSET_MASK) == 0 &&
+                    headerLength >= IPV4_MIN_HEADER_LENGTH) {
+                l4 = l3 + headerLength;
+            }
+        } else if (etherType == Ethernet.TYPE_IPV6 && has(l3, IPV6_HEADER_LENGTH)) {
+            // extension headers are not walked
+            ipProtocol = data[l3 + 6] & 0xff;
+            l4 = l3 + IPV6_HEADER_LENGTH;
+        }
+        return true;
+    }
+
+    private boolean has(int offset, int length) {
+        return offset >= 0 && offset + length <= end;
+    }
+
+    private short getShort(int offset) {
+        return (short) (((data[offset] & 0xff) << 8) | (data[offset + 1] & 0xff));
+    }
+
+    private int getInt(int offset) {
+        return ((data[offset] & 0xff) << 24) | ((data[offset + 1] & 0xff) << 16) |
+                ((data[offset + 2] & 0xff) << 8) | (data[offset + 3] & 0xff);
+    }
+
+    private long getMac(int offset) {
+        return ((long) getShort(offset) & 0xffffL) << 32 | (getInt(offset + 2) & 0xffffffffL);
+    }
+
+    /**
+     * Returns the Ethernet header of the frame.
+     *
+     * @return Ethernet header; null if the frame is truncated
+     */
+    public EthernetHeader ethernet() {
+        return data != null && has(l2, ETHERNET_HEADER_LENGTH) ? ethernet : null;
+    }
+
+    /**
+     * Returns the IPv4 header of the frame.
+     *
+     * @return IPv4 header; null if the frame does not carry a complete one
+     */
+    public Ipv4Header ipv4() {
+        return etherType == Ethernet.TYPE_IPV4 && ipProtocol >= 0 ? ipv4 : null;
+    }
+
+    /**
+     * Returns the IPv6 header of the frame.
+     *
+     * @return IPv6 header; null if the frame does not carry a complete one
+     */
+    public Ipv6Header ipv6() {
+        return etherType == Ethernet.TYPE_IPV6 && ipProtocol >= 0 ? ipv6 : null;
+    }
+
+    /**
+     * Returns the ARP header of the frame, for ARP over Ethernet and IPv4.
+     *
+     * @return ARP header; null if the frame does not carry a complete one
+     */
+    public ArpHeader arp() {
+        return etherType == Ethernet.TYPE_ARP && has(l3, ARP_IPV4_LENGTH) ? arp : null;
+    }
+
+    /**
+     * Returns the UDP header of the frame.
+     *
+     * @return UDP header; null if the frame does not carry a complete one
+     */
+    public UdpHeader udp() {
+        return ipProtocol == IPv4.PROTOCOL_UDP && has(l4, UDP_HEADER_LENGTH) ? udp : null;
+    }
+
+    /**
+     * Returns the TCP header of the frame.
+     *
+     * @return TCP header; null if the frame does not carry a complete one
+     */
+    public TcpHeader tcp() {
+        return ipProtocol == IPv4.PROTOCOL_TCP && has(l4, TCP_MIN_HEADER_LENGTH) ? tcp : null;
+    }
+
+    /**
+     * Ethernet header of the frame the cursor is wrapped around.
+     */
+    public final class EthernetHeader {
+
+        private EthernetHeader() {
+        }
+
+        /**
+         * Returns the destination MAC address.
+         *
+         * @return destination MAC address as a 48-bit long
+         */
+        public long destinationMac() {
+            return getMac(l2);
+        }
+
+        /**
+         * Returns the source MAC address.
+         *
+         * @return source MAC address as a 48-bit long
+         */
+        public long sourceMac() {
+            return getMac(l2 + MAC_LENGTH);
+        }
+
+        /**
+         * Returns the identifier of the innermost VLAN tag.
+         *
+         * @return VLAN identifier; {@link Ethernet#VLAN_UNTAGGED} if untagged
+         */
+        public short vlanId() {
+            return vlanId;
+        }
+
+        /**
+         * Returns the ether type of the payload, past any VLAN tags.
+         *
+         * @return ether type; 0 if the VLAN tags are truncated
+         */
+        public short etherType() {
+            return etherType;
+        }
+
+        /**
+         * Returns the offset of the payload in the buffer.
+         *
+         * @return payload offset; -1 if the VLAN tags are truncated
+         */
+        public int payloadOffset() {
+            return l3;
+        }
+    }
+
+    /**
+     * IPv4 header of the frame the cursor is wrapped around.
+     */
+    public final class Ipv4Header {
+
+        private Ipv4Header() {
+        }
+
+        /**
+         * Returns the DSCP field.
+         *
+         * @return DSCP
+         */
+        public byte dscp() {
+            return (byte) ((data[l3 + 1] & 0xff) >>> 2);
+        }
+
+        /**
+         * Returns the total length of the packet.
+         *
+         * @return total length in bytes
+         */
+        public int totalLength() {
+            return getShort(l3 + 2) & 0xffff;
+        }
+
+        /**
+         * Returns whether the packet is a fragment other than the first.
+         *
+         * @return true if the packet carries no transport header
+         */
+        public boolean isTrailingFragment() {
+            return (getShort(l3 + 6) & FRAGMENT_OFFSET_MASK) != 0;
+        }
+
+        /**
+         * Returns the time to live.
+         *
+         * @return TTL
+         */
+        public int ttl() {
+            return data[l3 + 8] & 0xff;
+        }
+
+        /**
+         * Returns the protocol of the payload.
+         *
+         * @return IP protocol number
+         */
+        public int protocol() {
+            return ipProtocol;
+        }
+
+        /**
+         * Returns the source address.
+         *
+         * @return source address as an int
+         */
+        public int sourceAddress() {
+            return getInt(l3 + 12);
+        }
+
+        /**
+         * Returns the destination address.
+         *
+         * @return destination address as an int
+         */
+        public int destinationAddress() {
+            return getInt(l3 + 16);
+        }
+
+        /**
+         * Returns the offset of the payload in the buffer.
+         *
+         * @return payload offset; -1 for trailing fragments
+         */
+        public int payloadOffset() {
+            return l4;
+        }
+    }
+
+    /**
+     * IPv6 header of the frame the cursor is wrapped around.
+     */
+    public final class Ipv6Header {
+
+        private Ipv6Header() {
+        }
+
+        /**
+         * Returns the next header, extension headers not being walked.
+         *
+         * @return next header protocol number
+         */
+        public int nextHeader() {
+            return ipProtocol;
+        }
+
+        /**
+         * Returns the hop limit.
+         *
+         * @return hop limit
+         */
+        public int hopLimit() {
+            return data[l3 + 7] & 0xff;
+        }
+
+        /**
+         * Copies the source address into the given array.
+         *
+         * @param address array of at least 16 bytes
+         * @return the given array
+         */
+        public byte[] sourceAddress(byte[] address) {
+            System.arraycopy(data, l3 + 8, address, 0, Ip6Address.BYTE_LENGTH);
+            return address;
+        }
+
+        /**
+         * Copies the destination address into the given array.
+         *
+         * @param address array of at least 16 bytes
+         * @return the given array
+         */
+        public byte[] destinationAddress(byte[] address) {
+            System.arraycopy(data, l3 + 24, address, 0, Ip6Address.BYTE_LENGTH);
+            return address;
+        }
+
+        /**
+         * Returns the offset of the payload in the buffer.
+         *
+         * @return payload offset
+         */
+        public int payloadOffset() {
+            return l4;
+        }
+    }
+
+    /**
+     * ARP header of the frame the cursor is wrapped around.
+     */
+    public final class ArpHeader {
+
+        private ArpHeader() {
+        }
+
+        /**
+         * Returns the operation code.
+         *
+         * @return {@link ARP#OP_REQUEST} or {@link ARP#OP_REPLY}
+         */
+        public short opCode() {
+            return getShort(l3 + 6);
+        }
+
+        /**
+         * Returns the sender hardware address.
+         *
+         * @return sender MAC address as a 48-bit long
+         */
+        public long senderHardwareAddress() {
+            return getMac(l3 + 8);
+        }
+
+        /**
+         * Returns the sender protocol address.
+         *
+         * @return sender IPv4 address as an int
+         */
+        public int senderProtocolAddress() {
+            return getInt(l3 + 14);
+        }
+
+        /**
+         * Returns the target hardware address.
+         *
+         * @return target MAC address as a 48-bit long
+         */
+        public long targetHardwareAddress() {
+            return getMac(l3 + 18);
+        }
+
+        /**
+         * Returns the target protocol address.
+         *
+         * @return target IPv4 address as an int
+         */
+        public int targetProtocolAddress() {
+            return getInt(l3 + 24);
+        }
+    }
+
+    /**
+     * UDP header of the frame the cursor is wrapped around.
+     */
+    public final class UdpHeader {
+
+        private UdpHeader() {
+        }
+
+        /**
+         * Returns the source port.
+         *
+         * @return source port
+         */
+        public int sourcePort() {
+            return getShort(l4) & 0xffff;
+        }
+
+        /**
+         * Returns the destination port.
+         *
+         * @return destination port
+         */
+        public int destinationPort() {
+            return getShort(l4 + 2) & 0xffff;
+        }
+
+        /**
+         * Returns the length of the datagram.
+         *
+         * @return length in bytes, header included
+         */
+        public int length() {
+            return getShort(l4 + 4) & 0xffff;
+        }
+
+        /**
+         * Returns the offset of the payload in the buffer, as of a DHCP
+         * message.
+         *
+         * @return payload offset
+         */
+        public int payloadOffset() {
+            return l4 + UDP_HEADER_LENGTH;
+        }
+    }
+
+    /**
+     * TCP header of the frame the cursor is wrapped around.
+     */
+    public final class TcpHeader {
+
+        private TcpHeader() {
+        }
+
+        /**
+         * Returns the source port.
+         *
+         * @return source port
+         */
+        public int sourcePort() {
+            return getShort(l4) & 0xffff;
+        }
+
+        /**
+         * Returns the destination port.
+         *
+         * @return destination port
+         */
+        public int destinationPort() {
+            return getShort(l4 + 2) & 0xffff;
+        }
+
+        /**
+         * Returns the sequence number.
+         *
+         * @return sequence number
+         */
+        public int sequence() {
+            return getInt(l4 + 4);
+        }
+
+        /**
+         * Returns the acknowledgement number.
+         *
+         * @return acknowledgement number
+         */
+        public int acknowledge() {
+            return getInt(l4 + 8);
+        }
+
+        /**
+         * Returns the flags.
+         *
+         * @return flags, in the low 9 bits
+         */
+        public short flags() {
+            return (short) (getShort(l4 + 12) & 0x1ff);
+        }
+
+        /**
+         * Returns the offset of the payload in the buffer.
+         *
+         * @return payload offset
+         */
+        public int payloadOffset() {
+            return l4 + ((data[l4 + 12] & 0xf0) >>> 4) * 4;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+/**
+ * Tests for class {@link EthernetView}.
+ */
+public class EthernetViewTest {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP4 = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP4 = Ip4Address.valueOf("10.0.0.2");
+    private static final Ip6Address SRC_IP6 = Ip6Address.valueOf("fe80::1");
+    private static final Ip6Address DST_IP6 = Ip6Address.valueOf("fe80::2");
+
+    private Ethernet ethernet(short etherType, IPacket payload) {
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress(SRC_MAC);
+        eth.setDestinationMACAddress(DST_MAC);
+        eth.setEtherType(etherType);
+        eth.setPayload(payload);
+        return eth;
+    }
+
+    private IPv4 udp4() {
+        UDP udp = new UDP();
+        udp.setSourcePort(68);
+        udp.setDestinationPort(67);
+        udp.setPayload(new Data(new byte[4]));
+        IPv4 ip = new IPv4();
+        ip.setSourceAddress(SRC_IP4.toInt());
+        ip.setDestinationAddress(DST_IP4.toInt());
+        ip.setProtocol(IPv4.PROTOCOL_UDP);
+        ip.setPayload(udp);
+        return ip;
+    }
+
+    /**
+     * Tests reading the headers of a UDP over IPv4 frame.
+     */
+    @Test
+    public void testUdp4() {
+        EthernetView view = EthernetView.of(ethernet(Ethernet.TYPE_IPV4, udp4()).serialize());
+        assertThat(view.sourceMac(), is(SRC_MAC));
+        assertThat(view.destinationMac(), is(DST_MAC));
+        assertThat(view.etherType(), is(Ethernet.TYPE_IPV4));
+        assertThat(view.vlanId(), is(Ethernet.VLAN_UNTAGGED));
+        assertThat(view.ipProtocol(), is((int) IPv4.PROTOCOL_UDP));
+        assertThat(view.sourceIp(), is(SRC_IP4));
+        assertThat(view.destinationIp(), is(DST_IP4));
+        assertThat(view.sourcePort(), is(68));
+        assertThat(view.destinationPort(), is(67));
+    }
+
+    /**
+     * Tests reading the headers of a VLAN tagged TCP over IPv6 frame from a
+     * buffer already read from.
+     */
+    @Test
+    public void testTaggedTcp6() {
+        TCP tcp = new TCP();
+        tcp.setSourcePort(40000);
+        tcp.setDestinationPort(80);
+        IPv6 ip = new IPv6();
+        ip.setSourceAddress(SRC_IP6.toOctets());
+        ip.setDestinationAddress(DST_IP6.toOctets());
+        ip.setNextHeader(IPv6.PROTOCOL_TCP);
+        ip.setPayload(tcp);
+        Ethernet eth = ethernet(Ethernet.TYPE_IPV6, ip);
+        eth.setVlanID((short) 10);
+
+        ByteBuffer buffer = ByteBuffer.wrap(eth.serialize());
+        buffer.position(buffer.limit());
+        EthernetView view = EthernetView.of(buffer);
+        assertThat(view.etherType(), is(Ethernet.TYPE_IPV6));
+        assertThat(view.vlanId(), is((short) 10));
+        assertThat(view.ipProtocol(), is((int) IPv6.PROTOCOL_TCP));
+        assertThat(view.sourceIp(), is(SRC_IP6));
+        assertThat(view.destinationIp(), is(DST_IP6));
+        assertThat(view.sourcePort(), is(40000));
+        assertThat(view.destinationPort(), is(80));
+    }
+
+    /**
+     * Tests that headers missing from a frame read as sentinel values.
+     */
+    @Test
+    public void testMissingHeaders() {
+        EthernetView view = EthernetView.of(ethernet(Ethernet.TYPE_ARP, new Data(new byte[28])).serialize());
+        assertThat(view.etherType(), is(Ethernet.TYPE_ARP));
+        assertThat(view.ipProtocol(), is(-1));
+        assertThat(view.sourceIp(), is(nullValue()));
+        assertThat(view.sourcePort(), is(-1));
+
+        byte[] frame = ethernet(Ethernet.TYPE_IPV4, udp4()).serialize();
+        EthernetView truncated = EthernetView.of(Arrays.copyOf(frame, 20));
+        assertThat(truncated.etherType(), is(Ethernet.TYPE_IPV4));
+        assertThat(truncated.destinationIp(), is(nullValue()));
+        assertThat(truncated.destinationPort(), is(-1));
+
+        EthernetView runt = EthernetView.of(new byte[4]);
+        assertThat(runt.sourceMac(), is(nullValue()));
+        assertThat(runt.etherType(), is((short) 0));
+    }
+}
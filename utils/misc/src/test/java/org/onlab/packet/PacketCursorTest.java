@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018-present Open Networking Foundation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.onlab.packet;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for class {@link PacketCursor}.
+ */
+public class PacketCursorTest {
+
+    private static final MacAddress SRC_MAC = MacAddress.valueOf("00:00:00:00:00:01");
+    private static final MacAddress DST_MAC = MacAddress.valueOf("00:00:00:00:00:02");
+    private static final Ip4Address SRC_IP = Ip4Address.valueOf("10.0.0.1");
+    private static final Ip4Address DST_IP = Ip4Address.valueOf("10.0.0.2");
+
+    private static byte[] frame(IPv4 ip) {
+        ip.setSourceAddress(SRC_IP.toInt());
+        ip.setDestinationAddress(DST_IP.toInt());
+        ip.setTtl((byte) 64);
+        Ethernet eth = new Ethernet();
+        eth.setSourceMACAddress(SRC_MAC);
+        eth.setDestinationMACAddress(DST_MAC);
+        eth.setEtherType(Ethernet.TYPE_IPV4);
+        eth.setPayload(ip);
+        return eth.serialize();
+    }
+
+    private static byte[] udpFrame() {
+        UDP udp = new UDP();
+        udp.setSourcePort(68);
+        udp.setDestinationPort(67);
+        udp.setPayload(new Data(new byte[4]));
+        IPv4 ip = new IPv4();
+        ip.setProtocol(IPv4.PROTOCOL_UDP);
+        ip.setPayload(udp);
+        return frame(ip);
+    }
+
+    /**
+     * Tests reading the headers of a UDP over IPv4 frame held at an offset
+     * in a larger buffer.
+     */
+    @Test
+    public void testUdp() {
+        byte[] frame = udpFrame();
+        byte[] buffer = new byte[frame.length + 10];
+        System.arraycopy(frame, 0, buffer, 10, frame.length);
+
+        PacketCursor cursor = new PacketCursor();
+        assertTrue(cursor.wrap(buffer, 10, frame.length));
+        assertThat(cursor.ethernet().sourceMac(), is(SRC_MAC.toLong()));
+        assertThat(cursor.ethernet().destinationMac(), is(DST_MAC.toLong()));
+        assertThat(cursor.ethernet().etherType(), is(Ethernet.TYPE_IPV4));
+        assertThat(cursor.ethernet().vlanId(), is(Ethernet.VLAN_UNTAGGED));
+        assertThat(cursor.ipv4().protocol(), is((int) IPv4.PROTOCOL_UDP));
+        assertThat(cursor.ipv4().ttl(), is(64));
+        assertThat(cursor.ipv4().sourceAddress(), is(SRC_IP.toInt()));
+        assertThat(cursor.ipv4().destinationAddress(), is(DST_IP.toInt()));
+        assertThat(cursor.udp().sourcePort(), is(68));
+        assertThat(cursor.udp().destinationPort(), is(67));
+        assertThat(cursor.udp().length(), is(12));
+        assertThat(cursor.udp().payloadOffset(), is(10 + 14 + 20 + 8));
+        assertThat(cursor.tcp(), is(nullValue()));
+        assertThat(cursor.ipv6(), is(nullValue()));
+        assertThat(cursor.arp(), is(nullValue()));
+    }
+
+    /**
+     * Tests that rewrapping a cursor reuses its header objects.
+     */
+    @Test
+    public void testRewrap() {
+        TCP tcp = new TCP();
+        tcp.setSourcePort(40000);
+        tcp.setDestinationPort(80);
+        tcp.setSequence(7);
+        tcp.setFlags((short) 0x12);
+        IPv4 ip = new IPv4();
+        ip.setProtocol(IPv4.PROTOCOL_TCP);
+        ip.setPayload(tcp);
+        byte[] tcpFrame = frame(ip);
+
+        byte[] arpFrame = ARP.buildArpRequest(SRC_MAC.toBytes(), SRC_IP.toOctets(),
+                                              DST_IP.toOctets(), (short) 10).serialize();
+
+        PacketCursor cursor = new PacketCursor();
+        cursor.wrap(tcpFrame, 0, tcpFrame.length);
+        PacketCursor.EthernetHeader eth = cursor.ethernet();
+        assertThat(cursor.tcp().sourcePort(), is(40000));
+        assertThat(cursor.tcp().destinationPort(), is(80));
+        assertThat(cursor.tcp().sequence(), is(7));
+        assertThat(cursor.tcp().flags(), is((short) 0x12));
+        assertThat(cursor.udp(), is(nullValue()));
+
+        cursor.wrap(arpFrame, 0, arpFrame.length);
+        assertThat(cursor.ethernet(), is(sameInstance(eth)));
+        assertThat(eth.vlanId(), is((short) 10));
+        assertThat(eth.etherType(), is(Ethernet.TYPE_ARP));
+        assertThat(cursor.arp().opCode(), is(ARP.OP_REQUEST));
+        assertThat(cursor.arp().senderHardwareAddress(), is(SRC_MAC.toLong()));
+        assertThat(cursor.arp().senderProtocolAddress(), is(SRC_IP.toInt()));
+        assertThat(cursor.arp().targetProtocolAddress(), is(DST_IP.toInt()));
+        assertThat(cursor.ipv4(), is(nullValue()));
+        assertThat(cursor.tcp(), is(nullValue()));
+    }
+
+    /**
+     * Tests that truncated headers are not exposed.
+     */
+    @Test
+    public void testTruncated() {
+        byte[] frame = udpFrame();
+        PacketCursor cursor = new PacketCursor();
+
+        assertTrue(cursor.wrap(frame, 0, 40));
+        assertThat(cursor.ipv4().protocol(), is((int) IPv4.PROTOCOL_UDP));
+        assertThat(cursor.udp(), is(nullValue()));
+
+        assertTrue(cursor.wrap(frame, 0, 30));
+        assertThat(cursor.ethernet().etherType(), is(Ethernet.TYPE_IPV4));
+        assertThat(cursor.ipv4(), is(nullValue()));
+
+        assertFalse(cursor.wrap(frame, 0, 10));
+        assertThat(cursor.ethernet(), is(nullValue()));
+    }
+}